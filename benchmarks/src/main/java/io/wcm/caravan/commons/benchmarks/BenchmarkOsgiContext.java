@@ -0,0 +1,43 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.benchmarks;
+
+import org.apache.sling.testing.mock.osgi.context.OsgiContextImpl;
+
+/**
+ * OSGi mock context for registering and activating components outside of a JUnit rule.
+ */
+final class BenchmarkOsgiContext extends OsgiContextImpl {
+
+  /**
+   * Sets up the mock context, to be called from the benchmark setup method.
+   */
+  void start() {
+    setUp();
+  }
+
+  /**
+   * Tears down the mock context and deactivates all registered components.
+   */
+  void stop() {
+    tearDown();
+  }
+
+}
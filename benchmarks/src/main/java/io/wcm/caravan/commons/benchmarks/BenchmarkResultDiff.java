@@ -0,0 +1,101 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compares the primary scores of two JMH JSON result files, matched by benchmark name and parameters.
+ * <p>
+ * Usage: <code>java -cp target/benchmarks.jar io.wcm.caravan.commons.benchmarks.BenchmarkResultDiff
+ * &lt;baseline.json&gt; &lt;current.json&gt;</code>
+ * </p>
+ */
+public final class BenchmarkResultDiff {
+
+  private BenchmarkResultDiff() {
+    // main method only
+  }
+
+  /**
+   * @param args Baseline and current result file
+   * @throws IOException if reading the result files failed
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length != 2) {
+      System.err.println("Usage: BenchmarkResultDiff <baseline.json> <current.json>");
+      System.exit(1);
+      return;
+    }
+    Map<String, JsonNode> baseline = readScores(new File(args[0]));
+    Map<String, JsonNode> current = readScores(new File(args[1]));
+
+    System.out.println(String.format("%-100s %15s %15s %10s  %s", "Benchmark", "Baseline", "Current", "Change", "Unit"));
+    for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+      JsonNode currentMetric = entry.getValue();
+      JsonNode baselineMetric = baseline.get(entry.getKey());
+      double currentScore = currentMetric.path("score").asDouble();
+      String baselineScore = "-";
+      String change = "-";
+      if (baselineMetric != null) {
+        double score = baselineMetric.path("score").asDouble();
+        baselineScore = String.format("%.3f", score);
+        if (score != 0) {
+          change = String.format("%+.1f%%", (currentScore - score) * 100 / score);
+        }
+      }
+      System.out.println(String.format("%-100s %15s %15.3f %10s  %s", entry.getKey(), baselineScore, currentScore, change,
+          currentMetric.path("scoreUnit").asText()));
+    }
+    for (String key : baseline.keySet()) {
+      if (!current.containsKey(key)) {
+        System.out.println(String.format("%-100s %15s", key, "removed"));
+      }
+    }
+  }
+
+  private static Map<String, JsonNode> readScores(File file) throws IOException {
+    Map<String, JsonNode> scores = new LinkedHashMap<>();
+    for (JsonNode result : new ObjectMapper().readTree(file)) {
+      StringBuilder key = new StringBuilder(result.path("benchmark").asText());
+      // sort parameters by name to get a stable key
+      Map<String, String> params = new TreeMap<>();
+      Iterator<Map.Entry<String, JsonNode>> fields = result.path("params").fields();
+      while (fields.hasNext()) {
+        Map.Entry<String, JsonNode> field = fields.next();
+        params.put(field.getKey(), field.getValue().asText());
+      }
+      for (Map.Entry<String, String> param : params.entrySet()) {
+        key.append(' ').append(param.getKey()).append('=').append(param.getValue());
+      }
+      scores.put(key.toString(), result.path("primaryMetric"));
+    }
+    return scores;
+  }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.benchmarks;
+
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the JMH command line options, and stores the results as JSON file
+ * <code>jmh-result-&lt;timestamp&gt;.json</code> unless another result file or format is given.
+ * Two result files can be compared with {@link BenchmarkResultDiff}.
+ * <p>
+ * Usage: <code>java -jar target/benchmarks.jar [JMH options] [benchmark regexp]</code>
+ * </p>
+ */
+public final class BenchmarkRunner {
+
+  private BenchmarkRunner() {
+    // main method only
+  }
+
+  /**
+   * @param args JMH command line options
+   * @throws CommandLineOptionException if the command line options are invalid
+   * @throws RunnerException if running the benchmarks failed
+   * @throws IOException if help could not be written
+   */
+  public static void main(String[] args) throws CommandLineOptionException, RunnerException, IOException {
+    CommandLineOptions cmdOptions = new CommandLineOptions(args);
+    if (cmdOptions.shouldHelp()) {
+      cmdOptions.showHelp();
+      return;
+    }
+    if (cmdOptions.shouldList()) {
+      new Runner(cmdOptions).list();
+      return;
+    }
+
+    ChainedOptionsBuilder options = new OptionsBuilder().parent(cmdOptions);
+    if (!cmdOptions.getResultFormat().hasValue()) {
+      options.resultFormat(ResultFormatType.JSON);
+    }
+    if (!cmdOptions.getResult().hasValue()) {
+      options.result("jmh-result-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".json");
+    }
+    new Runner(options.build()).run();
+  }
+
+}
@@ -0,0 +1,173 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import io.wcm.caravan.commons.httpclient.impl.helpers.ContentDecoding;
+
+/**
+ * Measures reading a HAL+JSON response body through the streaming content decoding of the HTTP clients,
+ * for an uncompressed body and for gzip and deflate compressed bodies.
+ * Run with <code>-prof gc</code> to compare allocation rates.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ContentDecodingBenchmark {
+
+  /**
+   * Content coding of the response body.
+   */
+  @Param({ "identity", "gzip", "deflate" })
+  public String encoding;
+
+  /**
+   * Number of items in the JSON response body.
+   */
+  @Param({ "20", "500" })
+  public int itemCount;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private ContentDecoding contentDecoding;
+  private byte[] content;
+
+  /**
+   * Prepares a HAL+JSON resource with the given number of embedded items, encoded with the given content coding.
+   * @throws IOException if encoding fails
+   */
+  @Setup
+  public void setUp() throws IOException {
+    contentDecoding = new ContentDecoding(Arrays.asList(ContentDecoding.GZIP, ContentDecoding.DEFLATE));
+    byte[] json = objectMapper.writeValueAsBytes(createResource());
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (OutputStream out = createEncoder(bytes)) {
+      out.write(json);
+    }
+    content = bytes.toByteArray();
+  }
+
+  private OutputStream createEncoder(OutputStream out) throws IOException {
+    switch (encoding) {
+      case ContentDecoding.GZIP:
+        return new GZIPOutputStream(out);
+      case ContentDecoding.DEFLATE:
+        return new DeflaterOutputStream(out);
+      default:
+        return out;
+    }
+  }
+
+  private JsonNode createResource() {
+    ObjectNode resource = objectMapper.createObjectNode();
+    resource.putObject("_links").putObject("self").put("href", "/content/products.json");
+    resource.put("total", itemCount);
+    ArrayNode items = resource.putObject("_embedded").putArray("item");
+    for (int i = 0; i < itemCount; i++) {
+      ObjectNode item = items.addObject();
+      ObjectNode links = item.putObject("_links");
+      links.putObject("self").put("href", "/content/products/product-" + i + ".json");
+      links.putObject("category").put("href", "/content/categories/category-" + (i % 10) + ".json");
+      item.put("id", "product-" + i);
+      item.put("title", "Product " + i);
+      item.put("description", "Description of product " + i + " with some repetitive marketing text.");
+      item.put("price", 10 + i % 100);
+      item.put("available", i % 3 != 0);
+    }
+    return resource;
+  }
+
+  private HttpResponse createResponse() {
+    HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "OK");
+    ByteArrayEntity entity = new ByteArrayEntity(content);
+    if (!"identity".equals(encoding)) {
+      entity.setContentEncoding(encoding);
+    }
+    response.setEntity(entity);
+    return response;
+  }
+
+  /**
+   * Decodes the response and reads the body without parsing it.
+   * @return Number of bytes read
+   * @throws IOException if reading fails
+   */
+  @Benchmark
+  public long decodeAndDrain() throws IOException {
+    HttpResponse response = createResponse();
+    contentDecoding.decode(response);
+    byte[] buffer = new byte[4096];
+    long count = 0;
+    try (InputStream is = response.getEntity().getContent()) {
+      int read;
+      while ((read = is.read(buffer)) >= 0) {
+        count += read;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Decodes the response and parses the body while it is decompressed.
+   * @return Parsed resource
+   * @throws IOException if reading fails
+   */
+  @Benchmark
+  public JsonNode decodeAndParse() throws IOException {
+    HttpResponse response = createResponse();
+    contentDecoding.decode(response);
+    try (InputStream is = response.getEntity().getContent()) {
+      return objectMapper.readTree(is);
+    }
+  }
+
+}
@@ -0,0 +1,158 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.benchmarks;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.wcm.caravan.commons.cors.impl.CorsServletFilter;
+
+/**
+ * CORS filter applied to a request with origin header, with all hosts allowed or checked against white and black list.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CorsServletFilterBenchmark {
+
+  /**
+   * Whether the filter allows all hosts instead of checking a host whitelist.
+   */
+  @Param({ "true", "false" })
+  public boolean allowAllHosts;
+
+  private final BenchmarkOsgiContext context = new BenchmarkOsgiContext();
+  private Filter filter;
+  private HttpServletRequest request;
+  private HeaderCountingResponse response;
+  private final FilterChain chain = (req, res) -> {
+    // end of chain
+  };
+
+  /**
+   * Registers the filter and prepares request and response.
+   */
+  @Setup
+  public void setUp() {
+    context.start();
+    Map<String, Object> props = new HashMap<>();
+    props.put("allowAllHosts", allowAllHosts);
+    props.put("hostWhitelist", new String[] { "http://host1.example.com", "http://host2.example.com" });
+    props.put("hostBlacklist", new String[] { "http://host3.example.com" });
+    filter = context.registerInjectActivateService(new CorsServletFilter(), props);
+    request = new OriginRequest("http://host1.example.com");
+    response = new HeaderCountingResponse();
+  }
+
+  /**
+   * Deactivates the filter.
+   */
+  @TearDown
+  public void tearDown() {
+    context.stop();
+  }
+
+  /**
+   * @return Number of headers set so far
+   * @throws IOException I/O exception
+   * @throws ServletException Servlet exception
+   */
+  @Benchmark
+  public int doFilter() throws IOException, ServletException {
+    filter.doFilter(request, response, chain);
+    return response.headerCount;
+  }
+
+  private static <T> T unsupported(Class<T> type) {
+    return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (proxy, method, args) -> {
+      throw new UnsupportedOperationException(method.getName());
+    }));
+  }
+
+  /**
+   * Request only providing the origin header.
+   */
+  private static final class OriginRequest extends HttpServletRequestWrapper {
+
+    private final String origin;
+
+    OriginRequest(String origin) {
+      super(unsupported(HttpServletRequest.class));
+      this.origin = origin;
+    }
+
+    @Override
+    public String getHeader(String name) {
+      return "Origin".equals(name) ? origin : null;
+    }
+
+  }
+
+  /**
+   * Response only counting the headers set.
+   */
+  private static final class HeaderCountingResponse extends HttpServletResponseWrapper {
+
+    private int headerCount;
+
+    HeaderCountingResponse() {
+      super(unsupported(HttpServletResponse.class));
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+      headerCount++;
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+      headerCount++;
+    }
+
+  }
+
+}
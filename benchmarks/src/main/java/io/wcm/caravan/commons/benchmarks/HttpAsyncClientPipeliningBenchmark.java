@@ -0,0 +1,255 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.benchmarks;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.nio.client.HttpPipeliningClient;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.wcm.caravan.commons.httpasyncclient.HttpAsyncClientFactory;
+import io.wcm.caravan.commons.httpasyncclient.impl.HttpAsyncClientFactoryImpl;
+import io.wcm.caravan.commons.httpclient.impl.HttpClientConfigImpl;
+
+/**
+ * Throughput of pipelines of GET requests against a local stub server, with and without HTTP/1.1 pipelining.
+ * <p>
+ * Each operation sends a pipeline of concurrent requests via the pipelining client of the async factory and waits
+ * for all responses, so the score is pipelines per second. Without pipelining each request uses its own
+ * connection, with pipelining max. <code>maxPipelinedRequests</code> requests share a connection.
+ * The number of connections opened during the measurement is reported as secondary result.
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HttpAsyncClientPipeliningBenchmark {
+
+  /**
+   * Whether HTTP/1.1 request pipelining is enabled.
+   */
+  @Param({ "true", "false" })
+  public boolean pipelining;
+
+  /**
+   * Max. number of requests sent in one pipeline.
+   */
+  @Param({ "4", "16" })
+  public int maxPipelinedRequests;
+
+  /**
+   * Number of requests per operation.
+   */
+  @Param({ "64" })
+  public int concurrency;
+
+  private static final int RESPONSE_SIZE = 256;
+
+  private final BenchmarkOsgiContext context = new BenchmarkOsgiContext();
+  private StubServer server;
+  private HttpPipeliningClient client;
+  private HttpHost target;
+
+  /**
+   * Starts the stub server and registers HTTP client configuration and async factory.
+   * @throws IOException if the stub server cannot be started
+   */
+  @Setup
+  public void setUp() throws IOException {
+    server = new StubServer(RESPONSE_SIZE);
+    target = new HttpHost("127.0.0.1", server.getPort());
+    String targetUrl = target.toURI() + "/resource";
+
+    context.start();
+    Map<String, Object> configProps = new HashMap<>();
+    configProps.put("hostPatterns", new String[] { "127\\.0\\.0\\.1" });
+    configProps.put("maxConnectionsPerHost", concurrency);
+    configProps.put("maxTotalConnections", concurrency);
+    configProps.put("pipelining", pipelining);
+    configProps.put("maxPipelinedRequests", maxPipelinedRequests);
+    context.registerInjectActivateService(new HttpClientConfigImpl(), configProps);
+
+    HttpAsyncClientFactory factory = context.registerInjectActivateService(new HttpAsyncClientFactoryImpl());
+    client = factory.getPipelining(targetUrl);
+  }
+
+  /**
+   * Shuts down the factory, all HTTP clients and the stub server.
+   * @throws IOException if the stub server cannot be stopped
+   */
+  @TearDown
+  public void tearDown() throws IOException {
+    context.stop();
+    server.close();
+  }
+
+  /**
+   * Resets the connection counters of the stub server.
+   */
+  @Setup(Level.Iteration)
+  public void resetConnectionCounters() {
+    server.resetCounters();
+  }
+
+  /**
+   * @param counters Connection counters of the current iteration
+   * @return Number of responses of the pipeline
+   * @throws InterruptedException if interrupted while waiting for the responses
+   * @throws ExecutionException if a request failed
+   */
+  @Benchmark
+  public int requestPipeline(ConnectionCounters counters) throws InterruptedException, ExecutionException {
+    List<HttpRequest> requests = new ArrayList<>(concurrency);
+    for (int i = 0; i < concurrency; i++) {
+      requests.add(new HttpGet("/resource"));
+    }
+    List<HttpResponse> responses = client.execute(target, requests, null).get();
+    counters.openedConnections = server.getOpenedConnections();
+    return responses.size();
+  }
+
+  /**
+   * Connections opened by the stub server, summed up over the iterations.
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class ConnectionCounters {
+
+    /**
+     * Number of connections opened.
+     */
+    public int openedConnections;
+
+  }
+
+  /**
+   * Minimal HTTP/1.1 server answering each request of a connection in order with a static response,
+   * which supports pipelined requests and counts the connections.
+   */
+  private static final class StubServer {
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final byte[] response;
+    private final AtomicInteger openedConnections = new AtomicInteger();
+
+    StubServer(int responseSize) throws IOException {
+      String header = "HTTP/1.1 200 OK\r\n"
+          + "Content-Type: application/octet-stream\r\n"
+          + "Content-Length: " + responseSize + "\r\n\r\n";
+      byte[] headerBytes = header.getBytes(StandardCharsets.US_ASCII);
+      response = new byte[headerBytes.length + responseSize];
+      System.arraycopy(headerBytes, 0, response, 0, headerBytes.length);
+
+      serverSocket = new ServerSocket(0, 1024, InetAddress.getByName("127.0.0.1"));
+      executor.execute(this::accept);
+    }
+
+    int getPort() {
+      return serverSocket.getLocalPort();
+    }
+
+    int getOpenedConnections() {
+      return openedConnections.get();
+    }
+
+    void resetCounters() {
+      openedConnections.set(0);
+    }
+
+    private void accept() {
+      while (!serverSocket.isClosed()) {
+        try {
+          Socket socket = serverSocket.accept();
+          openedConnections.incrementAndGet();
+          executor.execute(() -> handle(socket));
+        }
+        catch (IOException ex) {
+          // server socket closed
+        }
+      }
+    }
+
+    private void handle(Socket socket) {
+      try (Socket connection = socket;
+          BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.US_ASCII));
+          OutputStream out = new BufferedOutputStream(connection.getOutputStream())) {
+        String line;
+        while ((line = in.readLine()) != null) {
+          // GET requests without body end with an empty line
+          if (line.isEmpty()) {
+            out.write(response);
+            // send pipelined responses together
+            if (!in.ready()) {
+              out.flush();
+            }
+          }
+        }
+      }
+      catch (IOException ex) {
+        // connection closed by client
+      }
+    }
+
+    void close() throws IOException {
+      serverSocket.close();
+      executor.shutdownNow();
+    }
+
+  }
+
+}
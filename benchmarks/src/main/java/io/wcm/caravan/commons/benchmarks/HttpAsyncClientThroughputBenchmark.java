@@ -0,0 +1,180 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.nio.client.HttpAsyncClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sun.net.httpserver.HttpServer;
+
+import io.wcm.caravan.commons.httpasyncclient.HttpAsyncClientFactory;
+import io.wcm.caravan.commons.httpasyncclient.impl.HttpAsyncClientFactoryImpl;
+import io.wcm.caravan.commons.httpclient.impl.HttpClientConfigImpl;
+
+/**
+ * Throughput of the async HTTP client against a local stub server with different IO reactor settings.
+ * <p>
+ * Each operation sends a batch of concurrent GET requests and waits for all responses, so the score is
+ * batches per second. The configuration either uses the IO reactors shared by the factory, or a dedicated
+ * IO reactor with the given IO thread count. The stub server returns a static response body of the given size.
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HttpAsyncClientThroughputBenchmark {
+
+  /**
+   * IO dispatcher threads of a dedicated IO reactor, 0 uses the setting of the async client factory.
+   */
+  @Param({ "0", "1", "4" })
+  public int ioThreadCount;
+
+  /**
+   * Whether Nagle's algorithm is disabled on the client connections.
+   */
+  @Param({ "true", "false" })
+  public boolean tcpNoDelay;
+
+  /**
+   * Response body size in bytes.
+   */
+  @Param({ "256", "65536" })
+  public int responseSize;
+
+  /**
+   * Number of concurrent requests per operation.
+   */
+  @Param({ "64" })
+  public int concurrency;
+
+  private static final int SERVER_THREADS = 16;
+
+  private final BenchmarkOsgiContext context = new BenchmarkOsgiContext();
+  private HttpServer server;
+  private ExecutorService serverExecutor;
+  private HttpAsyncClient client;
+  private String targetUrl;
+
+  /**
+   * Starts the stub server and registers HTTP client configuration and async factory.
+   * @throws IOException if the stub server cannot be started
+   */
+  @Setup
+  public void setUp() throws IOException {
+    byte[] responseBody = new byte[responseSize];
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+    server.createContext("/", exchange -> {
+      exchange.getResponseHeaders().add("Content-Type", "application/octet-stream");
+      exchange.sendResponseHeaders(200, responseBody.length);
+      try (OutputStream os = exchange.getResponseBody()) {
+        os.write(responseBody);
+      }
+    });
+    serverExecutor = Executors.newFixedThreadPool(SERVER_THREADS);
+    server.setExecutor(serverExecutor);
+    server.start();
+    targetUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/resource";
+
+    context.start();
+    Map<String, Object> configProps = new HashMap<>();
+    configProps.put("hostPatterns", new String[] { "127\\.0\\.0\\.1" });
+    configProps.put("maxConnectionsPerHost", concurrency);
+    configProps.put("maxTotalConnections", concurrency);
+    // 0 = shared IO reactors of the factory, otherwise a dedicated IO reactor is used
+    configProps.put("ioThreadCount", ioThreadCount);
+    configProps.put("tcpNoDelay", Boolean.toString(tcpNoDelay));
+    context.registerInjectActivateService(new HttpClientConfigImpl(), configProps);
+
+    Map<String, Object> factoryProps = new HashMap<>();
+    factoryProps.put("tcpNoDelay", tcpNoDelay);
+    HttpAsyncClientFactory factory = context.registerInjectActivateService(new HttpAsyncClientFactoryImpl(), factoryProps);
+    client = factory.get(targetUrl);
+  }
+
+  /**
+   * Shuts down the factory, all HTTP clients and the stub server.
+   */
+  @TearDown
+  public void tearDown() {
+    context.stop();
+    server.stop(0);
+    serverExecutor.shutdownNow();
+  }
+
+  /**
+   * @return Number of successful responses of the batch
+   * @throws InterruptedException if interrupted while waiting for the responses
+   */
+  @Benchmark
+  public int requestBatch() throws InterruptedException {
+    CountDownLatch done = new CountDownLatch(concurrency);
+    AtomicInteger succeeded = new AtomicInteger();
+    FutureCallback<HttpResponse> callback = new FutureCallback<HttpResponse>() {
+      @Override
+      public void completed(HttpResponse response) {
+        succeeded.incrementAndGet();
+        done.countDown();
+      }
+      @Override
+      public void failed(Exception ex) {
+        done.countDown();
+      }
+      @Override
+      public void cancelled() {
+        done.countDown();
+      }
+    };
+    for (int i = 0; i < concurrency; i++) {
+      client.execute(new HttpGet(targetUrl), callback);
+    }
+    done.await();
+    return succeeded.get();
+  }
+
+}
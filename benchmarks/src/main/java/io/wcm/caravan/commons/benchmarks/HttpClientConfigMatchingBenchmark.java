@@ -0,0 +1,113 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.wcm.caravan.commons.httpclient.HttpClientConfig;
+import io.wcm.caravan.commons.httpclient.impl.HttpClientConfigImpl;
+
+/**
+ * Host and path pattern matching of a single HTTP client configuration.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HttpClientConfigMatchingBenchmark {
+
+  private final BenchmarkOsgiContext context = new BenchmarkOsgiContext();
+  private HttpClientConfig config;
+
+  // non-final to prevent constant folding
+  private String matchingHost = "host1.example.com";
+  private String otherHost = "host1.example.net";
+  private String matchingPath = "/content/path1/resource.json";
+  private String otherPath = "/other/path1/resource.json";
+
+  /**
+   * Registers a configuration with literal, sub domain and regular expression patterns.
+   */
+  @Setup
+  public void setUp() {
+    context.start();
+    Map<String, Object> props = new HashMap<>();
+    props.put("hostPatterns", new String[] { "host0\\.example\\.com", ".*\\.example\\.org", "host[0-9]+\\.example\\.com" });
+    props.put("pathPatterns", new String[] { "/api/.*", "/content/.*" });
+    config = context.registerInjectActivateService(new HttpClientConfigImpl(), props);
+  }
+
+  /**
+   * Deactivates the configuration.
+   */
+  @TearDown
+  public void tearDown() {
+    context.stop();
+  }
+
+  /**
+   * @return Match result
+   */
+  @Benchmark
+  public boolean matchesHostHit() {
+    return config.matchesHost(matchingHost);
+  }
+
+  /**
+   * @return Match result
+   */
+  @Benchmark
+  public boolean matchesHostMiss() {
+    return config.matchesHost(otherHost);
+  }
+
+  /**
+   * @return Match result
+   */
+  @Benchmark
+  public boolean matchesPathHit() {
+    return config.matchesPath(matchingPath);
+  }
+
+  /**
+   * @return Match result
+   */
+  @Benchmark
+  public boolean matchesPathMiss() {
+    return config.matchesPath(otherPath);
+  }
+
+}
@@ -0,0 +1,141 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.benchmarks;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.client.config.RequestConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.wcm.caravan.commons.httpclient.HttpClientFactory;
+import io.wcm.caravan.commons.httpclient.impl.HttpClientConfigImpl;
+import io.wcm.caravan.commons.httpclient.impl.HttpClientFactoryImpl;
+
+/**
+ * Resolving the HTTP client configuration for a target URL with a growing number of configurations.
+ * <p>
+ * Each configuration matches one host name. The target URLs either match the last configuration
+ * or no configuration at all, and are spread over a number of distinct paths to measure both cached
+ * route decisions and lookups in the route index.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HttpClientFactoryBenchmark {
+
+  /**
+   * Number of registered client configurations.
+   */
+  @Param({ "1", "10", "100" })
+  public int configCount;
+
+  /**
+   * Whether the target URLs match the last registered configuration.
+   */
+  @Param({ "true", "false" })
+  public boolean matching;
+
+  /**
+   * Number of distinct target URL paths.
+   */
+  @Param({ "1", "4096" })
+  public int distinctPaths;
+
+  private final BenchmarkOsgiContext context = new BenchmarkOsgiContext();
+  private HttpClientFactory factory;
+  private String[] targetUrls;
+  private URI[] targetUris;
+  private int index;
+
+  /**
+   * Registers the HTTP client configurations and the factory.
+   */
+  @Setup
+  public void setUp() {
+    context.start();
+    for (int i = 0; i < configCount; i++) {
+      Map<String, Object> props = new HashMap<>();
+      props.put("hostPatterns", new String[] { "host" + i + "\\.example\\.com" });
+      props.put("connectTimeout", 1000 + i);
+      context.registerInjectActivateService(new HttpClientConfigImpl(), props);
+    }
+    factory = context.registerInjectActivateService(new HttpClientFactoryImpl());
+
+    String host = matching ? "host" + (configCount - 1) + ".example.com" : "other.example.com";
+    targetUrls = new String[distinctPaths];
+    targetUris = new URI[distinctPaths];
+    for (int i = 0; i < distinctPaths; i++) {
+      targetUrls[i] = "http://" + host + "/path" + i + "/resource.json";
+      targetUris[i] = URI.create(targetUrls[i]);
+    }
+  }
+
+  /**
+   * Shuts down the factory and all HTTP clients.
+   */
+  @TearDown
+  public void tearDown() {
+    context.stop();
+  }
+
+  /**
+   * @return Request config resolved for target URL string
+   */
+  @Benchmark
+  public RequestConfig getDefaultRequestConfigString() {
+    return factory.getDefaultRequestConfig(targetUrls[nextIndex()]);
+  }
+
+  /**
+   * @return Request config resolved for target URI
+   */
+  @Benchmark
+  public RequestConfig getDefaultRequestConfigUri() {
+    return factory.getDefaultRequestConfig(targetUris[nextIndex()]);
+  }
+
+  private int nextIndex() {
+    int next = index + 1;
+    if (next == distinctPaths) {
+      next = 0;
+    }
+    index = next;
+    return next;
+  }
+
+}
@@ -0,0 +1,185 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sun.net.httpserver.HttpServer;
+
+import io.wcm.caravan.commons.httpclient.HttpClientFactory;
+import io.wcm.caravan.commons.httpclient.impl.HttpClientConfigImpl;
+import io.wcm.caravan.commons.httpclient.impl.HttpClientFactoryImpl;
+
+/**
+ * Many blocking callers sharing the synchronous HTTP client, with and without admission limit.
+ * <p>
+ * Each operation starts the given number of callers, each sending one GET request to a local stub server,
+ * and waits for all of them, so the score is the time per batch. If the JVM supports virtual threads,
+ * each caller runs on its own virtual thread, otherwise a cached platform thread pool is used.
+ * Without admission limit most callers wait for a connection inside the connection pool, which pins
+ * their carrier threads. Run with <code>-Djdk.tracePinnedThreads=short</code> on Java 21 to see the pinned waits.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HttpClientVirtualThreadsBenchmark {
+
+  /**
+   * Whether concurrent requests are limited to the number of connections.
+   */
+  @Param({ "true", "false" })
+  public boolean admissionLimit;
+
+  /**
+   * Number of callers per operation.
+   */
+  @Param({ "10000" })
+  public int callers;
+
+  /**
+   * Max. number of connections per host and in total.
+   */
+  @Param({ "64" })
+  public int maxConnections;
+
+  private static final int SERVER_THREADS = 16;
+
+  private final BenchmarkOsgiContext context = new BenchmarkOsgiContext();
+  private HttpServer server;
+  private ExecutorService serverExecutor;
+  private ExecutorService callerExecutor;
+  private CloseableHttpClient client;
+  private String targetUrl;
+
+  /**
+   * Starts the stub server, the caller executor and registers HTTP client configuration and factory.
+   * @throws IOException if the stub server cannot be started
+   */
+  @Setup
+  public void setUp() throws IOException {
+    byte[] responseBody = new byte[256];
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+    server.createContext("/", exchange -> {
+      exchange.getResponseHeaders().add("Content-Type", "application/octet-stream");
+      exchange.sendResponseHeaders(200, responseBody.length);
+      try (OutputStream os = exchange.getResponseBody()) {
+        os.write(responseBody);
+      }
+    });
+    serverExecutor = Executors.newFixedThreadPool(SERVER_THREADS);
+    server.setExecutor(serverExecutor);
+    server.start();
+    targetUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/resource";
+
+    callerExecutor = newCallerExecutor();
+
+    context.start();
+    Map<String, Object> configProps = new HashMap<>();
+    configProps.put("hostPatterns", new String[] { "127\\.0\\.0\\.1" });
+    configProps.put("maxConnectionsPerHost", maxConnections);
+    configProps.put("maxTotalConnections", maxConnections);
+    configProps.put("connectionRequestTimeout", 120000);
+    configProps.put("maxConcurrentRequests", admissionLimit ? maxConnections : 0);
+    context.registerInjectActivateService(new HttpClientConfigImpl(), configProps);
+
+    HttpClientFactory factory = context.registerInjectActivateService(new HttpClientFactoryImpl());
+    client = (CloseableHttpClient)factory.get(targetUrl);
+  }
+
+  /**
+   * Shuts down the factory, all HTTP clients, the caller executor and the stub server.
+   */
+  @TearDown
+  public void tearDown() {
+    callerExecutor.shutdownNow();
+    context.stop();
+    server.stop(0);
+    serverExecutor.shutdownNow();
+  }
+
+  /**
+   * @return Number of successful responses of the batch
+   * @throws InterruptedException if interrupted while waiting for the responses
+   */
+  @Benchmark
+  public int callerBatch() throws InterruptedException {
+    CountDownLatch done = new CountDownLatch(callers);
+    AtomicInteger succeeded = new AtomicInteger();
+    for (int i = 0; i < callers; i++) {
+      callerExecutor.execute(() -> {
+        try (CloseableHttpResponse response = client.execute(new HttpGet(targetUrl))) {
+          EntityUtils.consume(response.getEntity());
+          succeeded.incrementAndGet();
+        }
+        catch (IOException ex) {
+          // counted as failed request
+        }
+        finally {
+          done.countDown();
+        }
+      });
+    }
+    done.await();
+    return succeeded.get();
+  }
+
+  /**
+   * Uses a virtual thread per task executor if available (Java 21+), the benchmarks are built for Java 8.
+   */
+  private static ExecutorService newCallerExecutor() {
+    try {
+      return (ExecutorService)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    }
+    catch (ReflectiveOperationException ex) {
+      return Executors.newCachedThreadPool();
+    }
+  }
+
+}
@@ -0,0 +1,85 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.wcm.caravan.common.performance.PerformanceLogger;
+import io.wcm.caravan.common.performance.PerformanceMetrics;
+
+/**
+ * Creating and logging performance metrics of sub operations.
+ * <p>
+ * The logger is bound to slf4j-simple with the default level, so {@link #log()} measures the cost with debug
+ * logging disabled as in production. Add <code>-jvmArgsAppend -Dorg.slf4j.simpleLogger.defaultLogLevel=debug</code>
+ * to include building the log line.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PerformanceMetricsBenchmark {
+
+  private PerformanceMetrics root;
+  private PerformanceMetrics charged;
+
+  /**
+   * Creates a root metrics instance and a charged sub operation metrics instance.
+   */
+  @Setup
+  public void setUp() {
+    root = PerformanceMetrics.createNew("action", "action descriptor", "correlation-id");
+    charged = root.createNext("next-action", "next action descriptor", PerformanceMetricsBenchmark.class);
+    charged.setStartTimestamp();
+    charged.setOperationTimestamp();
+    charged.setEndTimestamp();
+  }
+
+  /**
+   * @return Metrics of sub operation
+   */
+  @Benchmark
+  public PerformanceMetrics createNext() {
+    return root.createNext("next-action", "next action descriptor");
+  }
+
+  /**
+   * Logs the charged metrics.
+   */
+  @Benchmark
+  public void log() {
+    PerformanceLogger.log(charged);
+  }
+
+}
@@ -0,0 +1,120 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.codahale.metrics.MetricRegistry;
+
+import io.wcm.caravan.commons.metrics.rx.HitsAndMissesCountingMetricsOperator;
+import io.wcm.caravan.commons.metrics.rx.TimerMetricsOperator;
+import rx.Observable;
+import rx.Observer;
+
+/**
+ * Overhead of the metrics operators per subscription, compared to a subscription without operator.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RxMetricsOperatorsBenchmark {
+
+  private final MetricRegistry registry = new MetricRegistry();
+  private final Observable<String> single = Observable.just("item");
+  private final Observable<String> empty = Observable.empty();
+  private TimerMetricsOperator<String> timerOperator;
+  private HitsAndMissesCountingMetricsOperator<String> hitsAndMissesOperator;
+  private Observer<String> observer;
+
+  /**
+   * Creates the operators and an observer passing all items to the black hole.
+   * @param blackhole Black hole
+   */
+  @Setup
+  public void setUp(Blackhole blackhole) {
+    timerOperator = new TimerMetricsOperator<>(registry.timer("timer"));
+    hitsAndMissesOperator = new HitsAndMissesCountingMetricsOperator<>(registry.counter("hits"), registry.counter("misses"));
+    observer = new Observer<String>() {
+
+      @Override
+      public void onCompleted() {
+        blackhole.consume(true);
+      }
+
+      @Override
+      public void onError(Throwable e) {
+        blackhole.consume(e);
+      }
+
+      @Override
+      public void onNext(String item) {
+        blackhole.consume(item);
+      }
+    };
+  }
+
+  /**
+   * Subscription without operator.
+   */
+  @Benchmark
+  public void baseline() {
+    single.subscribe(observer);
+  }
+
+  /**
+   * Subscription with timer operator.
+   */
+  @Benchmark
+  public void timer() {
+    single.lift(timerOperator).subscribe(observer);
+  }
+
+  /**
+   * Subscription with hits and misses operator emitting one item.
+   */
+  @Benchmark
+  public void hitsAndMissesHit() {
+    single.lift(hitsAndMissesOperator).subscribe(observer);
+  }
+
+  /**
+   * Subscription with hits and misses operator emitting no item.
+   */
+  @Benchmark
+  public void hitsAndMissesMiss() {
+    empty.lift(hitsAndMissesOperator).subscribe(observer);
+  }
+
+}
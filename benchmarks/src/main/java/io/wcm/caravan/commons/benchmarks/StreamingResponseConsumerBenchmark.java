@@ -0,0 +1,244 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.protocol.BasicAsyncResponseConsumer;
+import org.apache.http.nio.protocol.HttpAsyncResponseConsumer;
+import org.apache.http.protocol.BasicHttpContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import io.wcm.caravan.commons.httpasyncclient.consumer.JsonResponseConsumer;
+import io.wcm.caravan.commons.httpasyncclient.consumer.JsonTokenHandler;
+import io.wcm.caravan.commons.httpasyncclient.consumer.ResponseContentSink;
+import io.wcm.caravan.commons.httpasyncclient.consumer.StreamingResponseConsumer;
+
+/**
+ * Compares consuming a large HAL+JSON response with the buffering {@link BasicAsyncResponseConsumer} and with the
+ * streaming consumers, without network I/O: the content is passed to the consumers in chunks of 8 KB, like the
+ * session buffers of the async client pass it.
+ * <p>
+ * Run with <code>-prof gc</code> to compare allocation rates and GC time, and with
+ * <code>-jvmArgsAppend -Xlog:gc</code> to see the GC pauses.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StreamingResponseConsumerBenchmark {
+
+  private static final int CHUNK_SIZE = 8192;
+
+  /**
+   * Approximate content size in bytes.
+   */
+  @Param({ "1048576", "52428800" })
+  public int contentSize;
+
+  private final JsonFactory jsonFactory = new JsonFactory();
+  private byte[] content;
+
+  /**
+   * Prepares a HAL+JSON resource with embedded items up to the given size.
+   */
+  @Setup
+  public void setUp() {
+    StringBuilder json = new StringBuilder(contentSize + 1024);
+    json.append("{\"_links\":{\"self\":{\"href\":\"/content/products.json\"}},\"_embedded\":{\"item\":[");
+    for (int i = 0; json.length() < contentSize; i++) {
+      if (i > 0) {
+        json.append(',');
+      }
+      json.append("{\"_links\":{\"self\":{\"href\":\"/content/products/product-").append(i).append(".json\"}},")
+          .append("\"id\":\"product-").append(i).append("\",\"title\":\"Product ").append(i).append("\",")
+          .append("\"price\":").append(10 + i % 100).append(",\"available\":").append(i % 3 != 0).append('}');
+    }
+    json.append("]}}");
+    content = json.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Baseline: buffer the content in heap, then parse it from the entity.
+   * @return Number of tokens
+   * @throws Exception if consuming fails
+   */
+  @Benchmark
+  public int bufferAndParse() throws Exception {
+    HttpResponse response = consume(new BasicAsyncResponseConsumer());
+    int tokens = 0;
+    try (InputStream is = response.getEntity().getContent();
+        JsonParser parser = jsonFactory.createParser(is)) {
+      while (parser.nextToken() != null) {
+        tokens++;
+      }
+    }
+    return tokens;
+  }
+
+  /**
+   * Parse the content with the non-blocking parser while it is read.
+   * @return Number of tokens
+   * @throws Exception if consuming fails
+   */
+  @Benchmark
+  public int streamAndParse() throws Exception {
+    return consume(new JsonResponseConsumer<>(new TokenCounter()));
+  }
+
+  /**
+   * Baseline: buffer the content in heap, then read it from the entity.
+   * @return Checksum
+   * @throws Exception if consuming fails
+   */
+  @Benchmark
+  public long bufferAndDrain() throws Exception {
+    HttpResponse response = consume(new BasicAsyncResponseConsumer());
+    byte[] buffer = new byte[CHUNK_SIZE];
+    long checksum = 0;
+    try (InputStream is = response.getEntity().getContent()) {
+      int read;
+      while ((read = is.read(buffer)) >= 0) {
+        for (int i = 0; i < read; i++) {
+          checksum += buffer[i];
+        }
+      }
+    }
+    return checksum;
+  }
+
+  /**
+   * Pass the content to a sink while it is read.
+   * @return Checksum
+   * @throws Exception if consuming fails
+   */
+  @Benchmark
+  public long streamAndDrain() throws Exception {
+    return consume(new StreamingResponseConsumer<>(new ChecksumSink()));
+  }
+
+  private <T> T consume(HttpAsyncResponseConsumer<T> consumer) throws Exception {
+    HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+    BasicHttpEntity entity = new BasicHttpEntity();
+    entity.setContentLength(content.length);
+    entity.setContentType("application/hal+json");
+    response.setEntity(entity);
+
+    consumer.responseReceived(response);
+    consumer.consumeContent(new ChunkedContentDecoder(content), null);
+    consumer.responseCompleted(new BasicHttpContext());
+    if (consumer.getException() != null) {
+      throw consumer.getException();
+    }
+    return consumer.getResult();
+  }
+
+
+  private static final class ChunkedContentDecoder implements ContentDecoder {
+
+    private final ByteBuffer content;
+
+    ChunkedContentDecoder(byte[] content) {
+      this.content = ByteBuffer.wrap(content);
+    }
+
+    @Override
+    public int read(ByteBuffer dst) {
+      if (!content.hasRemaining()) {
+        return -1;
+      }
+      int count = Math.min(Math.min(CHUNK_SIZE, dst.remaining()), content.remaining());
+      ByteBuffer chunk = content.slice();
+      chunk.limit(count);
+      dst.put(chunk);
+      content.position(content.position() + count);
+      return count;
+    }
+
+    @Override
+    public boolean isCompleted() {
+      return !content.hasRemaining();
+    }
+
+  }
+
+
+  private static final class TokenCounter implements JsonTokenHandler<Integer> {
+
+    private int tokens;
+
+    @Override
+    public void onToken(JsonParser parser, JsonToken token) {
+      tokens++;
+    }
+
+    @Override
+    public Integer onComplete() {
+      return tokens;
+    }
+
+  }
+
+
+  private static final class ChecksumSink implements ResponseContentSink<Long> {
+
+    private long checksum;
+
+    @Override
+    public void onContent(ByteBuffer chunk) {
+      while (chunk.hasRemaining()) {
+        checksum += chunk.get();
+      }
+    }
+
+    @Override
+    public Long onComplete() {
+      return checksum;
+    }
+
+  }
+
+}
@@ -0,0 +1,124 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.benchmarks;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.wcm.caravan.commons.httpclient.HttpClientConfig;
+import io.wcm.caravan.commons.httpclient.impl.helpers.DefaultHttpClientConfig;
+import io.wcm.caravan.commons.httpclient.impl.helpers.RouteCache;
+import io.wcm.caravan.commons.httpclient.impl.helpers.RouteIndex;
+import io.wcm.caravan.commons.httpclient.impl.helpers.TargetUrlParser;
+
+/**
+ * Compares parsing target URL strings via {@link URI} with {@link TargetUrlParser}, both standalone and
+ * in combination with the route decision cache used by the HTTP client factories.
+ * Run with <code>-prof gc</code> to compare allocation rates.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TargetUrlParsingBenchmark {
+
+  /**
+   * Target URL to parse.
+   */
+  @Param({
+      "http://host1.example.com/path1/path2.json",
+      "https://host1.example.com:8443/path1/path2.json?param1=value1&param2=value2"
+  })
+  public String targetUrl;
+
+  private RouteCache<HttpClientConfig> routeCache;
+
+  /**
+   * Prepares a route cache with a single config matching all hosts.
+   */
+  @Setup
+  public void setUp() {
+    List<HttpClientConfig> configs = new ArrayList<>();
+    configs.add(DefaultHttpClientConfig.INSTANCE);
+    routeCache = new RouteCache<>(RouteIndex.build(configs, Function.identity(),
+        (config, host, wsAddressingToUri, path, isWsCall) -> config.matchesHost(host) && config.matchesPath(path)));
+  }
+
+  /**
+   * Baseline: host and path via {@link URI}.
+   * @return Host and path hash
+   * @throws URISyntaxException if URL is invalid
+   */
+  @Benchmark
+  public int parseUri() throws URISyntaxException {
+    URI uri = new URI(targetUrl);
+    return uri.getHost().hashCode() + uri.getPath().hashCode();
+  }
+
+  /**
+   * Host and path positions via {@link TargetUrlParser}.
+   * @return Host and path hash
+   */
+  @Benchmark
+  public int parseTargetUrl() {
+    long parts = TargetUrlParser.parse(targetUrl);
+    return TargetUrlParser.hashCode(targetUrl, TargetUrlParser.hostStart(parts), TargetUrlParser.hostEnd(parts))
+        + TargetUrlParser.hashCode(targetUrl, TargetUrlParser.pathStart(parts), TargetUrlParser.pathEnd(parts));
+  }
+
+  /**
+   * Route lookup as done by the factories before: parse via {@link URI} and resolve from cache.
+   * @return Resolved config
+   * @throws URISyntaxException if URL is invalid
+   */
+  @Benchmark
+  public HttpClientConfig resolveUri() throws URISyntaxException {
+    URI uri = new URI(targetUrl);
+    return routeCache.resolve(uri.getHost(), null, uri.getPath(), false);
+  }
+
+  /**
+   * Route lookup on the string overloads of the factories: parse in place and resolve from cache.
+   * @return Resolved config
+   */
+  @Benchmark
+  public HttpClientConfig resolveTargetUrl() {
+    return routeCache.resolve(targetUrl, TargetUrlParser.parse(targetUrl), null, false);
+  }
+
+}
@@ -24,6 +24,7 @@ import java.net.URI;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
 import org.apache.http.nio.client.HttpAsyncClient;
+import org.apache.http.nio.client.HttpPipeliningClient;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.osgi.annotation.versioning.ProviderType;
@@ -118,6 +119,26 @@ public interface HttpAsyncClientFactory {
   @NotNull
   CloseableHttpAsyncClient getCloseableWs(@Nullable URI targetUrl, @Nullable URI wsAddressingToUri);
 
+  /**
+   * Returns a configured asynchronous Http Client for executing pipelines of requests to the given target URL.
+   * If pipelining is enabled in the configuration, the requests of a pipeline are sent in a row on shared
+   * connections without waiting for the responses (HTTP/1.1 pipelining). Otherwise each request is executed on its own.
+   * @param targetUrl Target URL to call (this url is not called, but required to check for configuration)
+   * @return Http Client
+   */
+  @NotNull
+  HttpPipeliningClient getPipelining(@Nullable String targetUrl);
+
+  /**
+   * Returns a configured asynchronous Http Client for executing pipelines of requests to the given target URL.
+   * If pipelining is enabled in the configuration, the requests of a pipeline are sent in a row on shared
+   * connections without waiting for the responses (HTTP/1.1 pipelining). Otherwise each request is executed on its own.
+   * @param targetUrl Target URL to call (this url is not called, but required to check for configuration)
+   * @return Http Client
+   */
+  @NotNull
+  HttpPipeliningClient getPipelining(@Nullable URI targetUrl);
+
   /**
    * Returns the default Request Configuration for the given target URL. If a special configuration
    * (e.g. timeout setting, proxy server, authentication) is configured it is applied in the factory.
@@ -0,0 +1,140 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpasyncclient.consumer;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Bounded pool of byte buffers with a fixed size, used by the streaming response consumers to read response content
+ * without allocating a buffer for each response.
+ * <p>
+ * Buffers are allocated on demand if the pool is empty. Released buffers are kept for reuse up to the maximum number
+ * of pooled buffers, further buffers are left to the garbage collector.
+ * </p>
+ */
+public final class ByteBufferPool {
+
+  /**
+   * Default buffer size
+   */
+  public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+  /**
+   * Default maximum number of pooled buffers
+   */
+  public static final int DEFAULT_MAX_POOLED_BUFFERS = 256;
+
+  private static final ByteBufferPool DIRECT_INSTANCE = new ByteBufferPool(DEFAULT_BUFFER_SIZE, DEFAULT_MAX_POOLED_BUFFERS, true);
+  private static final ByteBufferPool HEAP_INSTANCE = new ByteBufferPool(DEFAULT_BUFFER_SIZE, DEFAULT_MAX_POOLED_BUFFERS, false);
+
+  private final int bufferSize;
+  private final boolean direct;
+  private final BlockingQueue<ByteBuffer> buffers;
+  private final AtomicLong allocatedCount = new AtomicLong();
+
+  /**
+   * @param bufferSize Size of the buffers in bytes
+   * @param maxPooledBuffers Maximum number of buffers kept for reuse
+   * @param direct true to allocate direct buffers, false for heap buffers
+   */
+  public ByteBufferPool(int bufferSize, int maxPooledBuffers, boolean direct) {
+    if (bufferSize <= 0) {
+      throw new IllegalArgumentException("Invalid buffer size: " + bufferSize);
+    }
+    if (maxPooledBuffers <= 0) {
+      throw new IllegalArgumentException("Invalid max pooled buffers: " + maxPooledBuffers);
+    }
+    this.bufferSize = bufferSize;
+    this.direct = direct;
+    this.buffers = new ArrayBlockingQueue<>(maxPooledBuffers);
+  }
+
+  /**
+   * @return Shared pool of direct buffers with default size
+   */
+  public static @NotNull ByteBufferPool getDirectInstance() {
+    return DIRECT_INSTANCE;
+  }
+
+  /**
+   * @return Shared pool of heap buffers with default size
+   */
+  public static @NotNull ByteBufferPool getHeapInstance() {
+    return HEAP_INSTANCE;
+  }
+
+  /**
+   * Takes a buffer from the pool, or allocates a new one if the pool is empty.
+   * @return Cleared buffer
+   */
+  public @NotNull ByteBuffer acquire() {
+    ByteBuffer buffer = buffers.poll();
+    if (buffer == null) {
+      allocatedCount.incrementAndGet();
+      return direct ? ByteBuffer.allocateDirect(bufferSize) : ByteBuffer.allocate(bufferSize);
+    }
+    buffer.clear();
+    return buffer;
+  }
+
+  /**
+   * Returns a buffer to the pool. The buffer must not be used by the caller afterwards.
+   * @param buffer Buffer acquired from this pool
+   */
+  public void release(@NotNull ByteBuffer buffer) {
+    if (buffer.capacity() == bufferSize && buffer.isDirect() == direct) {
+      buffers.offer(buffer);
+    }
+  }
+
+  /**
+   * @return Size of the buffers in bytes
+   */
+  public int getBufferSize() {
+    return bufferSize;
+  }
+
+  /**
+   * @return true if the pool contains direct buffers
+   */
+  public boolean isDirect() {
+    return direct;
+  }
+
+  /**
+   * @return Number of buffers currently available for reuse
+   */
+  public int getPooledCount() {
+    return buffers.size();
+  }
+
+  /**
+   * @return Number of buffers allocated by the pool since it was created
+   */
+  public long getAllocatedCount() {
+    return allocatedCount.get();
+  }
+
+}
@@ -0,0 +1,141 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpasyncclient.consumer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.protocol.AbstractAsyncResponseConsumer;
+import org.apache.http.protocol.HttpContext;
+import org.jetbrains.annotations.NotNull;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+
+/**
+ * Response consumer that parses the JSON content of a response with a non-blocking Jackson parser while it is read
+ * from the connection, and passes the tokens to a {@link JsonTokenHandler}.
+ * <p>
+ * The content is read into a single buffer taken from a {@link ByteBufferPool} and fed to the parser without
+ * copying, so the pool has to provide heap buffers. The buffer is returned to the pool when the response is
+ * completed, failed or cancelled. Content encodings are not decoded by this consumer.
+ * </p>
+ * @param <T> Result type
+ */
+public class JsonResponseConsumer<T> extends AbstractAsyncResponseConsumer<T> {
+
+  private static final JsonFactory DEFAULT_JSON_FACTORY = new JsonFactory();
+
+  private final JsonTokenHandler<T> handler;
+  private final JsonFactory jsonFactory;
+  private final ByteBufferPool bufferPool;
+  private JsonParser parser;
+  private ByteBuffer buffer;
+
+  /**
+   * Reads the content into heap buffers of the shared pool.
+   * @param handler Receives the JSON tokens
+   */
+  public JsonResponseConsumer(@NotNull JsonTokenHandler<T> handler) {
+    this(handler, DEFAULT_JSON_FACTORY, ByteBufferPool.getHeapInstance());
+  }
+
+  /**
+   * @param handler Receives the JSON tokens
+   * @param jsonFactory Factory for the non-blocking parser
+   * @param bufferPool Pool of heap buffers the content is read into
+   */
+  public JsonResponseConsumer(@NotNull JsonTokenHandler<T> handler, @NotNull JsonFactory jsonFactory,
+      @NotNull ByteBufferPool bufferPool) {
+    if (bufferPool.isDirect()) {
+      throw new IllegalArgumentException("JSON parser requires a pool of heap buffers.");
+    }
+    this.handler = handler;
+    this.jsonFactory = jsonFactory;
+    this.bufferPool = bufferPool;
+  }
+
+  @Override
+  protected void onResponseReceived(HttpResponse response) throws IOException {
+    handler.onResponse(response);
+    parser = jsonFactory.createNonBlockingByteArrayParser();
+  }
+
+  @Override
+  protected void onEntityEnclosed(HttpEntity entity, ContentType contentType) {
+    // content is read in onContentReceived
+  }
+
+  @Override
+  protected synchronized void onContentReceived(ContentDecoder decoder, IOControl ioControl) throws IOException {
+    if (isDone()) {
+      // cancelled, the buffer was already released
+      return;
+    }
+    if (buffer == null) {
+      buffer = bufferPool.acquire();
+    }
+    ByteArrayFeeder feeder = (ByteArrayFeeder)parser.getNonBlockingInputFeeder();
+    while (decoder.read(buffer) > 0) {
+      feeder.feedInput(buffer.array(), buffer.arrayOffset(), buffer.arrayOffset() + buffer.position());
+      // the parser reads from the buffer until it needs more input
+      nextTokens();
+      buffer.clear();
+    }
+  }
+
+  @Override
+  protected T buildResult(HttpContext context) throws IOException {
+    ((ByteArrayFeeder)parser.getNonBlockingInputFeeder()).endOfInput();
+    nextTokens();
+    return handler.onComplete();
+  }
+
+  private void nextTokens() throws IOException {
+    JsonToken token;
+    while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+      handler.onToken(parser, token);
+    }
+  }
+
+  @Override
+  protected synchronized void releaseResources() {
+    if (buffer != null) {
+      bufferPool.release(buffer);
+      buffer = null;
+    }
+    if (parser != null) {
+      try {
+        parser.close();
+      }
+      catch (IOException ex) {
+        // ignore, the parser does not hold any resources
+      }
+    }
+  }
+
+}
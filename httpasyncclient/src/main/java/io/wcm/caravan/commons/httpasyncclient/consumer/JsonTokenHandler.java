@@ -0,0 +1,64 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpasyncclient.consumer;
+
+import java.io.IOException;
+
+import org.apache.http.HttpResponse;
+import org.jetbrains.annotations.NotNull;
+import org.osgi.annotation.versioning.ConsumerType;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Receives the JSON tokens of a response from a {@link JsonResponseConsumer} while the content is read.
+ * All methods are called from the I/O dispatch thread of the HTTP client and must not block.
+ * @param <T> Result type
+ */
+@ConsumerType
+public interface JsonTokenHandler<T> {
+
+  /**
+   * Called when the status line and headers of the response are received. The response entity must not be read.
+   * @param response Response
+   * @throws IOException to abort the request, e.g. if the response has no JSON content
+   */
+  default void onResponse(@NotNull HttpResponse response) throws IOException {
+    // nothing to do by default
+  }
+
+  /**
+   * Called for each complete token. Values of the current token can be read from the parser,
+   * but the parser must not be advanced.
+   * @param parser Non-blocking JSON parser positioned on the token
+   * @param token Current token
+   * @throws IOException to abort the request
+   */
+  void onToken(@NotNull JsonParser parser, @NotNull JsonToken token) throws IOException;
+
+  /**
+   * Called when all tokens of the response were passed to the handler.
+   * @return Result of the response consumer
+   * @throws IOException to fail the request
+   */
+  T onComplete() throws IOException;
+
+}
@@ -0,0 +1,61 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpasyncclient.consumer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.apache.http.HttpResponse;
+import org.jetbrains.annotations.NotNull;
+import org.osgi.annotation.versioning.ConsumerType;
+
+/**
+ * Receives the content of a response chunk by chunk from a {@link StreamingResponseConsumer}.
+ * All methods are called from the I/O dispatch thread of the HTTP client and must not block.
+ * @param <T> Result type
+ */
+@ConsumerType
+public interface ResponseContentSink<T> {
+
+  /**
+   * Called when the status line and headers of the response are received. The response entity must not be read.
+   * @param response Response
+   * @throws IOException to abort the request
+   */
+  default void onResponse(@NotNull HttpResponse response) throws IOException {
+    // nothing to do by default
+  }
+
+  /**
+   * Called for each chunk of content as it is read from the connection.
+   * The buffer belongs to a pool and may only be read until this method returns.
+   * @param content Buffer with the chunk between its position and limit
+   * @throws IOException to abort the request
+   */
+  void onContent(@NotNull ByteBuffer content) throws IOException;
+
+  /**
+   * Called when the response content was read completely.
+   * @return Result of the response consumer
+   * @throws IOException to fail the request
+   */
+  T onComplete() throws IOException;
+
+}
@@ -0,0 +1,105 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpasyncclient.consumer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.protocol.AbstractAsyncResponseConsumer;
+import org.apache.http.protocol.HttpContext;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Response consumer that passes the response content to a {@link ResponseContentSink} while it is read from
+ * the connection, instead of buffering the whole content in memory.
+ * <p>
+ * The content is read into a single buffer taken from a {@link ByteBufferPool}, which is returned to the pool when
+ * the response is completed, failed or cancelled. Content encodings are not decoded by this consumer.
+ * </p>
+ * @param <T> Result type
+ */
+public class StreamingResponseConsumer<T> extends AbstractAsyncResponseConsumer<T> {
+
+  private final ResponseContentSink<T> sink;
+  private final ByteBufferPool bufferPool;
+  private ByteBuffer buffer;
+
+  /**
+   * Reads the content into direct buffers of the shared pool.
+   * @param sink Receives the response content
+   */
+  public StreamingResponseConsumer(@NotNull ResponseContentSink<T> sink) {
+    this(sink, ByteBufferPool.getDirectInstance());
+  }
+
+  /**
+   * @param sink Receives the response content
+   * @param bufferPool Pool of the buffers the content is read into
+   */
+  public StreamingResponseConsumer(@NotNull ResponseContentSink<T> sink, @NotNull ByteBufferPool bufferPool) {
+    this.sink = sink;
+    this.bufferPool = bufferPool;
+  }
+
+  @Override
+  protected void onResponseReceived(HttpResponse response) throws IOException {
+    sink.onResponse(response);
+  }
+
+  @Override
+  protected void onEntityEnclosed(HttpEntity entity, ContentType contentType) {
+    // content is read in onContentReceived
+  }
+
+  @Override
+  protected synchronized void onContentReceived(ContentDecoder decoder, IOControl ioControl) throws IOException {
+    if (isDone()) {
+      // cancelled, the buffer was already released
+      return;
+    }
+    if (buffer == null) {
+      buffer = bufferPool.acquire();
+    }
+    while (decoder.read(buffer) > 0) {
+      buffer.flip();
+      sink.onContent(buffer);
+      buffer.clear();
+    }
+  }
+
+  @Override
+  protected T buildResult(HttpContext context) throws IOException {
+    return sink.onComplete();
+  }
+
+  @Override
+  protected synchronized void releaseResources() {
+    if (buffer != null) {
+      bufferPool.release(buffer);
+      buffer = null;
+    }
+  }
+
+}
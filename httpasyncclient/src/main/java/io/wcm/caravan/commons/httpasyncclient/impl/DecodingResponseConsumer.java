@@ -0,0 +1,169 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpasyncclient.impl;
+
+import java.io.IOException;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpException;
+import org.apache.http.HttpResponse;
+import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.protocol.HttpAsyncResponseConsumer;
+import org.apache.http.protocol.HttpContext;
+import org.jetbrains.annotations.NotNull;
+
+import io.wcm.caravan.commons.httpasyncclient.consumer.ByteBufferPool;
+import io.wcm.caravan.commons.httpclient.impl.helpers.ContentDecoding;
+
+/**
+ * Response consumer decompressing the content of a compressed response for the wrapped consumer.
+ * <p>
+ * gzip and deflate compressed content is inflated while it is received, the wrapped consumer only sees the
+ * decompressed content and the compressed body is never buffered as a whole. Other content codings like Brotli have
+ * no incremental decoder: their compressed body is buffered by the wrapped consumer, and the entity of the result is
+ * replaced with an entity decompressing the content while it is read by the caller.
+ * </p>
+ */
+class DecodingResponseConsumer implements HttpAsyncResponseConsumer<HttpResponse> {
+
+  private final HttpAsyncResponseConsumer<HttpResponse> delegate;
+  private final ContentDecoding contentDecoding;
+  private final ByteBufferPool bufferPool;
+  private InflatingContentDecoder inflatingDecoder;
+  private boolean decoded;
+
+  DecodingResponseConsumer(@NotNull HttpAsyncResponseConsumer<HttpResponse> delegate, @NotNull ContentDecoding contentDecoding) {
+    this(delegate, contentDecoding, ByteBufferPool.getHeapInstance());
+  }
+
+  /**
+   * @param delegate Consumer of the decompressed response
+   * @param contentDecoding Content decoding
+   * @param bufferPool Pool of heap buffers for the compressed and the inflated content
+   */
+  DecodingResponseConsumer(@NotNull HttpAsyncResponseConsumer<HttpResponse> delegate, @NotNull ContentDecoding contentDecoding,
+      @NotNull ByteBufferPool bufferPool) {
+    this.delegate = delegate;
+    this.contentDecoding = contentDecoding;
+    this.bufferPool = bufferPool;
+  }
+
+  @Override
+  public synchronized void responseReceived(HttpResponse response) throws IOException, HttpException {
+    String coding = contentDecoding.getContentCoding(response);
+    if (ContentDecoding.GZIP.equals(coding) || ContentDecoding.DEFLATE.equals(coding)) {
+      inflatingDecoder = new InflatingContentDecoder(ContentDecoding.GZIP.equals(coding), contentDecoding, bufferPool);
+      response.setEntity(decodedEntity(response.getEntity()));
+      ContentDecoding.removeEncodingHeaders(response);
+      decoded = true;
+    }
+    delegate.responseReceived(response);
+  }
+
+  private static HttpEntity decodedEntity(HttpEntity entity) {
+    BasicHttpEntity decodedEntity = new BasicHttpEntity();
+    decodedEntity.setContentType(entity.getContentType());
+    decodedEntity.setContentLength(-1);
+    return decodedEntity;
+  }
+
+  @Override
+  public synchronized void consumeContent(ContentDecoder decoder, IOControl ioControl) throws IOException {
+    if (inflatingDecoder == null) {
+      delegate.consumeContent(decoder, ioControl);
+      return;
+    }
+    if (inflatingDecoder.isReleased()) {
+      // consumer is cancelled
+      return;
+    }
+    inflatingDecoder.setSource(decoder);
+    delegate.consumeContent(inflatingDecoder, ioControl);
+  }
+
+  @Override
+  public void responseCompleted(HttpContext context) {
+    try {
+      delegate.responseCompleted(context);
+    }
+    finally {
+      releaseDecoder();
+    }
+  }
+
+  @Override
+  public void failed(Exception ex) {
+    try {
+      delegate.failed(ex);
+    }
+    finally {
+      releaseDecoder();
+    }
+  }
+
+  @Override
+  public Exception getException() {
+    return delegate.getException();
+  }
+
+  @Override
+  public synchronized HttpResponse getResult() {
+    HttpResponse result = delegate.getResult();
+    if (result != null && !decoded) {
+      decoded = true;
+      contentDecoding.decode(result);
+    }
+    return result;
+  }
+
+  @Override
+  public boolean isDone() {
+    return delegate.isDone();
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      delegate.close();
+    }
+    finally {
+      releaseDecoder();
+    }
+  }
+
+  @Override
+  public boolean cancel() {
+    try {
+      return delegate.cancel();
+    }
+    finally {
+      releaseDecoder();
+    }
+  }
+
+  private synchronized void releaseDecoder() {
+    if (inflatingDecoder != null) {
+      inflatingDecoder.release();
+    }
+  }
+
+}
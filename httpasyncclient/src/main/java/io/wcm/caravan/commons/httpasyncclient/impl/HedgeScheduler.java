@@ -0,0 +1,142 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpasyncclient.impl;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Schedules backup requests and retries of all hedging or retrying async HTTP clients with a single background thread.
+ * <p>
+ * The scheduled tasks only hand over the request to the IO reactor of the client, so a single thread is
+ * sufficient. The thread is started when the first client registers and stopped when the last registration
+ * is released, so no thread is left running when all HTTP clients are closed.
+ * </p>
+ */
+final class HedgeScheduler {
+
+  static final String THREAD_NAME = "caravan-http-hedge-scheduler";
+
+  private static final HedgeScheduler INSTANCE = new HedgeScheduler();
+
+  private ScheduledThreadPoolExecutor executor;
+  private int registrationCount;
+
+  HedgeScheduler() {
+    // use shared instance
+  }
+
+  /**
+   * @return Scheduler shared by all async HTTP clients
+   */
+  static @NotNull HedgeScheduler getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Registers a client, starting the background thread if required.
+   * @return Registration
+   */
+  synchronized @NotNull Registration register() {
+    if (executor == null) {
+      executor = new ScheduledThreadPoolExecutor(1, new HedgeThreadFactory());
+      executor.setRemoveOnCancelPolicy(true);
+    }
+    registrationCount++;
+    return new Registration();
+  }
+
+  /**
+   * @return true if the background thread is running
+   */
+  synchronized boolean isRunning() {
+    return executor != null;
+  }
+
+  private synchronized ScheduledFuture<?> schedule(Runnable task, long delayMs) {
+    if (executor == null) {
+      throw new IllegalStateException("Hedge scheduler is not running.");
+    }
+    return executor.schedule(task, delayMs, TimeUnit.MILLISECONDS);
+  }
+
+  private synchronized void release() {
+    registrationCount--;
+    if (registrationCount == 0) {
+      executor.shutdownNow();
+      executor = null;
+    }
+  }
+
+
+  /**
+   * Registration of a client.
+   */
+  final class Registration {
+
+    private boolean released;
+
+    /**
+     * @param task Task
+     * @param delayMs Delay in ms
+     * @return Scheduled task or null if the registration is already released
+     */
+    @Nullable
+    ScheduledFuture<?> schedule(@NotNull Runnable task, long delayMs) {
+      synchronized (HedgeScheduler.this) {
+        if (released) {
+          return null;
+        }
+        return HedgeScheduler.this.schedule(task, delayMs);
+      }
+    }
+
+    /**
+     * Releases the registration. Calling this method more than once has no effect.
+     */
+    void release() {
+      synchronized (HedgeScheduler.this) {
+        if (!released) {
+          released = true;
+          HedgeScheduler.this.release();
+        }
+      }
+    }
+
+  }
+
+
+  private static final class HedgeThreadFactory implements ThreadFactory {
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, THREAD_NAME);
+      thread.setDaemon(true);
+      return thread;
+    }
+
+  }
+
+}
@@ -0,0 +1,174 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpasyncclient.impl;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.concurrent.BasicFuture;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HttpContext;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Result of a hedged request: The original request is sent immediately, a backup request is sent after the hedge
+ * delay if no response was received until then and the budget of backup requests is not exhausted.
+ * The response received first completes the future and the other request is cancelled. The future fails only
+ * if all requests that were sent failed.
+ */
+class HedgedFuture extends BasicFuture<HttpResponse> {
+
+  /**
+   * Context attributes that are set up by the caller and are required by the backup request as well.
+   */
+  private static final String[] CONTEXT_ATTRIBUTES = {
+      HttpClientContext.REQUEST_CONFIG,
+      HttpClientContext.COOKIE_STORE,
+      HttpClientContext.COOKIESPEC_REGISTRY,
+      HttpClientContext.AUTHSCHEME_REGISTRY,
+      HttpClientContext.CREDS_PROVIDER,
+      HttpClientContext.AUTH_CACHE,
+      HttpClientContext.USER_TOKEN
+  };
+
+  private final HedgingPolicy hedgingPolicy;
+  private final long startNanos = System.nanoTime();
+  private final AtomicInteger runningRequests = new AtomicInteger(1);
+  private volatile Future<HttpResponse> originalRequest;
+  private volatile Future<HttpResponse> backupRequest;
+  private volatile ScheduledFuture<?> backupTask;
+
+  HedgedFuture(@NotNull HedgingPolicy hedgingPolicy, @Nullable FutureCallback<HttpResponse> callback) {
+    super(callback);
+    this.hedgingPolicy = hedgingPolicy;
+  }
+
+  /**
+   * Sends the original request and schedules the backup request.
+   * @param original Executes the original request with the given callback
+   * @param backup Executes the backup request with the given callback
+   */
+  void start(@NotNull Function<FutureCallback<HttpResponse>, Future<HttpResponse>> original,
+      @NotNull Function<FutureCallback<HttpResponse>, Future<HttpResponse>> backup) {
+    hedgingPolicy.requestStarted();
+    originalRequest = original.apply(new RequestCallback(false));
+    if (isDone()) {
+      return;
+    }
+    backupTask = hedgingPolicy.schedule(() -> sendBackupRequest(backup), hedgingPolicy.getDelay());
+    if (isDone()) {
+      cancelRequests();
+    }
+  }
+
+  private void sendBackupRequest(Function<FutureCallback<HttpResponse>, Future<HttpResponse>> backup) {
+    if (isDone() || !hedgingPolicy.tryAcquireHedge()) {
+      return;
+    }
+    runningRequests.incrementAndGet();
+    backupRequest = backup.apply(new RequestCallback(true));
+    if (isDone()) {
+      cancelRequests();
+    }
+  }
+
+  @Override
+  public boolean cancel(boolean mayInterruptIfRunning) {
+    boolean cancelled = super.cancel(mayInterruptIfRunning);
+    if (cancelled) {
+      cancelRequests();
+    }
+    return cancelled;
+  }
+
+  private void cancelRequests() {
+    ScheduledFuture<?> task = backupTask;
+    if (task != null) {
+      task.cancel(false);
+    }
+    Future<HttpResponse> request = originalRequest;
+    if (request != null) {
+      request.cancel(true);
+    }
+    request = backupRequest;
+    if (request != null) {
+      request.cancel(true);
+    }
+  }
+
+  /**
+   * Creates the context for the backup request, which must not share the state of the original request.
+   * @param context Context of the original request
+   * @return New context with the attributes set up by the caller
+   */
+  static @NotNull HttpContext createBackupContext(@Nullable HttpContext context) {
+    HttpContext backupContext = new BasicHttpContext();
+    if (context != null) {
+      for (String name : CONTEXT_ATTRIBUTES) {
+        Object value = context.getAttribute(name);
+        if (value != null) {
+          backupContext.setAttribute(name, value);
+        }
+      }
+    }
+    return backupContext;
+  }
+
+
+  private final class RequestCallback implements FutureCallback<HttpResponse> {
+
+    private final boolean isBackup;
+
+    RequestCallback(boolean isBackup) {
+      this.isBackup = isBackup;
+    }
+
+    @Override
+    public void completed(HttpResponse result) {
+      runningRequests.decrementAndGet();
+      if (HedgedFuture.this.completed(result)) {
+        hedgingPolicy.completed(System.nanoTime() - startNanos, isBackup);
+        cancelRequests();
+      }
+    }
+
+    @Override
+    public void failed(Exception ex) {
+      if (runningRequests.decrementAndGet() == 0 && HedgedFuture.this.failed(ex)) {
+        cancelRequests();
+      }
+    }
+
+    @Override
+    public void cancelled() {
+      if (runningRequests.decrementAndGet() == 0) {
+        HedgedFuture.this.cancel();
+      }
+    }
+
+  }
+
+}
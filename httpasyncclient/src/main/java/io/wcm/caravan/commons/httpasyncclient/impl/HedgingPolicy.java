@@ -0,0 +1,237 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpasyncclient.impl;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpRequest;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpHead;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import com.codahale.metrics.ExponentiallyDecayingReservoir;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.RatioGauge;
+
+import io.wcm.caravan.commons.httpclient.HttpClientConfig;
+import io.wcm.caravan.commons.httpclient.impl.helpers.ConnectionPoolMetrics;
+
+/**
+ * Decides when backup requests are sent for GET and HEAD requests of an async HTTP client, and records the
+ * latencies and hedging statistics.
+ * <p>
+ * The hedge delay is either fixed, or derived from a percentile of the recently observed latencies, which is
+ * recalculated at most once per second. The number of backup requests is limited by a token bucket: Each hedgeable
+ * request adds the configured percentage of a token, each backup request takes a full token.
+ * </p>
+ */
+final class HedgingPolicy {
+
+  static final String METRIC_REQUESTS = "hedge.requests";
+  static final String METRIC_SENT = "hedge.sent";
+  static final String METRIC_WINS = "hedge.wins";
+  static final String METRIC_RATE = "hedge.rate";
+  static final String METRIC_WIN_RATE = "hedge.winrate";
+  static final String METRIC_DELAY = "hedge.delay";
+
+  /**
+   * Min. number of recorded latencies before the hedge delay is derived from the latency percentile.
+   */
+  static final int MIN_SAMPLES = 100;
+
+  private static final long DELAY_REFRESH_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  /**
+   * Tokens are counted in percent to avoid rounding errors, so a backup request takes 100 tokens.
+   */
+  private static final int HEDGE_COST = 100;
+  private static final int MAX_TOKENS = 10 * HEDGE_COST;
+
+  private final HedgeScheduler.Registration schedulerRegistration;
+  private final Histogram latencies = new Histogram(new ExponentiallyDecayingReservoir());
+  private final Meter requests = new Meter();
+  private final Meter sent = new Meter();
+  private final Meter wins = new Meter();
+
+  private volatile int fixedDelay;
+  private volatile double percentile;
+  private volatile int maxHedgePercent;
+  private volatile long delay;
+  private volatile long nextDelayRefresh;
+  private int tokens = HEDGE_COST;
+
+  HedgingPolicy(@NotNull HttpClientConfig config, @NotNull HedgeScheduler.Registration schedulerRegistration) {
+    this.schedulerRegistration = schedulerRegistration;
+    setConfig(config);
+  }
+
+  /**
+   * @param config HTTP client configuration
+   * @return Hedging policy or null if hedging is not enabled
+   */
+  static @Nullable HedgingPolicy create(@NotNull HttpClientConfig config) {
+    if (config.getHedgeDelay() <= 0) {
+      return null;
+    }
+    return new HedgingPolicy(config, HedgeScheduler.getInstance().register());
+  }
+
+  /**
+   * Applies changed hedge delay, percentile and max. hedge percentage.
+   * @param config HTTP client configuration
+   */
+  void setConfig(@NotNull HttpClientConfig config) {
+    fixedDelay = config.getHedgeDelay();
+    percentile = config.getHedgeDelayPercentile();
+    maxHedgePercent = config.getMaxHedgePercent();
+    delay = fixedDelay;
+    nextDelayRefresh = System.nanoTime();
+  }
+
+  /**
+   * @param request Request
+   * @return true if a backup request may be sent for the request
+   */
+  static boolean isHedgeable(@NotNull HttpRequest request) {
+    String method = request.getRequestLine().getMethod();
+    return (HttpGet.METHOD_NAME.equals(method) || HttpHead.METHOD_NAME.equals(method))
+        && !(request instanceof HttpEntityEnclosingRequest);
+  }
+
+  /**
+   * @return Current hedge delay in ms
+   */
+  long getDelay() {
+    if (percentile <= 0) {
+      return fixedDelay;
+    }
+    long now = System.nanoTime();
+    if (now - nextDelayRefresh >= 0) {
+      nextDelayRefresh = now + DELAY_REFRESH_INTERVAL_NANOS;
+      if (latencies.getCount() >= MIN_SAMPLES) {
+        double latencyMicros = latencies.getSnapshot().getValue(Math.min(percentile, 1d));
+        delay = Math.max(1L, Math.round(latencyMicros / 1000d));
+      }
+    }
+    return delay;
+  }
+
+  /**
+   * Records a hedgeable request and adds to the budget of backup requests.
+   */
+  void requestStarted() {
+    requests.mark();
+    synchronized (this) {
+      tokens = Math.min(MAX_TOKENS, tokens + maxHedgePercent);
+    }
+  }
+
+  /**
+   * Takes a token from the budget of backup requests.
+   * @return true if a backup request may be sent
+   */
+  synchronized boolean tryAcquireHedge() {
+    if (tokens < HEDGE_COST) {
+      return false;
+    }
+    tokens -= HEDGE_COST;
+    sent.mark();
+    return true;
+  }
+
+  /**
+   * @param latencyNanos Time from sending the original request until the first response was received
+   * @param hedgeWon true if the response of the backup request was received first
+   */
+  void completed(long latencyNanos, boolean hedgeWon) {
+    latencies.update(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+    if (hedgeWon) {
+      wins.mark();
+    }
+  }
+
+  /**
+   * Schedules sending a backup request.
+   * @param task Sends the backup request
+   * @param delayMs Delay in ms
+   * @return Scheduled task or null if the policy is already closed
+   */
+  @Nullable
+  ScheduledFuture<?> schedule(@NotNull Runnable task, long delayMs) {
+    return schedulerRegistration.schedule(task, delayMs);
+  }
+
+  /**
+   * @return Number of hedgeable requests
+   */
+  long getRequestCount() {
+    return requests.getCount();
+  }
+
+  /**
+   * @return Number of backup requests sent
+   */
+  long getSentCount() {
+    return sent.getCount();
+  }
+
+  /**
+   * @return Number of backup requests that were answered first
+   */
+  long getWinCount() {
+    return wins.getCount();
+  }
+
+  /**
+   * Adds hedging meters, hedge rate, win rate and current hedge delay to the metrics of the connection pool.
+   * @param connectionPoolMetrics Connection pool metrics
+   */
+  void addMetrics(@NotNull ConnectionPoolMetrics connectionPoolMetrics) {
+    connectionPoolMetrics.addMetric(METRIC_REQUESTS, requests);
+    connectionPoolMetrics.addMetric(METRIC_SENT, sent);
+    connectionPoolMetrics.addMetric(METRIC_WINS, wins);
+    connectionPoolMetrics.addMetric(METRIC_RATE, new RatioGauge() {
+      @Override
+      protected Ratio getRatio() {
+        return Ratio.of(sent.getCount(), requests.getCount());
+      }
+    });
+    connectionPoolMetrics.addMetric(METRIC_WIN_RATE, new RatioGauge() {
+      @Override
+      protected Ratio getRatio() {
+        return Ratio.of(wins.getCount(), sent.getCount());
+      }
+    });
+    connectionPoolMetrics.addMetric(METRIC_DELAY, (Gauge<Long>)this::getDelay);
+  }
+
+  /**
+   * Releases the background thread used for scheduling backup requests.
+   */
+  void close() {
+    schedulerRegistration.release();
+  }
+
+}
@@ -21,6 +21,7 @@ package io.wcm.caravan.commons.httpasyncclient.impl;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentSkipListMap;
@@ -28,21 +29,34 @@ import java.util.concurrent.ConcurrentSkipListMap;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
 import org.apache.http.nio.client.HttpAsyncClient;
+import org.apache.http.nio.client.HttpPipeliningClient;
 import org.apache.sling.commons.osgi.Order;
 import org.apache.sling.commons.osgi.ServiceUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.osgi.framework.Constants;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.osgi.service.component.annotations.ReferencePolicy;
+import org.osgi.service.component.annotations.ReferencePolicyOption;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.health.HealthCheckRegistry;
 
 import io.wcm.caravan.commons.httpasyncclient.HttpAsyncClientFactory;
 import io.wcm.caravan.commons.httpclient.HttpClientConfig;
 import io.wcm.caravan.commons.httpclient.impl.helpers.DefaultHttpClientConfig;
+import io.wcm.caravan.commons.httpclient.impl.helpers.RouteCache;
+import io.wcm.caravan.commons.httpclient.impl.helpers.RouteIndex;
+import io.wcm.caravan.commons.httpclient.impl.helpers.TargetUrlParser;
 
 /**
  * Default implementation of {@link HttpAsyncClientFactory}.
@@ -50,39 +64,300 @@ import io.wcm.caravan.commons.httpclient.impl.helpers.DefaultHttpClientConfig;
 @Component(service = HttpAsyncClientFactory.class, immediate = true, reference = {
     @Reference(name = "httpClientConfig", service = HttpClientConfig.class,
         cardinality = ReferenceCardinality.MULTIPLE, policy = ReferencePolicy.DYNAMIC,
-        bind = "bindHttpClientConfig", unbind = "unbindHttpClientConfig")
+        bind = "bindHttpClientConfig", unbind = "unbindHttpClientConfig"),
+    @Reference(name = "metricRegistry", service = MetricRegistry.class,
+        cardinality = ReferenceCardinality.OPTIONAL, policy = ReferencePolicy.DYNAMIC, policyOption = ReferencePolicyOption.GREEDY,
+        bind = "bindMetricRegistry", unbind = "unbindMetricRegistry"),
+    @Reference(name = "healthCheckRegistry", service = HealthCheckRegistry.class,
+        cardinality = ReferenceCardinality.OPTIONAL, policy = ReferencePolicy.DYNAMIC, policyOption = ReferencePolicyOption.GREEDY,
+        bind = "bindHealthCheckRegistry", unbind = "unbindHealthCheckRegistry")
 })
+@Designate(ocd = HttpAsyncClientFactoryImpl.Config.class)
 public class HttpAsyncClientFactoryImpl implements HttpAsyncClientFactory {
 
+  @ObjectClassDefinition(name = "wcm.io Caravan HTTP Async Client Factory",
+      description = "IO reactors and session buffers shared by the async HTTP clients of all configurations. "
+          + "The socket settings are also the defaults for HTTP client configurations with dedicated IO reactor settings.")
+  @interface Config {
+
+    /**
+     * IO reactor count
+     */
+    @AttributeDefinition(name = "IO reactor count", description = "Number of shared IO reactors. The clients are assigned round-robin.")
+    int ioReactorCount() default 1;
+
+    /**
+     * IO thread count
+     */
+    @AttributeDefinition(name = "IO thread count", description = "Number of IO dispatcher threads per IO reactor. 0 = number of processors")
+    int ioThreadCount() default 0;
+
+    /**
+     * Select interval
+     */
+    @AttributeDefinition(name = "Select interval", description = "Interval in which the IO reactors check for timed out sessions (ms)")
+    int selectInterval() default 1000;
+
+    /**
+     * SO_KEEPALIVE
+     */
+    @AttributeDefinition(name = "SO_KEEPALIVE", description = "Enable TCP keep-alive for all connections")
+    boolean soKeepAlive() default false;
+
+    /**
+     * TCP_NODELAY
+     */
+    @AttributeDefinition(name = "TCP_NODELAY", description = "Disable Nagle's algorithm for all connections")
+    boolean tcpNoDelay() default true;
+
+    /**
+     * Send buffer size
+     */
+    @AttributeDefinition(name = "Send buffer size", description = "Socket send buffer size (SO_SNDBUF) in bytes. 0 = system default")
+    int sndBufSize() default 0;
+
+    /**
+     * Receive buffer size
+     */
+    @AttributeDefinition(name = "Receive buffer size", description = "Socket receive buffer size (SO_RCVBUF) in bytes. 0 = system default")
+    int rcvBufSize() default 0;
+
+    /**
+     * SO_LINGER
+     */
+    @AttributeDefinition(name = "SO_LINGER", description = "Linger time on close (s). -1 = disabled")
+    int soLinger() default -1;
+
+    /**
+     * Backlog size
+     */
+    @AttributeDefinition(name = "Backlog size", description = "Connect backlog size of the IO reactors. 0 = system default")
+    int backlogSize() default 0;
+
+    /**
+     * Session buffer pool size
+     */
+    @AttributeDefinition(name = "Session buffer pool size",
+        description = "Max. size of the direct buffers pooled for the session buffers of the connections of the shared IO reactors (bytes). "
+            + "Connections opened while the pool is exhausted get heap buffers. 0 = no pooling")
+    long sessionBufferPoolSize() default SESSION_BUFFER_POOL_SIZE_DEFAULT;
+
+    /**
+     * Session buffer max size
+     */
+    @AttributeDefinition(name = "Session buffer max size",
+        description = "Max. size of pooled session buffers (bytes). Larger buffers are allocated on the heap")
+    int sessionBufferMaxSize() default SESSION_BUFFER_MAX_SIZE_DEFAULT;
+
+  }
+
+  static final long SESSION_BUFFER_POOL_SIZE_DEFAULT = 8 * 1024 * 1024;
+  static final int SESSION_BUFFER_MAX_SIZE_DEFAULT = 64 * 1024;
+  static final String ROUTE_CACHE_METRICS_PREFIX = "httpasyncclient.routecache";
+
   private final ConcurrentMap<Comparable<Object>, HttpAsyncClientItem> factoryItems = new ConcurrentSkipListMap<>();
+  private final Object factoryItemsLock = new Object();
+  private final RouteCache<HttpAsyncClientItem> routeCache = new RouteCache<>(buildRouteIndex());
+  // items of unbound configurations that are draining, by service PID - guarded by factoryItemsLock
+  private final Map<String, HttpAsyncClientItem> drainingItems = new HashMap<>();
 
   private HttpAsyncClientItem defaultFactoryItem;
+  private MetricRegistry metricRegistry;
+  private HealthCheckRegistry healthCheckRegistry;
+  private volatile SharedIOReactorPool ioReactorPool;
 
   @Activate
-  private void activate() {
-    defaultFactoryItem = new HttpAsyncClientItem(DefaultHttpClientConfig.INSTANCE);
+  private void activate(Config config) {
+    SessionBufferPool sessionBufferPool = config.sessionBufferPoolSize() > 0
+        ? new SessionBufferPool(config.sessionBufferPoolSize(), config.sessionBufferMaxSize())
+        : null;
+    ioReactorPool = new SharedIOReactorPool(buildIOReactorConfig(config), Math.max(1, config.ioReactorCount()), sessionBufferPool);
+    HttpAsyncClientItem item = newItem(DefaultHttpClientConfig.INSTANCE);
+    synchronized (factoryItemsLock) {
+      defaultFactoryItem = item;
+      if (metricRegistry != null) {
+        item.registerMetrics(metricRegistry);
+        if (sessionBufferPool != null) {
+          sessionBufferPool.registerMetrics(metricRegistry);
+        }
+      }
+      if (healthCheckRegistry != null) {
+        item.registerHealthChecks(healthCheckRegistry);
+      }
+    }
   }
 
   @Deactivate
   private void deactivate() {
-    for (HttpAsyncClientItem item : factoryItems.values()) {
-      item.close();
+    synchronized (factoryItemsLock) {
+      for (HttpAsyncClientItem item : factoryItems.values()) {
+        item.close();
+      }
+      factoryItems.clear();
+      for (HttpAsyncClientItem item : drainingItems.values()) {
+        item.close();
+      }
+      drainingItems.clear();
+      routeCache.update(buildRouteIndex());
     }
-    factoryItems.clear();
     defaultFactoryItem.close();
     defaultFactoryItem = null;
+    ioReactorPool.shutdown();
+    SessionBufferPool sessionBufferPool = ioReactorPool.getSessionBufferPool();
+    if (sessionBufferPool != null) {
+      sessionBufferPool.unregisterMetrics();
+    }
+  }
+
+  private static @NotNull IOReactorConfig buildIOReactorConfig(@NotNull Config config) {
+    IOReactorConfig.Builder builder = IOReactorConfig.custom()
+        .setSelectInterval(config.selectInterval())
+        .setSoKeepAlive(config.soKeepAlive())
+        .setTcpNoDelay(config.tcpNoDelay())
+        .setSndBufSize(config.sndBufSize())
+        .setRcvBufSize(config.rcvBufSize())
+        .setSoLinger(config.soLinger())
+        .setBacklogSize(config.backlogSize());
+    if (config.ioThreadCount() > 0) {
+      builder.setIoThreadCount(config.ioThreadCount());
+    }
+    return builder.build();
+  }
+
+  private @NotNull HttpAsyncClientItem newItem(@NotNull HttpClientConfig httpClientConfig) {
+    // configurations are bound before activation - the shared IO reactors are looked up when the client is built
+    return new HttpAsyncClientItem(httpClientConfig, () -> ioReactorPool);
   }
 
   protected void bindHttpClientConfig(HttpClientConfig httpClientConfig, Map<String, Object> config) {
-    factoryItems.put(ServiceUtil.getComparableForServiceRanking(config, Order.ASCENDING), new HttpAsyncClientItem(httpClientConfig));
+    // a modified configuration is unbound and bound again with the same service PID - keep its warm connection pool if possible
+    HttpAsyncClientItem item = takeDrainingItem(config);
+    if (item == null || !item.reconfigure(httpClientConfig)) {
+      item = newItem(httpClientConfig);
+    }
+    synchronized (factoryItemsLock) {
+      factoryItems.put(ServiceUtil.getComparableForServiceRanking(config, Order.ASCENDING), item);
+      routeCache.update(buildRouteIndex());
+      if (metricRegistry != null) {
+        item.registerMetrics(metricRegistry);
+      }
+      if (healthCheckRegistry != null) {
+        item.registerHealthChecks(healthCheckRegistry);
+      }
+    }
   }
 
   @SuppressWarnings("unused")
   protected void unbindHttpClientConfig(HttpClientConfig httpClientConfig, Map<String, Object> config) {
-    HttpAsyncClientItem removed = factoryItems.remove(ServiceUtil.getComparableForServiceRanking(config, Order.ASCENDING));
+    String servicePid = getServicePid(config);
+    HttpAsyncClientItem removed;
+    synchronized (factoryItemsLock) {
+      removed = factoryItems.remove(ServiceUtil.getComparableForServiceRanking(config, Order.ASCENDING));
+      routeCache.update(buildRouteIndex());
+      if (removed != null && servicePid != null) {
+        HttpAsyncClientItem previous = drainingItems.put(servicePid, removed);
+        if (previous != null) {
+          previous.close();
+        }
+      }
+    }
     if (removed != null) {
-      removed.close();
+      // requests may still be running with the client of the removed item
+      removed.closeGracefully(() -> {
+        if (servicePid != null) {
+          synchronized (factoryItemsLock) {
+            drainingItems.remove(servicePid, removed);
+          }
+        }
+      });
+    }
+  }
+
+  private @Nullable HttpAsyncClientItem takeDrainingItem(Map<String, Object> config) {
+    String servicePid = getServicePid(config);
+    if (servicePid == null) {
+      return null;
     }
+    synchronized (factoryItemsLock) {
+      return drainingItems.remove(servicePid);
+    }
+  }
+
+  private static @Nullable String getServicePid(Map<String, Object> config) {
+    Object servicePid = config.get(Constants.SERVICE_PID);
+    return servicePid instanceof String ? (String)servicePid : null;
+  }
+
+  protected void bindMetricRegistry(MetricRegistry registry) {
+    synchronized (factoryItemsLock) {
+      metricRegistry = registry;
+      routeCache.registerMetrics(registry, ROUTE_CACHE_METRICS_PREFIX);
+      for (HttpAsyncClientItem item : factoryItems.values()) {
+        item.registerMetrics(registry);
+      }
+      if (defaultFactoryItem != null) {
+        defaultFactoryItem.registerMetrics(registry);
+      }
+      SessionBufferPool sessionBufferPool = ioReactorPool != null ? ioReactorPool.getSessionBufferPool() : null;
+      if (sessionBufferPool != null) {
+        sessionBufferPool.registerMetrics(registry);
+      }
+    }
+  }
+
+  protected void unbindMetricRegistry(MetricRegistry registry) {
+    synchronized (factoryItemsLock) {
+      if (metricRegistry != registry) {
+        return;
+      }
+      metricRegistry = null;
+      routeCache.unregisterMetrics();
+      for (HttpAsyncClientItem item : factoryItems.values()) {
+        item.unregisterMetrics();
+      }
+      if (defaultFactoryItem != null) {
+        defaultFactoryItem.unregisterMetrics();
+      }
+      SessionBufferPool sessionBufferPool = ioReactorPool != null ? ioReactorPool.getSessionBufferPool() : null;
+      if (sessionBufferPool != null) {
+        sessionBufferPool.unregisterMetrics();
+      }
+    }
+  }
+
+  protected void bindHealthCheckRegistry(HealthCheckRegistry registry) {
+    synchronized (factoryItemsLock) {
+      healthCheckRegistry = registry;
+      for (HttpAsyncClientItem item : factoryItems.values()) {
+        item.registerHealthChecks(registry);
+      }
+      if (defaultFactoryItem != null) {
+        defaultFactoryItem.registerHealthChecks(registry);
+      }
+    }
+  }
+
+  protected void unbindHealthCheckRegistry(HealthCheckRegistry registry) {
+    synchronized (factoryItemsLock) {
+      if (healthCheckRegistry != registry) {
+        return;
+      }
+      healthCheckRegistry = null;
+      for (HttpAsyncClientItem item : factoryItems.values()) {
+        item.unregisterHealthChecks();
+      }
+      if (defaultFactoryItem != null) {
+        defaultFactoryItem.unregisterHealthChecks();
+      }
+    }
+  }
+
+  /**
+   * Builds route index from the current factory items, keeping the service ranking order.
+   * Updating the route cache with the new index invalidates all cached route decisions.
+   */
+  private @NotNull RouteIndex<HttpAsyncClientItem> buildRouteIndex() {
+    return RouteIndex.build(factoryItems.values(), HttpAsyncClientItem::getConfig, HttpAsyncClientItem::matches);
   }
 
   @Override
@@ -92,9 +367,7 @@ public class HttpAsyncClientFactoryImpl implements HttpAsyncClientFactory {
 
   @Override
   public @NotNull CloseableHttpAsyncClient getCloseable(@Nullable String targetUrl) {
-    final URI uri = toUri(targetUrl);
-    final String path = uri != null ? uri.getPath() : null;
-    return getFactoryItem(uri, null, path, false).getHttpAsyncClient();
+    return getFactoryItem(targetUrl, null, false).getHttpAsyncClient();
   }
 
   @Override
@@ -115,9 +388,7 @@ public class HttpAsyncClientFactoryImpl implements HttpAsyncClientFactory {
 
   @Override
   public @NotNull CloseableHttpAsyncClient getCloseableWs(@Nullable String targetUrl, @Nullable String wsAddressingToUri) {
-    final URI uri = toUri(targetUrl);
-    final String path = uri != null ? uri.getPath() : null;
-    return getFactoryItem(uri, wsAddressingToUri, path, true).getHttpAsyncClient();
+    return getFactoryItem(targetUrl, wsAddressingToUri, true).getHttpAsyncClient();
   }
 
   @Override
@@ -132,10 +403,20 @@ public class HttpAsyncClientFactoryImpl implements HttpAsyncClientFactory {
     return getFactoryItem(targetUrl, wsAddressingToUriString, path, true).getHttpAsyncClient();
   }
 
+  @Override
+  public @NotNull HttpPipeliningClient getPipelining(@Nullable String targetUrl) {
+    return getFactoryItem(targetUrl, null, false).getHttpPipeliningClient();
+  }
+
+  @Override
+  public @NotNull HttpPipeliningClient getPipelining(@Nullable URI targetUrl) {
+    String path = targetUrl != null ? targetUrl.getPath() : null;
+    return getFactoryItem(targetUrl, null, path, false).getHttpPipeliningClient();
+  }
+
   @Override
   public @NotNull RequestConfig getDefaultRequestConfig(@Nullable String targetUrl) {
-    final URI uri = toUri(targetUrl);
-    return getDefaultRequestConfig(uri);
+    return getFactoryItem(targetUrl, null, false).getDefaultRequestConfig();
   }
 
   @Override
@@ -144,12 +425,44 @@ public class HttpAsyncClientFactoryImpl implements HttpAsyncClientFactory {
     return getFactoryItem(targetUrl, null, path, false).getDefaultRequestConfig();
   }
 
+  /**
+   * @return Shared IO reactors
+   */
+  SharedIOReactorPool getIOReactorPool() {
+    return ioReactorPool;
+  }
+
+  /**
+   * @return Route decision cache
+   */
+  @NotNull
+  RouteCache<HttpAsyncClientItem> getRouteCache() {
+    return routeCache;
+  }
+
+  /**
+   * Resolves factory item for target URL string. Plain URLs are parsed without building a {@link URI},
+   * for all others {@link URI} is used as before.
+   */
+  private @NotNull HttpAsyncClientItem getFactoryItem(@Nullable String targetUrl, @Nullable String wsAddressingToUri, boolean isWsCall) {
+    long urlParts = TargetUrlParser.parse(targetUrl);
+    if (urlParts == TargetUrlParser.NOT_PARSED) {
+      final URI uri = toUri(targetUrl);
+      final String path = uri != null ? uri.getPath() : null;
+      return getFactoryItem(uri, wsAddressingToUri, path, isWsCall);
+    }
+    HttpAsyncClientItem item = routeCache.resolve(targetUrl, urlParts, wsAddressingToUri, isWsCall);
+    if (item != null) {
+      return item;
+    }
+    return defaultFactoryItem;
+  }
+
   private @NotNull HttpAsyncClientItem getFactoryItem(@Nullable URI targetUrl, @Nullable String wsAddressingToUri, @Nullable String path, boolean isWsCall) {
-    for (HttpAsyncClientItem item : factoryItems.values()) {
-      String host = targetUrl != null ? targetUrl.getHost() : null;
-      if (item.matches(host, wsAddressingToUri, path, isWsCall)) {
-        return item;
-      }
+    String host = targetUrl != null ? targetUrl.getHost() : null;
+    HttpAsyncClientItem item = routeCache.resolve(host, wsAddressingToUri, path, isWsCall);
+    if (item != null) {
+      return item;
     }
     return defaultFactoryItem;
   }
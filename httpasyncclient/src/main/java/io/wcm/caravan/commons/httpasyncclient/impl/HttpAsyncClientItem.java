@@ -21,6 +21,8 @@ package io.wcm.caravan.commons.httpasyncclient.impl;
 
 import java.io.IOException;
 import java.security.GeneralSecurityException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 import javax.net.ssl.SSLContext;
 
@@ -35,13 +37,15 @@ import org.apache.http.config.RegistryBuilder;
 import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.apache.http.impl.client.ProxyAuthenticationStrategy;
 import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.CloseableHttpPipeliningClient;
 import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
 import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
 import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
 import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.client.HttpPipeliningClient;
 import org.apache.http.nio.conn.NoopIOSessionStrategy;
 import org.apache.http.nio.conn.SchemeIOSessionStrategy;
-import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
 import org.apache.http.nio.reactor.ConnectingIOReactor;
 import org.apache.http.nio.reactor.IOReactorException;
 import org.jetbrains.annotations.NotNull;
@@ -49,17 +53,61 @@ import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.health.HealthCheckRegistry;
+
 import io.wcm.caravan.commons.httpclient.HttpClientConfig;
-import io.wcm.caravan.commons.httpclient.impl.helpers.CertificateLoader;
+import io.wcm.caravan.commons.httpclient.impl.helpers.AdaptiveConcurrencyLimiter;
+import io.wcm.caravan.commons.httpclient.impl.helpers.Bulkhead;
+import io.wcm.caravan.commons.httpclient.impl.helpers.CircuitBreaker;
+import io.wcm.caravan.commons.httpclient.impl.helpers.ConnectionPoolMetrics;
+import io.wcm.caravan.commons.httpclient.impl.helpers.ContentDecoding;
+import io.wcm.caravan.commons.httpclient.impl.helpers.HttpClientConfigChange;
+import io.wcm.caravan.commons.httpclient.impl.helpers.IdleConnectionEvictor;
+import io.wcm.caravan.commons.httpclient.impl.helpers.RequestCoalescer;
+import io.wcm.caravan.commons.httpclient.impl.helpers.RetryPolicy;
+import io.wcm.caravan.commons.httpclient.impl.helpers.SslContextCache;
+import io.wcm.caravan.commons.httpclient.impl.helpers.StoreReloader;
+import io.wcm.caravan.commons.httpclient.impl.helpers.TlsHandshakeMetrics;
 
 /**
  * Item for {@link HttpAsyncClientFactoryImpl} for each {@link HttpClientConfig} configured.
+ * <p>
+ * The async HTTP client with its SSL context, IO reactor and connection pool is built and started lazily
+ * on first use, so configurations that are never matched do not load key stores or start reactor threads.
+ * </p>
+ * <p>
+ * The connection pool uses the IO reactors shared by all configurations, unless the configuration defines own
+ * IO reactor settings - in this case a dedicated IO reactor is started for the client.
+ * </p>
+ * <p>
+ * If pipelining is enabled, a minimal pipelining client sharing the connection pool is built in addition to the
+ * default client, and used only for pipelines of requests. It supports neither proxies nor authentication,
+ * so pipelining is not applied if one of them is configured.
+ * </p>
  */
 class HttpAsyncClientItem {
 
-  private final HttpClientConfig config;
-  private final CloseableHttpAsyncClient httpAsyncClient;
-  private final RequestConfig defaultRequestConfig;
+  private final Supplier<SharedIOReactorPool> ioReactorPool;
+  private volatile HttpClientConfig config;
+  private volatile RequestConfig defaultRequestConfig;
+  private volatile PooledClient client;
+  private MetricRegistry metricRegistry;
+  private HealthCheckRegistry healthCheckRegistry;
+  private IdleConnectionEvictor.Registration drainRegistration;
+  private boolean closed;
+
+  static final String METRICS_PREFIX = "httpasyncclient.pool";
+
+  /**
+   * Interval in which a draining connection pool is checked for connections still in use.
+   */
+  static final long DRAIN_CHECK_INTERVAL_MS = 200;
+
+  /**
+   * Max. time to wait for leased connections to be released before a draining client is closed.
+   */
+  static final long DRAIN_TIMEOUT_MS = 60000;
 
   private static final Logger log = LoggerFactory.getLogger(HttpAsyncClientItem.class);
 
@@ -67,43 +115,45 @@ class HttpAsyncClientItem {
    * @param config Http client configuration
    */
   HttpAsyncClientItem(@NotNull HttpClientConfig config) {
+    this(config, () -> null);
+  }
+
+  /**
+   * @param config Http client configuration
+   * @param ioReactorPool Returns the shared IO reactors when the client is built, or null to use a dedicated
+   *          IO reactor for this client
+   */
+  HttpAsyncClientItem(@NotNull HttpClientConfig config, @NotNull Supplier<SharedIOReactorPool> ioReactorPool) {
+    this.ioReactorPool = ioReactorPool;
     this.config = config;
+    this.defaultRequestConfig = buildDefaultRequestConfig(config);
+  }
 
-    // optional SSL client certificate support
-    SSLContext sslContext;
-    if (CertificateLoader.isSslKeyManagerEnabled(config) || CertificateLoader.isSslTrustStoreEnbaled(config)) {
-      try {
-        sslContext = CertificateLoader.buildSSLContext(config);
-      }
-      catch (IOException | GeneralSecurityException ex) {
-        throw new IllegalArgumentException("Invalid SSL client certificate configuration.", ex);
+  /**
+   * Gets the async HTTP client, building and starting it on first access.
+   * @return Async HTTP client with connection pool
+   */
+  private @NotNull PooledClient getClient() {
+    PooledClient result = client;
+    if (result == null) {
+      synchronized (this) {
+        result = client;
+        if (result == null) {
+          if (closed) {
+            throw new IllegalStateException("Async HTTP client is already closed: " + config);
+          }
+          result = new PooledClient(config, defaultRequestConfig, ioReactorPool.get());
+          if (metricRegistry != null) {
+            result.connectionPoolMetrics.register(metricRegistry);
+          }
+          if (healthCheckRegistry != null) {
+            result.registerHealthChecks(healthCheckRegistry, config);
+          }
+          client = result;
+        }
       }
     }
-    else {
-      sslContext = CertificateLoader.createDefaultSSlContext();
-    }
-
-    CredentialsProvider credentialsProvider = new BasicCredentialsProvider();
-    // optional proxy authentication
-    if (StringUtils.isNotEmpty(config.getProxyUser())) {
-      credentialsProvider.setCredentials(new AuthScope(config.getProxyHost(), config.getProxyPort()),
-          new UsernamePasswordCredentials(config.getProxyUser(), config.getProxyPassword()));
-    }
-    // optional http basic authentication support
-    if (StringUtils.isNotEmpty(config.getHttpUser())) {
-      credentialsProvider.setCredentials(AuthScope.ANY,
-          new UsernamePasswordCredentials(config.getHttpUser(), config.getHttpPassword()));
-    }
-
-    // build request config
-    defaultRequestConfig = buildDefaultRequestConfig(config);
-
-    // build http clients
-    PoolingNHttpClientConnectionManager asyncConnectionManager = buildAsyncConnectionManager(config, sslContext);
-    httpAsyncClient = buildHttpAsyncClient(config, asyncConnectionManager, credentialsProvider, defaultRequestConfig);
-
-    // start async client
-    httpAsyncClient.start();
+    return result;
   }
 
   private static @NotNull RequestConfig buildDefaultRequestConfig(@NotNull HttpClientConfig config) {
@@ -116,28 +166,118 @@ class HttpAsyncClientItem {
   }
 
   private static @NotNull PoolingNHttpClientConnectionManager buildAsyncConnectionManager(@NotNull HttpClientConfig config,
-      @NotNull SSLContext sslContext) {
+      @NotNull SSLContext sslContext, @NotNull TlsHandshakeMetrics handshakeMetrics, @Nullable SharedIOReactorPool ioReactorPool) {
     // scheme configuration
-    SchemeIOSessionStrategy sslSocketFactory = new SSLIOSessionStrategy(sslContext);
+    SchemeIOSessionStrategy sslSocketFactory = new MeteredSSLIOSessionStrategy(sslContext, handshakeMetrics);
     Registry<SchemeIOSessionStrategy> asyncSchemeRegistry = RegistryBuilder.<SchemeIOSessionStrategy>create()
         .register("http", NoopIOSessionStrategy.INSTANCE)
         .register("https", sslSocketFactory)
         .build();
 
     // pooling settings
+    IOReactorConfig defaultIOReactorConfig = ioReactorPool != null ? ioReactorPool.getIOReactorConfig() : IOReactorConfig.DEFAULT;
+    IOReactorConfig dedicatedIOReactorConfig = buildDedicatedIOReactorConfig(config, defaultIOReactorConfig);
     ConnectingIOReactor ioreactor;
-    try {
-      ioreactor = new DefaultConnectingIOReactor(IOReactorConfig.DEFAULT);
+    // pooled session buffers are only released by the IO dispatch of the shared reactors when a session is closed
+    SessionBufferPool sessionBufferPool = null;
+    if (ioReactorPool != null && dedicatedIOReactorConfig == null) {
+      ioreactor = ioReactorPool.newClientReactor();
+      sessionBufferPool = ioReactorPool.getSessionBufferPool();
     }
-    catch (IOReactorException ex) {
-      throw new RuntimeException("Unable to initialize IO reactor.", ex);
+    else {
+      try {
+        ioreactor = new DefaultConnectingIOReactor(dedicatedIOReactorConfig != null ? dedicatedIOReactorConfig : defaultIOReactorConfig);
+      }
+      catch (IOReactorException ex) {
+        throw new RuntimeException("Unable to initialize IO reactor.", ex);
+      }
     }
-    PoolingNHttpClientConnectionManager conmgr = new PoolingNHttpClientConnectionManager(ioreactor, asyncSchemeRegistry);
+    PoolingNHttpClientConnectionManager conmgr = new PoolingNHttpClientConnectionManager(ioreactor,
+        sessionBufferPool != null ? sessionBufferPool.newConnectionFactory() : null, asyncSchemeRegistry,
+        null, null, config.getConnectionTimeToLive(), TimeUnit.MILLISECONDS);
     conmgr.setMaxTotal(config.getMaxTotalConnections());
     conmgr.setDefaultMaxPerRoute(config.getMaxConnectionsPerHost());
     return conmgr;
   }
 
+  /**
+   * Applies the IO reactor settings of the HTTP client configuration to the IO reactor settings of the factory.
+   * @param config Http client configuration
+   * @param defaultIOReactorConfig IO reactor settings of the factory
+   * @return IO reactor settings for a dedicated IO reactor, or null if the configuration does not define
+   *         any IO reactor settings
+   */
+  static @Nullable IOReactorConfig buildDedicatedIOReactorConfig(@NotNull HttpClientConfig config,
+      @NotNull IOReactorConfig defaultIOReactorConfig) {
+    if (config.getIoThreadCount() <= 0
+        && config.getSndBufSize() <= 0
+        && config.getRcvBufSize() <= 0
+        && config.getTcpNoDelay() == null
+        && config.getSoLinger() < 0
+        && config.getBacklogSize() <= 0) {
+      return null;
+    }
+    IOReactorConfig.Builder builder = IOReactorConfig.copy(defaultIOReactorConfig);
+    if (config.getIoThreadCount() > 0) {
+      builder.setIoThreadCount(config.getIoThreadCount());
+    }
+    if (config.getSndBufSize() > 0) {
+      builder.setSndBufSize(config.getSndBufSize());
+    }
+    if (config.getRcvBufSize() > 0) {
+      builder.setRcvBufSize(config.getRcvBufSize());
+    }
+    if (config.getTcpNoDelay() != null) {
+      builder.setTcpNoDelay(config.getTcpNoDelay());
+    }
+    if (config.getSoLinger() >= 0) {
+      builder.setSoLinger(config.getSoLinger());
+    }
+    if (config.getBacklogSize() > 0) {
+      builder.setBacklogSize(config.getBacklogSize());
+    }
+    return builder.build();
+  }
+
+  private static @Nullable IdleConnectionEvictor.Registration registerEvictor(@NotNull HttpClientConfig config,
+      @NotNull PoolingNHttpClientConnectionManager connectionManager) {
+    if (config.getIdleConnectionEvictionInterval() <= 0) {
+      return null;
+    }
+    int maxIdleTime = config.getMaxIdleTime();
+    return IdleConnectionEvictor.getInstance().register(() -> {
+      connectionManager.closeExpiredConnections();
+      if (maxIdleTime > 0) {
+        connectionManager.closeIdleConnections(maxIdleTime, TimeUnit.MILLISECONDS);
+      }
+    }, config.getIdleConnectionEvictionInterval());
+  }
+
+  /**
+   * @param config Http client configuration
+   * @return true if pipelining is enabled and can be applied to the configuration
+   */
+  static boolean isPipeliningApplicable(@NotNull HttpClientConfig config) {
+    if (!config.isPipelining()) {
+      return false;
+    }
+    if (StringUtils.isNotEmpty(config.getProxyHost()) || StringUtils.isNotEmpty(config.getHttpUser())) {
+      log.warn("Pipelining is not supported with proxy or HTTP authentication, ignoring it for {}", config);
+      return false;
+    }
+    return true;
+  }
+
+  private static @Nullable CloseableHttpPipeliningClient buildHttpPipeliningClient(@NotNull HttpClientConfig config,
+      @NotNull PoolingNHttpClientConnectionManager connectionManager) {
+    if (!isPipeliningApplicable(config)) {
+      return null;
+    }
+    // pipelining client without proxy and authentication support, the default request config is applied by the wrapper.
+    // the connection pool is shared with the default client, which runs its IO event dispatch and shuts it down.
+    return HttpAsyncClients.createPipelining(connectionManager, true);
+  }
+
   private static @NotNull CloseableHttpAsyncClient buildHttpAsyncClient(@NotNull HttpClientConfig config,
       @NotNull PoolingNHttpClientConnectionManager connectionManager, @NotNull CredentialsProvider credentialsProvider,
       @NotNull RequestConfig defaultRequestConfig) {
@@ -164,11 +304,25 @@ class HttpAsyncClientItem {
     return httpClientAsyncBuilder.build();
   }
 
+  /**
+   * @return Http client configuration
+   */
+  public @NotNull HttpClientConfig getConfig() {
+    return config;
+  }
+
   /**
    * @return Http client instance (asynchronous)
    */
   public @NotNull CloseableHttpAsyncClient getHttpAsyncClient() {
-    return httpAsyncClient;
+    return getClient().httpAsyncClient;
+  }
+
+  /**
+   * @return Http client instance for executing pipelines of requests (asynchronous)
+   */
+  public @NotNull HttpPipeliningClient getHttpPipeliningClient() {
+    return getClient().httpAsyncClient;
   }
 
   /**
@@ -178,6 +332,13 @@ class HttpAsyncClientItem {
     return defaultRequestConfig;
   }
 
+  /**
+   * @return true if the async HTTP client was already built and started
+   */
+  public boolean isInitialized() {
+    return client != null;
+  }
+
   /**
    * @param hostName Host name
    * @param wsAddressingToURI WS addressing "to" URI
@@ -199,15 +360,187 @@ class HttpAsyncClientItem {
     }
   }
 
+  /**
+   * Registers gauges of the connection pool. If the async HTTP client is not built yet, the gauges are registered
+   * when it is built.
+   * @param registry Metric registry
+   */
+  public synchronized void registerMetrics(@NotNull MetricRegistry registry) {
+    metricRegistry = registry;
+    if (client != null) {
+      client.connectionPoolMetrics.register(registry);
+    }
+  }
+
+  /**
+   * Removes gauges of the connection pool.
+   */
+  public synchronized void unregisterMetrics() {
+    metricRegistry = null;
+    if (client != null) {
+      client.connectionPoolMetrics.unregister();
+    }
+  }
+
+  /**
+   * Registers the health check of the circuit breaker, if a circuit breaker is configured. If the async HTTP client
+   * is not built yet, the health check is registered when it is built.
+   * @param registry Health check registry
+   */
+  public synchronized void registerHealthChecks(@NotNull HealthCheckRegistry registry) {
+    healthCheckRegistry = registry;
+    if (client != null) {
+      client.registerHealthChecks(registry, config);
+    }
+  }
+
+  /**
+   * Removes the health check of the circuit breaker.
+   */
+  public synchronized void unregisterHealthChecks() {
+    healthCheckRegistry = null;
+    if (client != null) {
+      client.unregisterHealthChecks();
+    }
+  }
+
+  /**
+   * Applies a changed configuration to the existing async HTTP client without dropping pooled connections,
+   * if only settings are changed that can be applied in place. If the client is currently draining,
+   * draining is stopped and the client is used again.
+   * @param newConfig New HTTP client configuration
+   * @return true if the configuration was applied, false if a new item has to be built
+   */
+  public synchronized boolean reconfigure(@NotNull HttpClientConfig newConfig) {
+    if (closed) {
+      return false;
+    }
+    PooledClient current = client;
+    if (current == null) {
+      // nothing built yet - any change can be applied
+      config = newConfig;
+      defaultRequestConfig = buildDefaultRequestConfig(newConfig);
+      return true;
+    }
+    if (!HttpClientConfigChange.isReconfigurable(config, newConfig)) {
+      return false;
+    }
+    if (drainRegistration != null) {
+      drainRegistration.cancel();
+      drainRegistration = null;
+    }
+
+    PoolingNHttpClientConnectionManager asyncConnectionManager = current.asyncConnectionManager;
+    asyncConnectionManager.setMaxTotal(newConfig.getMaxTotalConnections());
+    asyncConnectionManager.setDefaultMaxPerRoute(newConfig.getMaxConnectionsPerHost());
+    defaultRequestConfig = buildDefaultRequestConfig(newConfig);
+    current.httpAsyncClient.setDefaultRequestConfig(defaultRequestConfig);
+    current.httpAsyncClient.setMaxPipelinedRequests(newConfig.getMaxPipelinedRequests());
+    AdaptiveConcurrencyLimiter concurrencyLimiter = current.httpAsyncClient.getConcurrencyLimiter();
+    if (concurrencyLimiter != null) {
+      concurrencyLimiter.setMaxLimit(newConfig.getMaxConnectionsPerHost());
+    }
+    if (current.hedgingPolicy != null) {
+      current.hedgingPolicy.setConfig(newConfig);
+    }
+    CircuitBreaker circuitBreaker = current.httpAsyncClient.getCircuitBreaker();
+    if (circuitBreaker != null) {
+      circuitBreaker.setConfig(newConfig);
+    }
+    Bulkhead bulkhead = current.httpAsyncClient.getBulkhead();
+    if (bulkhead != null) {
+      bulkhead.setMaxConcurrentCalls(newConfig.getBulkheadMaxConcurrentCalls());
+    }
+    RetryPolicy retryPolicy = current.httpAsyncClient.getRetryPolicy();
+    if (retryPolicy != null) {
+      retryPolicy.setConfig(newConfig);
+    }
+    RequestCoalescer requestCoalescer = current.httpAsyncClient.getRequestCoalescer();
+    if (requestCoalescer != null) {
+      requestCoalescer.setConfig(newConfig);
+    }
+
+    if (newConfig.getIdleConnectionEvictionInterval() != config.getIdleConnectionEvictionInterval()
+        || newConfig.getMaxIdleTime() != config.getMaxIdleTime()) {
+      if (current.evictorRegistration != null) {
+        current.evictorRegistration.cancel();
+      }
+      current.evictorRegistration = registerEvictor(newConfig, asyncConnectionManager);
+    }
+    current.connectionPoolMetrics.setConfig(newConfig);
+    if (healthCheckRegistry != null) {
+      // config name used in health check name may have changed
+      current.registerHealthChecks(healthCheckRegistry, newConfig);
+    }
+
+    config = newConfig;
+    return true;
+  }
+
+  /**
+   * Closes the async HTTP client as soon as all leased connections are released, or after {@link #DRAIN_TIMEOUT_MS}.
+   * Idle connections are closed immediately. Requests still running with this client are not aborted.
+   * If the async HTTP client was never built, the item is closed immediately.
+   * @param closeCallback Called after the client was closed
+   */
+  public void closeGracefully(@NotNull Runnable closeCallback) {
+    synchronized (this) {
+      if (closed || drainRegistration != null) {
+        return;
+      }
+      if (client != null) {
+        unregisterMetrics();
+        unregisterHealthChecks();
+        long deadline = System.currentTimeMillis() + DRAIN_TIMEOUT_MS;
+        drainRegistration = IdleConnectionEvictor.getInstance().register(() -> {
+          // callback is invoked without holding the lock of this item
+          if (closeIfDrained(deadline)) {
+            closeCallback.run();
+          }
+        }, DRAIN_CHECK_INTERVAL_MS);
+        return;
+      }
+      close();
+    }
+    closeCallback.run();
+  }
+
+  private synchronized boolean closeIfDrained(long deadline) {
+    if (closed || drainRegistration == null) {
+      return false;
+    }
+    PoolingNHttpClientConnectionManager asyncConnectionManager = client.asyncConnectionManager;
+    asyncConnectionManager.closeIdleConnections(0, TimeUnit.MILLISECONDS);
+    if (asyncConnectionManager.getTotalStats().getLeased() == 0 || System.currentTimeMillis() >= deadline) {
+      close();
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * @return true if the async HTTP client is closed
+   */
+  public synchronized boolean isClosed() {
+    return closed;
+  }
+
   /**
    * Close underlying http clients.
    */
-  public void close() {
-    try {
-      httpAsyncClient.close();
+  public synchronized void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    metricRegistry = null;
+    healthCheckRegistry = null;
+    if (drainRegistration != null) {
+      drainRegistration.cancel();
+      drainRegistration = null;
     }
-    catch (IOException ex) {
-      log.warn("Error closing async HTTP client.", ex);
+    if (client != null) {
+      client.close();
     }
   }
 
@@ -216,4 +549,159 @@ class HttpAsyncClientItem {
     return "HttpClientItem[" + config.toString() + "]";
   }
 
+
+  /**
+   * Async HTTP client with its IO reactor and connection pool, built and started on first use of the item.
+   */
+  private static final class PooledClient {
+
+    private final ReconfigurableHttpAsyncClient httpAsyncClient;
+    private final PoolingNHttpClientConnectionManager asyncConnectionManager;
+    private final ConnectionPoolMetrics connectionPoolMetrics;
+    private final HedgingPolicy hedgingPolicy;
+    private final HedgeScheduler.Registration retryScheduler;
+    private IdleConnectionEvictor.Registration evictorRegistration;
+
+    PooledClient(@NotNull HttpClientConfig config, @NotNull RequestConfig defaultRequestConfig,
+        @Nullable SharedIOReactorPool ioReactorPool) {
+      // optional SSL client certificate support, SSL contexts are shared between clients with identical key material
+      SSLContext sslContext;
+      try {
+        sslContext = SslContextCache.getInstance().getSSLContext(config);
+      }
+      catch (IOException | GeneralSecurityException ex) {
+        throw new IllegalArgumentException("Invalid SSL client certificate configuration.", ex);
+      }
+
+      CredentialsProvider credentialsProvider = new BasicCredentialsProvider();
+      // optional proxy authentication
+      if (StringUtils.isNotEmpty(config.getProxyUser())) {
+        credentialsProvider.setCredentials(new AuthScope(config.getProxyHost(), config.getProxyPort()),
+            new UsernamePasswordCredentials(config.getProxyUser(), config.getProxyPassword()));
+      }
+      // optional http basic authentication support
+      if (StringUtils.isNotEmpty(config.getHttpUser())) {
+        credentialsProvider.setCredentials(AuthScope.ANY,
+            new UsernamePasswordCredentials(config.getHttpUser(), config.getHttpPassword()));
+      }
+
+      // build http clients - release everything already created if a later step fails
+      TlsHandshakeMetrics handshakeMetrics = new TlsHandshakeMetrics();
+      PoolingNHttpClientConnectionManager connectionManager = buildAsyncConnectionManager(config, sslContext, handshakeMetrics,
+          ioReactorPool);
+      HedgingPolicy clientHedgingPolicy = null;
+      HedgeScheduler.Registration clientRetryScheduler = null;
+      ReconfigurableHttpAsyncClient client = null;
+      IdleConnectionEvictor.Registration clientEvictorRegistration = null;
+      try {
+        AdaptiveConcurrencyLimiter concurrencyLimiter = AdaptiveConcurrencyLimiter.create(config);
+        clientHedgingPolicy = HedgingPolicy.create(config);
+        CircuitBreaker circuitBreaker = CircuitBreaker.create(config);
+        Bulkhead bulkhead = Bulkhead.create(config);
+        RetryPolicy retryPolicy = RetryPolicy.create(config);
+        clientRetryScheduler = retryPolicy != null ? HedgeScheduler.getInstance().register() : null;
+        ContentDecoding contentDecoding = ContentDecoding.create(config);
+        RequestCoalescer requestCoalescer = RequestCoalescer.create(config);
+        client = new ReconfigurableHttpAsyncClient(
+            buildHttpAsyncClient(config, connectionManager, credentialsProvider, defaultRequestConfig),
+            buildHttpPipeliningClient(config, connectionManager), defaultRequestConfig, config.getMaxPipelinedRequests(),
+            concurrencyLimiter, clientHedgingPolicy, circuitBreaker, bulkhead, retryPolicy, clientRetryScheduler,
+            contentDecoding, requestCoalescer);
+        connectionPoolMetrics = new ConnectionPoolMetrics(METRICS_PREFIX, config, connectionManager, connectionManager::getRoutes);
+        handshakeMetrics.addMetrics(connectionPoolMetrics);
+        if (concurrencyLimiter != null) {
+          concurrencyLimiter.addMetrics(connectionPoolMetrics);
+        }
+        if (clientHedgingPolicy != null) {
+          clientHedgingPolicy.addMetrics(connectionPoolMetrics);
+        }
+        if (circuitBreaker != null) {
+          circuitBreaker.addMetrics(connectionPoolMetrics);
+        }
+        if (bulkhead != null) {
+          bulkhead.addMetrics(connectionPoolMetrics);
+        }
+        if (retryPolicy != null) {
+          retryPolicy.addMetrics(connectionPoolMetrics);
+        }
+        if (contentDecoding != null) {
+          contentDecoding.addMetrics(connectionPoolMetrics);
+        }
+        if (requestCoalescer != null) {
+          requestCoalescer.addMetrics(connectionPoolMetrics);
+        }
+        StoreReloader storeReloader = SslContextCache.getInstance().getStoreReloader(sslContext);
+        if (storeReloader != null) {
+          storeReloader.addMetrics(connectionPoolMetrics);
+        }
+        clientEvictorRegistration = registerEvictor(config, connectionManager);
+
+        // start async client
+        client.start();
+      }
+      catch (RuntimeException | Error ex) {
+        release(clientEvictorRegistration, client, connectionManager, clientHedgingPolicy, clientRetryScheduler);
+        throw ex;
+      }
+      asyncConnectionManager = connectionManager;
+      hedgingPolicy = clientHedgingPolicy;
+      retryScheduler = clientRetryScheduler;
+      httpAsyncClient = client;
+      evictorRegistration = clientEvictorRegistration;
+    }
+
+    void registerHealthChecks(@NotNull HealthCheckRegistry registry, @NotNull HttpClientConfig config) {
+      CircuitBreaker circuitBreaker = httpAsyncClient.getCircuitBreaker();
+      if (circuitBreaker != null) {
+        circuitBreaker.registerHealthCheck(registry, MetricRegistry.name(METRICS_PREFIX, ConnectionPoolMetrics.getConfigName(config)));
+      }
+    }
+
+    void unregisterHealthChecks() {
+      CircuitBreaker circuitBreaker = httpAsyncClient.getCircuitBreaker();
+      if (circuitBreaker != null) {
+        circuitBreaker.unregisterHealthCheck();
+      }
+    }
+
+    void close() {
+      connectionPoolMetrics.unregister();
+      unregisterHealthChecks();
+      release(evictorRegistration, httpAsyncClient, asyncConnectionManager, hedgingPolicy, retryScheduler);
+    }
+
+    /**
+     * Releases the resources of a client, also if the client was not started.
+     */
+    private static void release(@Nullable IdleConnectionEvictor.Registration evictorRegistration,
+        @Nullable ReconfigurableHttpAsyncClient httpAsyncClient, @NotNull PoolingNHttpClientConnectionManager asyncConnectionManager,
+        @Nullable HedgingPolicy hedgingPolicy, @Nullable HedgeScheduler.Registration retryScheduler) {
+      if (evictorRegistration != null) {
+        evictorRegistration.cancel();
+      }
+      if (httpAsyncClient != null) {
+        try {
+          httpAsyncClient.close();
+        }
+        catch (IOException ex) {
+          log.warn("Error closing async HTTP client.", ex);
+        }
+      }
+      // the connection manager and its IO reactor are only shut down by the client if it was started
+      try {
+        asyncConnectionManager.shutdown();
+      }
+      catch (IOException ex) {
+        log.warn("Error shutting down async connection manager.", ex);
+      }
+      if (hedgingPolicy != null) {
+        hedgingPolicy.close();
+      }
+      if (retryScheduler != null) {
+        retryScheduler.release();
+      }
+    }
+
+  }
+
 }
@@ -0,0 +1,340 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpasyncclient.impl;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+import org.apache.http.nio.ContentDecoder;
+import org.jetbrains.annotations.NotNull;
+
+import io.wcm.caravan.commons.httpasyncclient.consumer.ByteBufferPool;
+import io.wcm.caravan.commons.httpclient.impl.helpers.ContentDecoding;
+
+/**
+ * Content decoder inflating gzip or deflate compressed content while it is read from the content decoder of the
+ * connection. The compressed and the inflated content are held in two heap buffers of a {@link ByteBufferPool}, which
+ * are returned to the pool by {@link #release()}.
+ * <p>
+ * Deflate content is accepted with and without the zlib wrapper, like by the decoder of the sync client. Concatenated
+ * gzip members are inflated one after the other, content following the last member is ignored.
+ * </p>
+ */
+final class InflatingContentDecoder implements ContentDecoder {
+
+  private static final int GZIP_MAGIC_1 = 0x1f;
+  private static final int GZIP_MAGIC_2 = 0x8b;
+  private static final int GZIP_HEADER_SIZE = 10;
+  private static final int GZIP_TRAILER_SIZE = 8;
+  private static final int FHCRC = 2;
+  private static final int FEXTRA = 4;
+  private static final int FNAME = 8;
+  private static final int FCOMMENT = 16;
+
+  private enum State {
+    HEADER,
+    DATA,
+    TRAILER,
+    DONE
+  }
+
+  private final boolean gzip;
+  private final ContentDecoding contentDecoding;
+  private final ByteBufferPool bufferPool;
+  private final CRC32 crc = new CRC32();
+  private ByteBuffer input;
+  private ByteBuffer output;
+  private Inflater inflater;
+  private ContentDecoder source;
+  private State state = State.HEADER;
+  private int members;
+  private boolean sourceCompleted;
+
+  /**
+   * @param gzip true for gzip, false for deflate compressed content
+   * @param contentDecoding Content decoding counting the compressed and inflated bytes
+   * @param bufferPool Pool of heap buffers
+   */
+  InflatingContentDecoder(boolean gzip, @NotNull ContentDecoding contentDecoding, @NotNull ByteBufferPool bufferPool) {
+    if (bufferPool.isDirect()) {
+      throw new IllegalArgumentException("Inflater requires a pool of heap buffers.");
+    }
+    this.gzip = gzip;
+    this.contentDecoding = contentDecoding;
+    this.bufferPool = bufferPool;
+    this.input = bufferPool.acquire();
+    this.input.flip();
+    this.output = bufferPool.acquire();
+    this.output.flip();
+  }
+
+  /**
+   * @param decoder Content decoder of the connection the compressed content is read from
+   */
+  void setSource(@NotNull ContentDecoder decoder) {
+    this.source = decoder;
+  }
+
+  @Override
+  public int read(ByteBuffer dst) throws IOException {
+    if (isReleased()) {
+      throw new IOException("Content decoder is released.");
+    }
+    int count = 0;
+    while (dst.hasRemaining() && (output.hasRemaining() || inflate())) {
+      int length = Math.min(output.remaining(), dst.remaining());
+      ByteBuffer chunk = output.duplicate();
+      chunk.limit(chunk.position() + length);
+      dst.put(chunk);
+      output.position(output.position() + length);
+      count += length;
+    }
+    if (count > 0) {
+      contentDecoding.countDecodedBytes(0, count);
+      return count;
+    }
+    return isCompleted() ? -1 : 0;
+  }
+
+  @Override
+  public boolean isCompleted() {
+    return state == State.DONE && sourceCompleted && output != null && !output.hasRemaining();
+  }
+
+  /**
+   * Ends the inflater and returns the buffers to the pool. Further reads fail.
+   */
+  void release() {
+    if (isReleased()) {
+      return;
+    }
+    if (inflater != null) {
+      inflater.end();
+      inflater = null;
+    }
+    bufferPool.release(input);
+    bufferPool.release(output);
+    input = null;
+    output = null;
+  }
+
+  boolean isReleased() {
+    return output == null;
+  }
+
+  /**
+   * Inflates content into the empty output buffer, reading compressed content from the source as needed.
+   * @return false if no content can be inflated until more compressed content is received
+   */
+  private boolean inflate() throws IOException {
+    output.clear();
+    try {
+      while (output.position() == 0 && state != State.DONE) {
+        boolean processed;
+        switch (state) {
+          case HEADER:
+            processed = gzip ? readGzipHeader() : readDeflateHeader();
+            break;
+          case DATA:
+            processed = inflateData();
+            break;
+          default:
+            processed = readGzipTrailer();
+            break;
+        }
+        if (!processed && !receive()) {
+          if (!sourceCompleted) {
+            break;
+          }
+          if (state != State.HEADER || (members == 0 && input.hasRemaining())) {
+            throw new EOFException("Unexpected end of compressed content.");
+          }
+          state = State.DONE;
+        }
+      }
+      if (state == State.DONE) {
+        // drain the connection if content follows the compressed stream
+        input.position(input.limit());
+        while (receive()) {
+          input.position(input.limit());
+        }
+      }
+    }
+    finally {
+      output.flip();
+    }
+    return output.hasRemaining();
+  }
+
+  /**
+   * Reads compressed content from the source into the input buffer.
+   * @return false if no compressed content is available
+   */
+  private boolean receive() throws IOException {
+    if (sourceCompleted || source == null) {
+      return false;
+    }
+    input.compact();
+    if (!input.hasRemaining()) {
+      input.flip();
+      throw new ZipException("Header of compressed content exceeds buffer size.");
+    }
+    int count;
+    try {
+      count = source.read(input);
+    }
+    finally {
+      input.flip();
+    }
+    if (count < 0 || source.isCompleted()) {
+      sourceCompleted = true;
+    }
+    if (count > 0) {
+      contentDecoding.countDecodedBytes(count, 0);
+      return true;
+    }
+    return false;
+  }
+
+  private boolean readDeflateHeader() {
+    if (input.remaining() < 2) {
+      return false;
+    }
+    int cmf = input.get(input.position()) & 0xff;
+    int flg = input.get(input.position() + 1) & 0xff;
+    boolean zlib = (cmf & 0x0f) == 8 && ((cmf << 8) | flg) % 31 == 0;
+    inflater = new Inflater(!zlib);
+    state = State.DATA;
+    return true;
+  }
+
+  private boolean readGzipHeader() throws ZipException {
+    int start = input.position();
+    int end = input.limit();
+    if (end - start < GZIP_HEADER_SIZE) {
+      return false;
+    }
+    if ((input.get(start) & 0xff) != GZIP_MAGIC_1 || (input.get(start + 1) & 0xff) != GZIP_MAGIC_2) {
+      if (members > 0) {
+        // ignore trailing garbage like GZIPInputStream
+        input.position(end);
+        state = State.DONE;
+        return true;
+      }
+      throw new ZipException("Not in GZIP format.");
+    }
+    if (input.get(start + 2) != 8) {
+      throw new ZipException("Unsupported compression method.");
+    }
+    int flags = input.get(start + 3) & 0xff;
+    int offset = start + GZIP_HEADER_SIZE;
+    if ((flags & FEXTRA) != 0) {
+      if (end - offset < 2) {
+        return false;
+      }
+      offset += 2 + ((input.get(offset) & 0xff) | (input.get(offset + 1) & 0xff) << 8);
+    }
+    if ((flags & FNAME) != 0) {
+      offset = skipZeroTerminated(offset, end);
+    }
+    if ((flags & FCOMMENT) != 0) {
+      offset = skipZeroTerminated(offset, end);
+    }
+    if ((flags & FHCRC) != 0) {
+      offset += 2;
+    }
+    if (offset > end) {
+      return false;
+    }
+    input.position(offset);
+    if (inflater == null) {
+      inflater = new Inflater(true);
+    }
+    else {
+      inflater.reset();
+    }
+    crc.reset();
+    state = State.DATA;
+    return true;
+  }
+
+  private int skipZeroTerminated(int offset, int end) {
+    for (int i = offset; i < end; i++) {
+      if (input.get(i) == 0) {
+        return i + 1;
+      }
+    }
+    return end + 1;
+  }
+
+  private boolean inflateData() throws ZipException {
+    inflater.setInput(input.array(), input.arrayOffset() + input.position(), input.remaining());
+    int count;
+    try {
+      count = inflater.inflate(output.array(), output.arrayOffset() + output.position(), output.remaining());
+    }
+    catch (DataFormatException ex) {
+      throw new ZipException(ex.getMessage());
+    }
+    input.position(input.limit() - inflater.getRemaining());
+    if (count > 0) {
+      if (gzip) {
+        crc.update(output.array(), output.arrayOffset() + output.position(), count);
+      }
+      output.position(output.position() + count);
+    }
+    if (inflater.finished()) {
+      state = gzip ? State.TRAILER : State.DONE;
+      return true;
+    }
+    if (inflater.needsDictionary()) {
+      throw new ZipException("Preset dictionaries are not supported.");
+    }
+    return count > 0;
+  }
+
+  private boolean readGzipTrailer() throws ZipException {
+    if (input.remaining() < GZIP_TRAILER_SIZE) {
+      return false;
+    }
+    long checksum = readUnsignedInt();
+    long size = readUnsignedInt();
+    if (checksum != crc.getValue() || size != (inflater.getBytesWritten() & 0xffffffffL)) {
+      throw new ZipException("Corrupt GZIP trailer.");
+    }
+    members++;
+    state = State.HEADER;
+    return true;
+  }
+
+  private long readUnsignedInt() {
+    long value = 0;
+    for (int i = 0; i < 4; i++) {
+      value |= (long)(input.get() & 0xff) << (i * 8);
+    }
+    return value;
+  }
+
+}
@@ -0,0 +1,183 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpasyncclient.impl;
+
+import java.io.IOException;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLSession;
+
+import org.apache.http.HttpHost;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
+import org.apache.http.nio.reactor.IOSession;
+import org.apache.http.nio.reactor.ssl.SSLIOSession;
+import org.apache.http.nio.reactor.ssl.SSLMode;
+import org.apache.http.nio.reactor.ssl.SSLSetupHandler;
+import org.apache.http.util.Asserts;
+import org.jetbrains.annotations.NotNull;
+
+import io.wcm.caravan.commons.httpclient.impl.helpers.TlsHandshakeMetrics;
+
+/**
+ * SSL session strategy recording duration, session resumption and failures of each TLS handshake.
+ * <p>
+ * The handshake is executed asynchronously by the IO reactor after the session is upgraded, the start time
+ * is kept as session attribute until the session is verified after the handshake completed.
+ * Handshake failures raised later by the IO reactor, e.g. for an untrusted server certificate or a TLS alert
+ * of the server, are counted when the SSL session passes them on to the IO dispatch.
+ * </p>
+ */
+class MeteredSSLIOSessionStrategy extends SSLIOSessionStrategy {
+
+  private static final String HANDSHAKE_START_MILLIS = MeteredSSLIOSessionStrategy.class.getName() + ".handshakeStartMillis";
+  private static final String HANDSHAKE_START_NANOS = MeteredSSLIOSessionStrategy.class.getName() + ".handshakeStartNanos";
+
+  private final SSLContext sslContext;
+  private final TlsHandshakeMetrics handshakeMetrics;
+
+  /**
+   * @param sslContext SSL context
+   * @param handshakeMetrics Handshake metrics
+   */
+  MeteredSSLIOSessionStrategy(@NotNull SSLContext sslContext, @NotNull TlsHandshakeMetrics handshakeMetrics) {
+    super(sslContext);
+    this.sslContext = sslContext;
+    this.handshakeMetrics = handshakeMetrics;
+  }
+
+  /**
+   * Same as {@link SSLIOSessionStrategy#upgrade(HttpHost, IOSession)}, but creates an SSL session that counts
+   * handshake failures.
+   */
+  @Override
+  public SSLIOSession upgrade(HttpHost host, IOSession iosession) throws IOException {
+    Asserts.check(!(iosession instanceof SSLIOSession), "I/O session is already upgraded to TLS/SSL");
+    iosession.setAttribute(HANDSHAKE_START_MILLIS, System.currentTimeMillis());
+    iosession.setAttribute(HANDSHAKE_START_NANOS, System.nanoTime());
+    try {
+      SSLIOSession ssliosession = new MeteredSSLIOSession(iosession, host, new SSLSetupHandler() {
+
+        @Override
+        public void initalize(SSLEngine sslengine) throws SSLException {
+          initializeEngine(sslengine);
+        }
+
+        @Override
+        public void verify(IOSession session, SSLSession sslsession) throws SSLException {
+          verifySession(host, session, sslsession);
+        }
+
+      });
+      iosession.setAttribute(SSLIOSession.SESSION_KEY, ssliosession);
+      ssliosession.initialize();
+      return ssliosession;
+    }
+    catch (IOException | RuntimeException ex) {
+      handshakeFailed(iosession);
+      throw ex;
+    }
+  }
+
+  @Override
+  protected void verifySession(HttpHost host, IOSession iosession, SSLSession sslsession) throws SSLException {
+    try {
+      super.verifySession(host, iosession, sslsession);
+    }
+    catch (SSLException | RuntimeException ex) {
+      handshakeFailed(iosession);
+      throw ex;
+    }
+    Object startMillis = iosession.removeAttribute(HANDSHAKE_START_MILLIS);
+    Object startNanos = iosession.removeAttribute(HANDSHAKE_START_NANOS);
+    if (startMillis instanceof Long && startNanos instanceof Long) {
+      handshakeMetrics.completed(sslsession, (Long)startMillis, (Long)startNanos);
+    }
+  }
+
+  /**
+   * Counts a failed handshake, unless the handshake of the session was already completed or counted as failed.
+   * @param iosession IO session
+   */
+  private void handshakeFailed(@NotNull IOSession iosession) {
+    if (iosession.removeAttribute(HANDSHAKE_START_MILLIS) != null) {
+      iosession.removeAttribute(HANDSHAKE_START_NANOS);
+      handshakeMetrics.failed();
+    }
+  }
+
+
+  /**
+   * SSL session counting exceptions raised by the IO reactor before the handshake completed as handshake failures.
+   */
+  private final class MeteredSSLIOSession extends SSLIOSession {
+
+    MeteredSSLIOSession(IOSession session, HttpHost host, SSLSetupHandler handler) {
+      super(session, SSLMode.CLIENT, host, sslContext, handler);
+    }
+
+    @Override
+    public synchronized boolean isAppInputReady() throws IOException {
+      try {
+        return super.isAppInputReady();
+      }
+      catch (IOException ex) {
+        handshakeFailed(this);
+        throw ex;
+      }
+    }
+
+    @Override
+    public synchronized boolean isAppOutputReady() throws IOException {
+      try {
+        return super.isAppOutputReady();
+      }
+      catch (IOException ex) {
+        handshakeFailed(this);
+        throw ex;
+      }
+    }
+
+    @Override
+    public synchronized void inboundTransport() throws IOException {
+      try {
+        super.inboundTransport();
+      }
+      catch (IOException ex) {
+        handshakeFailed(this);
+        throw ex;
+      }
+    }
+
+    @Override
+    public synchronized void outboundTransport() throws IOException {
+      try {
+        super.outboundTransport();
+      }
+      catch (IOException ex) {
+        handshakeFailed(this);
+        throw ex;
+      }
+    }
+
+  }
+
+}
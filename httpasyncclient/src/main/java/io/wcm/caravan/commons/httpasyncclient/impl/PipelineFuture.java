@@ -0,0 +1,146 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpasyncclient.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.apache.http.concurrent.BasicFuture;
+import org.apache.http.concurrent.FutureCallback;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Future of a pipeline of requests that is executed in multiple parts, e.g. on different connections.
+ * <p>
+ * The future is completed with the results of all parts in the original order of the requests.
+ * It fails as soon as one part fails, and cancelling the future cancels all parts still running.
+ * </p>
+ * @param <T> Result type
+ */
+final class PipelineFuture<T> extends BasicFuture<List<T>> {
+
+  private final AtomicReferenceArray<List<T>> partResults;
+  private final AtomicInteger remainingParts;
+  private final List<Future<?>> parts = new CopyOnWriteArrayList<>();
+
+  /**
+   * @param partCount Number of parts
+   * @param callback Callback for the whole pipeline
+   */
+  PipelineFuture(int partCount, @Nullable FutureCallback<List<T>> callback) {
+    super(callback);
+    this.partResults = new AtomicReferenceArray<>(partCount);
+    this.remainingParts = new AtomicInteger(partCount);
+  }
+
+  /**
+   * @param index Index of the part
+   * @return Callback for a part returning the results of multiple requests
+   */
+  @NotNull
+  FutureCallback<List<T>> partCallback(int index) {
+    return new FutureCallback<List<T>>() {
+      @Override
+      public void completed(List<T> result) {
+        partCompleted(index, result);
+      }
+      @Override
+      public void failed(Exception ex) {
+        partFailed(ex);
+      }
+      @Override
+      public void cancelled() {
+        cancel(true);
+      }
+    };
+  }
+
+  /**
+   * @param index Index of the part
+   * @return Callback for a part consisting of a single request
+   */
+  @NotNull
+  FutureCallback<T> resultCallback(int index) {
+    return new FutureCallback<T>() {
+      @Override
+      public void completed(T result) {
+        partCompleted(index, Collections.singletonList(result));
+      }
+      @Override
+      public void failed(Exception ex) {
+        partFailed(ex);
+      }
+      @Override
+      public void cancelled() {
+        cancel(true);
+      }
+    };
+  }
+
+  /**
+   * Adds the future of a part so it can be cancelled if the pipeline fails or is cancelled.
+   * @param part Future of the part
+   */
+  void addPart(@NotNull Future<?> part) {
+    parts.add(part);
+    if (isCancelled() || (isDone() && remainingParts.get() > 0)) {
+      part.cancel(true);
+    }
+  }
+
+  @Override
+  public boolean cancel(boolean mayInterruptIfRunning) {
+    boolean cancelled = super.cancel(mayInterruptIfRunning);
+    if (cancelled) {
+      cancelParts();
+    }
+    return cancelled;
+  }
+
+  private void partCompleted(int index, List<T> result) {
+    partResults.set(index, result);
+    if (remainingParts.decrementAndGet() == 0) {
+      List<T> results = new ArrayList<>();
+      for (int i = 0; i < partResults.length(); i++) {
+        results.addAll(partResults.get(i));
+      }
+      completed(results);
+    }
+  }
+
+  private void partFailed(Exception ex) {
+    if (failed(ex)) {
+      cancelParts();
+    }
+  }
+
+  private void cancelParts() {
+    for (Future<?> part : parts) {
+      part.cancel(true);
+    }
+  }
+
+}
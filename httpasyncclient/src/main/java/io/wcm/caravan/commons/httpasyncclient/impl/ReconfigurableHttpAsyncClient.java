@@ -0,0 +1,588 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpasyncclient.impl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpRequestWrapper;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.concurrent.BasicFuture;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.CloseableHttpPipeliningClient;
+import org.apache.http.nio.client.HttpPipeliningClient;
+import org.apache.http.nio.client.methods.HttpAsyncMethods;
+import org.apache.http.nio.protocol.BasicAsyncRequestProducer;
+import org.apache.http.nio.protocol.BasicAsyncResponseConsumer;
+import org.apache.http.nio.protocol.HttpAsyncRequestProducer;
+import org.apache.http.nio.protocol.HttpAsyncResponseConsumer;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HttpContext;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import io.wcm.caravan.commons.httpclient.impl.helpers.AdaptiveConcurrencyLimiter;
+import io.wcm.caravan.commons.httpclient.impl.helpers.Bulkhead;
+import io.wcm.caravan.commons.httpclient.impl.helpers.CircuitBreaker;
+import io.wcm.caravan.commons.httpclient.impl.helpers.ContentDecoding;
+import io.wcm.caravan.commons.httpclient.impl.helpers.RequestCoalescer;
+import io.wcm.caravan.commons.httpclient.impl.helpers.RequestPermits;
+import io.wcm.caravan.commons.httpclient.impl.helpers.RetryPolicy;
+
+/**
+ * Wraps the async HTTP client built for a configuration, allowing to swap the default request config when the
+ * configuration is changed without rebuilding the client, its IO reactor and connection pool.
+ * <p>
+ * The current default request config is put into the execution context of each request that does not define
+ * a request config on its own, which is equivalent to the default request config of the wrapped client.
+ * </p>
+ * <p>
+ * Pipelines of requests are sent in a row on shared connections if a pipelining client is set, split into parts
+ * of max. {@link #getMaxPipelinedRequests()} requests per connection. Otherwise each request of the pipeline is
+ * executed on its own by the wrapped client. Single requests are always executed by the wrapped client.
+ * </p>
+ * <p>
+ * If an adaptive concurrency limiter is set, requests exceeding the limit of their route fail immediately.
+ * Likewise, requests fail immediately while the circuit breaker is open or the bulkhead is full.
+ * Each part of a pipeline counts as a single request, as it occupies a single connection.
+ * </p>
+ * <p>
+ * If a hedging policy is set, a backup request is sent for GET and HEAD requests not answered within the hedge delay.
+ * This applies only to requests executed with a plain {@link HttpRequest}, as request producers and response consumers
+ * cannot be used for two requests.
+ * </p>
+ * <p>
+ * If a retry policy is set, idempotent requests executed with a plain {@link HttpRequest} that failed with a retryable
+ * exception or status code are sent again after a randomized backoff, as long as the retry budget is not exhausted.
+ * </p>
+ * <p>
+ * If a content decoding is set, requests executed with a plain {@link HttpRequest} accept compressed responses,
+ * which are decompressed by the response consumer. gzip and deflate content is inflated while it is received, only
+ * Brotli compressed responses are buffered as a whole before they are decompressed while the caller reads the response
+ * entity. Requests defining an Accept-Encoding header on their own get the response as sent by the server.
+ * </p>
+ * <p>
+ * If a request coalescer is set, identical GET and HEAD requests executed with a plain {@link HttpRequest} while
+ * the first one is in flight wait for its response instead of executing the request again, including its retries
+ * and backup requests. Each of them gets its own copy of the buffered response, or executes the request on its own
+ * if the response was not buffered. Cancelling one of them does not cancel the upstream request the others are
+ * waiting for.
+ * </p>
+ */
+class ReconfigurableHttpAsyncClient extends CloseableHttpAsyncClient implements HttpPipeliningClient {
+
+  private final CloseableHttpAsyncClient delegate;
+  private final CloseableHttpPipeliningClient pipeliningDelegate;
+  private volatile RequestConfig defaultRequestConfig;
+  private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+  private final CircuitBreaker circuitBreaker;
+  private final Bulkhead bulkhead;
+  private final HedgingPolicy hedgingPolicy;
+  private final RetryPolicy retryPolicy;
+  private final HedgeScheduler.Registration retryScheduler;
+  private final ContentDecoding contentDecoding;
+  private final RequestCoalescer requestCoalescer;
+  private volatile int maxPipelinedRequests;
+
+  /**
+   * @param delegate Wrapped async HTTP client
+   * @param defaultRequestConfig Default request config
+   */
+  ReconfigurableHttpAsyncClient(@NotNull CloseableHttpAsyncClient delegate, @NotNull RequestConfig defaultRequestConfig) {
+    this(delegate, null, defaultRequestConfig, 0, null, null, null, null, null, null, null, null);
+  }
+
+  /**
+   * @param delegate Wrapped async HTTP client
+   * @param pipeliningDelegate Pipelining client sharing the connection pool of the wrapped client,
+   *          or null to execute each request of a pipeline on its own
+   * @param defaultRequestConfig Default request config
+   * @param maxPipelinedRequests Max. number of requests pipelined on a single connection, 0 = no limit
+   * @param concurrencyLimiter Limits requests in flight per route adaptively, or null for no limit
+   * @param hedgingPolicy Sends backup requests for GET and HEAD requests, or null for no hedging
+   * @param circuitBreaker Rejects requests while the upstream is degraded, or null for no circuit breaker
+   * @param bulkhead Rejects requests exceeding the max. concurrent calls, or null for no bulkhead
+   * @param retryPolicy Retries failed idempotent requests, or null for no retries
+   * @param retryScheduler Schedules the retries, required if a retry policy is set
+   * @param contentDecoding Accepted content codings and their decoders, or null to not accept compressed responses
+   * @param requestCoalescer Coalesces identical requests in flight, or null for no coalescing
+   */
+  ReconfigurableHttpAsyncClient(@NotNull CloseableHttpAsyncClient delegate, @Nullable CloseableHttpPipeliningClient pipeliningDelegate,
+      @NotNull RequestConfig defaultRequestConfig, int maxPipelinedRequests, @Nullable AdaptiveConcurrencyLimiter concurrencyLimiter, @Nullable HedgingPolicy hedgingPolicy,
+      @Nullable CircuitBreaker circuitBreaker, @Nullable Bulkhead bulkhead,
+      @Nullable RetryPolicy retryPolicy, @Nullable HedgeScheduler.Registration retryScheduler,
+      @Nullable ContentDecoding contentDecoding, @Nullable RequestCoalescer requestCoalescer) {
+    this.delegate = delegate;
+    this.concurrencyLimiter = concurrencyLimiter;
+    this.circuitBreaker = circuitBreaker;
+    this.bulkhead = bulkhead;
+    this.hedgingPolicy = hedgingPolicy;
+    this.retryPolicy = retryScheduler != null ? retryPolicy : null;
+    this.retryScheduler = retryScheduler;
+    this.contentDecoding = contentDecoding;
+    this.requestCoalescer = requestCoalescer;
+    this.pipeliningDelegate = pipeliningDelegate;
+    this.defaultRequestConfig = defaultRequestConfig;
+    this.maxPipelinedRequests = maxPipelinedRequests;
+  }
+
+  /**
+   * @return Wrapped async HTTP client
+   */
+  @NotNull
+  CloseableHttpAsyncClient getDelegate() {
+    return delegate;
+  }
+
+  /**
+   * @return Current default request config
+   */
+  @NotNull
+  RequestConfig getDefaultRequestConfig() {
+    return defaultRequestConfig;
+  }
+
+  /**
+   * @param defaultRequestConfig New default request config applied to all subsequent requests
+   */
+  void setDefaultRequestConfig(@NotNull RequestConfig defaultRequestConfig) {
+    this.defaultRequestConfig = defaultRequestConfig;
+  }
+
+  /**
+   * @return Adaptive concurrency limiter or null if requests in flight are not limited per route
+   */
+  @Nullable
+  AdaptiveConcurrencyLimiter getConcurrencyLimiter() {
+    return concurrencyLimiter;
+  }
+
+  /**
+   * @return Circuit breaker or null if requests are not rejected while the upstream is degraded
+   */
+  @Nullable
+  CircuitBreaker getCircuitBreaker() {
+    return circuitBreaker;
+  }
+
+  /**
+   * @return Bulkhead or null if concurrent calls are not limited
+   */
+  @Nullable
+  Bulkhead getBulkhead() {
+    return bulkhead;
+  }
+
+  /**
+   * @return Hedging policy or null if no backup requests are sent
+   */
+  @Nullable
+  HedgingPolicy getHedgingPolicy() {
+    return hedgingPolicy;
+  }
+
+  /**
+   * @return Retry policy or null if failed requests are not retried
+   */
+  @Nullable
+  RetryPolicy getRetryPolicy() {
+    return retryPolicy;
+  }
+
+  /**
+   * @return Content decoding or null if compressed responses are not accepted
+   */
+  @Nullable
+  ContentDecoding getContentDecoding() {
+    return contentDecoding;
+  }
+
+  /**
+   * @return Request coalescer or null if identical requests are not coalesced
+   */
+  @Nullable
+  RequestCoalescer getRequestCoalescer() {
+    return requestCoalescer;
+  }
+
+  /**
+   * @return true if pipelines are sent in a row on shared connections
+   */
+  boolean isPipelining() {
+    return pipeliningDelegate != null;
+  }
+
+  /**
+   * @return Max. number of requests pipelined on a single connection, 0 = no limit
+   */
+  int getMaxPipelinedRequests() {
+    return maxPipelinedRequests;
+  }
+
+  /**
+   * @param maxPipelinedRequests Max. number of requests pipelined on a single connection applied to all subsequent
+   *          pipelines, 0 = no limit
+   */
+  void setMaxPipelinedRequests(int maxPipelinedRequests) {
+    this.maxPipelinedRequests = maxPipelinedRequests;
+  }
+
+  @Override
+  public <T> Future<T> execute(HttpAsyncRequestProducer requestProducer, HttpAsyncResponseConsumer<T> responseConsumer,
+      HttpContext context, FutureCallback<T> callback) {
+    HttpContext localContext = applyDefaultRequestConfig(context);
+    return executeLimited(requestProducer.getTarget(), callback,
+        limitedCallback -> delegate.execute(requestProducer, responseConsumer, localContext, limitedCallback));
+  }
+
+  @Override
+  public Future<HttpResponse> execute(HttpHost target, HttpRequest request, HttpContext context, FutureCallback<HttpResponse> callback) {
+    String coalescingKey = requestCoalescer != null ? requestCoalescer.getKey(target, request, context) : null;
+    if (coalescingKey != null) {
+      return executeCoalesced(target, request, context, coalescingKey, callback);
+    }
+    return executeRetrying(target, request, context, callback);
+  }
+
+  /**
+   * Executes the request, or waits for the response of an identical request in flight.
+   */
+  private Future<HttpResponse> executeCoalesced(HttpHost target, HttpRequest request, HttpContext context,
+      String coalescingKey, FutureCallback<HttpResponse> callback) {
+    RequestCoalescer.Flight flight = new RequestCoalescer.Flight();
+    RequestCoalescer.Flight currentFlight = requestCoalescer.join(coalescingKey, flight);
+    BasicFuture<HttpResponse> future = new BasicFuture<>(callback);
+    if (currentFlight == null) {
+      try {
+        executeRetrying(target, request, context, new FutureCallback<HttpResponse>() {
+          @Override
+          public void completed(HttpResponse result) {
+            HttpResponse sharedResponse;
+            try {
+              sharedResponse = requestCoalescer.complete(coalescingKey, flight, result);
+            }
+            catch (IOException ex) {
+              future.failed(ex);
+              return;
+            }
+            future.completed(sharedResponse != null ? RequestCoalescer.copy(sharedResponse, false) : result);
+          }
+          @Override
+          public void failed(Exception ex) {
+            requestCoalescer.fail(coalescingKey, flight, ex);
+            future.failed(ex);
+          }
+          @Override
+          public void cancelled() {
+            requestCoalescer.fail(coalescingKey, flight, new CancellationException("Coalesced request cancelled."));
+            future.cancel();
+          }
+        });
+      }
+      catch (RuntimeException ex) {
+        requestCoalescer.fail(coalescingKey, flight, ex);
+        throw ex;
+      }
+      return future;
+    }
+
+    currentFlight.whenComplete((sharedResponse, ex) -> {
+      if (ex != null) {
+        future.failed(ex instanceof Exception ? (Exception)ex : new ExecutionException(ex));
+      }
+      else if (sharedResponse == null) {
+        // response was not buffered for the joined requests
+        try {
+          executeRetrying(target, request, context, new FutureCallback<HttpResponse>() {
+            @Override
+            public void completed(HttpResponse result) {
+              future.completed(result);
+            }
+            @Override
+            public void failed(Exception failure) {
+              future.failed(failure);
+            }
+            @Override
+            public void cancelled() {
+              future.cancel();
+            }
+          });
+        }
+        catch (RuntimeException failure) {
+          future.failed(failure);
+        }
+      }
+      else {
+        future.completed(RequestCoalescer.copy(sharedResponse, true));
+      }
+    });
+    return future;
+  }
+
+  private Future<HttpResponse> executeRetrying(HttpHost target, HttpRequest request, HttpContext context,
+      FutureCallback<HttpResponse> callback) {
+    if (retryPolicy == null || !RetryPolicy.isRetryable(request)) {
+      return executeHedged(target, request, context, callback);
+    }
+    RetryingFuture future = new RetryingFuture(retryPolicy, retryScheduler, callback);
+    future.start(attemptCallback -> executeHedged(target, request, context, attemptCallback));
+    return future;
+  }
+
+  private Future<HttpResponse> executeHedged(HttpHost target, HttpRequest request, HttpContext context,
+      FutureCallback<HttpResponse> callback) {
+    HttpRequest acceptingRequest = acceptEncoding(request);
+    boolean decode = acceptingRequest != request;
+    if (hedgingPolicy == null || !HedgingPolicy.isHedgeable(request)) {
+      return execute(HttpAsyncMethods.create(target, acceptingRequest), createConsumer(decode), context, callback);
+    }
+    HttpContext backupContext = HedgedFuture.createBackupContext(context);
+    HedgedFuture future = new HedgedFuture(hedgingPolicy, callback);
+    future.start(
+        requestCallback -> execute(HttpAsyncMethods.create(target, acceptingRequest), createConsumer(decode), context, requestCallback),
+        requestCallback -> execute(HttpAsyncMethods.create(target, acceptingRequest), createConsumer(decode), backupContext,
+            requestCallback));
+    return future;
+  }
+
+  /**
+   * @return Request with Accept-Encoding header if compressed responses are accepted and the request does not define
+   *         accepted content codings on its own. The original request is not modified.
+   */
+  private HttpRequest acceptEncoding(HttpRequest request) {
+    if (contentDecoding == null || request.containsHeader(HttpHeaders.ACCEPT_ENCODING)) {
+      return request;
+    }
+    HttpRequest acceptingRequest = HttpRequestWrapper.wrap(request);
+    acceptingRequest.addHeader(HttpHeaders.ACCEPT_ENCODING, contentDecoding.getAcceptEncoding());
+    return acceptingRequest;
+  }
+
+  /**
+   * @param decode true if the Accept-Encoding header was added by this client
+   * @return Consumer buffering the response, decompressing its content if compressed responses were accepted
+   *         by this client. The content of responses to callers negotiating the content coding on their own
+   *         is not touched.
+   */
+  private HttpAsyncResponseConsumer<HttpResponse> createConsumer(boolean decode) {
+    HttpAsyncResponseConsumer<HttpResponse> consumer = HttpAsyncMethods.createConsumer();
+    if (!decode) {
+      return consumer;
+    }
+    return new DecodingResponseConsumer(consumer, contentDecoding);
+  }
+
+  @Override
+  public <T> Future<List<T>> execute(HttpHost target, List<? extends HttpAsyncRequestProducer> requestProducers,
+      List<? extends HttpAsyncResponseConsumer<T>> responseConsumers, HttpContext context, FutureCallback<List<T>> callback) {
+    if (requestProducers.isEmpty()) {
+      throw new IllegalArgumentException("Request producers may not be empty.");
+    }
+    if (requestProducers.size() != responseConsumers.size()) {
+      throw new IllegalArgumentException("Number of request producers does not match number of response consumers.");
+    }
+    int requestCount = requestProducers.size();
+    int partSize = pipeliningDelegate != null ? maxPipelinedRequests : 1;
+    if (pipeliningDelegate != null && (partSize <= 0 || partSize >= requestCount)) {
+      HttpContext localContext = applyDefaultRequestConfig(context);
+      return executeLimited(target, callback,
+          limitedCallback -> pipeliningDelegate.execute(target, requestProducers, responseConsumers, localContext, limitedCallback));
+    }
+
+    // each part is executed with its own context, as the parts are running concurrently on different connections
+    int partCount = (requestCount + partSize - 1) / partSize;
+    PipelineFuture<T> future = new PipelineFuture<>(partCount, callback);
+    for (int part = 0; part < partCount; part++) {
+      int from = part * partSize;
+      int to = Math.min(from + partSize, requestCount);
+      HttpContext partContext = applyDefaultRequestConfig(new BasicHttpContext(context));
+      if (pipeliningDelegate != null) {
+        future.addPart(executeLimited(target, future.partCallback(part),
+            limitedCallback -> pipeliningDelegate.execute(target, requestProducers.subList(from, to), responseConsumers.subList(from, to),
+                partContext, limitedCallback)));
+      }
+      else {
+        future.addPart(executeLimited(target, future.resultCallback(part),
+            limitedCallback -> delegate.execute(requestProducers.get(from), responseConsumers.get(from), partContext, limitedCallback)));
+      }
+    }
+    return future;
+  }
+
+  @Override
+  public <T> Future<List<T>> execute(HttpHost target, List<? extends HttpAsyncRequestProducer> requestProducers,
+      List<? extends HttpAsyncResponseConsumer<T>> responseConsumers, FutureCallback<List<T>> callback) {
+    return execute(target, requestProducers, responseConsumers, null, callback);
+  }
+
+  @Override
+  public Future<List<HttpResponse>> execute(HttpHost target, List<HttpRequest> requests, HttpContext context,
+      FutureCallback<List<HttpResponse>> callback) {
+    List<HttpAsyncRequestProducer> requestProducers = new ArrayList<>(requests.size());
+    List<HttpAsyncResponseConsumer<HttpResponse>> responseConsumers = new ArrayList<>(requests.size());
+    for (HttpRequest request : requests) {
+      HttpRequest acceptingRequest = acceptEncoding(request);
+      requestProducers.add(new BasicAsyncRequestProducer(target, acceptingRequest));
+      responseConsumers.add(acceptingRequest != request
+          ? new DecodingResponseConsumer(new BasicAsyncResponseConsumer(), contentDecoding)
+          : new BasicAsyncResponseConsumer());
+    }
+    return execute(target, requestProducers, responseConsumers, context, callback);
+  }
+
+  @Override
+  public Future<List<HttpResponse>> execute(HttpHost target, List<HttpRequest> requests,
+      FutureCallback<List<HttpResponse>> callback) {
+    return execute(target, requests, null, callback);
+  }
+
+  /**
+   * Executes the request if the circuit breaker is closed, the bulkhead is not full and the concurrency limit
+   * of the route is not exceeded, otherwise the returned future fails immediately.
+   */
+  private <T> Future<T> executeLimited(@Nullable HttpHost target, @Nullable FutureCallback<T> callback,
+      @NotNull Function<FutureCallback<T>, Future<T>> execution) {
+    RequestPermits permits;
+    try {
+      permits = RequestPermits.acquire(target, circuitBreaker, bulkhead, concurrencyLimiter);
+    }
+    catch (IOException ex) {
+      BasicFuture<T> future = new BasicFuture<>(callback);
+      future.failed(ex);
+      return future;
+    }
+    if (permits == null) {
+      return execution.apply(callback);
+    }
+    try {
+      return execution.apply(new PermitCallback<>(permits, callback));
+    }
+    catch (RuntimeException ex) {
+      permits.release();
+      throw ex;
+    }
+  }
+
+  private @NotNull HttpContext applyDefaultRequestConfig(HttpContext context) {
+    HttpContext localContext = context != null ? context : new BasicHttpContext();
+    if (localContext.getAttribute(HttpClientContext.REQUEST_CONFIG) == null) {
+      localContext.setAttribute(HttpClientContext.REQUEST_CONFIG, defaultRequestConfig);
+    }
+    return localContext;
+  }
+
+  @Override
+  public boolean isRunning() {
+    return delegate.isRunning();
+  }
+
+  @Override
+  public void start() {
+    // the wrapped client runs the IO event dispatch of the shared connection pool
+    delegate.start();
+    if (pipeliningDelegate != null) {
+      pipeliningDelegate.start();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      if (pipeliningDelegate != null) {
+        pipeliningDelegate.close();
+      }
+    }
+    finally {
+      delegate.close();
+    }
+  }
+
+  /**
+   * Samples the outcome and releases the permits before the callback of the caller is invoked.
+   */
+  private static final class PermitCallback<T> implements FutureCallback<T> {
+
+    private final RequestPermits permits;
+    private final FutureCallback<T> callback;
+
+    PermitCallback(RequestPermits permits, FutureCallback<T> callback) {
+      this.permits = permits;
+      this.callback = callback;
+    }
+
+    @Override
+    public void completed(T result) {
+      permits.sample(hasStatus(result, RequestPermits::isFailureStatus),
+          hasStatus(result, AdaptiveConcurrencyLimiter::isOverloadStatus));
+      permits.release();
+      if (callback != null) {
+        callback.completed(result);
+      }
+    }
+
+    @Override
+    public void failed(Exception ex) {
+      permits.sample(true, true);
+      permits.release();
+      if (callback != null) {
+        callback.failed(ex);
+      }
+    }
+
+    @Override
+    public void cancelled() {
+      permits.release();
+      if (callback != null) {
+        callback.cancelled();
+      }
+    }
+
+    /**
+     * @return true if the response or any response of a pipeline has a matching status code
+     */
+    private static boolean hasStatus(Object result, IntPredicate statusCodes) {
+      if (result instanceof HttpResponse) {
+        return statusCodes.test(((HttpResponse)result).getStatusLine().getStatusCode());
+      }
+      if (result instanceof List) {
+        for (Object item : (List<?>)result) {
+          if (hasStatus(item, statusCodes)) {
+            return true;
+          }
+        }
+      }
+      return false;
+    }
+
+  }
+
+}
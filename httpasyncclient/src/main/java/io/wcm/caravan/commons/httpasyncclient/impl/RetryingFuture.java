@@ -0,0 +1,149 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpasyncclient.impl;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.Function;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.concurrent.BasicFuture;
+import org.apache.http.concurrent.FutureCallback;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import io.wcm.caravan.commons.httpclient.impl.helpers.RetryPolicy;
+
+/**
+ * Result of a request that is retried by the retry policy: If an attempt fails with a retryable exception or status
+ * code, the next attempt is scheduled after the backoff. The future completes with the result of the last attempt.
+ */
+class RetryingFuture extends BasicFuture<HttpResponse> {
+
+  private final RetryPolicy retryPolicy;
+  private final HedgeScheduler.Registration scheduler;
+  private Function<FutureCallback<HttpResponse>, Future<HttpResponse>> execution;
+  private volatile int attempt;
+  private volatile Future<HttpResponse> currentRequest;
+  private volatile ScheduledFuture<?> retryTask;
+
+  RetryingFuture(@NotNull RetryPolicy retryPolicy, @NotNull HedgeScheduler.Registration scheduler,
+      @Nullable FutureCallback<HttpResponse> callback) {
+    super(callback);
+    this.retryPolicy = retryPolicy;
+    this.scheduler = scheduler;
+  }
+
+  /**
+   * Sends the first attempt.
+   * @param attemptExecution Executes an attempt of the request with the given callback
+   */
+  void start(@NotNull Function<FutureCallback<HttpResponse>, Future<HttpResponse>> attemptExecution) {
+    this.execution = attemptExecution;
+    retryPolicy.requestStarted();
+    sendAttempt();
+  }
+
+  /**
+   * @return Number of attempts sent
+   */
+  int getAttempts() {
+    return attempt;
+  }
+
+  private void sendAttempt() {
+    if (isDone()) {
+      return;
+    }
+    attempt++;
+    currentRequest = execution.apply(new AttemptCallback());
+    if (isDone()) {
+      cancelRequests();
+    }
+  }
+
+  /**
+   * @return true if the next attempt is scheduled
+   */
+  private boolean scheduleRetry() {
+    ScheduledFuture<?> task = scheduler.schedule(this::sendAttempt, retryPolicy.getBackoff(attempt));
+    if (task == null) {
+      return false;
+    }
+    retryTask = task;
+    if (isDone()) {
+      cancelRequests();
+    }
+    return true;
+  }
+
+  private boolean isLastAttempt() {
+    return attempt >= retryPolicy.getMaxAttempts();
+  }
+
+  @Override
+  public boolean cancel(boolean mayInterruptIfRunning) {
+    boolean cancelled = super.cancel(mayInterruptIfRunning);
+    if (cancelled) {
+      cancelRequests();
+    }
+    return cancelled;
+  }
+
+  private void cancelRequests() {
+    ScheduledFuture<?> task = retryTask;
+    if (task != null) {
+      task.cancel(false);
+    }
+    Future<HttpResponse> request = currentRequest;
+    if (request != null) {
+      request.cancel(true);
+    }
+  }
+
+
+  private final class AttemptCallback implements FutureCallback<HttpResponse> {
+
+    @Override
+    public void completed(HttpResponse result) {
+      // responses of the async client are buffered completely, so no connection has to be released before retrying
+      if (!isLastAttempt() && retryPolicy.isRetryableStatus(result.getStatusLine().getStatusCode())
+          && retryPolicy.tryAcquireRetry() && scheduleRetry()) {
+        return;
+      }
+      RetryingFuture.this.completed(result);
+    }
+
+    @Override
+    public void failed(Exception ex) {
+      if (!isLastAttempt() && retryPolicy.isRetryableException(ex) && retryPolicy.tryAcquireRetry() && scheduleRetry()) {
+        return;
+      }
+      RetryingFuture.this.failed(ex);
+    }
+
+    @Override
+    public void cancelled() {
+      RetryingFuture.this.cancel();
+    }
+
+  }
+
+}
@@ -0,0 +1,353 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpasyncclient.impl;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.config.ConnectionConfig;
+import org.apache.http.impl.nio.conn.ManagedNHttpClientConnectionFactory;
+import org.apache.http.nio.NHttpConnection;
+import org.apache.http.nio.conn.ManagedNHttpClientConnection;
+import org.apache.http.nio.conn.NHttpConnectionFactory;
+import org.apache.http.nio.reactor.IOSession;
+import org.apache.http.nio.util.ByteBufferAllocator;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.RatioGauge;
+
+/**
+ * Pool of direct buffers for the session input and output buffers of the async HTTP client connections,
+ * shared by the connection pools of all configurations using the shared IO reactors.
+ * <p>
+ * Buffers are pooled in size classes of powers of two between {@link #MIN_BUFFER_SIZE} and the max. buffer size.
+ * The pool allocates direct buffers until the max. pool size is reached; larger buffers, and buffers requested while
+ * the pool is exhausted, are allocated on the heap and left to the garbage collector (fallback allocations).
+ * </p>
+ * <p>
+ * The buffers of a connection are returned to the pool when the connection is closed by the IO dispatch of the
+ * {@link SharedIOReactorPool}. Connections of dedicated IO reactors do not use the pool. Buffers of connections that
+ * were garbage collected without being closed are returned as well.
+ * </p>
+ */
+final class SessionBufferPool {
+
+  /**
+   * Smallest size class.
+   */
+  static final int MIN_BUFFER_SIZE = 1024;
+
+  static final String METRICS_PREFIX = "httpasyncclient.sessionbuffers";
+  static final String METRIC_MAX_BYTES = "maxbytes";
+  static final String METRIC_ALLOCATED_BYTES = "allocatedbytes";
+  static final String METRIC_IN_USE_BYTES = "inusebytes";
+  static final String METRIC_UTILIZATION = "utilization";
+  static final String METRIC_FALLBACK_ALLOCATIONS = "fallbackallocations";
+
+  /**
+   * Session attribute with the buffers of a connection.
+   */
+  private static final String CONNECTION_BUFFERS_ATTRIBUTE = ConnectionBuffers.class.getName();
+
+  private final long maxPoolSize;
+  private final int maxBufferSize;
+  private final Queue<ByteBuffer>[] sizeClasses;
+  private final AtomicLong allocatedBytes = new AtomicLong();
+  private final AtomicLong freeBytes = new AtomicLong();
+  private final AtomicLong fallbackAllocations = new AtomicLong();
+  private final ReferenceQueue<Object> collectedConnections = new ReferenceQueue<>();
+  private final Set<ConnectionReference> connections = ConcurrentHashMap.newKeySet();
+  private MetricRegistry registry;
+
+  /**
+   * @param maxPoolSize Max. number of bytes of all direct buffers allocated by the pool
+   * @param maxBufferSize Max. size of pooled buffers, rounded up to a power of two
+   */
+  @SuppressWarnings("unchecked")
+  SessionBufferPool(long maxPoolSize, int maxBufferSize) {
+    if (maxPoolSize <= 0) {
+      throw new IllegalArgumentException("Invalid max. pool size: " + maxPoolSize);
+    }
+    this.maxPoolSize = maxPoolSize;
+    this.maxBufferSize = sizeClassCapacity(sizeClassIndex(Math.max(MIN_BUFFER_SIZE, maxBufferSize)));
+    this.sizeClasses = new Queue[sizeClassIndex(this.maxBufferSize) + 1];
+    for (int i = 0; i < sizeClasses.length; i++) {
+      sizeClasses[i] = new ConcurrentLinkedQueue<>();
+    }
+  }
+
+  private static int sizeClassIndex(int size) {
+    int capacity = Math.max(MIN_BUFFER_SIZE, size);
+    return 32 - Integer.numberOfLeadingZeros(capacity - 1) - Integer.numberOfTrailingZeros(MIN_BUFFER_SIZE);
+  }
+
+  private static int sizeClassCapacity(int index) {
+    return MIN_BUFFER_SIZE << index;
+  }
+
+  /**
+   * Takes a buffer with at least the given capacity from the pool.
+   * @param size Requested capacity
+   * @return Direct buffer of the size class, or heap buffer with the requested capacity if the buffer is too large
+   *         or the pool is exhausted
+   */
+  @NotNull
+  ByteBuffer allocate(int size) {
+    releaseCollectedConnections();
+    if (size > maxBufferSize) {
+      return allocateFallback(size);
+    }
+    int index = sizeClassIndex(size);
+    int capacity = sizeClassCapacity(index);
+    ByteBuffer buffer = sizeClasses[index].poll();
+    if (buffer != null) {
+      freeBytes.addAndGet(-capacity);
+      buffer.clear();
+      return buffer;
+    }
+    if (reserve(capacity)) {
+      return ByteBuffer.allocateDirect(capacity);
+    }
+    return allocateFallback(size);
+  }
+
+  private ByteBuffer allocateFallback(int size) {
+    fallbackAllocations.incrementAndGet();
+    return ByteBuffer.allocate(size);
+  }
+
+  /**
+   * Reserves capacity for a new direct buffer, discarding free buffers of other size classes if required.
+   */
+  private boolean reserve(int capacity) {
+    while (true) {
+      long allocated = allocatedBytes.get();
+      if (allocated + capacity <= maxPoolSize) {
+        if (allocatedBytes.compareAndSet(allocated, allocated + capacity)) {
+          return true;
+        }
+      }
+      else if (!discardFreeBuffer()) {
+        return false;
+      }
+    }
+  }
+
+  private boolean discardFreeBuffer() {
+    for (int i = sizeClasses.length - 1; i >= 0; i--) {
+      ByteBuffer buffer = sizeClasses[i].poll();
+      if (buffer != null) {
+        freeBytes.addAndGet(-buffer.capacity());
+        allocatedBytes.addAndGet(-buffer.capacity());
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns a buffer to the pool. Heap buffers from fallback allocations are ignored.
+   * @param buffer Buffer allocated by this pool, which must not be used afterwards
+   */
+  void release(@NotNull ByteBuffer buffer) {
+    if (!buffer.isDirect() || buffer.capacity() > maxBufferSize) {
+      return;
+    }
+    int index = sizeClassIndex(buffer.capacity());
+    if (sizeClassCapacity(index) != buffer.capacity()) {
+      return;
+    }
+    freeBytes.addAndGet(buffer.capacity());
+    sizeClasses[index].offer(buffer);
+  }
+
+  /**
+   * Returns the buffers of connections that were garbage collected without being closed by the shared IO dispatch.
+   */
+  private void releaseCollectedConnections() {
+    Reference<?> reference;
+    while ((reference = collectedConnections.poll()) != null) {
+      ConnectionReference connection = (ConnectionReference)reference;
+      connections.remove(connection);
+      connection.buffers.release();
+    }
+  }
+
+  /**
+   * Returns the buffers of a closed connection to the pool.
+   * @param connection Connection created by the connection factory of this pool
+   */
+  static void releaseBuffers(@NotNull NHttpConnection connection) {
+    Object buffers = connection.getContext().getAttribute(CONNECTION_BUFFERS_ATTRIBUTE);
+    if (buffers instanceof ConnectionBuffers) {
+      ((ConnectionBuffers)buffers).release();
+    }
+  }
+
+  /**
+   * @return Factory for connections with session buffers allocated from this pool
+   */
+  @NotNull
+  NHttpConnectionFactory<ManagedNHttpClientConnection> newConnectionFactory() {
+    return this::createConnection;
+  }
+
+  private ManagedNHttpClientConnection createConnection(IOSession session, ConnectionConfig config) {
+    ConnectionBuffers buffers = new ConnectionBuffers();
+    ManagedNHttpClientConnection connection = new ManagedNHttpClientConnectionFactory(null, null, buffers)
+        .create(session, config);
+    session.setAttribute(CONNECTION_BUFFERS_ATTRIBUTE, buffers);
+    connections.add(new ConnectionReference(connection, buffers, collectedConnections));
+    return connection;
+  }
+
+  /**
+   * @return Max. number of bytes of all direct buffers
+   */
+  long getMaxPoolSize() {
+    return maxPoolSize;
+  }
+
+  /**
+   * @return Largest pooled buffer size
+   */
+  int getMaxBufferSize() {
+    return maxBufferSize;
+  }
+
+  /**
+   * @return Number of bytes of all direct buffers allocated by the pool
+   */
+  long getAllocatedBytes() {
+    return allocatedBytes.get();
+  }
+
+  /**
+   * @return Number of bytes of direct buffers currently used by connections
+   */
+  long getInUseBytes() {
+    return allocatedBytes.get() - freeBytes.get();
+  }
+
+  /**
+   * @return Number of buffers allocated on the heap because they were too large or the pool was exhausted
+   */
+  long getFallbackAllocations() {
+    return fallbackAllocations.get();
+  }
+
+  /**
+   * Registers gauges for the pool size, utilization and fallback allocations.
+   * @param metricRegistry Metric registry
+   */
+  synchronized void registerMetrics(@NotNull MetricRegistry metricRegistry) {
+    unregisterMetrics();
+    registry = metricRegistry;
+    registry.register(MetricRegistry.name(METRICS_PREFIX, METRIC_MAX_BYTES), (Gauge<Long>)this::getMaxPoolSize);
+    registry.register(MetricRegistry.name(METRICS_PREFIX, METRIC_ALLOCATED_BYTES), (Gauge<Long>)this::getAllocatedBytes);
+    registry.register(MetricRegistry.name(METRICS_PREFIX, METRIC_IN_USE_BYTES), (Gauge<Long>)this::getInUseBytes);
+    registry.register(MetricRegistry.name(METRICS_PREFIX, METRIC_UTILIZATION), new RatioGauge() {
+      @Override
+      protected Ratio getRatio() {
+        return Ratio.of(getInUseBytes(), maxPoolSize);
+      }
+    });
+    registry.register(MetricRegistry.name(METRICS_PREFIX, METRIC_FALLBACK_ALLOCATIONS), (Gauge<Long>)this::getFallbackAllocations);
+  }
+
+  /**
+   * Removes the gauges from the metric registry they were registered to.
+   */
+  synchronized void unregisterMetrics() {
+    if (registry == null) {
+      return;
+    }
+    for (String name : new String[] {
+        METRIC_MAX_BYTES, METRIC_ALLOCATED_BYTES, METRIC_IN_USE_BYTES, METRIC_UTILIZATION, METRIC_FALLBACK_ALLOCATIONS
+    }) {
+      registry.remove(MetricRegistry.name(METRICS_PREFIX, name));
+    }
+    registry = null;
+  }
+
+
+  /**
+   * Allocator for the session buffers of a single connection, keeping track of the direct buffers.
+   * Buffers replaced when a session buffer is expanded are returned to the pool together with the current ones.
+   */
+  final class ConnectionBuffers implements ByteBufferAllocator {
+
+    private final List<ByteBuffer> buffers = new ArrayList<>(2);
+    private boolean released;
+
+    @Override
+    public synchronized ByteBuffer allocate(int size) {
+      if (released) {
+        return ByteBuffer.allocate(size);
+      }
+      ByteBuffer buffer = SessionBufferPool.this.allocate(size);
+      if (buffer.isDirect()) {
+        buffers.add(buffer);
+      }
+      return buffer;
+    }
+
+    synchronized void release() {
+      if (released) {
+        return;
+      }
+      released = true;
+      for (ByteBuffer buffer : buffers) {
+        SessionBufferPool.this.release(buffer);
+      }
+      buffers.clear();
+    }
+
+  }
+
+
+  /**
+   * Returns the buffers of a connection that was garbage collected.
+   */
+  private static final class ConnectionReference extends PhantomReference<Object> {
+
+    private final ConnectionBuffers buffers;
+
+    ConnectionReference(@NotNull Object connection, @NotNull ConnectionBuffers buffers,
+        @Nullable ReferenceQueue<Object> queue) {
+      super(connection, queue);
+      this.buffers = buffers;
+    }
+
+  }
+
+}
@@ -0,0 +1,344 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpasyncclient.impl;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.impl.nio.DefaultNHttpClientConnection;
+import org.apache.http.impl.nio.reactor.AbstractIODispatch;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.NHttpClientEventHandler;
+import org.apache.http.nio.protocol.HttpAsyncRequestExecutor;
+import org.apache.http.nio.reactor.ConnectingIOReactor;
+import org.apache.http.nio.reactor.IOEventDispatch;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.apache.http.nio.reactor.IOReactorStatus;
+import org.apache.http.nio.reactor.IOSession;
+import org.apache.http.nio.reactor.SessionRequest;
+import org.apache.http.nio.reactor.SessionRequestCallback;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Small set of IO reactors shared by the async HTTP clients of all configurations.
+ * <p>
+ * Each async HTTP client gets its own {@link ConnectingIOReactor} view for its connection pool, so pools stay
+ * separate per configuration. The view delegates the connection setup to one of the shared reactors (assigned
+ * round-robin), and all IO events of the shared reactor are dispatched to a single stateless
+ * {@link HttpAsyncRequestExecutor} - the request state is kept in the context of each connection.
+ * This requires the async HTTP clients to use the default event handler, which is the case for all clients built
+ * by {@link HttpAsyncClientItem}.
+ * </p>
+ * <p>
+ * The reactors are started on first use, and shut down when the pool is shut down.
+ * </p>
+ * <p>
+ * If a {@link SessionBufferPool} is set, the connection pools allocate the session buffers of their connections from
+ * it, and the buffers are returned to it when the shared reactors close the connections.
+ * </p>
+ */
+final class SharedIOReactorPool {
+
+  private static final long SHUTDOWN_GRACE_PERIOD_MS = 500;
+
+  private final IOReactorConfig ioReactorConfig;
+  private final SharedReactor[] reactors;
+  private final SessionBufferPool sessionBufferPool;
+  private final AtomicInteger nextReactor = new AtomicInteger();
+
+  private static final Logger log = LoggerFactory.getLogger(SharedIOReactorPool.class);
+
+  /**
+   * @param ioReactorConfig IO reactor configuration used for all reactors
+   * @param reactorCount Number of shared reactors
+   */
+  SharedIOReactorPool(@NotNull IOReactorConfig ioReactorConfig, int reactorCount) {
+    this(ioReactorConfig, reactorCount, null);
+  }
+
+  /**
+   * @param ioReactorConfig IO reactor configuration used for all reactors
+   * @param reactorCount Number of shared reactors
+   * @param sessionBufferPool Pool for the session buffers of the connections, or null to allocate them per connection
+   */
+  SharedIOReactorPool(@NotNull IOReactorConfig ioReactorConfig, int reactorCount, @Nullable SessionBufferPool sessionBufferPool) {
+    if (reactorCount < 1) {
+      throw new IllegalArgumentException("Invalid reactor count: " + reactorCount);
+    }
+    this.ioReactorConfig = ioReactorConfig;
+    this.sessionBufferPool = sessionBufferPool;
+    this.reactors = new SharedReactor[reactorCount];
+    for (int i = 0; i < reactorCount; i++) {
+      reactors[i] = new SharedReactor(i);
+    }
+  }
+
+  /**
+   * @return IO reactor configuration used for all reactors
+   */
+  @NotNull
+  IOReactorConfig getIOReactorConfig() {
+    return ioReactorConfig;
+  }
+
+  /**
+   * @return Pool for the session buffers of the connections, or null if they are allocated per connection
+   */
+  @Nullable
+  SessionBufferPool getSessionBufferPool() {
+    return sessionBufferPool;
+  }
+
+  /**
+   * @return Number of shared reactors
+   */
+  int getReactorCount() {
+    return reactors.length;
+  }
+
+  /**
+   * Creates a view on the next shared reactor to be used by the connection pool of a single async HTTP client.
+   * @return IO reactor for connection pool
+   */
+  @NotNull
+  ConnectingIOReactor newClientReactor() {
+    SharedReactor reactor = reactors[Math.floorMod(nextReactor.getAndIncrement(), reactors.length)];
+    return new ClientIOReactor(reactor.getReactor());
+  }
+
+  /**
+   * Shuts down all reactors that were started. Connection pools using the reactors should be closed before.
+   */
+  void shutdown() {
+    for (SharedReactor reactor : reactors) {
+      reactor.shutdown();
+    }
+  }
+
+
+  /**
+   * Shared reactor with the thread running its event loop.
+   */
+  private final class SharedReactor {
+
+    private final int index;
+    private DefaultConnectingIOReactor reactor;
+    private boolean shutdown;
+
+    SharedReactor(int index) {
+      this.index = index;
+    }
+
+    synchronized ConnectingIOReactor getReactor() {
+      if (shutdown) {
+        throw new IllegalStateException("Shared IO reactor has been shut down.");
+      }
+      if (reactor == null) {
+        try {
+          reactor = new DefaultConnectingIOReactor(ioReactorConfig, new NamedThreadFactory("caravan-httpasyncclient-io-" + index + "-"));
+        }
+        catch (IOReactorException ex) {
+          throw new RuntimeException("Unable to initialize IO reactor.", ex);
+        }
+        DefaultConnectingIOReactor startedReactor = reactor;
+        Thread thread = new Thread(() -> {
+          try {
+            startedReactor.execute(new SharedIODispatch(new HttpAsyncRequestExecutor()));
+          }
+          catch (InterruptedIOException ex) {
+            log.debug("Shared IO reactor interrupted.", ex);
+          }
+          catch (IOException | RuntimeException ex) {
+            log.error("Shared IO reactor terminated abnormally.", ex);
+          }
+        }, "caravan-httpasyncclient-reactor-" + index);
+        thread.setDaemon(true);
+        thread.start();
+      }
+      return reactor;
+    }
+
+    synchronized void shutdown() {
+      shutdown = true;
+      if (reactor != null) {
+        try {
+          reactor.shutdown(SHUTDOWN_GRACE_PERIOD_MS);
+        }
+        catch (IOException ex) {
+          log.warn("Error shutting down shared IO reactor.", ex);
+        }
+        reactor = null;
+      }
+    }
+
+  }
+
+
+  /**
+   * View on a shared reactor for a single connection pool. The event loop of the async HTTP client is not used,
+   * it just blocks until the connection pool is shut down.
+   */
+  private static final class ClientIOReactor implements ConnectingIOReactor {
+
+    private final ConnectingIOReactor sharedReactor;
+    private final CountDownLatch shutdownLatch = new CountDownLatch(1);
+    private volatile IOReactorStatus status = IOReactorStatus.INACTIVE;
+
+    ClientIOReactor(ConnectingIOReactor sharedReactor) {
+      this.sharedReactor = sharedReactor;
+    }
+
+    @Override
+    public SessionRequest connect(SocketAddress remoteAddress, SocketAddress localAddress, Object attachment,
+        SessionRequestCallback callback) {
+      if (status.compareTo(IOReactorStatus.ACTIVE) > 0) {
+        throw new IllegalStateException("I/O reactor has been shut down");
+      }
+      return sharedReactor.connect(remoteAddress, localAddress, attachment, callback);
+    }
+
+    @Override
+    public IOReactorStatus getStatus() {
+      return status;
+    }
+
+    @Override
+    public void execute(IOEventDispatch eventDispatch) throws IOException {
+      // IO events of all connections are dispatched by the shared reactor
+      if (status == IOReactorStatus.INACTIVE) {
+        status = IOReactorStatus.ACTIVE;
+      }
+      try {
+        shutdownLatch.await();
+      }
+      catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException();
+      }
+    }
+
+    @Override
+    public void shutdown(long waitMs) {
+      // sessions are closed by the connection pool before, the shared reactor keeps running
+      status = IOReactorStatus.SHUT_DOWN;
+      shutdownLatch.countDown();
+    }
+
+    @Override
+    public void shutdown() {
+      shutdown(0);
+    }
+
+  }
+
+
+  /**
+   * Dispatches IO events of connections created by the connection pools of all async HTTP clients.
+   */
+  private static final class SharedIODispatch extends AbstractIODispatch<DefaultNHttpClientConnection> {
+
+    private final NHttpClientEventHandler handler;
+
+    SharedIODispatch(NHttpClientEventHandler handler) {
+      this.handler = handler;
+    }
+
+    @Override
+    protected DefaultNHttpClientConnection createConnection(IOSession session) {
+      throw new IllegalStateException("Connection must be created by connection manager");
+    }
+
+    @Override
+    protected void onConnected(DefaultNHttpClientConnection conn) {
+      Object attachment = conn.getContext().getAttribute(IOSession.ATTACHMENT_KEY);
+      try {
+        handler.connected(conn, attachment);
+      }
+      catch (Exception ex) {
+        handler.exception(conn, ex);
+      }
+    }
+
+    @Override
+    protected void onClosed(DefaultNHttpClientConnection conn) {
+      try {
+        handler.closed(conn);
+      }
+      finally {
+        // the session is closed, no more IO events are dispatched for the connection
+        SessionBufferPool.releaseBuffers(conn);
+      }
+    }
+
+    @Override
+    protected void onException(DefaultNHttpClientConnection conn, IOException ex) {
+      handler.exception(conn, ex);
+    }
+
+    @Override
+    protected void onInputReady(DefaultNHttpClientConnection conn) {
+      conn.consumeInput(handler);
+    }
+
+    @Override
+    protected void onOutputReady(DefaultNHttpClientConnection conn) {
+      conn.produceOutput(handler);
+    }
+
+    @Override
+    protected void onTimeout(DefaultNHttpClientConnection conn) {
+      try {
+        handler.timeout(conn);
+      }
+      catch (Exception ex) {
+        handler.exception(conn, ex);
+      }
+    }
+
+  }
+
+
+  private static final class NamedThreadFactory implements ThreadFactory {
+
+    private final String namePrefix;
+    private final AtomicInteger counter = new AtomicInteger();
+
+    NamedThreadFactory(String namePrefix) {
+      this.namePrefix = namePrefix;
+    }
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, namePrefix + counter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+
+  }
+
+}
@@ -0,0 +1,222 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpasyncclient.rx;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.StatusLine;
+import org.apache.http.client.HttpResponseException;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.protocol.AbstractAsyncResponseConsumer;
+import org.apache.http.protocol.HttpContext;
+
+import io.wcm.caravan.commons.httpasyncclient.consumer.ByteBufferPool;
+import rx.Producer;
+import rx.Subscriber;
+
+/**
+ * Response consumer that emits the response content to a subscriber in chunks. Reading from the connection is
+ * suspended while {@link #MAX_QUEUED_CHUNKS} chunks are waiting for the subscriber to request them, and resumed
+ * when half of them have been emitted.
+ */
+final class BackpressureContentConsumer extends AbstractAsyncResponseConsumer<Boolean> implements Producer {
+
+  static final int MAX_QUEUED_CHUNKS = 16;
+
+  private final Subscriber<? super byte[]> subscriber;
+  private final ByteBufferPool bufferPool;
+  private ByteBuffer buffer;
+
+  private final Queue<byte[]> queue = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger queued = new AtomicInteger();
+  private final AtomicLong requested = new AtomicLong();
+  private final AtomicInteger wip = new AtomicInteger();
+  private final AtomicBoolean suspended = new AtomicBoolean();
+  private volatile IOControl ioControl;
+  private volatile boolean done;
+  private volatile Throwable error;
+  private boolean terminated;
+
+  BackpressureContentConsumer(Subscriber<? super byte[]> subscriber, ByteBufferPool bufferPool) {
+    this.subscriber = subscriber;
+    this.bufferPool = bufferPool;
+  }
+
+  @Override
+  protected void onResponseReceived(HttpResponse response) throws HttpResponseException {
+    StatusLine status = response.getStatusLine();
+    if (status.getStatusCode() >= 300) {
+      throw new HttpResponseException(status.getStatusCode(), status.getReasonPhrase());
+    }
+  }
+
+  @Override
+  protected void onEntityEnclosed(HttpEntity entity, ContentType contentType) {
+    // content is read in onContentReceived
+  }
+
+  @Override
+  protected void onContentReceived(ContentDecoder decoder, IOControl control) throws IOException {
+    synchronized (this) {
+      if (isDone()) {
+        // cancelled, the buffer was already released
+        return;
+      }
+      if (buffer == null) {
+        buffer = bufferPool.acquire();
+      }
+      ioControl = control;
+      while (decoder.read(buffer) > 0) {
+        buffer.flip();
+        byte[] chunk = new byte[buffer.remaining()];
+        buffer.get(chunk);
+        buffer.clear();
+        queue.offer(chunk);
+        if (queued.incrementAndGet() >= MAX_QUEUED_CHUNKS) {
+          // suspend before flagging, so a concurrent drain never resumes input ahead of the suspension
+          control.suspendInput();
+          suspended.set(true);
+          break;
+        }
+      }
+    }
+    drain();
+  }
+
+  @Override
+  protected Boolean buildResult(HttpContext context) {
+    return Boolean.TRUE;
+  }
+
+  @Override
+  protected synchronized void releaseResources() {
+    if (buffer != null) {
+      bufferPool.release(buffer);
+      buffer = null;
+    }
+  }
+
+  @Override
+  public void request(long n) {
+    if (n <= 0) {
+      return;
+    }
+    requested.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+    drain();
+  }
+
+  /**
+   * @return Callback to pass on execution, terminates the subscriber when the request is completed or failed
+   */
+  FutureCallback<Boolean> callback() {
+    return new FutureCallback<Boolean>() {
+
+      @Override
+      public void completed(Boolean result) {
+        terminate(null);
+      }
+
+      @Override
+      public void failed(Exception ex) {
+        terminate(ex);
+      }
+
+      @Override
+      public void cancelled() {
+        terminate(new CancellationException("Request cancelled."));
+      }
+
+    };
+  }
+
+  private void terminate(Throwable ex) {
+    error = ex;
+    done = true;
+    drain();
+  }
+
+  /**
+   * Emits queued chunks as far as requested. Only one thread at a time runs the loop, other callers only mark
+   * that it has to run again.
+   */
+  private void drain() {
+    if (wip.getAndIncrement() != 0) {
+      return;
+    }
+    int missed = 1;
+    do {
+      long emitted = 0;
+      long limit = requested.get();
+      while (!terminated) {
+        if (subscriber.isUnsubscribed()) {
+          terminated = true;
+          queue.clear();
+          break;
+        }
+        if (done && error != null) {
+          terminated = true;
+          queue.clear();
+          subscriber.onError(error);
+          break;
+        }
+        if (done && queue.isEmpty()) {
+          terminated = true;
+          subscriber.onCompleted();
+          break;
+        }
+        if (emitted == limit) {
+          break;
+        }
+        byte[] chunk = queue.poll();
+        if (chunk == null) {
+          break;
+        }
+        queued.decrementAndGet();
+        subscriber.onNext(chunk);
+        emitted++;
+      }
+      if (emitted > 0 && limit != Long.MAX_VALUE) {
+        requested.addAndGet(-emitted);
+      }
+      resumeInput();
+      missed = wip.addAndGet(-missed);
+    }
+    while (missed != 0);
+  }
+
+  private void resumeInput() {
+    if (!terminated && queued.get() <= MAX_QUEUED_CHUNKS / 2 && suspended.compareAndSet(true, false)) {
+      ioControl.requestInput();
+    }
+  }
+
+}
@@ -0,0 +1,207 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpasyncclient.rx;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.nio.client.methods.HttpAsyncMethods;
+import org.jetbrains.annotations.NotNull;
+import org.osgi.annotation.versioning.ProviderType;
+
+import io.wcm.caravan.commons.httpasyncclient.HttpAsyncClientFactory;
+import io.wcm.caravan.commons.httpasyncclient.consumer.ByteBufferPool;
+import rx.Observable;
+import rx.Observable.Operator;
+import rx.Producer;
+import rx.Subscriber;
+import rx.subscriptions.Subscriptions;
+
+/**
+ * Executes requests with the async HTTP clients of a {@link HttpAsyncClientFactory} and returns the results as
+ * {@link Observable}s.
+ * <p>
+ * The observables are cold: each subscription executes the request with the client the factory returns for the
+ * request URI at that time. Unsubscribing cancels the request if it is still in progress.
+ * </p>
+ * <p>
+ * Operators added with {@link #withResponseOperator(Operator)} and {@link #withContentOperator(Operator)} are applied
+ * to all observables returned by the new instance, e.g. the <code>TimerMetricsOperator</code> and
+ * <code>HitsAndMissesCountingMetricsOperator</code> of the caravan metrics bundle.
+ * </p>
+ */
+@ProviderType
+public final class RxHttpAsyncClient {
+
+  private final HttpAsyncClientFactory factory;
+  private final ByteBufferPool bufferPool;
+  private final List<Operator<HttpResponse, HttpResponse>> responseOperators;
+  private final List<Operator<byte[], byte[]>> contentOperators;
+
+  /**
+   * @param factory Async HTTP client factory
+   */
+  public RxHttpAsyncClient(@NotNull HttpAsyncClientFactory factory) {
+    this(factory, ByteBufferPool.getDirectInstance(), Collections.emptyList(), Collections.emptyList());
+  }
+
+  private RxHttpAsyncClient(HttpAsyncClientFactory factory, ByteBufferPool bufferPool,
+      List<Operator<HttpResponse, HttpResponse>> responseOperators, List<Operator<byte[], byte[]>> contentOperators) {
+    this.factory = factory;
+    this.bufferPool = bufferPool;
+    this.responseOperators = responseOperators;
+    this.contentOperators = contentOperators;
+  }
+
+  /**
+   * @param operator Operator applied to the observables returned by {@link #execute(HttpUriRequest)}
+   * @return New instance with the operator added
+   */
+  public @NotNull RxHttpAsyncClient withResponseOperator(@NotNull Operator<HttpResponse, HttpResponse> operator) {
+    return new RxHttpAsyncClient(factory, bufferPool, append(responseOperators, operator), contentOperators);
+  }
+
+  /**
+   * @param operator Operator applied to the observables returned by {@link #stream(HttpUriRequest)}
+   * @return New instance with the operator added
+   */
+  public @NotNull RxHttpAsyncClient withContentOperator(@NotNull Operator<byte[], byte[]> operator) {
+    return new RxHttpAsyncClient(factory, bufferPool, responseOperators, append(contentOperators, operator));
+  }
+
+  /**
+   * @param pool Pool of the buffers the content of streamed responses is read into
+   * @return New instance using the given buffer pool
+   */
+  public @NotNull RxHttpAsyncClient withBufferPool(@NotNull ByteBufferPool pool) {
+    return new RxHttpAsyncClient(factory, pool, responseOperators, contentOperators);
+  }
+
+  private static <T> List<T> append(List<T> list, T item) {
+    List<T> result = new ArrayList<>(list);
+    result.add(item);
+    return Collections.unmodifiableList(result);
+  }
+
+  /**
+   * Executes the request and emits the response with its content buffered in memory.
+   * @param request Request
+   * @return Observable emitting a single response
+   */
+  public @NotNull Observable<HttpResponse> execute(@NotNull HttpUriRequest request) {
+    Observable<HttpResponse> observable = Observable.create(subscriber -> {
+      ResponseProducer producer = new ResponseProducer(subscriber);
+      subscriber.setProducer(producer);
+      Future<HttpResponse> future = factory.get(request.getURI()).execute(request, producer);
+      subscriber.add(Subscriptions.create(() -> future.cancel(true)));
+    });
+    for (Operator<HttpResponse, HttpResponse> operator : responseOperators) {
+      observable = observable.lift(operator);
+    }
+    return observable;
+  }
+
+  /**
+   * Executes the request and emits the response content in chunks while it is read from the connection.
+   * Reading from the connection is suspended while the subscriber does not request more chunks.
+   * If the response status is not successful (2xx), the observable fails with a
+   * {@link org.apache.http.client.HttpResponseException}.
+   * @param request Request
+   * @return Observable emitting the content chunks
+   */
+  public @NotNull Observable<byte[]> stream(@NotNull HttpUriRequest request) {
+    Observable<byte[]> observable = Observable.create(subscriber -> {
+      BackpressureContentConsumer consumer = new BackpressureContentConsumer(subscriber, bufferPool);
+      subscriber.setProducer(consumer);
+      Future<Boolean> future = factory.get(request.getURI()).execute(HttpAsyncMethods.create(request), consumer,
+          consumer.callback());
+      subscriber.add(Subscriptions.create(() -> future.cancel(true)));
+    });
+    for (Operator<byte[], byte[]> operator : contentOperators) {
+      observable = observable.lift(operator);
+    }
+    return observable;
+  }
+
+
+  /**
+   * Emits the response when it is received and requested by the subscriber.
+   */
+  private static final class ResponseProducer implements Producer, FutureCallback<HttpResponse> {
+
+    private static final int REQUESTED = 1;
+    private static final int RECEIVED = 2;
+
+    private final Subscriber<? super HttpResponse> subscriber;
+    private final AtomicInteger state = new AtomicInteger();
+    private volatile HttpResponse response;
+
+    ResponseProducer(Subscriber<? super HttpResponse> subscriber) {
+      this.subscriber = subscriber;
+    }
+
+    @Override
+    public void request(long n) {
+      if (n > 0 && state.getAndUpdate(value -> value | REQUESTED) == RECEIVED) {
+        emit();
+      }
+    }
+
+    @Override
+    public void completed(HttpResponse result) {
+      response = result;
+      if (state.getAndUpdate(value -> value | RECEIVED) == REQUESTED) {
+        emit();
+      }
+    }
+
+    private void emit() {
+      if (!subscriber.isUnsubscribed()) {
+        subscriber.onNext(response);
+      }
+      if (!subscriber.isUnsubscribed()) {
+        subscriber.onCompleted();
+      }
+    }
+
+    @Override
+    public void failed(Exception ex) {
+      if (!subscriber.isUnsubscribed()) {
+        subscriber.onError(ex);
+      }
+    }
+
+    @Override
+    public void cancelled() {
+      if (!subscriber.isUnsubscribed()) {
+        subscriber.onError(new CancellationException("Request cancelled."));
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,76 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpasyncclient.consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+public class ByteBufferPoolTest {
+
+  @Test
+  public void testAcquireRelease() {
+    ByteBufferPool underTest = new ByteBufferPool(1024, 1, true);
+
+    ByteBuffer buffer1 = underTest.acquire();
+    assertTrue(buffer1.isDirect());
+    assertEquals(1024, buffer1.capacity());
+    buffer1.put((byte)1);
+    ByteBuffer buffer2 = underTest.acquire();
+    assertNotSame(buffer1, buffer2);
+    assertEquals(2, underTest.getAllocatedCount());
+
+    underTest.release(buffer1);
+    underTest.release(buffer2);
+    assertEquals(1, underTest.getPooledCount());
+
+    ByteBuffer buffer3 = underTest.acquire();
+    assertSame(buffer1, buffer3);
+    assertEquals(0, buffer3.position());
+    assertEquals(2, underTest.getAllocatedCount());
+  }
+
+  @Test
+  public void testReleaseForeignBuffer() {
+    ByteBufferPool underTest = new ByteBufferPool(1024, 10, false);
+    underTest.release(ByteBuffer.allocate(512));
+    underTest.release(ByteBuffer.allocateDirect(1024));
+    assertEquals(0, underTest.getPooledCount());
+  }
+
+  @Test
+  public void testSharedInstances() {
+    assertTrue(ByteBufferPool.getDirectInstance().isDirect());
+    assertFalse(ByteBufferPool.getHeapInstance().isDirect());
+    assertFalse(ByteBufferPool.getHeapInstance().acquire().isDirect());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidBufferSize() {
+    new ByteBufferPool(0, 10, true);
+  }
+
+}
@@ -0,0 +1,57 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpasyncclient.consumer;
+
+import java.nio.ByteBuffer;
+
+import org.apache.http.nio.ContentDecoder;
+
+/**
+ * Decoder returning the content in chunks of a maximum size, like the content arriving from a connection.
+ */
+class ContentDecoderStub implements ContentDecoder {
+
+  private final ByteBuffer content;
+  private final int chunkSize;
+
+  ContentDecoderStub(byte[] content, int chunkSize) {
+    this.content = ByteBuffer.wrap(content);
+    this.chunkSize = chunkSize;
+  }
+
+  @Override
+  public int read(ByteBuffer dst) {
+    if (!content.hasRemaining()) {
+      return -1;
+    }
+    int count = Math.min(Math.min(chunkSize, dst.remaining()), content.remaining());
+    ByteBuffer chunk = content.slice();
+    chunk.limit(count);
+    dst.put(chunk);
+    content.position(content.position() + count);
+    return count;
+  }
+
+  @Override
+  public boolean isCompleted() {
+    return !content.hasRemaining();
+  }
+
+}
@@ -0,0 +1,107 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpasyncclient.consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.protocol.BasicHttpContext;
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+public class JsonResponseConsumerTest {
+
+  private static final String CONTENT = "{\"_links\":{\"self\":{\"href\":\"/path1\"}},"
+      + "\"_embedded\":{\"item\":[{\"title\":\"Item 1\",\"price\":10},{\"title\":\"Item 2\",\"price\":20}]}}";
+
+  private final ByteBufferPool bufferPool = new ByteBufferPool(16, 10, false);
+
+  @Test
+  public void testParseContent() throws Exception {
+    JsonResponseConsumer<List<String>> underTest = new JsonResponseConsumer<>(new FieldNameHandler(), new JsonFactory(), bufferPool);
+
+    underTest.responseReceived(response());
+    // tokens are split across the buffers
+    underTest.consumeContent(new ContentDecoderStub(CONTENT.getBytes(StandardCharsets.UTF_8), 7), null);
+    underTest.responseCompleted(new BasicHttpContext());
+
+    assertNull(underTest.getException());
+    assertEquals("[_links, self, href, _embedded, item, title, price, title, price]", underTest.getResult().toString());
+    assertEquals(1, bufferPool.getPooledCount());
+  }
+
+  @Test
+  public void testIncompleteContent() throws Exception {
+    JsonResponseConsumer<List<String>> underTest = new JsonResponseConsumer<>(new FieldNameHandler(), new JsonFactory(), bufferPool);
+
+    underTest.responseReceived(response());
+    underTest.consumeContent(new ContentDecoderStub(CONTENT.substring(0, 30).getBytes(StandardCharsets.UTF_8), 7), null);
+    underTest.responseCompleted(new BasicHttpContext());
+
+    assertNull(underTest.getResult());
+    assertTrue(underTest.getException() instanceof JsonParseException);
+    assertEquals(1, bufferPool.getPooledCount());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testDirectBufferPool() {
+    new JsonResponseConsumer<>(new FieldNameHandler(), new JsonFactory(), ByteBufferPool.getDirectInstance());
+  }
+
+  private static HttpResponse response() {
+    HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+    response.setEntity(new BasicHttpEntity());
+    return response;
+  }
+
+
+  private static class FieldNameHandler implements JsonTokenHandler<List<String>> {
+
+    private final List<String> fieldNames = new ArrayList<>();
+
+    @Override
+    public void onToken(JsonParser parser, JsonToken token) throws IOException {
+      if (token == JsonToken.FIELD_NAME) {
+        fieldNames.add(parser.getCurrentName());
+      }
+    }
+
+    @Override
+    public List<String> onComplete() {
+      return fieldNames;
+    }
+
+  }
+
+}
@@ -0,0 +1,139 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpasyncclient.consumer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.protocol.BasicHttpContext;
+import org.junit.Test;
+
+public class StreamingResponseConsumerTest {
+
+  private final ByteBufferPool bufferPool = new ByteBufferPool(100, 10, true);
+
+  @Test
+  public void testStreamContent() throws Exception {
+    byte[] content = new byte[1000];
+    for (int i = 0; i < content.length; i++) {
+      content[i] = (byte)i;
+    }
+    CollectingSink sink = new CollectingSink();
+    StreamingResponseConsumer<byte[]> underTest = new StreamingResponseConsumer<>(sink, bufferPool);
+
+    HttpResponse response = response();
+    underTest.responseReceived(response);
+    assertSame(response, sink.response);
+    ContentDecoderStub decoder = new ContentDecoderStub(content, 64);
+    underTest.consumeContent(decoder, null);
+    underTest.responseCompleted(new BasicHttpContext());
+
+    assertArrayEquals(content, underTest.getResult());
+    // content is passed in chunks as read from the decoder
+    assertEquals(16, sink.chunks);
+    // the buffer was returned to the pool
+    assertEquals(1, bufferPool.getAllocatedCount());
+    assertEquals(1, bufferPool.getPooledCount());
+  }
+
+  @Test
+  public void testSinkFailure() throws Exception {
+    CollectingSink sink = new CollectingSink() {
+      @Override
+      public void onContent(ByteBuffer chunk) throws IOException {
+        throw new IOException("Sink failed");
+      }
+    };
+    StreamingResponseConsumer<byte[]> underTest = new StreamingResponseConsumer<>(sink, bufferPool);
+
+    underTest.responseReceived(response());
+    try {
+      underTest.consumeContent(new ContentDecoderStub(new byte[10], 10), null);
+    }
+    catch (IOException ex) {
+      underTest.failed(ex);
+    }
+
+    assertTrue(underTest.isDone());
+    assertNull(underTest.getResult());
+    assertEquals("Sink failed", underTest.getException().getMessage());
+    assertEquals(1, bufferPool.getPooledCount());
+  }
+
+  @Test
+  public void testCancel() throws Exception {
+    StreamingResponseConsumer<byte[]> underTest = new StreamingResponseConsumer<>(new CollectingSink(), bufferPool);
+
+    underTest.responseReceived(response());
+    underTest.consumeContent(new ContentDecoderStub(new byte[10], 5), null);
+    assertTrue(underTest.cancel());
+    assertEquals(1, bufferPool.getPooledCount());
+
+    // content arriving after cancellation is ignored
+    underTest.consumeContent(new ContentDecoderStub(new byte[10], 5), null);
+    assertEquals(1, bufferPool.getPooledCount());
+    assertEquals(1, bufferPool.getAllocatedCount());
+  }
+
+  private static HttpResponse response() {
+    HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+    response.setEntity(new BasicHttpEntity());
+    return response;
+  }
+
+
+  private static class CollectingSink implements ResponseContentSink<byte[]> {
+
+    private final ByteArrayOutputStream content = new ByteArrayOutputStream();
+    private HttpResponse response;
+    private int chunks;
+
+    @Override
+    public void onResponse(HttpResponse value) {
+      this.response = value;
+    }
+
+    @Override
+    public void onContent(ByteBuffer chunk) throws IOException {
+      byte[] bytes = new byte[chunk.remaining()];
+      chunk.get(bytes);
+      content.write(bytes);
+      chunks++;
+    }
+
+    @Override
+    public byte[] onComplete() {
+      return content.toByteArray();
+    }
+
+  }
+
+}
@@ -0,0 +1,310 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpasyncclient.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.EOFException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpException;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.protocol.BasicAsyncResponseConsumer;
+import org.apache.http.nio.protocol.HttpAsyncResponseConsumer;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
+import org.junit.Test;
+
+import io.wcm.caravan.commons.httpasyncclient.consumer.ByteBufferPool;
+import io.wcm.caravan.commons.httpclient.impl.helpers.ContentDecoding;
+
+public class DecodingResponseConsumerTest {
+
+  private static final String CONTENT = "{\"_links\":{\"self\":{\"href\":\"/path\"}}}";
+
+  private final ContentDecoding contentDecoding = new ContentDecoding(Arrays.asList("gzip", "deflate"));
+  private final ByteBufferPool bufferPool = new ByteBufferPool(1024, 4, false);
+
+  @Test
+  public void testDecodeResult() throws IOException {
+    HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+    ByteArrayEntity entity = new ByteArrayEntity(gzip());
+    entity.setContentEncoding("gzip");
+    response.setEntity(entity);
+    response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+    DecodingResponseConsumer underTest = new DecodingResponseConsumer(new ResultConsumer(response), contentDecoding);
+
+    assertSame(response, underTest.getResult());
+    HttpEntity decodedEntity = response.getEntity();
+    assertFalse(response.containsHeader(HttpHeaders.CONTENT_ENCODING));
+
+    // the entity is decoded only once
+    assertSame(response, underTest.getResult());
+    assertSame(decodedEntity, response.getEntity());
+    assertEquals(CONTENT, EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testNoResult() {
+    DecodingResponseConsumer underTest = new DecodingResponseConsumer(new ResultConsumer(null), contentDecoding);
+    assertNull(underTest.getResult());
+  }
+
+  @Test
+  public void testInflateGzipWhileReceived() throws IOException, HttpException {
+    byte[] content = largeContent();
+    HttpResponse result = consume("gzip", gzip(content), 100);
+
+    assertFalse(result.containsHeader(HttpHeaders.CONTENT_ENCODING));
+    assertFalse(result.containsHeader(HttpHeaders.CONTENT_LENGTH));
+    assertNull(result.getEntity().getContentEncoding());
+    assertArrayEquals(content, EntityUtils.toByteArray(result.getEntity()));
+    assertEquals(gzip(content).length, contentDecoding.getCompressedBytes());
+    assertEquals(content.length, contentDecoding.getUncompressedBytes());
+    assertEquals(2, bufferPool.getPooledCount());
+  }
+
+  @Test
+  public void testInflateConcatenatedGzipMembers() throws IOException, HttpException {
+    byte[] content = largeContent();
+    byte[] member = gzip(content);
+    byte[] members = Arrays.copyOf(member, member.length * 2);
+    System.arraycopy(member, 0, members, member.length, member.length);
+    HttpResponse result = consume("gzip", members, 7);
+
+    byte[] expected = Arrays.copyOf(content, content.length * 2);
+    System.arraycopy(content, 0, expected, content.length, content.length);
+    assertArrayEquals(expected, EntityUtils.toByteArray(result.getEntity()));
+  }
+
+  @Test
+  public void testInflateZlibDeflate() throws IOException, HttpException {
+    byte[] content = largeContent();
+    HttpResponse result = consume("deflate", deflate(content, false), 100);
+    assertArrayEquals(content, EntityUtils.toByteArray(result.getEntity()));
+  }
+
+  @Test
+  public void testInflateRawDeflate() throws IOException, HttpException {
+    byte[] content = largeContent();
+    HttpResponse result = consume("deflate", deflate(content, true), 1);
+    assertArrayEquals(content, EntityUtils.toByteArray(result.getEntity()));
+  }
+
+  @Test(expected = EOFException.class)
+  public void testTruncatedContent() throws IOException, HttpException {
+    byte[] compressed = gzip(largeContent());
+    consume("gzip", Arrays.copyOf(compressed, compressed.length / 2), 100);
+  }
+
+  @Test
+  public void testCancelReleasesBuffers() throws IOException, HttpException {
+    DecodingResponseConsumer underTest = new DecodingResponseConsumer(new BasicAsyncResponseConsumer(), contentDecoding,
+        bufferPool);
+    underTest.responseReceived(compressedResponse("gzip", gzip(largeContent())));
+    assertEquals(0, bufferPool.getPooledCount());
+
+    underTest.cancel();
+    assertEquals(2, bufferPool.getPooledCount());
+  }
+
+  private HttpResponse consume(String coding, byte[] compressed, int chunkSize) throws IOException, HttpException {
+    DecodingResponseConsumer underTest = new DecodingResponseConsumer(new BasicAsyncResponseConsumer(), contentDecoding,
+        bufferPool);
+    underTest.responseReceived(compressedResponse(coding, compressed));
+    ChunkedContentDecoder decoder = new ChunkedContentDecoder(compressed);
+    IOControl ioControl = mock(IOControl.class);
+    try {
+      while (!decoder.isCompleted()) {
+        decoder.receive(chunkSize);
+        underTest.consumeContent(decoder, ioControl);
+      }
+    }
+    catch (IOException ex) {
+      underTest.failed(ex);
+      throw ex;
+    }
+    underTest.responseCompleted(new BasicHttpContext());
+    assertTrue(underTest.isDone());
+    return underTest.getResult();
+  }
+
+  private static HttpResponse compressedResponse(String coding, byte[] compressed) {
+    HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+    BasicHttpEntity entity = new BasicHttpEntity();
+    entity.setContentLength(compressed.length);
+    entity.setContentEncoding(coding);
+    response.setEntity(entity);
+    response.setHeader(HttpHeaders.CONTENT_ENCODING, coding);
+    response.setHeader(HttpHeaders.CONTENT_LENGTH, Integer.toString(compressed.length));
+    return response;
+  }
+
+  private static byte[] largeContent() {
+    // mix of compressible and random content spanning multiple buffers
+    byte[] content = new byte[50000];
+    Random random = new Random(0);
+    for (int i = 0; i < content.length; i++) {
+      content[i] = (byte)(i % 3 == 0 ? random.nextInt() : 'a' + i % 26);
+    }
+    return content;
+  }
+
+  private static byte[] gzip() throws IOException {
+    return gzip(CONTENT.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static byte[] gzip(byte[] content) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (OutputStream out = new GZIPOutputStream(bytes)) {
+      out.write(content);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static byte[] deflate(byte[] content, boolean raw) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, raw);
+    try (OutputStream out = new DeflaterOutputStream(bytes, deflater)) {
+      out.write(content);
+    }
+    finally {
+      deflater.end();
+    }
+    return bytes.toByteArray();
+  }
+
+
+  /**
+   * Content decoder of a connection receiving the content in chunks.
+   */
+  private static final class ChunkedContentDecoder implements ContentDecoder {
+
+    private final byte[] content;
+    private int received;
+    private int position;
+
+    ChunkedContentDecoder(byte[] content) {
+      this.content = content;
+    }
+
+    void receive(int count) {
+      received = Math.min(content.length, received + count);
+    }
+
+    @Override
+    public int read(ByteBuffer dst) {
+      if (isCompleted()) {
+        return -1;
+      }
+      int count = Math.min(received - position, dst.remaining());
+      dst.put(content, position, count);
+      position += count;
+      return count;
+    }
+
+    @Override
+    public boolean isCompleted() {
+      return position == content.length;
+    }
+
+  }
+
+
+  private static final class ResultConsumer implements HttpAsyncResponseConsumer<HttpResponse> {
+
+    private final HttpResponse result;
+
+    ResultConsumer(HttpResponse result) {
+      this.result = result;
+    }
+
+    @Override
+    public void responseReceived(HttpResponse response) {
+      // not used
+    }
+
+    @Override
+    public void consumeContent(ContentDecoder decoder, IOControl ioControl) {
+      // not used
+    }
+
+    @Override
+    public void responseCompleted(HttpContext context) {
+      // not used
+    }
+
+    @Override
+    public void failed(Exception ex) {
+      // not used
+    }
+
+    @Override
+    public Exception getException() {
+      return null;
+    }
+
+    @Override
+    public HttpResponse getResult() {
+      return result;
+    }
+
+    @Override
+    public boolean isDone() {
+      return true;
+    }
+
+    @Override
+    public void close() {
+      // not used
+    }
+
+    @Override
+    public boolean cancel() {
+      return false;
+    }
+
+  }
+
+}
@@ -0,0 +1,154 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpasyncclient.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.concurrent.BasicFuture;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HttpContext;
+import org.apache.sling.testing.mock.osgi.junit.OsgiContext;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+
+import io.wcm.caravan.commons.httpclient.impl.HttpClientConfigImpl;
+
+public class HedgedFutureTest {
+
+  @Rule
+  public OsgiContext context = new OsgiContext();
+
+  private HedgingPolicy hedgingPolicy;
+  private final AtomicReference<BasicFuture<HttpResponse>> original = new AtomicReference<>();
+  private final AtomicReference<BasicFuture<HttpResponse>> backup = new AtomicReference<>();
+  private final CountDownLatch backupSent = new CountDownLatch(1);
+
+  @After
+  public void tearDown() {
+    if (hedgingPolicy != null) {
+      hedgingPolicy.close();
+    }
+  }
+
+  @Test
+  public void testOriginalWins() throws Exception {
+    HedgedFuture underTest = start(10000);
+    HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+    original.get().completed(response);
+
+    assertSame(response, underTest.get());
+    assertFalse(backupSent.await(50, TimeUnit.MILLISECONDS));
+    assertEquals(0, hedgingPolicy.getSentCount());
+  }
+
+  @Test
+  public void testBackupWins() throws Exception {
+    HedgedFuture underTest = start(1);
+    assertTrue(backupSent.await(5, TimeUnit.SECONDS));
+    HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+    backup.get().completed(response);
+
+    assertSame(response, underTest.get());
+    assertTrue(original.get().isCancelled());
+    assertEquals(1, hedgingPolicy.getSentCount());
+    assertEquals(1, hedgingPolicy.getWinCount());
+  }
+
+  @Test
+  public void testFailsIfAllRequestsFailed() throws Exception {
+    HedgedFuture underTest = start(1);
+    assertTrue(backupSent.await(5, TimeUnit.SECONDS));
+
+    original.get().failed(new IllegalStateException("original failed"));
+    assertFalse(underTest.isDone());
+
+    Exception ex = new IllegalStateException("backup failed");
+    backup.get().failed(ex);
+    try {
+      underTest.get();
+      fail("ExecutionException expected");
+    }
+    catch (ExecutionException expected) {
+      assertSame(ex, expected.getCause());
+    }
+  }
+
+  @Test
+  public void testCancel() throws Exception {
+    HedgedFuture underTest = start(10000);
+    assertTrue(underTest.cancel(true));
+    assertTrue(original.get().isCancelled());
+    assertFalse(backupSent.await(50, TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  public void testCreateBackupContext() {
+    RequestConfig requestConfig = RequestConfig.custom().setSocketTimeout(5).build();
+    HttpContext context = new BasicHttpContext();
+    context.setAttribute(HttpClientContext.REQUEST_CONFIG, requestConfig);
+    context.setAttribute(HttpClientContext.HTTP_CONNECTION, new Object());
+
+    HttpContext backupContext = HedgedFuture.createBackupContext(context);
+    assertSame(requestConfig, backupContext.getAttribute(HttpClientContext.REQUEST_CONFIG));
+    assertNull(backupContext.getAttribute(HttpClientContext.HTTP_CONNECTION));
+  }
+
+  private HedgedFuture start(int hedgeDelay) {
+    hedgingPolicy = HedgingPolicy.create(context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>of("hedgeDelay", hedgeDelay)));
+    HedgedFuture future = new HedgedFuture(hedgingPolicy, null);
+    future.start(request(original, null), request(backup, backupSent));
+    return future;
+  }
+
+  private static Function<FutureCallback<HttpResponse>, Future<HttpResponse>> request(
+      AtomicReference<BasicFuture<HttpResponse>> ref, CountDownLatch sent) {
+    return callback -> {
+      BasicFuture<HttpResponse> future = new BasicFuture<>(callback);
+      ref.set(future);
+      if (sent != null) {
+        sent.countDown();
+      }
+      return future;
+    };
+  }
+
+}
@@ -0,0 +1,137 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpasyncclient.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpHead;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.message.BasicHttpEntityEnclosingRequest;
+import org.apache.sling.testing.mock.osgi.junit.OsgiContext;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+
+import io.wcm.caravan.commons.httpclient.impl.HttpClientConfigImpl;
+
+public class HedgingPolicyTest {
+
+  @Rule
+  public OsgiContext context = new OsgiContext();
+
+  @Test
+  public void testDisabled() {
+    assertNull(HedgingPolicy.create(context.registerInjectActivateService(new HttpClientConfigImpl())));
+  }
+
+  @Test
+  public void testIsHedgeable() {
+    assertTrue(HedgingPolicy.isHedgeable(new HttpGet("http://localhost/")));
+    assertTrue(HedgingPolicy.isHedgeable(new HttpHead("http://localhost/")));
+    assertFalse(HedgingPolicy.isHedgeable(new HttpPost("http://localhost/")));
+    assertFalse(HedgingPolicy.isHedgeable(new BasicHttpEntityEnclosingRequest("GET", "/")));
+  }
+
+  @Test
+  public void testBudget() {
+    HedgingPolicy underTest = createPolicy(ImmutableMap.<String, Object>of("hedgeDelay", 50, "maxHedgePercent", 10));
+    try {
+      underTest.requestStarted();
+      assertTrue(underTest.tryAcquireHedge());
+      assertFalse(underTest.tryAcquireHedge());
+
+      // ten requests are required for the next backup request, including the first one
+      for (int i = 0; i < 8; i++) {
+        underTest.requestStarted();
+      }
+      assertFalse(underTest.tryAcquireHedge());
+      underTest.requestStarted();
+      assertTrue(underTest.tryAcquireHedge());
+
+      assertEquals(10, underTest.getRequestCount());
+      assertEquals(2, underTest.getSentCount());
+    }
+    finally {
+      underTest.close();
+    }
+  }
+
+  @Test
+  public void testFixedDelay() {
+    HedgingPolicy underTest = createPolicy(ImmutableMap.<String, Object>of("hedgeDelay", 50));
+    try {
+      recordLatencies(underTest, HedgingPolicy.MIN_SAMPLES);
+      assertEquals(50, underTest.getDelay());
+    }
+    finally {
+      underTest.close();
+    }
+  }
+
+  @Test
+  public void testPercentileDelay() {
+    HttpClientConfigImpl config = context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>of("hedgeDelay", 50, "hedgeDelayPercentile", 0.9d));
+    HedgingPolicy underTest = HedgingPolicy.create(config);
+    try {
+      // fixed delay is used until enough latencies are recorded
+      recordLatencies(underTest, HedgingPolicy.MIN_SAMPLES - 1);
+      assertEquals(50, underTest.getDelay());
+
+      underTest.completed(TimeUnit.MILLISECONDS.toNanos(100), false);
+      underTest.setConfig(config);
+      assertEquals(90d, underTest.getDelay(), 1d);
+    }
+    finally {
+      underTest.close();
+    }
+  }
+
+  @Test
+  public void testWinCount() {
+    HedgingPolicy underTest = createPolicy(ImmutableMap.<String, Object>of("hedgeDelay", 50));
+    try {
+      underTest.completed(1000, false);
+      underTest.completed(1000, true);
+      assertEquals(1, underTest.getWinCount());
+    }
+    finally {
+      underTest.close();
+    }
+  }
+
+  private HedgingPolicy createPolicy(ImmutableMap<String, Object> props) {
+    return HedgingPolicy.create(context.registerInjectActivateService(new HttpClientConfigImpl(), props));
+  }
+
+  private static void recordLatencies(HedgingPolicy underTest, int count) {
+    for (int i = 1; i <= count; i++) {
+      underTest.completed(TimeUnit.MILLISECONDS.toNanos(i), false);
+    }
+  }
+
+}
@@ -20,11 +20,16 @@
 package io.wcm.caravan.commons.httpasyncclient.impl;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import java.net.URI;
 import java.net.URISyntaxException;
 
 import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
 import org.apache.http.nio.client.HttpAsyncClient;
 import org.apache.sling.testing.mock.osgi.junit.OsgiContext;
 import org.junit.Rule;
@@ -33,6 +38,7 @@ import org.junit.runner.RunWith;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.osgi.framework.Constants;
 
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.collect.ImmutableMap;
 
 import io.wcm.caravan.commons.httpasyncclient.HttpAsyncClientFactory;
@@ -246,4 +252,78 @@ public class HttpClientFactoryImplAsyncTest {
     assertEquals("client3b.timeout", 15000, HttpClientTestUtils.getConnectTimeout(client3b));
   }
 
+  @Test
+  public void testPipeliningClientSelection() throws URISyntaxException {
+
+    context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>builder()
+            .put("hostPatterns", new String[] {
+                "host1"
+            })
+            .put("pipelining", true)
+            .put("maxPipelinedRequests", 4)
+            .build());
+
+    HttpAsyncClientFactory underTest = context.registerInjectActivateService(new HttpAsyncClientFactoryImpl());
+
+    ReconfigurableHttpAsyncClient client1 = (ReconfigurableHttpAsyncClient)underTest.getPipelining("http://host1/xyz");
+    assertTrue(client1.isPipelining());
+    assertEquals(4, client1.getMaxPipelinedRequests());
+    assertSame(client1, underTest.getPipelining(new URI("http://host1/xyz")));
+    assertSame(client1, underTest.get("http://host1/xyz"));
+
+    ReconfigurableHttpAsyncClient client2 = (ReconfigurableHttpAsyncClient)underTest.getPipelining("http://host2/xyz");
+    assertFalse(client2.isPipelining());
+  }
+
+  @Test
+  public void testSharedIOReactorConfig() {
+    HttpAsyncClientFactoryImpl underTest = context.registerInjectActivateService(new HttpAsyncClientFactoryImpl(),
+        ImmutableMap.<String, Object>builder()
+            .put("ioReactorCount", 2)
+            .put("ioThreadCount", 3)
+            .put("selectInterval", 500)
+            .put("soKeepAlive", true)
+            .put("tcpNoDelay", false)
+            .put("sndBufSize", 8192)
+            .put("rcvBufSize", 16384)
+            .put("soLinger", 5)
+            .put("backlogSize", 100)
+            .build());
+
+    SharedIOReactorPool ioReactorPool = underTest.getIOReactorPool();
+    assertEquals(2, ioReactorPool.getReactorCount());
+    IOReactorConfig ioReactorConfig = ioReactorPool.getIOReactorConfig();
+    assertEquals(3, ioReactorConfig.getIoThreadCount());
+    assertEquals(500, ioReactorConfig.getSelectInterval());
+    assertTrue(ioReactorConfig.isSoKeepalive());
+    assertFalse(ioReactorConfig.isTcpNoDelay());
+    assertEquals(8192, ioReactorConfig.getSndBufSize());
+    assertEquals(16384, ioReactorConfig.getRcvBufSize());
+    assertEquals(5, ioReactorConfig.getSoLinger());
+    assertEquals(100, ioReactorConfig.getBacklogSize());
+  }
+
+  @Test
+  public void testSessionBufferPool() {
+    MetricRegistry metricRegistry = context.registerService(MetricRegistry.class, new MetricRegistry());
+    HttpAsyncClientFactoryImpl underTest = context.registerInjectActivateService(new HttpAsyncClientFactoryImpl(),
+        ImmutableMap.<String, Object>builder()
+            .put("sessionBufferPoolSize", 1024 * 1024L)
+            .put("sessionBufferMaxSize", 16384)
+            .build());
+
+    SessionBufferPool sessionBufferPool = underTest.getIOReactorPool().getSessionBufferPool();
+    assertEquals(1024 * 1024L, sessionBufferPool.getMaxPoolSize());
+    assertEquals(16384, sessionBufferPool.getMaxBufferSize());
+    assertTrue(metricRegistry.getNames().contains("httpasyncclient.sessionbuffers.fallbackallocations"));
+
+    // pooling disabled
+    underTest = context.registerInjectActivateService(new HttpAsyncClientFactoryImpl(),
+        ImmutableMap.<String, Object>builder()
+            .put("sessionBufferPoolSize", 0L)
+            .build());
+    assertNull(underTest.getIOReactorPool().getSessionBufferPool());
+  }
+
 }
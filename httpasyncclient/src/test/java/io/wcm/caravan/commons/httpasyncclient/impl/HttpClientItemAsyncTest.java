@@ -20,25 +20,35 @@
 package io.wcm.caravan.commons.httpasyncclient.impl;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import org.apache.http.HttpHost;
 import org.apache.http.auth.AuthScope;
 import org.apache.http.auth.Credentials;
 import org.apache.http.client.config.CookieSpecs;
 import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpGet;
 import org.apache.http.config.Registry;
 import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
 import org.apache.http.nio.client.HttpAsyncClient;
 import org.apache.http.nio.conn.SchemeIOSessionStrategy;
 import org.apache.sling.testing.mock.osgi.junit.OsgiContext;
 import org.junit.Rule;
 import org.junit.Test;
 
+import com.codahale.metrics.health.HealthCheckRegistry;
 import com.google.common.collect.ImmutableMap;
 
 import io.wcm.caravan.commons.httpclient.impl.HttpClientConfigImpl;
+import io.wcm.caravan.commons.httpclient.impl.helpers.AdaptiveConcurrencyLimiter;
+import io.wcm.caravan.commons.httpclient.impl.helpers.RequestCoalescer;
+import io.wcm.caravan.commons.httpclient.impl.helpers.RetryPolicy;
 
 public class HttpClientItemAsyncTest {
 
@@ -198,4 +208,301 @@ public class HttpClientItemAsyncTest {
     assertEquals(CookieSpecs.IGNORE_COOKIES, itemRequestConfig.getCookieSpec());
   }
 
+  @Test
+  public void testReconfigure() {
+    HttpClientConfigImpl config1 = context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>builder()
+            .put("maxConnectionsPerHost", 9)
+            .put("maxTotalConnections", 99)
+            .put("connectTimeout", 5)
+            .build());
+    HttpClientConfigImpl config2 = context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>builder()
+            .put("maxConnectionsPerHost", 11)
+            .put("maxTotalConnections", 111)
+            .put("connectTimeout", 7)
+            .build());
+
+    HttpAsyncClientItem item = new HttpAsyncClientItem(config1);
+    HttpAsyncClient client = item.getHttpAsyncClient();
+
+    assertTrue(item.reconfigure(config2));
+    assertSame(config2, item.getConfig());
+    assertSame(client, item.getHttpAsyncClient());
+
+    PoolingNHttpClientConnectionManager connManager = HttpClientTestUtils.getConnectionManager(client);
+    assertEquals(11, connManager.getDefaultMaxPerRoute());
+    assertEquals(111, connManager.getMaxTotal());
+    assertEquals(7, HttpClientTestUtils.getDefaultRequestConfig(client).getConnectTimeout());
+    assertEquals(7, item.getDefaultRequestConfig().getConnectTimeout());
+    item.close();
+  }
+
+  @Test
+  public void testReconfigureRequiresRebuild() {
+    HttpClientConfigImpl config1 = context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>builder()
+            .put("proxyHost", "proxy1")
+            .put("proxyPort", 3128)
+            .build());
+    HttpClientConfigImpl config2 = context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>builder()
+            .put("proxyHost", "proxy2")
+            .put("proxyPort", 3128)
+            .build());
+
+    HttpAsyncClientItem item = new HttpAsyncClientItem(config1);
+    item.getHttpAsyncClient();
+    assertFalse(item.reconfigure(config2));
+    assertSame(config1, item.getConfig());
+    item.close();
+    assertTrue(item.isClosed());
+    assertFalse(item.reconfigure(config1));
+  }
+
+  @Test
+  public void testPipelining() {
+    HttpClientConfigImpl config1 = context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>builder()
+            .put("pipelining", true)
+            .put("maxPipelinedRequests", 4)
+            .put("maxConnectionsPerHost", 9)
+            .build());
+    HttpClientConfigImpl config2 = context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>builder()
+            .put("pipelining", true)
+            .put("maxPipelinedRequests", 2)
+            .put("maxConnectionsPerHost", 9)
+            .build());
+
+    HttpAsyncClientItem item = new HttpAsyncClientItem(config1);
+    ReconfigurableHttpAsyncClient client = (ReconfigurableHttpAsyncClient)item.getHttpPipeliningClient();
+    assertSame(client, item.getHttpAsyncClient());
+    assertTrue(client.isPipelining());
+    // single requests are still executed by the default client with authentication and redirect support
+    assertNotNull(HttpClientTestUtils.getCredentialsProvider(client));
+    assertEquals(4, client.getMaxPipelinedRequests());
+    assertEquals(9, HttpClientTestUtils.getConnectionManager(client).getDefaultMaxPerRoute());
+
+    assertTrue(item.reconfigure(config2));
+    assertEquals(2, client.getMaxPipelinedRequests());
+    item.close();
+  }
+
+  @Test
+  public void testPipeliningNotApplicable() {
+    HttpClientConfigImpl defaultConfig = context.registerInjectActivateService(new HttpClientConfigImpl());
+    assertFalse(HttpAsyncClientItem.isPipeliningApplicable(defaultConfig));
+
+    HttpClientConfigImpl proxyConfig = context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>builder()
+            .put("pipelining", true)
+            .put("proxyHost", "hostname")
+            .put("proxyPort", 123)
+            .build());
+    assertFalse(HttpAsyncClientItem.isPipeliningApplicable(proxyConfig));
+
+    HttpAsyncClientItem item = new HttpAsyncClientItem(proxyConfig);
+    ReconfigurableHttpAsyncClient client = (ReconfigurableHttpAsyncClient)item.getHttpPipeliningClient();
+    assertFalse(client.isPipelining());
+    assertNotNull(HttpClientTestUtils.getProxyHost(client));
+    item.close();
+  }
+
+  @Test
+  public void testAdaptiveConcurrencyLimit() {
+    HttpClientConfigImpl config1 = context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>builder()
+            .put("maxConnectionsPerHost", 10)
+            .put("adaptiveConcurrencyLimit", true)
+            .build());
+    HttpClientConfigImpl config2 = context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>builder()
+            .put("maxConnectionsPerHost", 5)
+            .put("adaptiveConcurrencyLimit", true)
+            .build());
+
+    HttpAsyncClientItem item = new HttpAsyncClientItem(config1);
+    AdaptiveConcurrencyLimiter concurrencyLimiter = ((ReconfigurableHttpAsyncClient)item.getHttpAsyncClient()).getConcurrencyLimiter();
+    assertNotNull(concurrencyLimiter);
+    assertEquals(10, concurrencyLimiter.getMaxLimit());
+
+    assertTrue(item.reconfigure(config2));
+    assertEquals(5, concurrencyLimiter.getMaxLimit());
+    item.close();
+
+    item = new HttpAsyncClientItem(context.registerInjectActivateService(new HttpClientConfigImpl()));
+    assertNull(((ReconfigurableHttpAsyncClient)item.getHttpAsyncClient()).getConcurrencyLimiter());
+    item.close();
+  }
+
+  @Test
+  public void testRetryPolicy() {
+    HttpClientConfigImpl config1 = context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>builder()
+            .put("retryMaxAttempts", 3)
+            .build());
+    HttpClientConfigImpl config2 = context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>builder()
+            .put("retryMaxAttempts", 2)
+            .build());
+
+    HttpAsyncClientItem item = new HttpAsyncClientItem(config1);
+    RetryPolicy retryPolicy = ((ReconfigurableHttpAsyncClient)item.getHttpAsyncClient()).getRetryPolicy();
+    assertNotNull(retryPolicy);
+    assertEquals(3, retryPolicy.getMaxAttempts());
+
+    assertTrue(item.reconfigure(config2));
+    assertEquals(2, retryPolicy.getMaxAttempts());
+
+    // disabling the retry policy requires a new client
+    assertFalse(item.reconfigure(context.registerInjectActivateService(new HttpClientConfigImpl())));
+    item.close();
+
+    item = new HttpAsyncClientItem(context.registerInjectActivateService(new HttpClientConfigImpl()));
+    assertNull(((ReconfigurableHttpAsyncClient)item.getHttpAsyncClient()).getRetryPolicy());
+    item.close();
+  }
+
+  @Test
+  public void testRequestCoalescing() {
+    HttpClientConfigImpl config1 = context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>builder()
+            .put("requestCoalescing", true)
+            .build());
+    HttpClientConfigImpl config2 = context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>builder()
+            .put("requestCoalescing", true)
+            .put("requestCoalescingHeaders", new String[] {
+                "Authorization"
+            })
+            .build());
+
+    HttpAsyncClientItem item = new HttpAsyncClientItem(config1);
+    RequestCoalescer requestCoalescer = ((ReconfigurableHttpAsyncClient)item.getHttpAsyncClient()).getRequestCoalescer();
+    assertNotNull(requestCoalescer);
+    HttpGet request = new HttpGet("http://host1/path");
+    request.addHeader("Accept", "application/json");
+    String key = requestCoalescer.getKey(null, request, null);
+
+    // changed key headers are applied in place
+    assertTrue(item.reconfigure(config2));
+    assertNotEquals(key, requestCoalescer.getKey(null, request, null));
+
+    // disabling request coalescing requires a new client
+    assertFalse(item.reconfigure(context.registerInjectActivateService(new HttpClientConfigImpl())));
+    item.close();
+
+    item = new HttpAsyncClientItem(context.registerInjectActivateService(new HttpClientConfigImpl()));
+    assertNull(((ReconfigurableHttpAsyncClient)item.getHttpAsyncClient()).getRequestCoalescer());
+    item.close();
+  }
+
+  @Test
+  public void testCircuitBreakerAndBulkhead() {
+    HttpClientConfigImpl config1 = context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>builder()
+            .put("circuitBreakerSlowCallRateThreshold", 80)
+            .put("bulkheadMaxConcurrentCalls", 10)
+            .build());
+    HttpClientConfigImpl config2 = context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>builder()
+            .put("circuitBreakerSlowCallRateThreshold", 80)
+            .put("bulkheadMaxConcurrentCalls", 5)
+            .build());
+
+    HealthCheckRegistry healthCheckRegistry = new HealthCheckRegistry();
+    HttpAsyncClientItem item = new HttpAsyncClientItem(config1);
+    item.registerHealthChecks(healthCheckRegistry);
+    ReconfigurableHttpAsyncClient client = (ReconfigurableHttpAsyncClient)item.getHttpAsyncClient();
+    assertNotNull(client.getCircuitBreaker());
+    assertNotNull(client.getBulkhead());
+    assertEquals(10, client.getBulkhead().getMaxConcurrentCalls());
+    assertEquals(1, healthCheckRegistry.getNames().size());
+
+    assertTrue(item.reconfigure(config2));
+    assertEquals(5, client.getBulkhead().getMaxConcurrentCalls());
+
+    // disabling circuit breaker and bulkhead requires a new client
+    assertFalse(item.reconfigure(context.registerInjectActivateService(new HttpClientConfigImpl())));
+    item.close();
+    assertTrue(healthCheckRegistry.getNames().isEmpty());
+  }
+
+  @Test
+  public void testHedging() {
+    HttpClientConfigImpl config1 = context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>builder()
+            .put("hedgeDelay", 50)
+            .build());
+    HttpClientConfigImpl config2 = context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>builder()
+            .put("hedgeDelay", 100)
+            .build());
+    HttpClientConfigImpl config3 = context.registerInjectActivateService(new HttpClientConfigImpl());
+
+    HttpAsyncClientItem item = new HttpAsyncClientItem(config1);
+    HedgingPolicy hedgingPolicy = ((ReconfigurableHttpAsyncClient)item.getHttpAsyncClient()).getHedgingPolicy();
+    assertNotNull(hedgingPolicy);
+    assertEquals(50, hedgingPolicy.getDelay());
+
+    assertTrue(item.reconfigure(config2));
+    assertEquals(100, hedgingPolicy.getDelay());
+
+    // disabling hedging requires a new client
+    assertFalse(item.reconfigure(config3));
+    item.close();
+
+    item = new HttpAsyncClientItem(config3);
+    assertNull(((ReconfigurableHttpAsyncClient)item.getHttpAsyncClient()).getHedgingPolicy());
+    item.close();
+  }
+
+  @Test
+  public void testLazyInitialization() {
+    HttpClientConfigImpl config = context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>builder()
+            .put("connectTimeout", 9)
+            .build());
+
+    HttpAsyncClientItem item = new HttpAsyncClientItem(config);
+    assertEquals(9, item.getDefaultRequestConfig().getConnectTimeout());
+    assertFalse(item.isInitialized());
+
+    HttpAsyncClient client = item.getHttpAsyncClient();
+    assertTrue(item.isInitialized());
+    assertSame(client, item.getHttpAsyncClient());
+    item.close();
+  }
+
+  @Test
+  public void testDedicatedIOReactorConfig() {
+    IOReactorConfig defaultIOReactorConfig = IOReactorConfig.custom()
+        .setIoThreadCount(4)
+        .setTcpNoDelay(true)
+        .setSndBufSize(1024)
+        .build();
+
+    HttpClientConfigImpl sharedConfig = context.registerInjectActivateService(new HttpClientConfigImpl());
+    assertNull(HttpAsyncClientItem.buildDedicatedIOReactorConfig(sharedConfig, defaultIOReactorConfig));
+
+    HttpClientConfigImpl dedicatedConfig = context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>builder()
+            .put("ioThreadCount", 2)
+            .put("tcpNoDelay", "false")
+            .put("rcvBufSize", 65536)
+            .put("soLinger", 0)
+            .put("backlogSize", 10)
+            .build());
+    IOReactorConfig ioReactorConfig = HttpAsyncClientItem.buildDedicatedIOReactorConfig(dedicatedConfig, defaultIOReactorConfig);
+    assertNotNull(ioReactorConfig);
+    assertEquals(2, ioReactorConfig.getIoThreadCount());
+    assertFalse(ioReactorConfig.isTcpNoDelay());
+    assertEquals(65536, ioReactorConfig.getRcvBufSize());
+    assertEquals(0, ioReactorConfig.getSoLinger());
+    assertEquals(10, ioReactorConfig.getBacklogSize());
+    // not overridden by configuration
+    assertEquals(1024, ioReactorConfig.getSndBufSize());
+  }
+
 }
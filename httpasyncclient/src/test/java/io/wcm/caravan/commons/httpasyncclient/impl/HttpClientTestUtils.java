@@ -42,6 +42,9 @@ public final class HttpClientTestUtils {
   }
 
   public static RequestConfig getDefaultRequestConfig(HttpAsyncClient httpClient) {
+    if (httpClient instanceof ReconfigurableHttpAsyncClient) {
+      return ((ReconfigurableHttpAsyncClient)httpClient).getDefaultRequestConfig();
+    }
     return (RequestConfig)getField(httpClient, "defaultConfig");
   }
 
@@ -50,15 +53,15 @@ public final class HttpClientTestUtils {
   }
 
   public static PoolingNHttpClientConnectionManager getConnectionManager(HttpAsyncClient httpClient) {
-    return (PoolingNHttpClientConnectionManager)getField(httpClient, "connmgr");
+    return (PoolingNHttpClientConnectionManager)getField(unwrap(httpClient), "connmgr");
   }
 
   public static CredentialsProvider getCredentialsProvider(HttpAsyncClient httpClient) {
-    return (CredentialsProvider)getField(httpClient, "credentialsProvider");
+    return (CredentialsProvider)getField(unwrap(httpClient), "credentialsProvider");
   }
 
   public static HttpHost getProxyHost(HttpAsyncClient httpClient) {
-    Object exec = getField(httpClient, "exec");
+    Object exec = getField(unwrap(httpClient), "exec");
     HttpRoutePlanner routePlanner = (HttpRoutePlanner)getField(exec, "routePlanner");
     if (routePlanner instanceof DefaultProxyRoutePlanner) {
       return (HttpHost)getField(routePlanner, "proxy");
@@ -71,7 +74,14 @@ public final class HttpClientTestUtils {
   @SuppressWarnings("unchecked")
   public static Registry<SchemeIOSessionStrategy> getSchemeRegistry(HttpAsyncClient httpClient) {
     PoolingNHttpClientConnectionManager connManager = getConnectionManager(httpClient);
-    return (Registry<SchemeIOSessionStrategy>)getField(connManager, "iosessionFactoryRegistry");
+    return (Registry<SchemeIOSessionStrategy>)getField(connManager, "ioSessionFactoryRegistry");
+  }
+
+  private static HttpAsyncClient unwrap(HttpAsyncClient httpClient) {
+    if (httpClient instanceof ReconfigurableHttpAsyncClient) {
+      return ((ReconfigurableHttpAsyncClient)httpClient).getDelegate();
+    }
+    return httpClient;
   }
 
   private static Object getField(Object object, String fieldName) {
@@ -0,0 +1,90 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpasyncclient.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.conn.SchemeIOSessionStrategy;
+import org.junit.Test;
+
+import io.wcm.caravan.commons.httpclient.impl.helpers.CertificateLoader;
+import io.wcm.caravan.commons.httpclient.impl.helpers.TlsHandshakeMetrics;
+
+public class MeteredSSLIOSessionStrategyTest {
+
+  @Test
+  public void testHandshakeFailureInIOReactor() throws Exception {
+    TlsHandshakeMetrics handshakeMetrics = new TlsHandshakeMetrics();
+    PoolingNHttpClientConnectionManager connectionManager = new PoolingNHttpClientConnectionManager(
+        new DefaultConnectingIOReactor(IOReactorConfig.DEFAULT),
+        RegistryBuilder.<SchemeIOSessionStrategy>create()
+            .register("https", new MeteredSSLIOSessionStrategy(CertificateLoader.createDefaultSSlContext(), handshakeMetrics))
+            .build());
+
+    // server answering the TLS client hello with plain HTTP
+    try (ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        CloseableHttpAsyncClient client = HttpAsyncClients.custom().setConnectionManager(connectionManager).build()) {
+      Thread server = new Thread(() -> {
+        try (Socket socket = serverSocket.accept()) {
+          OutputStream out = socket.getOutputStream();
+          out.write("HTTP/1.1 400 Bad Request\r\nContent-Length: 0\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+          out.flush();
+          socket.getInputStream().read();
+        }
+        catch (IOException ex) {
+          // ignore
+        }
+      });
+      server.start();
+      client.start();
+
+      try {
+        client.execute(new HttpGet("https://localhost:" + serverSocket.getLocalPort() + "/"), null).get(5, TimeUnit.SECONDS);
+        fail("ExecutionException expected");
+      }
+      catch (ExecutionException ex) {
+        // expected
+      }
+      server.join(5000);
+    }
+
+    assertEquals(1, handshakeMetrics.getFailures().getCount());
+    assertEquals(0, handshakeMetrics.getFullHandshakes().getCount());
+    assertEquals(0, handshakeMetrics.getResumedHandshakes().getCount());
+  }
+
+}
@@ -0,0 +1,102 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpasyncclient.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.http.concurrent.BasicFuture;
+import org.apache.http.concurrent.FutureCallback;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+public class PipelineFutureTest {
+
+  @Test
+  public void testResultsInOrder() throws Exception {
+    PipelineFuture<String> underTest = new PipelineFuture<>(3, null);
+    underTest.partCallback(2).completed(ImmutableList.of("e"));
+    underTest.resultCallback(1).completed("c");
+    assertFalse(underTest.isDone());
+    underTest.partCallback(0).completed(ImmutableList.of("a", "b"));
+
+    assertTrue(underTest.isDone());
+    assertEquals(ImmutableList.of("a", "b", "c", "e"), underTest.get());
+  }
+
+  @Test
+  public void testFailedPartCancelsOtherParts() {
+    AtomicReference<Exception> failure = new AtomicReference<>();
+    PipelineFuture<String> underTest = new PipelineFuture<>(2, new FutureCallback<List<String>>() {
+      @Override
+      public void completed(List<String> result) {
+        // not expected
+      }
+      @Override
+      public void failed(Exception ex) {
+        failure.set(ex);
+      }
+      @Override
+      public void cancelled() {
+        // not expected
+      }
+    });
+    BasicFuture<List<String>> part1 = new BasicFuture<>(underTest.partCallback(0));
+    BasicFuture<List<String>> part2 = new BasicFuture<>(underTest.partCallback(1));
+    underTest.addPart(part1);
+    underTest.addPart(part2);
+
+    Exception ex = new IllegalStateException("failed");
+    part1.failed(ex);
+    assertSame(ex, failure.get());
+    assertTrue(part2.isCancelled());
+    try {
+      underTest.get();
+      fail("ExecutionException expected");
+    }
+    catch (ExecutionException | InterruptedException expected) {
+      assertSame(ex, expected.getCause());
+    }
+  }
+
+  @Test
+  public void testCancel() {
+    PipelineFuture<String> underTest = new PipelineFuture<>(2, null);
+    BasicFuture<List<String>> part1 = new BasicFuture<>(underTest.partCallback(0));
+    underTest.addPart(part1);
+
+    assertTrue(underTest.cancel(true));
+    assertTrue(part1.isCancelled());
+
+    // parts added after cancellation are cancelled immediately
+    BasicFuture<List<String>> part2 = new BasicFuture<>(underTest.partCallback(1));
+    underTest.addPart(part2);
+    assertTrue(part2.isCancelled());
+  }
+
+}
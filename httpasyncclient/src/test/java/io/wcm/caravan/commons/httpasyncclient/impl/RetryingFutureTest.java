@@ -0,0 +1,159 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpasyncclient.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.net.ConnectException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.concurrent.BasicFuture;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.sling.testing.mock.osgi.junit.OsgiContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+
+import io.wcm.caravan.commons.httpclient.impl.HttpClientConfigImpl;
+import io.wcm.caravan.commons.httpclient.impl.helpers.RetryPolicy;
+
+public class RetryingFutureTest {
+
+  @Rule
+  public OsgiContext context = new OsgiContext();
+
+  private RetryPolicy retryPolicy;
+  private HedgeScheduler.Registration scheduler;
+  private final BlockingQueue<BasicFuture<HttpResponse>> attempts = new LinkedBlockingQueue<>();
+
+  @Before
+  public void setUp() {
+    retryPolicy = new RetryPolicy(context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>builder()
+            .put("retryMaxAttempts", 3)
+            .put("retryBackoff", 1)
+            .put("retryMaxBackoff", 1)
+            .build()));
+    scheduler = HedgeScheduler.getInstance().register();
+  }
+
+  @After
+  public void tearDown() {
+    scheduler.release();
+  }
+
+  @Test
+  public void testRetryOnStatus() throws Exception {
+    RetryingFuture underTest = start();
+    nextAttempt().completed(response(503));
+    HttpResponse response = response(200);
+    nextAttempt().completed(response);
+
+    assertSame(response, underTest.get());
+    assertEquals(2, underTest.getAttempts());
+    assertEquals(1, retryPolicy.getRetryCount());
+  }
+
+  @Test
+  public void testRetryOnException() throws Exception {
+    RetryingFuture underTest = start();
+    nextAttempt().failed(new ConnectException("connection refused"));
+    HttpResponse response = response(200);
+    nextAttempt().completed(response);
+
+    assertSame(response, underTest.get());
+    assertEquals(2, underTest.getAttempts());
+  }
+
+  @Test
+  public void testNoRetryOnOtherException() throws Exception {
+    RetryingFuture underTest = start();
+    Exception ex = new IllegalStateException("failed");
+    nextAttempt().failed(ex);
+
+    try {
+      underTest.get();
+      fail("ExecutionException expected");
+    }
+    catch (ExecutionException expected) {
+      assertSame(ex, expected.getCause());
+    }
+    assertEquals(1, underTest.getAttempts());
+    assertEquals(0, retryPolicy.getRetryCount());
+  }
+
+  @Test
+  public void testMaxAttempts() throws Exception {
+    RetryingFuture underTest = start();
+    nextAttempt().completed(response(503));
+    nextAttempt().completed(response(502));
+    HttpResponse response = response(503);
+    nextAttempt().completed(response);
+
+    // last response is returned after max. attempts
+    assertSame(response, underTest.get());
+    assertEquals(3, underTest.getAttempts());
+    assertNull(attempts.poll(50, TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  public void testCancel() throws Exception {
+    RetryingFuture underTest = start();
+    BasicFuture<HttpResponse> attempt = nextAttempt();
+    assertTrue(underTest.cancel(true));
+    assertTrue(attempt.isCancelled());
+    assertNull(attempts.poll(50, TimeUnit.MILLISECONDS));
+  }
+
+  private RetryingFuture start() {
+    RetryingFuture future = new RetryingFuture(retryPolicy, scheduler, null);
+    future.start(callback -> {
+      BasicFuture<HttpResponse> attempt = new BasicFuture<>(callback);
+      attempts.add(attempt);
+      return attempt;
+    });
+    return future;
+  }
+
+  private BasicFuture<HttpResponse> nextAttempt() throws InterruptedException {
+    BasicFuture<HttpResponse> attempt = attempts.poll(5, TimeUnit.SECONDS);
+    if (attempt == null) {
+      fail("Attempt expected");
+    }
+    return attempt;
+  }
+
+  private static HttpResponse response(int statusCode) {
+    return new BasicHttpResponse(HttpVersion.HTTP_1_1, statusCode, "reason");
+  }
+
+}
@@ -0,0 +1,141 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpasyncclient.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+import com.codahale.metrics.MetricRegistry;
+
+public class SessionBufferPoolTest {
+
+  @Test
+  public void testSizeClasses() {
+    SessionBufferPool underTest = new SessionBufferPool(1024 * 1024, 60000);
+    assertEquals(65536, underTest.getMaxBufferSize());
+
+    assertEquals(1024, underTest.allocate(100).capacity());
+    assertEquals(1024, underTest.allocate(1024).capacity());
+    assertEquals(2048, underTest.allocate(1025).capacity());
+    assertEquals(8192, underTest.allocate(8192).capacity());
+    assertTrue(underTest.allocate(8192).isDirect());
+    assertEquals(1024 + 1024 + 2048 + 8192 + 8192, underTest.getAllocatedBytes());
+    assertEquals(0, underTest.getFallbackAllocations());
+  }
+
+  @Test
+  public void testReuse() {
+    SessionBufferPool underTest = new SessionBufferPool(1024 * 1024, 65536);
+    ByteBuffer buffer = underTest.allocate(8192);
+    buffer.put((byte)1);
+    assertEquals(8192, underTest.getInUseBytes());
+
+    underTest.release(buffer);
+    assertEquals(0, underTest.getInUseBytes());
+
+    ByteBuffer reused = underTest.allocate(5000);
+    assertSame(buffer, reused);
+    assertEquals(0, reused.position());
+    assertEquals(8192, underTest.getAllocatedBytes());
+  }
+
+  @Test
+  public void testFallbackAllocation() {
+    SessionBufferPool underTest = new SessionBufferPool(16384, 8192);
+
+    // too large for the pool
+    ByteBuffer large = underTest.allocate(10000);
+    assertFalse(large.isDirect());
+    assertEquals(10000, large.capacity());
+
+    // pool exhausted
+    underTest.allocate(8192);
+    underTest.allocate(8192);
+    assertFalse(underTest.allocate(1024).isDirect());
+    assertEquals(2, underTest.getFallbackAllocations());
+    assertEquals(16384, underTest.getAllocatedBytes());
+
+    // fallback buffers are not pooled
+    underTest.release(large);
+    assertEquals(16384, underTest.getInUseBytes());
+  }
+
+  @Test
+  public void testDiscardFreeBuffersOfOtherSizeClass() {
+    SessionBufferPool underTest = new SessionBufferPool(16384, 16384);
+    underTest.release(underTest.allocate(16384));
+
+    ByteBuffer buffer = underTest.allocate(1024);
+    assertTrue(buffer.isDirect());
+    assertEquals(1024, underTest.getAllocatedBytes());
+    assertEquals(0, underTest.getFallbackAllocations());
+  }
+
+  @Test
+  public void testConnectionBuffers() {
+    SessionBufferPool underTest = new SessionBufferPool(1024 * 1024, 65536);
+    SessionBufferPool.ConnectionBuffers connectionBuffers = underTest.new ConnectionBuffers();
+    ByteBuffer inbuf = connectionBuffers.allocate(8192);
+    ByteBuffer outbuf = connectionBuffers.allocate(8192);
+    // expanded session buffer
+    connectionBuffers.allocate(16384);
+    assertEquals(32768, underTest.getInUseBytes());
+
+    connectionBuffers.release();
+    assertEquals(0, underTest.getInUseBytes());
+    connectionBuffers.release();
+    assertEquals(0, underTest.getInUseBytes());
+
+    // buffers requested after release are not taken from the pool
+    assertFalse(connectionBuffers.allocate(8192).isDirect());
+
+    ByteBuffer reused = underTest.allocate(8192);
+    assertTrue(reused == inbuf || reused == outbuf);
+    assertNotSame(underTest.allocate(8192), reused);
+  }
+
+  @Test
+  public void testMetrics() {
+    MetricRegistry registry = new MetricRegistry();
+    SessionBufferPool underTest = new SessionBufferPool(16384, 8192);
+    underTest.registerMetrics(registry);
+    assertEquals(5, registry.getGauges().size());
+
+    underTest.allocate(8192);
+    assertEquals(8192L, registry.getGauges().get("httpasyncclient.sessionbuffers.inusebytes").getValue());
+    assertEquals(0.5d, (Double)registry.getGauges().get("httpasyncclient.sessionbuffers.utilization").getValue(), 0.001d);
+
+    underTest.unregisterMetrics();
+    assertTrue(registry.getNames().isEmpty());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidPoolSize() {
+    new SessionBufferPool(0, 8192);
+  }
+
+}
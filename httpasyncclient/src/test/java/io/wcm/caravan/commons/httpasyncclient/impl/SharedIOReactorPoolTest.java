@@ -0,0 +1,100 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpasyncclient.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.reactor.ConnectingIOReactor;
+import org.apache.http.nio.reactor.IOReactorStatus;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SharedIOReactorPoolTest {
+
+  private SharedIOReactorPool underTest;
+
+  @Before
+  public void setUp() {
+    underTest = new SharedIOReactorPool(IOReactorConfig.custom().setIoThreadCount(1).build(), 2);
+  }
+
+  @After
+  public void tearDown() {
+    underTest.shutdown();
+  }
+
+  @Test
+  public void testClientReactorLifecycle() throws Exception {
+    ConnectingIOReactor clientReactor = underTest.newClientReactor();
+    assertEquals(IOReactorStatus.INACTIVE, clientReactor.getStatus());
+
+    // event loop of the client blocks until the client reactor is shut down
+    CountDownLatch executed = new CountDownLatch(1);
+    Thread thread = new Thread(() -> {
+      try {
+        clientReactor.execute(null);
+      }
+      catch (Exception ex) {
+        // ignore
+      }
+      executed.countDown();
+    });
+    thread.start();
+    assertFalse(executed.await(100, TimeUnit.MILLISECONDS));
+    assertEquals(IOReactorStatus.ACTIVE, clientReactor.getStatus());
+
+    clientReactor.shutdown();
+    assertTrue(executed.await(5, TimeUnit.SECONDS));
+    assertEquals(IOReactorStatus.SHUT_DOWN, clientReactor.getStatus());
+  }
+
+  @Test
+  public void testSeparateClientReactors() {
+    assertNotSame(underTest.newClientReactor(), underTest.newClientReactor());
+    assertEquals(2, underTest.getReactorCount());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testConnectAfterShutdown() throws Exception {
+    ConnectingIOReactor clientReactor = underTest.newClientReactor();
+    clientReactor.shutdown(0);
+    clientReactor.connect(null, null, null, null);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testNewClientReactorAfterShutdown() {
+    underTest.shutdown();
+    underTest.newClientReactor();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidReactorCount() {
+    new SharedIOReactorPool(IOReactorConfig.DEFAULT, 0);
+  }
+
+}
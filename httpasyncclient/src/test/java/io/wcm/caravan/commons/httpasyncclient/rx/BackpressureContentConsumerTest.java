@@ -0,0 +1,236 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpasyncclient.rx;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.HttpResponseException;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.protocol.BasicHttpContext;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.wcm.caravan.commons.httpasyncclient.consumer.ByteBufferPool;
+import rx.Subscriber;
+
+public class BackpressureContentConsumerTest {
+
+  private static final int BUFFER_SIZE = 16;
+
+  private ByteBufferPool pool;
+  private CollectingSubscriber subscriber;
+  private IOControlStub ioControl;
+  private BackpressureContentConsumer underTest;
+
+  @Before
+  public void setUp() {
+    pool = new ByteBufferPool(BUFFER_SIZE, 4, false);
+    subscriber = new CollectingSubscriber();
+    ioControl = new IOControlStub();
+    underTest = new BackpressureContentConsumer(subscriber, pool);
+  }
+
+  @Test
+  public void testEmitsRequestedChunks() throws Exception {
+    byte[] content = content(BUFFER_SIZE * 3);
+    underTest.request(Long.MAX_VALUE);
+    underTest.responseReceived(new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK"));
+    underTest.consumeContent(new ChunkedDecoder(content), ioControl);
+    underTest.responseCompleted(new BasicHttpContext());
+    underTest.callback().completed(true);
+
+    assertEquals(3, subscriber.chunks.size());
+    assertArrayEquals(content, subscriber.content());
+    assertTrue(subscriber.completed);
+    assertNull(subscriber.error);
+    assertEquals(1, pool.getPooledCount());
+  }
+
+  @Test
+  public void testSuspendsInputUntilChunksAreRequested() throws Exception {
+    byte[] content = content(BUFFER_SIZE * (BackpressureContentConsumer.MAX_QUEUED_CHUNKS + 4));
+    ChunkedDecoder decoder = new ChunkedDecoder(content);
+    underTest.responseReceived(new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK"));
+    underTest.consumeContent(decoder, ioControl);
+
+    assertTrue(ioControl.inputSuspended);
+    assertTrue(subscriber.chunks.isEmpty());
+
+    // requesting less than half of the queued chunks keeps the input suspended
+    underTest.request(BackpressureContentConsumer.MAX_QUEUED_CHUNKS / 2 - 1);
+    assertTrue(ioControl.inputSuspended);
+
+    underTest.request(1);
+    assertFalse(ioControl.inputSuspended);
+    assertEquals(BackpressureContentConsumer.MAX_QUEUED_CHUNKS / 2, subscriber.chunks.size());
+
+    underTest.consumeContent(decoder, ioControl);
+    underTest.responseCompleted(new BasicHttpContext());
+    underTest.callback().completed(true);
+    assertFalse(subscriber.completed);
+
+    underTest.request(Long.MAX_VALUE);
+    assertArrayEquals(content, subscriber.content());
+    assertTrue(subscriber.completed);
+  }
+
+  @Test
+  public void testErrorStatus() {
+    try {
+      underTest.responseReceived(new BasicHttpResponse(HttpVersion.HTTP_1_1, 404, "Not Found"));
+    }
+    catch (Exception ex) {
+      underTest.callback().failed(ex);
+    }
+    underTest.request(1);
+
+    assertTrue(subscriber.error instanceof HttpResponseException);
+    assertEquals(404, ((HttpResponseException)subscriber.error).getStatusCode());
+    assertFalse(subscriber.completed);
+  }
+
+  @Test
+  public void testFailureDiscardsQueuedChunks() throws Exception {
+    underTest.responseReceived(new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK"));
+    underTest.consumeContent(new ChunkedDecoder(content(BUFFER_SIZE * 2)), ioControl);
+    underTest.failed(new IOException("Connection reset"));
+    underTest.callback().failed(new IOException("Connection reset"));
+    underTest.request(Long.MAX_VALUE);
+
+    assertTrue(subscriber.chunks.isEmpty());
+    assertTrue(subscriber.error instanceof IOException);
+    assertEquals(1, pool.getPooledCount());
+  }
+
+  private static byte[] content(int length) {
+    byte[] content = new byte[length];
+    for (int i = 0; i < length; i++) {
+      content[i] = (byte)i;
+    }
+    return content;
+  }
+
+
+  private static class CollectingSubscriber extends Subscriber<byte[]> {
+
+    private final List<byte[]> chunks = new ArrayList<>();
+    private boolean completed;
+    private Throwable error;
+
+    @Override
+    public void onNext(byte[] chunk) {
+      chunks.add(chunk);
+    }
+
+    @Override
+    public void onCompleted() {
+      completed = true;
+    }
+
+    @Override
+    public void onError(Throwable ex) {
+      error = ex;
+    }
+
+    byte[] content() {
+      ByteArrayOutputStream bos = new ByteArrayOutputStream();
+      chunks.forEach(chunk -> bos.write(chunk, 0, chunk.length));
+      return bos.toByteArray();
+    }
+
+  }
+
+  /**
+   * Decoder returning the content in chunks of the buffer size.
+   */
+  private static class ChunkedDecoder implements ContentDecoder {
+
+    private final ByteBuffer content;
+
+    ChunkedDecoder(byte[] content) {
+      this.content = ByteBuffer.wrap(content);
+    }
+
+    @Override
+    public int read(ByteBuffer dst) {
+      if (!content.hasRemaining()) {
+        return -1;
+      }
+      int count = Math.min(dst.remaining(), content.remaining());
+      ByteBuffer chunk = content.slice();
+      chunk.limit(count);
+      dst.put(chunk);
+      content.position(content.position() + count);
+      return count;
+    }
+
+    @Override
+    public boolean isCompleted() {
+      return !content.hasRemaining();
+    }
+
+  }
+
+  private static class IOControlStub implements IOControl {
+
+    private boolean inputSuspended;
+
+    @Override
+    public void requestInput() {
+      inputSuspended = false;
+    }
+
+    @Override
+    public void suspendInput() {
+      inputSuspended = true;
+    }
+
+    @Override
+    public void requestOutput() {
+      // not used
+    }
+
+    @Override
+    public void suspendOutput() {
+      // not used
+    }
+
+    @Override
+    public void shutdown() {
+      // not used
+    }
+
+  }
+
+}
@@ -0,0 +1,38 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpclient;
+
+import java.io.IOException;
+
+/**
+ * Signals that a call was rejected without sending it to the upstream, because the circuit breaker of the
+ * HTTP client configuration is open or the max. number of concurrent calls of its bulkhead is reached.
+ */
+public class CallNotPermittedException extends IOException {
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * @param message Message
+   */
+  public CallNotPermittedException(String message) {
+    super(message);
+  }
+
+}
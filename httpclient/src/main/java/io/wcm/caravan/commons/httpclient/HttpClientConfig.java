@@ -19,6 +19,12 @@
  */
 package io.wcm.caravan.commons.httpclient;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
 import org.apache.http.client.config.CookieSpecs;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -55,6 +61,181 @@ public interface HttpClientConfig {
    */
   int MAX_TOTAL_CONNECTIONS_DEFAULT = 50;
 
+  /**
+   * Default value for the max. time to live of pooled connections (in ms), 0 = unlimited
+   */
+  int CONNECTION_TIME_TO_LIVE_DEFAULT = 0;
+
+  /**
+   * Default value for the interval to evict expired and idle connections from the pool (in ms)
+   */
+  int IDLE_CONNECTION_EVICTION_INTERVAL_DEFAULT = 10000; // 10sec
+
+  /**
+   * Default value for the max. time a connection may stay idle in the pool before it is evicted (in ms)
+   */
+  int MAX_IDLE_TIME_DEFAULT = 60000; // 60sec
+
+  /**
+   * Default value for the period of inactivity after which pooled connections are validated before reuse (in ms)
+   */
+  int VALIDATE_AFTER_INACTIVITY_DEFAULT = 2000; // 2sec
+
+  /**
+   * Default value for the max. number of concurrent requests of the synchronous HTTP client, 0 = no admission limit
+   */
+  int MAX_CONCURRENT_REQUESTS_DEFAULT = 0;
+
+  /**
+   * Default value for adaptive concurrency limit
+   */
+  boolean ADAPTIVE_CONCURRENCY_LIMIT_DEFAULT = false;
+
+  /**
+   * Default value for the IO thread count of the asynchronous HTTP client, 0 = use setting of the async client factory
+   */
+  int IO_THREAD_COUNT_DEFAULT = 0;
+
+  /**
+   * Default value for socket send and receive buffer sizes of the asynchronous HTTP client (in bytes),
+   * 0 = use setting of the async client factory
+   */
+  int SOCKET_BUFFER_SIZE_DEFAULT = 0;
+
+  /**
+   * Default value for SO_LINGER of the asynchronous HTTP client (in seconds), -1 = use setting of the async client factory
+   */
+  int SO_LINGER_DEFAULT = -1;
+
+  /**
+   * Default value for the connect backlog size of the asynchronous HTTP client, 0 = use setting of the async client factory
+   */
+  int BACKLOG_SIZE_DEFAULT = 0;
+
+  /**
+   * Default value for HTTP/1.1 request pipelining of the asynchronous HTTP client
+   */
+  boolean PIPELINING_DEFAULT = false;
+
+  /**
+   * Default value for the max. number of requests pipelined on a single connection of the asynchronous HTTP client
+   */
+  int MAX_PIPELINED_REQUESTS_DEFAULT = 8;
+
+  /**
+   * Default value for hedge delay (in ms), 0 = no hedging
+   */
+  int HEDGE_DELAY_DEFAULT = 0;
+
+  /**
+   * Default value for the latency percentile used as hedge delay, 0 = fixed hedge delay
+   */
+  double HEDGE_DELAY_PERCENTILE_DEFAULT = 0d;
+
+  /**
+   * Default value for max. percentage of requests that are hedged
+   */
+  int MAX_HEDGE_PERCENT_DEFAULT = 10;
+
+  /**
+   * Default value for the percentage of failed calls that opens the circuit breaker, 0 = no circuit breaker
+   */
+  int CIRCUIT_BREAKER_FAILURE_RATE_THRESHOLD_DEFAULT = 0;
+
+  /**
+   * Default value for the percentage of slow calls that opens the circuit breaker, 0 = slow calls do not open the circuit breaker
+   */
+  int CIRCUIT_BREAKER_SLOW_CALL_RATE_THRESHOLD_DEFAULT = 0;
+
+  /**
+   * Default value for the duration above which a call is considered as slow by the circuit breaker (in ms)
+   */
+  int CIRCUIT_BREAKER_SLOW_CALL_DURATION_DEFAULT = 10000;
+
+  /**
+   * Default value for the number of recent calls evaluated by the circuit breaker
+   */
+  int CIRCUIT_BREAKER_WINDOW_SIZE_DEFAULT = 100;
+
+  /**
+   * Default value for the time the circuit breaker stays open before trial calls are permitted (in ms)
+   */
+  int CIRCUIT_BREAKER_OPEN_DURATION_DEFAULT = 30000;
+
+  /**
+   * Default value for max. concurrent calls permitted by the bulkhead, 0 = no bulkhead
+   */
+  int BULKHEAD_MAX_CONCURRENT_CALLS_DEFAULT = 0;
+
+  /**
+   * Default value for the max. number of attempts per request, 0 = default retry behavior of the HTTP client
+   */
+  int RETRY_MAX_ATTEMPTS_DEFAULT = 0;
+
+  /**
+   * Default value for the backoff before the first retry (in ms)
+   */
+  int RETRY_BACKOFF_DEFAULT = 100;
+
+  /**
+   * Default value for the max. backoff before a retry (in ms)
+   */
+  int RETRY_MAX_BACKOFF_DEFAULT = 2000;
+
+  /**
+   * Default value for the response status codes that are retried
+   */
+  Set<Integer> RETRY_STATUS_CODES_DEFAULT = Collections.unmodifiableSet(new TreeSet<>(Arrays.asList(502, 503, 504)));
+
+  /**
+   * Default value for the exception class names that are retried
+   */
+  Set<String> RETRY_EXCEPTIONS_DEFAULT = Collections.unmodifiableSet(new TreeSet<>(Arrays.asList(
+      "java.net.ConnectException",
+      "org.apache.http.NoHttpResponseException",
+      "org.apache.http.conn.ConnectTimeoutException")));
+
+  /**
+   * Default value for the max. percentage of requests that are retried
+   */
+  int RETRY_BUDGET_PERCENT_DEFAULT = 10;
+
+  /**
+   * Default value for the accepted content codings of responses (none, compressed responses are opt-in)
+   */
+  List<String> ACCEPT_ENCODINGS_DEFAULT = Collections.emptyList();
+
+  /**
+   * Default value for coalescing identical GET and HEAD requests in flight at the same time
+   */
+  boolean REQUEST_COALESCING_DEFAULT = false;
+
+  /**
+   * Default value for the request headers that are part of the key of coalesced requests
+   */
+  List<String> REQUEST_COALESCING_HEADERS_DEFAULT = Collections.unmodifiableList(Arrays.asList(
+      "Accept", "Accept-Encoding", "Accept-Language", "Authorization", "Cookie"));
+
+  /**
+   * Default value for the max. content length of responses that are buffered and passed to coalesced requests (1 MB)
+   */
+  int REQUEST_COALESCING_MAX_CONTENT_LENGTH_DEFAULT = 1024 * 1024;
+
+  /**
+   * Default value for the interval to check key store and trust store files for changes (in ms), 0 = disabled
+   */
+  int STORE_RELOAD_INTERVAL_DEFAULT = 0;
+
+  /**
+   * Default value for the max. number of TLS sessions in the client session cache, -1 = JVM default
+   */
+  int SSL_SESSION_CACHE_SIZE_DEFAULT = -1;
+
+  /**
+   * Default value for the timeout of cached TLS sessions (in seconds), -1 = JVM default
+   */
+  int SSL_SESSION_TIMEOUT_DEFAULT = -1;
+
   /**
    * Default value for cookie specs.
    */
@@ -66,6 +247,15 @@ public interface HttpClientConfig {
    */
   boolean isEnabled();
 
+  /**
+   * Name of this configuration, used e.g. for naming metrics of the HTTP clients created for this configuration.
+   * @return Name or null if not set. In this case the name is derived from the host patterns.
+   */
+  @Nullable
+  default String getName() {
+    return null;
+  }
+
   /**
    * Connection request timeout in ms.
    * @return Connection request timeout in ms.
@@ -98,6 +288,325 @@ public interface HttpClientConfig {
    */
   int getMaxTotalConnections();
 
+  /**
+   * Max. time to live of pooled connections in ms. Connections older than this are not reused and closed.
+   * @return Time to live in ms, or 0 for unlimited.
+   */
+  default int getConnectionTimeToLive() {
+    return CONNECTION_TIME_TO_LIVE_DEFAULT;
+  }
+
+  /**
+   * Interval in ms in which expired and idle connections are evicted from the connection pool.
+   * @return Eviction interval in ms, or 0 to disable eviction.
+   */
+  default int getIdleConnectionEvictionInterval() {
+    return IDLE_CONNECTION_EVICTION_INTERVAL_DEFAULT;
+  }
+
+  /**
+   * Max. time in ms a connection may stay idle in the connection pool before it is evicted.
+   * @return Max. idle time in ms, or 0 to evict only expired connections.
+   */
+  default int getMaxIdleTime() {
+    return MAX_IDLE_TIME_DEFAULT;
+  }
+
+  /**
+   * Period of inactivity in ms after which pooled connections are validated before they are reused.
+   * Applies only to the synchronous HTTP client, the asynchronous client detects closed connections
+   * via its IO reactor.
+   * @return Period in ms, or 0 to disable validation.
+   */
+  default int getValidateAfterInactivity() {
+    return VALIDATE_AFTER_INACTIVITY_DEFAULT;
+  }
+
+  /**
+   * Max. number of requests executed concurrently by the synchronous HTTP client. Further requests wait for a free slot
+   * up to the connection request timeout instead of waiting for a connection in the connection pool, which blocks
+   * inside a synchronized block and pins the carrier thread of callers running on virtual threads.
+   * The limit applies to all hosts together, the effective limit is capped by max. total connections.
+   * @return Max. number of concurrent requests, or 0 to wait for free connections in the connection pool.
+   */
+  default int getMaxConcurrentRequests() {
+    return MAX_CONCURRENT_REQUESTS_DEFAULT;
+  }
+
+  /**
+   * Limits the number of requests in flight per route, adapting the limit to the observed latency and errors
+   * of the upstream. The limit never exceeds max. connections per host. Requests exceeding the limit are rejected
+   * immediately with a {@link org.apache.http.conn.ConnectionPoolTimeoutException} instead of waiting for a
+   * connection up to the connection request timeout.
+   * @return true if the adaptive concurrency limit is enabled
+   */
+  default boolean isAdaptiveConcurrencyLimit() {
+    return ADAPTIVE_CONCURRENCY_LIMIT_DEFAULT;
+  }
+
+  /**
+   * Number of IO dispatcher threads of a dedicated IO reactor for the asynchronous HTTP client.
+   * If any of the IO reactor settings is set, the asynchronous HTTP client of this configuration uses a dedicated
+   * IO reactor instead of the IO reactors shared by all configurations.
+   * @return IO thread count, or 0 to use the setting of the async client factory.
+   */
+  default int getIoThreadCount() {
+    return IO_THREAD_COUNT_DEFAULT;
+  }
+
+  /**
+   * Socket send buffer size (SO_SNDBUF) of the asynchronous HTTP client in bytes.
+   * @return Send buffer size, or 0 to use the setting of the async client factory.
+   */
+  default int getSndBufSize() {
+    return SOCKET_BUFFER_SIZE_DEFAULT;
+  }
+
+  /**
+   * Socket receive buffer size (SO_RCVBUF) of the asynchronous HTTP client in bytes.
+   * @return Receive buffer size, or 0 to use the setting of the async client factory.
+   */
+  default int getRcvBufSize() {
+    return SOCKET_BUFFER_SIZE_DEFAULT;
+  }
+
+  /**
+   * TCP_NODELAY setting of the asynchronous HTTP client.
+   * @return true to disable Nagle's algorithm, false to enable it, or null to use the setting of the async client factory.
+   */
+  @Nullable
+  default Boolean getTcpNoDelay() {
+    return null;
+  }
+
+  /**
+   * SO_LINGER setting of the asynchronous HTTP client in seconds.
+   * @return Linger time in seconds, or -1 to use the setting of the async client factory.
+   */
+  default int getSoLinger() {
+    return SO_LINGER_DEFAULT;
+  }
+
+  /**
+   * Connect backlog size of the IO reactor of the asynchronous HTTP client.
+   * @return Backlog size, or 0 to use the setting of the async client factory.
+   */
+  default int getBacklogSize() {
+    return BACKLOG_SIZE_DEFAULT;
+  }
+
+  /**
+   * Enables HTTP/1.1 request pipelining for the asynchronous HTTP client: the requests passed to the pipelining
+   * client of the async client factory are sent in a row on shared connections without waiting for the responses.
+   * Pipelining is not applied if a proxy or HTTP credentials are configured.
+   * <p>
+   * This is not HTTP/2 multiplexing: the server answers pipelined requests in order, so a slow response blocks all
+   * responses behind it on the same connection (head-of-line blocking). Only enable it for servers that respond
+   * quickly and uniformly. Connections used for a pipeline are closed when the pipeline is completed.
+   * </p>
+   * @return true if pipelining is enabled
+   */
+  default boolean isPipelining() {
+    return PIPELINING_DEFAULT;
+  }
+
+  /**
+   * Max. number of requests sent in a row on a single connection if pipelining is enabled.
+   * Longer pipelines are split and sent on multiple connections. Lower values limit the number of responses
+   * blocked behind a slow response.
+   * @return Max. number of pipelined requests per connection, or 0 for no limit.
+   */
+  default int getMaxPipelinedRequests() {
+    return MAX_PIPELINED_REQUESTS_DEFAULT;
+  }
+
+  /**
+   * Async client only: Delay after which a backup request is sent for a GET or HEAD request that has not been answered
+   * yet. The response received first is used, the other request is cancelled.
+   * @return Hedge delay (in ms), or 0 to disable hedging
+   */
+  default int getHedgeDelay() {
+    return HEDGE_DELAY_DEFAULT;
+  }
+
+  /**
+   * Async client only: Derives the hedge delay from the recently observed response latencies, e.g. 0.95 to send
+   * a backup request if the response takes longer than 95% of the recent responses. The fixed hedge delay is
+   * used until enough latencies are recorded.
+   * @return Latency percentile between 0 and 1, or 0 to always use the fixed hedge delay
+   */
+  default double getHedgeDelayPercentile() {
+    return HEDGE_DELAY_PERCENTILE_DEFAULT;
+  }
+
+  /**
+   * Async client only: Max. percentage of GET and HEAD requests for which a backup request is sent.
+   * @return Max. percentage of hedged requests
+   */
+  default int getMaxHedgePercent() {
+    return MAX_HEDGE_PERCENT_DEFAULT;
+  }
+
+  /**
+   * Opens the circuit breaker if the percentage of failed calls within the recent calls reaches this threshold.
+   * Calls failing with an exception or a 5xx response status are considered as failed. While the circuit breaker is
+   * open, calls fail immediately with {@link CallNotPermittedException}.
+   * @return Failure rate threshold in percent, or 0 to ignore the failure rate
+   */
+  default int getCircuitBreakerFailureRateThreshold() {
+    return CIRCUIT_BREAKER_FAILURE_RATE_THRESHOLD_DEFAULT;
+  }
+
+  /**
+   * Opens the circuit breaker if the percentage of slow calls within the recent calls reaches this threshold.
+   * The circuit breaker is enabled if either the failure rate or the slow call rate threshold is set.
+   * @return Slow call rate threshold in percent, or 0 to ignore the slow call rate
+   */
+  default int getCircuitBreakerSlowCallRateThreshold() {
+    return CIRCUIT_BREAKER_SLOW_CALL_RATE_THRESHOLD_DEFAULT;
+  }
+
+  /**
+   * Calls taking longer than this duration are considered as slow by the circuit breaker.
+   * @return Slow call duration (in ms)
+   */
+  default int getCircuitBreakerSlowCallDuration() {
+    return CIRCUIT_BREAKER_SLOW_CALL_DURATION_DEFAULT;
+  }
+
+  /**
+   * Number of recent calls the failure rate and slow call rate of the circuit breaker are calculated from.
+   * The rates are not evaluated before this number of calls was recorded.
+   * @return Window size
+   */
+  default int getCircuitBreakerWindowSize() {
+    return CIRCUIT_BREAKER_WINDOW_SIZE_DEFAULT;
+  }
+
+  /**
+   * Time the circuit breaker stays open before a few trial calls are permitted to check if the upstream has recovered.
+   * @return Open duration (in ms)
+   */
+  default int getCircuitBreakerOpenDuration() {
+    return CIRCUIT_BREAKER_OPEN_DURATION_DEFAULT;
+  }
+
+  /**
+   * Max. number of concurrent calls. Further calls fail immediately with {@link CallNotPermittedException}
+   * instead of waiting for a connection.
+   * @return Max. concurrent calls, or 0 for no bulkhead
+   */
+  default int getBulkheadMaxConcurrentCalls() {
+    return BULKHEAD_MAX_CONCURRENT_CALLS_DEFAULT;
+  }
+
+  /**
+   * Max. number of attempts per request including the first one. Only requests with idempotent methods
+   * and repeatable entities are retried. If not set, the sync client retries idempotent requests failed
+   * with an I/O error up to 3 times without delay, the async client does not retry.
+   * @return Max. attempts, or 0 for the default retry behavior of the HTTP client
+   */
+  default int getRetryMaxAttempts() {
+    return RETRY_MAX_ATTEMPTS_DEFAULT;
+  }
+
+  /**
+   * Backoff before the first retry, which is doubled for each further retry. The actual delay is chosen randomly
+   * between half of and the full backoff.
+   * @return Backoff (in ms)
+   */
+  default int getRetryBackoff() {
+    return RETRY_BACKOFF_DEFAULT;
+  }
+
+  /**
+   * Max. backoff before a retry.
+   * @return Max. backoff (in ms)
+   */
+  default int getRetryMaxBackoff() {
+    return RETRY_MAX_BACKOFF_DEFAULT;
+  }
+
+  /**
+   * Requests with a response of one of these status codes are retried.
+   * @return Retryable status codes
+   */
+  @NotNull
+  default Set<Integer> getRetryStatusCodes() {
+    return RETRY_STATUS_CODES_DEFAULT;
+  }
+
+  /**
+   * Requests failed with an exception of one of these classes or a subclass are retried.
+   * Calls rejected with {@link CallNotPermittedException} are never retried.
+   * @return Fully qualified class names of retryable exceptions
+   */
+  @NotNull
+  default Set<String> getRetryExceptions() {
+    return RETRY_EXCEPTIONS_DEFAULT;
+  }
+
+  /**
+   * Max. percentage of requests that are retried. Retries exceeding this budget are skipped, so retries do not
+   * multiply the load on an upstream that is already failing.
+   * @return Retry budget in percent of the requests
+   */
+  default int getRetryBudgetPercent() {
+    return RETRY_BUDGET_PERCENT_DEFAULT;
+  }
+
+  /**
+   * Content codings sent in the Accept-Encoding header. Responses with one of these codings are decompressed
+   * transparently while they are read. Supported are "gzip", "deflate" and "br" (Brotli, only if the
+   * <code>org.brotli:dec</code> library is available).
+   * <p>
+   * The async client applies this only to requests executed with a plain HTTP request that do not define an
+   * Accept-Encoding header on their own, as custom response consumers and callers negotiating the content coding
+   * themselves expect the content as sent by the server. The async client inflates gzip and deflate content while it
+   * is received, Brotli compressed responses are buffered as a whole before they are decompressed while the caller
+   * reads them.
+   * </p>
+   * <p>
+   * If empty, the async client does not accept compressed responses and the sync client keeps the gzip and deflate
+   * support built into Apache HttpClient.
+   * </p>
+   * @return Accepted content codings, or an empty list to keep the default behavior of the clients
+   */
+  @NotNull
+  default List<String> getAcceptEncodings() {
+    return ACCEPT_ENCODINGS_DEFAULT;
+  }
+
+  /**
+   * Coalesce identical GET and HEAD requests that are in flight at the same time into a single upstream request,
+   * whose response is passed to all callers. The response content is buffered in memory for this. Requests are
+   * identical if their URL and the values of the request coalescing headers are equal. Requests whose context
+   * carries own credentials, cookies or an auth cache are not coalesced.
+   * @return true if requests are coalesced
+   */
+  default boolean isRequestCoalescing() {
+    return REQUEST_COALESCING_DEFAULT;
+  }
+
+  /**
+   * Request headers that are part of the key of coalesced requests. Requests that differ in other headers
+   * receive the same response, so all headers affecting the response have to be listed.
+   * @return Header names
+   */
+  @NotNull
+  default List<String> getRequestCoalescingHeaders() {
+    return REQUEST_COALESCING_HEADERS_DEFAULT;
+  }
+
+  /**
+   * Max. content length of a response that is buffered and passed to the coalesced requests. If the response
+   * is larger or its length is unknown, the coalesced requests are executed on their own instead.
+   * @return Max. content length in bytes
+   */
+  default int getRequestCoalescingMaxContentLength() {
+    return REQUEST_COALESCING_MAX_CONTENT_LENGTH_DEFAULT;
+  }
+
   /**
    * Standard cookie specification for HttpClient.
    * @return Cookie spec
@@ -155,6 +664,18 @@ public interface HttpClientConfig {
    */
   boolean matchesHost(@Nullable String host);
 
+  /**
+   * Host name patterns (regular expressions) this configuration is restricted to. They are used by the factories
+   * to build an index for resolving the configuration of a target host without evaluating all configurations.
+   * If a list is returned, {@link #matchesHost(String)} must not match any host that is not matched by one of
+   * the patterns. An empty list means that the configuration is always evaluated via {@link #matchesHost(String)}.
+   * @return Host patterns
+   */
+  @NotNull
+  default List<String> getHostPatterns() {
+    return Collections.emptyList();
+  }
+
   /**
    * Check if this configuration should be applied for a given WS addressing to URI.
    * @param addressingToUri Web service address
@@ -241,4 +762,31 @@ public interface HttpClientConfig {
   @Nullable
   String getTrustStorePassword();
 
+  /**
+   * Interval in ms in which the key store and trust store files are checked for changes. Changed stores are
+   * reloaded and used for new TLS handshakes without rebuilding the HTTP client, existing connections are kept.
+   * Stores loaded from the classpath are not reloaded.
+   * @return Reload interval in ms, or 0 to disable reloading.
+   */
+  default int getStoreReloadInterval() {
+    return STORE_RELOAD_INTERVAL_DEFAULT;
+  }
+
+  /**
+   * Max. number of TLS sessions kept in the client session cache of the SSL context for resuming sessions
+   * without a full handshake.
+   * @return Session cache size, 0 = unlimited, or -1 to use the JVM default.
+   */
+  default int getSslSessionCacheSize() {
+    return SSL_SESSION_CACHE_SIZE_DEFAULT;
+  }
+
+  /**
+   * Timeout in seconds after which cached TLS sessions are no longer resumed.
+   * @return Session timeout in seconds, 0 = no timeout, or -1 to use the JVM default.
+   */
+  default int getSslSessionTimeout() {
+    return SSL_SESSION_TIMEOUT_DEFAULT;
+  }
+
 }
@@ -0,0 +1,301 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpclient.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.http.Header;
+import org.apache.http.HeaderIterator;
+import org.apache.http.HttpEntity;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.StatusLine;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.conn.ConnectionReleaseTrigger;
+import org.apache.http.conn.EofSensorInputStream;
+import org.apache.http.conn.EofSensorWatcher;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.apache.http.params.HttpParams;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Response of a request admitted by a concurrency limit. The release callback is invoked exactly once, as soon as
+ * the connection of the request is released: When the response entity is fully consumed, its content stream is
+ * closed or aborted, or the response is closed. For responses without entity it is invoked immediately.
+ */
+@SuppressWarnings("deprecation")
+class AdmittedHttpResponse implements CloseableHttpResponse {
+
+  private final CloseableHttpResponse delegate;
+  private final Runnable releaseCallback;
+  private final AtomicBoolean released = new AtomicBoolean();
+
+  AdmittedHttpResponse(@NotNull CloseableHttpResponse delegate, @NotNull Runnable releaseCallback) {
+    this.delegate = delegate;
+    this.releaseCallback = releaseCallback;
+    HttpEntity entity = delegate.getEntity();
+    if (entity == null) {
+      release();
+    }
+    else {
+      delegate.setEntity(new ReleasingEntity(entity));
+    }
+  }
+
+  /**
+   * Invokes the release callback, if not invoked yet.
+   */
+  void release() {
+    if (released.compareAndSet(false, true)) {
+      releaseCallback.run();
+    }
+  }
+
+  /**
+   * @return true if the release callback was invoked
+   */
+  boolean isReleased() {
+    return released.get();
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      delegate.close();
+    }
+    finally {
+      release();
+    }
+  }
+
+  @Override
+  public StatusLine getStatusLine() {
+    return delegate.getStatusLine();
+  }
+
+  @Override
+  public void setStatusLine(StatusLine statusline) {
+    delegate.setStatusLine(statusline);
+  }
+
+  @Override
+  public void setStatusLine(ProtocolVersion ver, int code) {
+    delegate.setStatusLine(ver, code);
+  }
+
+  @Override
+  public void setStatusLine(ProtocolVersion ver, int code, String reason) {
+    delegate.setStatusLine(ver, code, reason);
+  }
+
+  @Override
+  public void setStatusCode(int code) {
+    delegate.setStatusCode(code);
+  }
+
+  @Override
+  public void setReasonPhrase(String reason) {
+    delegate.setReasonPhrase(reason);
+  }
+
+  @Override
+  public HttpEntity getEntity() {
+    return delegate.getEntity();
+  }
+
+  @Override
+  public void setEntity(HttpEntity entity) {
+    delegate.setEntity(entity);
+  }
+
+  @Override
+  public Locale getLocale() {
+    return delegate.getLocale();
+  }
+
+  @Override
+  public void setLocale(Locale loc) {
+    delegate.setLocale(loc);
+  }
+
+  @Override
+  public ProtocolVersion getProtocolVersion() {
+    return delegate.getProtocolVersion();
+  }
+
+  @Override
+  public boolean containsHeader(String name) {
+    return delegate.containsHeader(name);
+  }
+
+  @Override
+  public Header[] getHeaders(String name) {
+    return delegate.getHeaders(name);
+  }
+
+  @Override
+  public Header getFirstHeader(String name) {
+    return delegate.getFirstHeader(name);
+  }
+
+  @Override
+  public Header getLastHeader(String name) {
+    return delegate.getLastHeader(name);
+  }
+
+  @Override
+  public Header[] getAllHeaders() {
+    return delegate.getAllHeaders();
+  }
+
+  @Override
+  public void addHeader(Header header) {
+    delegate.addHeader(header);
+  }
+
+  @Override
+  public void addHeader(String name, String value) {
+    delegate.addHeader(name, value);
+  }
+
+  @Override
+  public void setHeader(Header header) {
+    delegate.setHeader(header);
+  }
+
+  @Override
+  public void setHeader(String name, String value) {
+    delegate.setHeader(name, value);
+  }
+
+  @Override
+  public void setHeaders(Header[] headers) {
+    delegate.setHeaders(headers);
+  }
+
+  @Override
+  public void removeHeader(Header header) {
+    delegate.removeHeader(header);
+  }
+
+  @Override
+  public void removeHeaders(String name) {
+    delegate.removeHeaders(name);
+  }
+
+  @Override
+  public HeaderIterator headerIterator() {
+    return delegate.headerIterator();
+  }
+
+  @Override
+  public HeaderIterator headerIterator(String name) {
+    return delegate.headerIterator(name);
+  }
+
+  @Override
+  public HttpParams getParams() {
+    return delegate.getParams();
+  }
+
+  @Override
+  public void setParams(HttpParams params) {
+    delegate.setParams(params);
+  }
+
+  @Override
+  public String toString() {
+    return delegate.toString();
+  }
+
+
+  /**
+   * Invokes the release callback when the entity content is consumed, closed or aborted.
+   */
+  private final class ReleasingEntity extends HttpEntityWrapper implements EofSensorWatcher {
+
+    ReleasingEntity(HttpEntity wrappedEntity) {
+      super(wrappedEntity);
+    }
+
+    @Override
+    public InputStream getContent() throws IOException {
+      InputStream content = super.getContent();
+      return content != null ? new EofSensorInputStream(content, this) : null;
+    }
+
+    @Override
+    public void writeTo(OutputStream outStream) throws IOException {
+      try {
+        super.writeTo(outStream);
+      }
+      finally {
+        release();
+      }
+    }
+
+    @Override
+    public void consumeContent() throws IOException {
+      try {
+        super.consumeContent();
+      }
+      finally {
+        release();
+      }
+    }
+
+    @Override
+    public boolean eofDetected(InputStream wrapped) throws IOException {
+      try {
+        wrapped.close();
+      }
+      finally {
+        release();
+      }
+      return false;
+    }
+
+    @Override
+    public boolean streamClosed(InputStream wrapped) throws IOException {
+      return eofDetected(wrapped);
+    }
+
+    @Override
+    public boolean streamAbort(InputStream wrapped) throws IOException {
+      try {
+        if (wrapped instanceof ConnectionReleaseTrigger) {
+          ((ConnectionReleaseTrigger)wrapped).abortConnection();
+        }
+        else {
+          wrapped.close();
+        }
+      }
+      finally {
+        release();
+      }
+      return false;
+    }
+
+  }
+
+}
@@ -19,8 +19,12 @@
  */
 package io.wcm.caravan.commons.httpclient.impl;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
@@ -41,6 +45,7 @@ import org.slf4j.LoggerFactory;
 import io.wcm.caravan.commons.httpclient.HttpClientConfig;
 import io.wcm.caravan.commons.httpclient.impl.helpers.AbstractHttpClientConfig;
 import io.wcm.caravan.commons.httpclient.impl.helpers.CertificateLoader;
+import io.wcm.caravan.commons.httpclient.impl.helpers.PatternMatcher;
 
 /**
  * Default implementation of {@link HttpClientConfig}.
@@ -54,6 +59,12 @@ public class HttpClientConfigImpl extends AbstractHttpClientConfig {
       description = "Allows to configure special HTTP client settings for target hosts.")
   @interface Config {
 
+    /**
+     * Name
+     */
+    @AttributeDefinition(name = "Name", description = "Name of this configuration used for metrics. If not set, the host patterns are used.")
+    String name();
+
     /**
      * Host pattern
      */
@@ -102,6 +113,261 @@ public class HttpClientConfigImpl extends AbstractHttpClientConfig {
     @AttributeDefinition(name = "Max total", description = "Max total connections")
     int maxTotalConnections() default HttpClientConfig.MAX_TOTAL_CONNECTIONS_DEFAULT;
 
+    /**
+     * Connection time to live
+     */
+    @AttributeDefinition(name = "Connection time to live", description = "Max. time to live of pooled connections (ms). 0 = unlimited")
+    int connectionTimeToLive() default HttpClientConfig.CONNECTION_TIME_TO_LIVE_DEFAULT;
+
+    /**
+     * Idle connection eviction interval
+     */
+    @AttributeDefinition(name = "Idle connection eviction interval",
+        description = "Interval in which expired and idle connections are evicted from the pool (ms). 0 = disable eviction")
+    int idleConnectionEvictionInterval() default HttpClientConfig.IDLE_CONNECTION_EVICTION_INTERVAL_DEFAULT;
+
+    /**
+     * Max idle time
+     */
+    @AttributeDefinition(name = "Max idle time", description = "Max. time a connection may stay idle in the pool before it is evicted (ms). "
+        + "0 = evict only expired connections")
+    int maxIdleTime() default HttpClientConfig.MAX_IDLE_TIME_DEFAULT;
+
+    /**
+     * Validate after inactivity
+     */
+    @AttributeDefinition(name = "Validate after inactivity",
+        description = "Period of inactivity after which pooled connections are validated before reuse (ms). 0 = disable validation")
+    int validateAfterInactivity() default HttpClientConfig.VALIDATE_AFTER_INACTIVITY_DEFAULT;
+
+    /**
+     * Max concurrent requests
+     */
+    @AttributeDefinition(name = "Max concurrent requests",
+        description = "Sync client only: Max. number of requests executed concurrently. Further requests wait for a free slot "
+            + "up to the connection request timeout without blocking inside the connection pool, which keeps callers on virtual threads "
+            + "from pinning their carrier threads. Applies to all hosts together, capped by max. total connections. 0 = no admission limit")
+    int maxConcurrentRequests() default HttpClientConfig.MAX_CONCURRENT_REQUESTS_DEFAULT;
+
+    /**
+     * Adaptive concurrency limit
+     */
+    @AttributeDefinition(name = "Adaptive concurrency limit",
+        description = "Limits the requests in flight per route, adapting the limit to the observed latency and errors of the upstream. "
+            + "Requests exceeding the limit are rejected immediately instead of waiting for a pooled connection. "
+            + "The limit never exceeds max. connections per host.")
+    boolean adaptiveConcurrencyLimit() default HttpClientConfig.ADAPTIVE_CONCURRENCY_LIMIT_DEFAULT;
+
+    /**
+     * IO thread count
+     */
+    @AttributeDefinition(name = "IO thread count", description = "Async client only: Number of IO dispatcher threads of a dedicated IO reactor. "
+        + "If any IO reactor setting is set, a dedicated IO reactor is used instead of the shared ones. 0 = factory setting")
+    int ioThreadCount() default HttpClientConfig.IO_THREAD_COUNT_DEFAULT;
+
+    /**
+     * Send buffer size
+     */
+    @AttributeDefinition(name = "Send buffer size", description = "Async client only: Socket send buffer size (SO_SNDBUF) in bytes. 0 = factory setting")
+    int sndBufSize() default HttpClientConfig.SOCKET_BUFFER_SIZE_DEFAULT;
+
+    /**
+     * Receive buffer size
+     */
+    @AttributeDefinition(name = "Receive buffer size", description = "Async client only: Socket receive buffer size (SO_RCVBUF) in bytes. 0 = factory setting")
+    int rcvBufSize() default HttpClientConfig.SOCKET_BUFFER_SIZE_DEFAULT;
+
+    /**
+     * TCP_NODELAY
+     */
+    @AttributeDefinition(name = "TCP_NODELAY", description = "Async client only: Disable Nagle's algorithm.",
+        options = {
+            @Option(value = "", label = "Factory setting"),
+            @Option(value = "true", label = "Enabled"),
+            @Option(value = "false", label = "Disabled")
+        })
+    String tcpNoDelay() default "";
+
+    /**
+     * SO_LINGER
+     */
+    @AttributeDefinition(name = "SO_LINGER", description = "Async client only: Linger time on close (s). -1 = factory setting")
+    int soLinger() default HttpClientConfig.SO_LINGER_DEFAULT;
+
+    /**
+     * Backlog size
+     */
+    @AttributeDefinition(name = "Backlog size", description = "Async client only: Connect backlog size of the IO reactor. 0 = factory setting")
+    int backlogSize() default HttpClientConfig.BACKLOG_SIZE_DEFAULT;
+
+    /**
+     * Pipelining
+     */
+    @AttributeDefinition(name = "Pipelining",
+        description = "Async client only: Send requests of the pipelining client in a row on shared connections (HTTP/1.1 pipelining). "
+            + "Not applied if a proxy or HTTP credentials are configured. Redirects and cookies are not handled for pipelined requests. "
+            + "Not HTTP/2 multiplexing: responses are returned in order, so a slow response blocks all responses behind it on the same connection. "
+            + "Connections are closed when the pipeline is completed.")
+    boolean pipelining() default HttpClientConfig.PIPELINING_DEFAULT;
+
+    /**
+     * Max. pipelined requests
+     */
+    @AttributeDefinition(name = "Max. pipelined requests",
+        description = "Async client only: Max. number of requests sent in a row on a single connection if pipelining is enabled. "
+            + "Lower values limit the number of responses blocked behind a slow response. 0 = no limit")
+    int maxPipelinedRequests() default HttpClientConfig.MAX_PIPELINED_REQUESTS_DEFAULT;
+
+    /**
+     * Hedge delay
+     */
+    @AttributeDefinition(name = "Hedge delay",
+        description = "Async client only: Delay after which a backup request is sent for GET and HEAD requests not answered yet (ms). "
+            + "The response received first is used, the other request is cancelled. 0 = no hedging")
+    int hedgeDelay() default HttpClientConfig.HEDGE_DELAY_DEFAULT;
+
+    /**
+     * Hedge delay percentile
+     */
+    @AttributeDefinition(name = "Hedge delay percentile",
+        description = "Async client only: Derive the hedge delay from this percentile of the recent response latencies, e.g. 0.95. "
+            + "The fixed hedge delay is used until enough latencies are recorded. 0 = always use the fixed hedge delay")
+    double hedgeDelayPercentile() default HttpClientConfig.HEDGE_DELAY_PERCENTILE_DEFAULT;
+
+    /**
+     * Max. hedge percent
+     */
+    @AttributeDefinition(name = "Max. hedge percent",
+        description = "Async client only: Max. percentage of GET and HEAD requests for which a backup request is sent.")
+    int maxHedgePercent() default HttpClientConfig.MAX_HEDGE_PERCENT_DEFAULT;
+
+    /**
+     * Circuit breaker failure rate threshold
+     */
+    @AttributeDefinition(name = "Circuit breaker failure rate threshold",
+        description = "Open the circuit breaker if this percentage of the recent calls failed with an exception or 5xx status. "
+            + "While open, calls fail immediately. 0 = ignore failure rate")
+    int circuitBreakerFailureRateThreshold() default HttpClientConfig.CIRCUIT_BREAKER_FAILURE_RATE_THRESHOLD_DEFAULT;
+
+    /**
+     * Circuit breaker slow call rate threshold
+     */
+    @AttributeDefinition(name = "Circuit breaker slow call rate threshold",
+        description = "Open the circuit breaker if this percentage of the recent calls was slow. 0 = ignore slow call rate")
+    int circuitBreakerSlowCallRateThreshold() default HttpClientConfig.CIRCUIT_BREAKER_SLOW_CALL_RATE_THRESHOLD_DEFAULT;
+
+    /**
+     * Circuit breaker slow call duration
+     */
+    @AttributeDefinition(name = "Circuit breaker slow call duration",
+        description = "Calls taking longer than this duration are considered as slow by the circuit breaker (ms).")
+    int circuitBreakerSlowCallDuration() default HttpClientConfig.CIRCUIT_BREAKER_SLOW_CALL_DURATION_DEFAULT;
+
+    /**
+     * Circuit breaker window size
+     */
+    @AttributeDefinition(name = "Circuit breaker window size",
+        description = "Number of recent calls the failure rate and slow call rate of the circuit breaker are calculated from.")
+    int circuitBreakerWindowSize() default HttpClientConfig.CIRCUIT_BREAKER_WINDOW_SIZE_DEFAULT;
+
+    /**
+     * Circuit breaker open duration
+     */
+    @AttributeDefinition(name = "Circuit breaker open duration",
+        description = "Time the circuit breaker stays open before trial calls are permitted (ms).")
+    int circuitBreakerOpenDuration() default HttpClientConfig.CIRCUIT_BREAKER_OPEN_DURATION_DEFAULT;
+
+    /**
+     * Bulkhead max. concurrent calls
+     */
+    @AttributeDefinition(name = "Bulkhead max. concurrent calls",
+        description = "Max. number of concurrent calls, further calls fail immediately instead of waiting for a connection. 0 = no limit")
+    int bulkheadMaxConcurrentCalls() default HttpClientConfig.BULKHEAD_MAX_CONCURRENT_CALLS_DEFAULT;
+
+    /**
+     * Retry max. attempts
+     */
+    @AttributeDefinition(name = "Retry max. attempts",
+        description = "Max. number of attempts per request including the first one. Only idempotent requests are retried. "
+            + "0 = default retry behavior of the HTTP client")
+    int retryMaxAttempts() default HttpClientConfig.RETRY_MAX_ATTEMPTS_DEFAULT;
+
+    /**
+     * Retry backoff
+     */
+    @AttributeDefinition(name = "Retry backoff",
+        description = "Backoff before the first retry, doubled for each further retry and randomized by up to 50% (ms).")
+    int retryBackoff() default HttpClientConfig.RETRY_BACKOFF_DEFAULT;
+
+    /**
+     * Retry max. backoff
+     */
+    @AttributeDefinition(name = "Retry max. backoff", description = "Max. backoff before a retry (ms).")
+    int retryMaxBackoff() default HttpClientConfig.RETRY_MAX_BACKOFF_DEFAULT;
+
+    /**
+     * Retry status codes
+     */
+    @AttributeDefinition(name = "Retry status codes", description = "Response status codes that are retried.")
+    int[] retryStatusCodes() default {
+        502, 503, 504
+    };
+
+    /**
+     * Retry exceptions
+     */
+    @AttributeDefinition(name = "Retry exceptions",
+        description = "Fully qualified class names of exceptions that are retried, including their subclasses.")
+    String[] retryExceptions() default {
+        "java.net.ConnectException",
+        "org.apache.http.NoHttpResponseException",
+        "org.apache.http.conn.ConnectTimeoutException"
+    };
+
+    /**
+     * Retry budget percent
+     */
+    @AttributeDefinition(name = "Retry budget percent",
+        description = "Max. percentage of requests that are retried, further retries are skipped.")
+    int retryBudgetPercent() default HttpClientConfig.RETRY_BUDGET_PERCENT_DEFAULT;
+
+    /**
+     * Accept encodings
+     */
+    @AttributeDefinition(name = "Accept encodings",
+        description = "Content codings accepted for responses, which are decompressed transparently: gzip, deflate, br (Brotli, if available). "
+            + "The async client decompresses gzip and deflate while the response is received, "
+            + "Brotli compressed responses are buffered before. "
+            + "Leave empty to keep the default behavior: no compressed responses for the async client, "
+            + "built-in gzip and deflate support of the sync client.")
+    String[] acceptEncodings() default {};
+
+    /**
+     * Request coalescing
+     */
+    @AttributeDefinition(name = "Request coalescing",
+        description = "Coalesce identical GET and HEAD requests in flight at the same time into a single upstream request. "
+            + "The response content is buffered in memory and passed to all callers.")
+    boolean requestCoalescing() default HttpClientConfig.REQUEST_COALESCING_DEFAULT;
+
+    /**
+     * Request coalescing headers
+     */
+    @AttributeDefinition(name = "Request coalescing headers",
+        description = "Request headers that have to be equal besides the URL for requests to be coalesced. "
+            + "List all headers affecting the response.")
+    String[] requestCoalescingHeaders() default {
+        "Accept", "Accept-Encoding", "Accept-Language", "Authorization", "Cookie"
+    };
+
+    /**
+     * Request coalescing max. content length
+     */
+    @AttributeDefinition(name = "Request coalescing max. content length",
+        description = "Max. content length in bytes of a response that is buffered and passed to coalesced requests. "
+            + "If the response is larger or its length is unknown, the coalesced requests are executed on their own.")
+    int requestCoalescingMaxContentLength() default HttpClientConfig.REQUEST_COALESCING_MAX_CONTENT_LENGTH_DEFAULT;
+
     /**
      * Cookie Specs
      */
@@ -218,6 +484,28 @@ public class HttpClientConfigImpl extends AbstractHttpClientConfig {
     @AttributeDefinition(name = "TrustStore password", description = "TrustStore password")
     String trustStorePassword();
 
+    /**
+     * Store reload interval
+     */
+    @AttributeDefinition(name = "Store reload interval",
+        description = "Interval to check KeyStore and TrustStore files for changes (ms). Changed stores are used for new TLS handshakes "
+            + "without rebuilding the HTTP client. 0 = disable reloading")
+    int storeReloadInterval() default HttpClientConfig.STORE_RELOAD_INTERVAL_DEFAULT;
+
+    /**
+     * SSL session cache size
+     */
+    @AttributeDefinition(name = "SSL session cache size",
+        description = "Max. number of TLS sessions cached for resumption without full handshake. 0 = unlimited, -1 = JVM default")
+    int sslSessionCacheSize() default HttpClientConfig.SSL_SESSION_CACHE_SIZE_DEFAULT;
+
+    /**
+     * SSL session timeout
+     */
+    @AttributeDefinition(name = "SSL session timeout",
+        description = "Timeout after which cached TLS sessions are no longer resumed (seconds). 0 = no timeout, -1 = JVM default")
+    int sslSessionTimeout() default HttpClientConfig.SSL_SESSION_TIMEOUT_DEFAULT;
+
     /**
      * Enabled
      */
@@ -239,12 +527,46 @@ public class HttpClientConfigImpl extends AbstractHttpClientConfig {
 
 
   private boolean enabled;
+  private String name;
 
   private int connectionRequestTimeout;
   private int connectTimeout;
   private int socketTimeout;
   private int maxConnectionsPerHost;
   private int maxTotalConnections;
+  private int connectionTimeToLive;
+  private int idleConnectionEvictionInterval;
+  private int maxIdleTime;
+  private int validateAfterInactivity;
+  private int maxConcurrentRequests;
+  private boolean adaptiveConcurrencyLimit;
+  private int ioThreadCount;
+  private int sndBufSize;
+  private int rcvBufSize;
+  private Boolean tcpNoDelay;
+  private int soLinger;
+  private int backlogSize;
+  private boolean pipelining;
+  private int maxPipelinedRequests;
+  private int hedgeDelay;
+  private double hedgeDelayPercentile;
+  private int maxHedgePercent;
+  private int circuitBreakerFailureRateThreshold;
+  private int circuitBreakerSlowCallRateThreshold;
+  private int circuitBreakerSlowCallDuration;
+  private int circuitBreakerWindowSize;
+  private int circuitBreakerOpenDuration;
+  private int bulkheadMaxConcurrentCalls;
+  private int retryMaxAttempts;
+  private int retryBackoff;
+  private int retryMaxBackoff;
+  private Set<Integer> retryStatusCodes;
+  private Set<String> retryExceptions;
+  private int retryBudgetPercent;
+  private List<String> acceptEncodings;
+  private boolean requestCoalescing;
+  private List<String> requestCoalescingHeaders;
+  private int requestCoalescingMaxContentLength;
   private String cookieSpec;
   private String httpUser;
   private String httpPassword;
@@ -252,9 +574,10 @@ public class HttpClientConfigImpl extends AbstractHttpClientConfig {
   private int proxyPort;
   private String proxyUser;
   private String proxyPassword;
-  private Set<Pattern> hostPatterns;
+  private PatternMatcher hostMatcher;
+  private List<String> hostPatternStrings;
   private Set<String> wsAddressingToUris;
-  private Set<Pattern> pathPatterns;
+  private PatternMatcher pathMatcher;
 
   private String sslContextType;
   private String keyManagerType;
@@ -267,18 +590,51 @@ public class HttpClientConfigImpl extends AbstractHttpClientConfig {
   private String trustStoreProvider;
   private String trustStorePath;
   private String trustStorePassword;
+  private int storeReloadInterval;
+  private int sslSessionCacheSize;
+  private int sslSessionTimeout;
 
   private static final Logger log = LoggerFactory.getLogger(HttpClientConfigImpl.class);
 
   @Activate
   private void activate(Config config) {
     enabled = config.enabled();
+    name = config.name();
 
     connectionRequestTimeout = config.connectionRequestTimeout();
     connectTimeout = config.connectTimeout();
     socketTimeout = config.socketTimeout();
     maxConnectionsPerHost = config.maxConnectionsPerHost();
     maxTotalConnections = config.maxTotalConnections();
+    connectionTimeToLive = config.connectionTimeToLive();
+    idleConnectionEvictionInterval = config.idleConnectionEvictionInterval();
+    maxIdleTime = config.maxIdleTime();
+    validateAfterInactivity = config.validateAfterInactivity();
+    maxConcurrentRequests = config.maxConcurrentRequests();
+    adaptiveConcurrencyLimit = config.adaptiveConcurrencyLimit();
+    ioThreadCount = config.ioThreadCount();
+    sndBufSize = config.sndBufSize();
+    rcvBufSize = config.rcvBufSize();
+    tcpNoDelay = StringUtils.isNotBlank(config.tcpNoDelay()) ? Boolean.valueOf(config.tcpNoDelay().trim()) : null;
+    soLinger = config.soLinger();
+    backlogSize = config.backlogSize();
+    pipelining = config.pipelining();
+    maxPipelinedRequests = config.maxPipelinedRequests();
+    hedgeDelay = config.hedgeDelay();
+    hedgeDelayPercentile = config.hedgeDelayPercentile();
+    maxHedgePercent = config.maxHedgePercent();
+    circuitBreakerFailureRateThreshold = config.circuitBreakerFailureRateThreshold();
+    circuitBreakerSlowCallRateThreshold = config.circuitBreakerSlowCallRateThreshold();
+    circuitBreakerSlowCallDuration = config.circuitBreakerSlowCallDuration();
+    circuitBreakerWindowSize = config.circuitBreakerWindowSize();
+    circuitBreakerOpenDuration = config.circuitBreakerOpenDuration();
+    bulkheadMaxConcurrentCalls = config.bulkheadMaxConcurrentCalls();
+    retryMaxAttempts = config.retryMaxAttempts();
+    retryBackoff = config.retryBackoff();
+    retryMaxBackoff = config.retryMaxBackoff();
+    retryBudgetPercent = config.retryBudgetPercent();
+    requestCoalescing = config.requestCoalescing();
+    requestCoalescingMaxContentLength = config.requestCoalescingMaxContentLength();
     cookieSpec = config.cookieSpec();
     httpUser = config.httpUser();
     httpPassword = config.httpPassword();
@@ -287,12 +643,14 @@ public class HttpClientConfigImpl extends AbstractHttpClientConfig {
     proxyUser = config.proxyUser();
     proxyPassword = config.proxyPassword();
 
-    hostPatterns = new HashSet<>();
+    Set<Pattern> hostPatterns = new HashSet<>();
+    List<String> hostPatternStringList = new ArrayList<>();
     String[] hostPatternsArray = config.hostPatterns();
     for (String hostPatternString : hostPatternsArray) {
       if (StringUtils.isNotBlank(hostPatternString)) {
         try {
           hostPatterns.add(Pattern.compile(hostPatternString));
+          hostPatternStringList.add(hostPatternString);
         }
         catch (PatternSyntaxException ex) {
           log.warn("Invalid host name pattern '" + hostPatternString + "': " + ex.getMessage(), ex);
@@ -301,6 +659,9 @@ public class HttpClientConfigImpl extends AbstractHttpClientConfig {
       }
     }
 
+    hostMatcher = PatternMatcher.compile(hostPatterns);
+    hostPatternStrings = Collections.unmodifiableList(hostPatternStringList);
+
     wsAddressingToUris = new HashSet<>();
     String[] wsAddressingToUrisArray = config.wsAddressingToUris();
     for (String wsAddressingToUriString : wsAddressingToUrisArray) {
@@ -309,7 +670,7 @@ public class HttpClientConfigImpl extends AbstractHttpClientConfig {
       }
     }
 
-    pathPatterns = new HashSet<>();
+    Set<Pattern> pathPatterns = new HashSet<>();
     String[] pathPatternsArray = config.pathPatterns();
     for (String pathPatternString : pathPatternsArray) {
       if (StringUtils.isNotBlank(pathPatternString)) {
@@ -322,6 +683,37 @@ public class HttpClientConfigImpl extends AbstractHttpClientConfig {
         }
       }
     }
+    pathMatcher = PatternMatcher.compile(pathPatterns);
+
+    Set<Integer> retryStatusCodeSet = new TreeSet<>();
+    for (int retryStatusCode : config.retryStatusCodes()) {
+      retryStatusCodeSet.add(retryStatusCode);
+    }
+    retryStatusCodes = Collections.unmodifiableSet(retryStatusCodeSet);
+
+    Set<String> retryExceptionSet = new TreeSet<>();
+    for (String retryException : config.retryExceptions()) {
+      if (StringUtils.isNotBlank(retryException)) {
+        retryExceptionSet.add(retryException.trim());
+      }
+    }
+    retryExceptions = Collections.unmodifiableSet(retryExceptionSet);
+
+    List<String> acceptEncodingList = new ArrayList<>();
+    for (String acceptEncoding : config.acceptEncodings()) {
+      if (StringUtils.isNotBlank(acceptEncoding)) {
+        acceptEncodingList.add(acceptEncoding.trim());
+      }
+    }
+    acceptEncodings = Collections.unmodifiableList(acceptEncodingList);
+
+    List<String> requestCoalescingHeaderList = new ArrayList<>();
+    for (String requestCoalescingHeader : config.requestCoalescingHeaders()) {
+      if (StringUtils.isNotBlank(requestCoalescingHeader)) {
+        requestCoalescingHeaderList.add(requestCoalescingHeader.trim());
+      }
+    }
+    requestCoalescingHeaders = Collections.unmodifiableList(requestCoalescingHeaderList);
 
     sslContextType = config.sslContextType();
     keyManagerType = config.keyManagerType();
@@ -334,6 +726,9 @@ public class HttpClientConfigImpl extends AbstractHttpClientConfig {
     trustStoreProvider = config.trustStoreProvider();
     trustStorePath = config.trustStorePath();
     trustStorePassword = config.trustStorePassword();
+    storeReloadInterval = config.storeReloadInterval();
+    sslSessionCacheSize = config.sslSessionCacheSize();
+    sslSessionTimeout = config.sslSessionTimeout();
   }
 
   @Override
@@ -341,6 +736,11 @@ public class HttpClientConfigImpl extends AbstractHttpClientConfig {
     return this.enabled;
   }
 
+  @Override
+  public @Nullable String getName() {
+    return StringUtils.defaultIfBlank(name, null);
+  }
+
   @Override
   public int getConnectionRequestTimeout() {
     return connectionRequestTimeout;
@@ -366,6 +766,171 @@ public class HttpClientConfigImpl extends AbstractHttpClientConfig {
     return maxTotalConnections;
   }
 
+  @Override
+  public int getConnectionTimeToLive() {
+    return connectionTimeToLive;
+  }
+
+  @Override
+  public int getIdleConnectionEvictionInterval() {
+    return idleConnectionEvictionInterval;
+  }
+
+  @Override
+  public int getMaxIdleTime() {
+    return maxIdleTime;
+  }
+
+  @Override
+  public int getValidateAfterInactivity() {
+    return validateAfterInactivity;
+  }
+
+  @Override
+  public int getMaxConcurrentRequests() {
+    return maxConcurrentRequests;
+  }
+
+  @Override
+  public boolean isAdaptiveConcurrencyLimit() {
+    return adaptiveConcurrencyLimit;
+  }
+
+  @Override
+  public int getIoThreadCount() {
+    return ioThreadCount;
+  }
+
+  @Override
+  public int getSndBufSize() {
+    return sndBufSize;
+  }
+
+  @Override
+  public int getRcvBufSize() {
+    return rcvBufSize;
+  }
+
+  @Override
+  public @Nullable Boolean getTcpNoDelay() {
+    return tcpNoDelay;
+  }
+
+  @Override
+  public int getSoLinger() {
+    return soLinger;
+  }
+
+  @Override
+  public int getBacklogSize() {
+    return backlogSize;
+  }
+
+  @Override
+  public boolean isPipelining() {
+    return pipelining;
+  }
+
+  @Override
+  public int getMaxPipelinedRequests() {
+    return maxPipelinedRequests;
+  }
+
+  @Override
+  public int getHedgeDelay() {
+    return hedgeDelay;
+  }
+
+  @Override
+  public double getHedgeDelayPercentile() {
+    return hedgeDelayPercentile;
+  }
+
+  @Override
+  public int getMaxHedgePercent() {
+    return maxHedgePercent;
+  }
+
+  @Override
+  public int getCircuitBreakerFailureRateThreshold() {
+    return circuitBreakerFailureRateThreshold;
+  }
+
+  @Override
+  public int getCircuitBreakerSlowCallRateThreshold() {
+    return circuitBreakerSlowCallRateThreshold;
+  }
+
+  @Override
+  public int getCircuitBreakerSlowCallDuration() {
+    return circuitBreakerSlowCallDuration;
+  }
+
+  @Override
+  public int getCircuitBreakerWindowSize() {
+    return circuitBreakerWindowSize;
+  }
+
+  @Override
+  public int getCircuitBreakerOpenDuration() {
+    return circuitBreakerOpenDuration;
+  }
+
+  @Override
+  public int getBulkheadMaxConcurrentCalls() {
+    return bulkheadMaxConcurrentCalls;
+  }
+
+  @Override
+  public int getRetryMaxAttempts() {
+    return retryMaxAttempts;
+  }
+
+  @Override
+  public int getRetryBackoff() {
+    return retryBackoff;
+  }
+
+  @Override
+  public int getRetryMaxBackoff() {
+    return retryMaxBackoff;
+  }
+
+  @Override
+  public @NotNull Set<Integer> getRetryStatusCodes() {
+    return retryStatusCodes;
+  }
+
+  @Override
+  public @NotNull Set<String> getRetryExceptions() {
+    return retryExceptions;
+  }
+
+  @Override
+  public int getRetryBudgetPercent() {
+    return retryBudgetPercent;
+  }
+
+  @Override
+  public @NotNull List<String> getAcceptEncodings() {
+    return acceptEncodings;
+  }
+
+  @Override
+  public boolean isRequestCoalescing() {
+    return requestCoalescing;
+  }
+
+  @Override
+  public @NotNull List<String> getRequestCoalescingHeaders() {
+    return requestCoalescingHeaders;
+  }
+
+  @Override
+  public int getRequestCoalescingMaxContentLength() {
+    return requestCoalescingMaxContentLength;
+  }
+
   @Override
   public @NotNull String getCookieSpec() {
     return cookieSpec;
@@ -403,18 +968,18 @@ public class HttpClientConfigImpl extends AbstractHttpClientConfig {
 
   @Override
   public boolean matchesHost(@Nullable String host) {
-    if (hostPatterns.isEmpty()) {
+    if (hostMatcher.isEmpty()) {
       return true;
     }
     if (StringUtils.isEmpty(host)) {
       return false;
     }
-    for (Pattern hostPattern : hostPatterns) {
-      if (hostPattern.matcher(host).matches()) {
-        return true;
-      }
-    }
-    return false;
+    return hostMatcher.matches(host);
+  }
+
+  @Override
+  public @NotNull List<String> getHostPatterns() {
+    return hostPatternStrings;
   }
 
   @Override
@@ -430,18 +995,13 @@ public class HttpClientConfigImpl extends AbstractHttpClientConfig {
 
   @Override
   public boolean matchesPath(@Nullable String path) {
-    if (pathPatterns.isEmpty()) {
+    if (pathMatcher.isEmpty()) {
       return true;
     }
     if (StringUtils.isEmpty(path)) {
       return false;
     }
-    for (Pattern pathPattern : pathPatterns) {
-      if (pathPattern.matcher(path).matches()) {
-        return true;
-      }
-    }
-    return false;
+    return pathMatcher.matches(path);
   }
 
   @Override
@@ -499,4 +1059,19 @@ public class HttpClientConfigImpl extends AbstractHttpClientConfig {
     return trustStorePassword;
   }
 
+  @Override
+  public int getStoreReloadInterval() {
+    return storeReloadInterval;
+  }
+
+  @Override
+  public int getSslSessionCacheSize() {
+    return sslSessionCacheSize;
+  }
+
+  @Override
+  public int getSslSessionTimeout() {
+    return sslSessionTimeout;
+  }
+
 }
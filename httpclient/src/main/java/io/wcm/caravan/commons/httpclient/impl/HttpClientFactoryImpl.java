@@ -21,6 +21,7 @@ package io.wcm.caravan.commons.httpclient.impl;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentSkipListMap;
@@ -33,16 +34,24 @@ import org.apache.sling.commons.osgi.Order;
 import org.apache.sling.commons.osgi.ServiceUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.osgi.framework.Constants;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.osgi.service.component.annotations.ReferencePolicy;
+import org.osgi.service.component.annotations.ReferencePolicyOption;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.health.HealthCheckRegistry;
 
 import io.wcm.caravan.commons.httpclient.HttpClientConfig;
 import io.wcm.caravan.commons.httpclient.HttpClientFactory;
 import io.wcm.caravan.commons.httpclient.impl.helpers.DefaultHttpClientConfig;
+import io.wcm.caravan.commons.httpclient.impl.helpers.RouteCache;
+import io.wcm.caravan.commons.httpclient.impl.helpers.RouteIndex;
+import io.wcm.caravan.commons.httpclient.impl.helpers.TargetUrlParser;
 
 /**
  * Default implementation of {@link HttpClientFactory}.
@@ -50,41 +59,182 @@ import io.wcm.caravan.commons.httpclient.impl.helpers.DefaultHttpClientConfig;
 @Component(service = HttpClientFactory.class, immediate = true, reference = {
     @Reference(name = "httpClientConfig", service = HttpClientConfig.class,
         cardinality = ReferenceCardinality.MULTIPLE, policy = ReferencePolicy.DYNAMIC,
-        bind = "bindHttpClientConfig", unbind = "unbindHttpClientConfig")
+        bind = "bindHttpClientConfig", unbind = "unbindHttpClientConfig"),
+    @Reference(name = "metricRegistry", service = MetricRegistry.class,
+        cardinality = ReferenceCardinality.OPTIONAL, policy = ReferencePolicy.DYNAMIC, policyOption = ReferencePolicyOption.GREEDY,
+        bind = "bindMetricRegistry", unbind = "unbindMetricRegistry"),
+    @Reference(name = "healthCheckRegistry", service = HealthCheckRegistry.class,
+        cardinality = ReferenceCardinality.OPTIONAL, policy = ReferencePolicy.DYNAMIC, policyOption = ReferencePolicyOption.GREEDY,
+        bind = "bindHealthCheckRegistry", unbind = "unbindHealthCheckRegistry")
 })
 public class HttpClientFactoryImpl implements HttpClientFactory {
 
+  static final String ROUTE_CACHE_METRICS_PREFIX = "httpclient.routecache";
+
   private final ConcurrentMap<Comparable<Object>, HttpClientItem> factoryItems = new ConcurrentSkipListMap<>();
+  private final Object factoryItemsLock = new Object();
+  private final RouteCache<HttpClientItem> routeCache = new RouteCache<>(buildRouteIndex());
+  // items of unbound configurations that are draining, by service PID - guarded by factoryItemsLock
+  private final Map<String, HttpClientItem> drainingItems = new HashMap<>();
 
   private HttpClientItem defaultFactoryItem;
+  private MetricRegistry metricRegistry;
+  private HealthCheckRegistry healthCheckRegistry;
 
   @Activate
   private void activate() {
-    defaultFactoryItem = new HttpClientItem(DefaultHttpClientConfig.INSTANCE);
+    HttpClientItem item = new HttpClientItem(DefaultHttpClientConfig.INSTANCE);
+    synchronized (factoryItemsLock) {
+      defaultFactoryItem = item;
+      if (metricRegistry != null) {
+        item.registerMetrics(metricRegistry);
+      }
+      if (healthCheckRegistry != null) {
+        item.registerHealthChecks(healthCheckRegistry);
+      }
+    }
   }
 
   @Deactivate
   private void deactivate() {
-    for (HttpClientItem item : factoryItems.values()) {
-      item.close();
+    synchronized (factoryItemsLock) {
+      for (HttpClientItem item : factoryItems.values()) {
+        item.close();
+      }
+      factoryItems.clear();
+      for (HttpClientItem item : drainingItems.values()) {
+        item.close();
+      }
+      drainingItems.clear();
+      routeCache.update(buildRouteIndex());
     }
-    factoryItems.clear();
     defaultFactoryItem.close();
     defaultFactoryItem = null;
   }
 
   protected void bindHttpClientConfig(HttpClientConfig httpClientConfig, Map<String, Object> config) {
-    factoryItems.put(ServiceUtil.getComparableForServiceRanking(config, Order.ASCENDING), new HttpClientItem(httpClientConfig));
+    // a modified configuration is unbound and bound again with the same service PID - keep its warm connection pool if possible
+    HttpClientItem item = takeDrainingItem(config);
+    if (item == null || !item.reconfigure(httpClientConfig)) {
+      item = new HttpClientItem(httpClientConfig);
+    }
+    synchronized (factoryItemsLock) {
+      factoryItems.put(ServiceUtil.getComparableForServiceRanking(config, Order.ASCENDING), item);
+      routeCache.update(buildRouteIndex());
+      if (metricRegistry != null) {
+        item.registerMetrics(metricRegistry);
+      }
+      if (healthCheckRegistry != null) {
+        item.registerHealthChecks(healthCheckRegistry);
+      }
+    }
   }
 
   @SuppressWarnings("unused")
   protected void unbindHttpClientConfig(HttpClientConfig httpClientConfig, Map<String, Object> config) {
-    HttpClientItem removed = factoryItems.remove(ServiceUtil.getComparableForServiceRanking(config, Order.ASCENDING));
+    String servicePid = getServicePid(config);
+    HttpClientItem removed;
+    synchronized (factoryItemsLock) {
+      removed = factoryItems.remove(ServiceUtil.getComparableForServiceRanking(config, Order.ASCENDING));
+      routeCache.update(buildRouteIndex());
+      if (removed != null && servicePid != null) {
+        HttpClientItem previous = drainingItems.put(servicePid, removed);
+        if (previous != null) {
+          previous.close();
+        }
+      }
+    }
     if (removed != null) {
-      removed.close();
+      // requests may still be running with the client of the removed item
+      removed.closeGracefully(() -> {
+        if (servicePid != null) {
+          synchronized (factoryItemsLock) {
+            drainingItems.remove(servicePid, removed);
+          }
+        }
+      });
+    }
+  }
+
+  private @Nullable HttpClientItem takeDrainingItem(Map<String, Object> config) {
+    String servicePid = getServicePid(config);
+    if (servicePid == null) {
+      return null;
+    }
+    synchronized (factoryItemsLock) {
+      return drainingItems.remove(servicePid);
+    }
+  }
+
+  private static @Nullable String getServicePid(Map<String, Object> config) {
+    Object servicePid = config.get(Constants.SERVICE_PID);
+    return servicePid instanceof String ? (String)servicePid : null;
+  }
+
+  protected void bindMetricRegistry(MetricRegistry registry) {
+    synchronized (factoryItemsLock) {
+      metricRegistry = registry;
+      routeCache.registerMetrics(registry, ROUTE_CACHE_METRICS_PREFIX);
+      for (HttpClientItem item : factoryItems.values()) {
+        item.registerMetrics(registry);
+      }
+      if (defaultFactoryItem != null) {
+        defaultFactoryItem.registerMetrics(registry);
+      }
+    }
+  }
+
+  protected void unbindMetricRegistry(MetricRegistry registry) {
+    synchronized (factoryItemsLock) {
+      if (metricRegistry != registry) {
+        return;
+      }
+      metricRegistry = null;
+      routeCache.unregisterMetrics();
+      for (HttpClientItem item : factoryItems.values()) {
+        item.unregisterMetrics();
+      }
+      if (defaultFactoryItem != null) {
+        defaultFactoryItem.unregisterMetrics();
+      }
+    }
+  }
+
+  protected void bindHealthCheckRegistry(HealthCheckRegistry registry) {
+    synchronized (factoryItemsLock) {
+      healthCheckRegistry = registry;
+      for (HttpClientItem item : factoryItems.values()) {
+        item.registerHealthChecks(registry);
+      }
+      if (defaultFactoryItem != null) {
+        defaultFactoryItem.registerHealthChecks(registry);
+      }
+    }
+  }
+
+  protected void unbindHealthCheckRegistry(HealthCheckRegistry registry) {
+    synchronized (factoryItemsLock) {
+      if (healthCheckRegistry != registry) {
+        return;
+      }
+      healthCheckRegistry = null;
+      for (HttpClientItem item : factoryItems.values()) {
+        item.unregisterHealthChecks();
+      }
+      if (defaultFactoryItem != null) {
+        defaultFactoryItem.unregisterHealthChecks();
+      }
     }
   }
 
+  /**
+   * Builds route index from the current factory items, keeping the service ranking order.
+   * Updating the route cache with the new index invalidates all cached route decisions.
+   */
+  private @NotNull RouteIndex<HttpClientItem> buildRouteIndex() {
+    return RouteIndex.build(factoryItems.values(), HttpClientItem::getConfig, HttpClientItem::matches);
+  }
+
   @Override
   public @NotNull CloseableHttpClient get(@Nullable String targetUrl) {
     return getCloseable(targetUrl);
@@ -92,9 +242,7 @@ public class HttpClientFactoryImpl implements HttpClientFactory {
 
   @Override
   public @NotNull CloseableHttpClient getCloseable(@Nullable String targetUrl) {
-    final URI uri = toUri(targetUrl);
-    final String path = uri != null ? uri.getPath() : null;
-    return getFactoryItem(uri, null, path, false).getHttpClient();
+    return getFactoryItem(targetUrl, null, false).getHttpClient();
   }
 
   @Override
@@ -115,9 +263,7 @@ public class HttpClientFactoryImpl implements HttpClientFactory {
 
   @Override
   public @NotNull CloseableHttpClient getCloseableWs(@Nullable String targetUrl, @Nullable String wsAddressingToUri) {
-    final URI uri = toUri(targetUrl);
-    final String path = uri != null ? uri.getPath() : null;
-    return getFactoryItem(uri, wsAddressingToUri, path, true).getHttpClient();
+    return getFactoryItem(targetUrl, wsAddressingToUri, true).getHttpClient();
   }
 
   @Override
@@ -134,8 +280,7 @@ public class HttpClientFactoryImpl implements HttpClientFactory {
 
   @Override
   public @NotNull RequestConfig getDefaultRequestConfig(@Nullable String targetUrl) {
-    final URI uri = toUri(targetUrl);
-    return getDefaultRequestConfig(uri);
+    return getFactoryItem(targetUrl, null, false).getDefaultRequestConfig();
   }
 
   @Override
@@ -144,12 +289,37 @@ public class HttpClientFactoryImpl implements HttpClientFactory {
     return getFactoryItem(targetUrl, null, path, false).getDefaultRequestConfig();
   }
 
+  /**
+   * @return Route decision cache
+   */
+  @NotNull
+  RouteCache<HttpClientItem> getRouteCache() {
+    return routeCache;
+  }
+
+  /**
+   * Resolves factory item for target URL string. Plain URLs are parsed without building a {@link URI},
+   * for all others {@link URI} is used as before.
+   */
+  private @NotNull HttpClientItem getFactoryItem(@Nullable String targetUrl, @Nullable String wsAddressingToUri, boolean isWsCall) {
+    long urlParts = TargetUrlParser.parse(targetUrl);
+    if (urlParts == TargetUrlParser.NOT_PARSED) {
+      final URI uri = toUri(targetUrl);
+      final String path = uri != null ? uri.getPath() : null;
+      return getFactoryItem(uri, wsAddressingToUri, path, isWsCall);
+    }
+    HttpClientItem item = routeCache.resolve(targetUrl, urlParts, wsAddressingToUri, isWsCall);
+    if (item != null) {
+      return item;
+    }
+    return defaultFactoryItem;
+  }
+
   private @NotNull HttpClientItem getFactoryItem(@Nullable URI targetUrl, @Nullable String wsAddressingToUri, @Nullable String path, boolean isWsCall) {
-    for (HttpClientItem item : factoryItems.values()) {
-      String host = targetUrl != null ? targetUrl.getHost() : null;
-      if (item.matches(host, wsAddressingToUri, path, isWsCall)) {
-        return item;
-      }
+    String host = targetUrl != null ? targetUrl.getHost() : null;
+    HttpClientItem item = routeCache.resolve(host, wsAddressingToUri, path, isWsCall);
+    if (item != null) {
+      return item;
     }
     return defaultFactoryItem;
   }
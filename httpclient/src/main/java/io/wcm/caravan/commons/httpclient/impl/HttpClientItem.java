@@ -21,6 +21,7 @@ package io.wcm.caravan.commons.httpclient.impl;
 
 import java.io.IOException;
 import java.security.GeneralSecurityException;
+import java.util.concurrent.TimeUnit;
 
 import javax.net.ssl.SSLContext;
 
@@ -34,7 +35,6 @@ import org.apache.http.config.Registry;
 import org.apache.http.config.RegistryBuilder;
 import org.apache.http.conn.socket.ConnectionSocketFactory;
 import org.apache.http.conn.socket.PlainConnectionSocketFactory;
-import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
@@ -45,17 +45,52 @@ import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.health.HealthCheckRegistry;
+
 import io.wcm.caravan.commons.httpclient.HttpClientConfig;
-import io.wcm.caravan.commons.httpclient.impl.helpers.CertificateLoader;
+import io.wcm.caravan.commons.httpclient.impl.helpers.AdaptiveConcurrencyLimiter;
+import io.wcm.caravan.commons.httpclient.impl.helpers.AdmissionLimiter;
+import io.wcm.caravan.commons.httpclient.impl.helpers.Bulkhead;
+import io.wcm.caravan.commons.httpclient.impl.helpers.CircuitBreaker;
+import io.wcm.caravan.commons.httpclient.impl.helpers.ConnectionPoolMetrics;
+import io.wcm.caravan.commons.httpclient.impl.helpers.ContentDecoding;
+import io.wcm.caravan.commons.httpclient.impl.helpers.HttpClientConfigChange;
+import io.wcm.caravan.commons.httpclient.impl.helpers.IdleConnectionEvictor;
+import io.wcm.caravan.commons.httpclient.impl.helpers.RequestCoalescer;
+import io.wcm.caravan.commons.httpclient.impl.helpers.RetryPolicy;
+import io.wcm.caravan.commons.httpclient.impl.helpers.SslContextCache;
+import io.wcm.caravan.commons.httpclient.impl.helpers.StoreReloader;
+import io.wcm.caravan.commons.httpclient.impl.helpers.TlsHandshakeMetrics;
 
 /**
  * Item for {@link HttpClientFactoryImpl} for each {@link HttpClientConfig} configured.
+ * <p>
+ * The HTTP client with its SSL context and connection pool is built lazily on first use, so configurations
+ * that are never matched do not load key stores or allocate a connection pool.
+ * </p>
  */
 class HttpClientItem {
 
-  private final HttpClientConfig config;
-  private final CloseableHttpClient httpClient;
-  private final RequestConfig defaultRequestConfig;
+  private volatile HttpClientConfig config;
+  private volatile RequestConfig defaultRequestConfig;
+  private volatile PooledClient client;
+  private MetricRegistry metricRegistry;
+  private HealthCheckRegistry healthCheckRegistry;
+  private IdleConnectionEvictor.Registration drainRegistration;
+  private boolean closed;
+
+  static final String METRICS_PREFIX = "httpclient.pool";
+
+  /**
+   * Interval in which a draining connection pool is checked for connections still in use.
+   */
+  static final long DRAIN_CHECK_INTERVAL_MS = 200;
+
+  /**
+   * Max. time to wait for leased connections to be released before a draining client is closed.
+   */
+  static final long DRAIN_TIMEOUT_MS = 60000;
 
   private static final Logger log = LoggerFactory.getLogger(HttpClientItem.class);
 
@@ -64,39 +99,34 @@ class HttpClientItem {
    */
   HttpClientItem(@NotNull HttpClientConfig config) {
     this.config = config;
+    this.defaultRequestConfig = buildDefaultRequestConfig(config);
+  }
 
-    // optional SSL client certificate support
-    SSLContext sslContext;
-    if (CertificateLoader.isSslKeyManagerEnabled(config) || CertificateLoader.isSslTrustStoreEnbaled(config)) {
-      try {
-        sslContext = CertificateLoader.buildSSLContext(config);
-      }
-      catch (IOException | GeneralSecurityException ex) {
-        throw new IllegalArgumentException("Invalid SSL client certificate configuration.", ex);
+  /**
+   * Gets the HTTP client, building it on first access.
+   * @return HTTP client with connection pool
+   */
+  private @NotNull PooledClient getClient() {
+    PooledClient result = client;
+    if (result == null) {
+      synchronized (this) {
+        result = client;
+        if (result == null) {
+          if (closed) {
+            throw new IllegalStateException("HTTP client is already closed: " + config);
+          }
+          result = new PooledClient(config, defaultRequestConfig);
+          if (metricRegistry != null) {
+            result.connectionPoolMetrics.register(metricRegistry);
+          }
+          if (healthCheckRegistry != null) {
+            result.registerHealthChecks(healthCheckRegistry, config);
+          }
+          client = result;
+        }
       }
     }
-    else {
-      sslContext = CertificateLoader.createDefaultSSlContext();
-    }
-
-    CredentialsProvider credentialsProvider = new BasicCredentialsProvider();
-    // optional proxy authentication
-    if (StringUtils.isNotEmpty(config.getProxyUser())) {
-      credentialsProvider.setCredentials(new AuthScope(config.getProxyHost(), config.getProxyPort()),
-          new UsernamePasswordCredentials(config.getProxyUser(), config.getProxyPassword()));
-    }
-    // optional http basic authentication support
-    if (StringUtils.isNotEmpty(config.getHttpUser())) {
-      credentialsProvider.setCredentials(AuthScope.ANY,
-          new UsernamePasswordCredentials(config.getHttpUser(), config.getHttpPassword()));
-    }
-
-    // build request config
-    defaultRequestConfig = buildDefaultRequestConfig(config);
-
-    // build http clients
-    PoolingHttpClientConnectionManager connectionManager = buildConnectionManager(config, sslContext);
-    httpClient = buildHttpClient(config, connectionManager, credentialsProvider, defaultRequestConfig);
+    return result;
   }
 
   private static @NotNull RequestConfig buildDefaultRequestConfig(@NotNull HttpClientConfig config) {
@@ -110,24 +140,40 @@ class HttpClientItem {
   }
 
   private static @NotNull PoolingHttpClientConnectionManager buildConnectionManager(@NotNull HttpClientConfig config,
-      @NotNull SSLContext sslContext) {
+      @NotNull SSLContext sslContext, @NotNull TlsHandshakeMetrics handshakeMetrics) {
     // scheme configuration
-    ConnectionSocketFactory sslSocketFactory = new SSLConnectionSocketFactory(sslContext);
+    ConnectionSocketFactory sslSocketFactory = new MeteredSSLConnectionSocketFactory(sslContext, handshakeMetrics);
     Registry<ConnectionSocketFactory> schemeRegistry = RegistryBuilder.<ConnectionSocketFactory>create()
         .register("http", PlainConnectionSocketFactory.getSocketFactory())
         .register("https", sslSocketFactory)
         .build();
 
     // pooling settings
-    PoolingHttpClientConnectionManager conmgr = new PoolingHttpClientConnectionManager(schemeRegistry);
+    PoolingHttpClientConnectionManager conmgr = new PoolingHttpClientConnectionManager(schemeRegistry, null, null, null,
+        config.getConnectionTimeToLive(), TimeUnit.MILLISECONDS);
     conmgr.setMaxTotal(config.getMaxTotalConnections());
     conmgr.setDefaultMaxPerRoute(config.getMaxConnectionsPerHost());
+    conmgr.setValidateAfterInactivity(config.getValidateAfterInactivity());
     return conmgr;
   }
 
+  private static @Nullable IdleConnectionEvictor.Registration registerEvictor(@NotNull HttpClientConfig config,
+      @NotNull PoolingHttpClientConnectionManager connectionManager) {
+    if (config.getIdleConnectionEvictionInterval() <= 0) {
+      return null;
+    }
+    int maxIdleTime = config.getMaxIdleTime();
+    return IdleConnectionEvictor.getInstance().register(() -> {
+      connectionManager.closeExpiredConnections();
+      if (maxIdleTime > 0) {
+        connectionManager.closeIdleConnections(maxIdleTime, TimeUnit.MILLISECONDS);
+      }
+    }, config.getIdleConnectionEvictionInterval());
+  }
+
   private static @NotNull CloseableHttpClient buildHttpClient(@NotNull HttpClientConfig config,
       @NotNull PoolingHttpClientConnectionManager connectionManager, @NotNull CredentialsProvider credentialsProvider,
-      @NotNull RequestConfig defaultRequestConfig) {
+      @NotNull RequestConfig defaultRequestConfig, @Nullable ContentDecoding contentDecoding) {
 
     // prepare HTTPClient builder
     HttpClientBuilder httpClientBuilder = HttpClientBuilder.create()
@@ -137,6 +183,16 @@ class HttpClientItem {
 
     httpClientBuilder.setDefaultCredentialsProvider(credentialsProvider);
 
+    // accepted content codings and their decoders, otherwise the built-in gzip and deflate support is kept
+    if (contentDecoding != null) {
+      httpClientBuilder.setContentDecoderRegistry(contentDecoding.getDecoders());
+    }
+
+    // retries are handled by the retry policy of the reconfigurable client
+    if (RetryPolicy.isEnabled(config)) {
+      httpClientBuilder.disableAutomaticRetries();
+    }
+
     // optional proxy support
     if (StringUtils.isNotEmpty(config.getProxyHost())) {
       httpClientBuilder.setProxy(new HttpHost(config.getProxyHost(), config.getProxyPort()));
@@ -150,11 +206,18 @@ class HttpClientItem {
     return httpClientBuilder.build();
   }
 
+  /**
+   * @return Http client configuration
+   */
+  public @NotNull HttpClientConfig getConfig() {
+    return config;
+  }
+
   /**
    * @return Http client instance (synchronous)
    */
   public @NotNull CloseableHttpClient getHttpClient() {
-    return httpClient;
+    return getClient().httpClient;
   }
 
   /**
@@ -164,6 +227,13 @@ class HttpClientItem {
     return defaultRequestConfig;
   }
 
+  /**
+   * @return true if the HTTP client was already built
+   */
+  public boolean isInitialized() {
+    return client != null;
+  }
+
   /**
    * @param hostName Host name
    * @param wsAddressingToURI WS addressing "to" URI
@@ -185,15 +255,188 @@ class HttpClientItem {
     }
   }
 
+  /**
+   * Registers gauges of the connection pool. If the HTTP client is not built yet, the gauges are registered
+   * when it is built.
+   * @param registry Metric registry
+   */
+  public synchronized void registerMetrics(@NotNull MetricRegistry registry) {
+    metricRegistry = registry;
+    if (client != null) {
+      client.connectionPoolMetrics.register(registry);
+    }
+  }
+
+  /**
+   * Removes gauges of the connection pool.
+   */
+  public synchronized void unregisterMetrics() {
+    metricRegistry = null;
+    if (client != null) {
+      client.connectionPoolMetrics.unregister();
+    }
+  }
+
+  /**
+   * Registers the health check of the circuit breaker, if a circuit breaker is configured. If the HTTP client is
+   * not built yet, the health check is registered when it is built.
+   * @param registry Health check registry
+   */
+  public synchronized void registerHealthChecks(@NotNull HealthCheckRegistry registry) {
+    healthCheckRegistry = registry;
+    if (client != null) {
+      client.registerHealthChecks(registry, config);
+    }
+  }
+
+  /**
+   * Removes the health check of the circuit breaker.
+   */
+  public synchronized void unregisterHealthChecks() {
+    healthCheckRegistry = null;
+    if (client != null) {
+      client.unregisterHealthChecks();
+    }
+  }
+
+  /**
+   * Applies a changed configuration to the existing HTTP client without dropping pooled connections,
+   * if only settings are changed that can be applied in place. If the client is currently draining,
+   * draining is stopped and the client is used again.
+   * @param newConfig New HTTP client configuration
+   * @return true if the configuration was applied, false if a new item has to be built
+   */
+  public synchronized boolean reconfigure(@NotNull HttpClientConfig newConfig) {
+    if (closed) {
+      return false;
+    }
+    PooledClient current = client;
+    if (current == null) {
+      // nothing built yet - any change can be applied
+      config = newConfig;
+      defaultRequestConfig = buildDefaultRequestConfig(newConfig);
+      return true;
+    }
+    if (!HttpClientConfigChange.isReconfigurable(config, newConfig)) {
+      return false;
+    }
+    if (drainRegistration != null) {
+      drainRegistration.cancel();
+      drainRegistration = null;
+    }
+
+    PoolingHttpClientConnectionManager connectionManager = current.connectionManager;
+    connectionManager.setMaxTotal(newConfig.getMaxTotalConnections());
+    connectionManager.setDefaultMaxPerRoute(newConfig.getMaxConnectionsPerHost());
+    connectionManager.setValidateAfterInactivity(newConfig.getValidateAfterInactivity());
+    defaultRequestConfig = buildDefaultRequestConfig(newConfig);
+    current.httpClient.setDefaultRequestConfig(defaultRequestConfig);
+    AdmissionLimiter admissionLimiter = current.httpClient.getAdmissionLimiter();
+    if (admissionLimiter != null) {
+      admissionLimiter.setLimit(AdmissionLimiter.getEffectiveLimit(newConfig));
+    }
+    AdaptiveConcurrencyLimiter concurrencyLimiter = current.httpClient.getConcurrencyLimiter();
+    if (concurrencyLimiter != null) {
+      concurrencyLimiter.setMaxLimit(newConfig.getMaxConnectionsPerHost());
+    }
+    CircuitBreaker circuitBreaker = current.httpClient.getCircuitBreaker();
+    if (circuitBreaker != null) {
+      circuitBreaker.setConfig(newConfig);
+    }
+    Bulkhead bulkhead = current.httpClient.getBulkhead();
+    if (bulkhead != null) {
+      bulkhead.setMaxConcurrentCalls(newConfig.getBulkheadMaxConcurrentCalls());
+    }
+    RetryPolicy retryPolicy = current.httpClient.getRetryPolicy();
+    if (retryPolicy != null) {
+      retryPolicy.setConfig(newConfig);
+    }
+    RequestCoalescer requestCoalescer = current.httpClient.getRequestCoalescer();
+    if (requestCoalescer != null) {
+      requestCoalescer.setConfig(newConfig);
+    }
+
+    if (newConfig.getIdleConnectionEvictionInterval() != config.getIdleConnectionEvictionInterval()
+        || newConfig.getMaxIdleTime() != config.getMaxIdleTime()) {
+      if (current.evictorRegistration != null) {
+        current.evictorRegistration.cancel();
+      }
+      current.evictorRegistration = registerEvictor(newConfig, connectionManager);
+    }
+    current.connectionPoolMetrics.setConfig(newConfig);
+    if (healthCheckRegistry != null) {
+      // config name used in health check name may have changed
+      current.registerHealthChecks(healthCheckRegistry, newConfig);
+    }
+
+    config = newConfig;
+    return true;
+  }
+
+  /**
+   * Closes the HTTP client as soon as all leased connections are released, or after {@link #DRAIN_TIMEOUT_MS}.
+   * Idle connections are closed immediately. Requests still running with this client are not aborted.
+   * If the HTTP client was never built, the item is closed immediately.
+   * @param closeCallback Called after the client was closed
+   */
+  public void closeGracefully(@NotNull Runnable closeCallback) {
+    synchronized (this) {
+      if (closed || drainRegistration != null) {
+        return;
+      }
+      if (client != null) {
+        unregisterMetrics();
+        unregisterHealthChecks();
+        long deadline = System.currentTimeMillis() + DRAIN_TIMEOUT_MS;
+        drainRegistration = IdleConnectionEvictor.getInstance().register(() -> {
+          // callback is invoked without holding the lock of this item
+          if (closeIfDrained(deadline)) {
+            closeCallback.run();
+          }
+        }, DRAIN_CHECK_INTERVAL_MS);
+        return;
+      }
+      close();
+    }
+    closeCallback.run();
+  }
+
+  private synchronized boolean closeIfDrained(long deadline) {
+    if (closed || drainRegistration == null) {
+      return false;
+    }
+    PoolingHttpClientConnectionManager connectionManager = client.connectionManager;
+    connectionManager.closeIdleConnections(0, TimeUnit.MILLISECONDS);
+    if (connectionManager.getTotalStats().getLeased() == 0 || System.currentTimeMillis() >= deadline) {
+      close();
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * @return true if the HTTP client is closed
+   */
+  public synchronized boolean isClosed() {
+    return closed;
+  }
+
   /**
    * Close underlying http clients.
    */
-  public void close() {
-    try {
-      httpClient.close();
+  public synchronized void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    metricRegistry = null;
+    healthCheckRegistry = null;
+    if (drainRegistration != null) {
+      drainRegistration.cancel();
+      drainRegistration = null;
     }
-    catch (IOException ex) {
-      log.warn("Error closing HTTP client.", ex);
+    if (client != null) {
+      client.close();
     }
   }
 
@@ -202,4 +445,112 @@ class HttpClientItem {
     return "HttpClientItem[" + config.toString() + "]";
   }
 
+
+  /**
+   * HTTP client with its connection pool, built on first use of the item.
+   */
+  private static final class PooledClient {
+
+    private final ReconfigurableHttpClient httpClient;
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final ConnectionPoolMetrics connectionPoolMetrics;
+    private IdleConnectionEvictor.Registration evictorRegistration;
+
+    PooledClient(@NotNull HttpClientConfig config, @NotNull RequestConfig defaultRequestConfig) {
+      // optional SSL client certificate support, SSL contexts are shared between clients with identical key material
+      SSLContext sslContext;
+      try {
+        sslContext = SslContextCache.getInstance().getSSLContext(config);
+      }
+      catch (IOException | GeneralSecurityException ex) {
+        throw new IllegalArgumentException("Invalid SSL client certificate configuration.", ex);
+      }
+
+      CredentialsProvider credentialsProvider = new BasicCredentialsProvider();
+      // optional proxy authentication
+      if (StringUtils.isNotEmpty(config.getProxyUser())) {
+        credentialsProvider.setCredentials(new AuthScope(config.getProxyHost(), config.getProxyPort()),
+            new UsernamePasswordCredentials(config.getProxyUser(), config.getProxyPassword()));
+      }
+      // optional http basic authentication support
+      if (StringUtils.isNotEmpty(config.getHttpUser())) {
+        credentialsProvider.setCredentials(AuthScope.ANY,
+            new UsernamePasswordCredentials(config.getHttpUser(), config.getHttpPassword()));
+      }
+
+      // build http clients
+      TlsHandshakeMetrics handshakeMetrics = new TlsHandshakeMetrics();
+      connectionManager = buildConnectionManager(config, sslContext, handshakeMetrics);
+      int admissionLimit = AdmissionLimiter.getEffectiveLimit(config);
+      AdmissionLimiter admissionLimiter = admissionLimit > 0 ? new AdmissionLimiter(admissionLimit) : null;
+      AdaptiveConcurrencyLimiter concurrencyLimiter = AdaptiveConcurrencyLimiter.create(config);
+      CircuitBreaker circuitBreaker = CircuitBreaker.create(config);
+      Bulkhead bulkhead = Bulkhead.create(config);
+      RetryPolicy retryPolicy = RetryPolicy.create(config);
+      RequestCoalescer requestCoalescer = RequestCoalescer.create(config);
+      ContentDecoding contentDecoding = ContentDecoding.create(config);
+      httpClient = new ReconfigurableHttpClient(
+          buildHttpClient(config, connectionManager, credentialsProvider, defaultRequestConfig, contentDecoding),
+          defaultRequestConfig, admissionLimiter, concurrencyLimiter, circuitBreaker, bulkhead, retryPolicy, requestCoalescer);
+
+      connectionPoolMetrics = new ConnectionPoolMetrics(METRICS_PREFIX, config, connectionManager, connectionManager::getRoutes);
+      handshakeMetrics.addMetrics(connectionPoolMetrics);
+      if (admissionLimiter != null) {
+        admissionLimiter.addMetrics(connectionPoolMetrics);
+      }
+      if (concurrencyLimiter != null) {
+        concurrencyLimiter.addMetrics(connectionPoolMetrics);
+      }
+      if (circuitBreaker != null) {
+        circuitBreaker.addMetrics(connectionPoolMetrics);
+      }
+      if (bulkhead != null) {
+        bulkhead.addMetrics(connectionPoolMetrics);
+      }
+      if (retryPolicy != null) {
+        retryPolicy.addMetrics(connectionPoolMetrics);
+      }
+      if (requestCoalescer != null) {
+        requestCoalescer.addMetrics(connectionPoolMetrics);
+      }
+      if (contentDecoding != null) {
+        contentDecoding.addMetrics(connectionPoolMetrics);
+      }
+      StoreReloader storeReloader = SslContextCache.getInstance().getStoreReloader(sslContext);
+      if (storeReloader != null) {
+        storeReloader.addMetrics(connectionPoolMetrics);
+      }
+      evictorRegistration = registerEvictor(config, connectionManager);
+    }
+
+    void registerHealthChecks(@NotNull HealthCheckRegistry registry, @NotNull HttpClientConfig config) {
+      CircuitBreaker circuitBreaker = httpClient.getCircuitBreaker();
+      if (circuitBreaker != null) {
+        circuitBreaker.registerHealthCheck(registry, MetricRegistry.name(METRICS_PREFIX, ConnectionPoolMetrics.getConfigName(config)));
+      }
+    }
+
+    void unregisterHealthChecks() {
+      CircuitBreaker circuitBreaker = httpClient.getCircuitBreaker();
+      if (circuitBreaker != null) {
+        circuitBreaker.unregisterHealthCheck();
+      }
+    }
+
+    void close() {
+      if (evictorRegistration != null) {
+        evictorRegistration.cancel();
+      }
+      connectionPoolMetrics.unregister();
+      unregisterHealthChecks();
+      try {
+        httpClient.close();
+      }
+      catch (IOException ex) {
+        log.warn("Error closing HTTP client.", ex);
+      }
+    }
+
+  }
+
 }
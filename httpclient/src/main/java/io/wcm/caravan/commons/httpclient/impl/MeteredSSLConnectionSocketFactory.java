@@ -0,0 +1,69 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpclient.impl;
+
+import java.io.IOException;
+import java.net.Socket;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocket;
+
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.protocol.HttpContext;
+import org.jetbrains.annotations.NotNull;
+
+import io.wcm.caravan.commons.httpclient.impl.helpers.TlsHandshakeMetrics;
+
+/**
+ * SSL socket factory recording duration and session resumption of each TLS handshake.
+ */
+class MeteredSSLConnectionSocketFactory extends SSLConnectionSocketFactory {
+
+  private final TlsHandshakeMetrics handshakeMetrics;
+
+  /**
+   * @param sslContext SSL context
+   * @param handshakeMetrics Handshake metrics
+   */
+  MeteredSSLConnectionSocketFactory(@NotNull SSLContext sslContext, @NotNull TlsHandshakeMetrics handshakeMetrics) {
+    super(sslContext);
+    this.handshakeMetrics = handshakeMetrics;
+  }
+
+  @Override
+  public Socket createLayeredSocket(Socket socket, String target, int port, HttpContext context) throws IOException {
+    long startTimeMillis = System.currentTimeMillis();
+    long startNanos = System.nanoTime();
+    Socket sslSocket;
+    try {
+      // starts the handshake and verifies the host name
+      sslSocket = super.createLayeredSocket(socket, target, port, context);
+    }
+    catch (IOException | RuntimeException ex) {
+      handshakeMetrics.failed();
+      throw ex;
+    }
+    if (sslSocket instanceof SSLSocket) {
+      handshakeMetrics.completed(((SSLSocket)sslSocket).getSession(), startTimeMillis, startNanos);
+    }
+    return sslSocket;
+  }
+
+}
@@ -0,0 +1,419 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpclient.impl;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.ClientProtocolException;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.Configurable;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.impl.execchain.RequestAbortedException;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import io.wcm.caravan.commons.httpclient.impl.helpers.AdaptiveConcurrencyLimiter;
+import io.wcm.caravan.commons.httpclient.impl.helpers.AdmissionLimiter;
+import io.wcm.caravan.commons.httpclient.impl.helpers.Bulkhead;
+import io.wcm.caravan.commons.httpclient.impl.helpers.CircuitBreaker;
+import io.wcm.caravan.commons.httpclient.impl.helpers.RequestCoalescer;
+import io.wcm.caravan.commons.httpclient.impl.helpers.RequestPermits;
+import io.wcm.caravan.commons.httpclient.impl.helpers.RetryPolicy;
+
+/**
+ * Wraps the HTTP client built for a configuration, allowing to swap the default request config when the
+ * configuration is changed without rebuilding the client and its connection pool.
+ * <p>
+ * The current default request config is put into the execution context of each request that does not define
+ * a request config on its own, which is equivalent to the default request config of the wrapped client.
+ * </p>
+ * <p>
+ * If an admission limiter is set, each request waits for a free slot up to the connection request timeout
+ * before it is passed to the wrapped client. If an adaptive concurrency limiter is set, requests exceeding
+ * the limit of their route are rejected immediately. If a circuit breaker or bulkhead is set, requests fail
+ * immediately while the circuit breaker is open or the bulkhead is full. Slot and permits are released together
+ * with the connection.
+ * </p>
+ * <p>
+ * If a retry policy is set, idempotent requests failed with a retryable exception or status code are sent again
+ * after a randomized backoff, as long as the retry budget is not exhausted. Each attempt acquires its own slot and
+ * permits, so retries are rejected as well while the circuit breaker is open.
+ * </p>
+ * <p>
+ * If a request coalescer is set, identical GET and HEAD requests in flight at the same time wait for the response
+ * of the first one instead of executing the request again, including its retries. Each of them gets its own copy
+ * of the buffered response, or executes the request on its own if the response was not buffered. They wait at most
+ * the sum of connection request, connect and socket timeout for the response.
+ * </p>
+ */
+@SuppressWarnings("deprecation")
+class ReconfigurableHttpClient extends CloseableHttpClient {
+
+  private final CloseableHttpClient delegate;
+  private final AdmissionLimiter admissionLimiter;
+  private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+  private final CircuitBreaker circuitBreaker;
+  private final Bulkhead bulkhead;
+  private final RetryPolicy retryPolicy;
+  private final RequestCoalescer requestCoalescer;
+  private volatile RequestConfig defaultRequestConfig;
+
+  /**
+   * @param delegate Wrapped HTTP client
+   * @param defaultRequestConfig Default request config
+   */
+  ReconfigurableHttpClient(@NotNull CloseableHttpClient delegate, @NotNull RequestConfig defaultRequestConfig) {
+    this(delegate, defaultRequestConfig, null, null, null, null, null, null);
+  }
+
+  /**
+   * @param delegate Wrapped HTTP client
+   * @param defaultRequestConfig Default request config
+   * @param admissionLimiter Limits concurrent requests, or null for no limit
+   * @param concurrencyLimiter Limits requests in flight per route adaptively, or null for no limit
+   * @param circuitBreaker Rejects requests while the upstream is degraded, or null for no circuit breaker
+   * @param bulkhead Rejects requests exceeding the max. concurrent calls, or null for no bulkhead
+   * @param retryPolicy Retries failed idempotent requests, or null for the retry behavior of the wrapped client
+   * @param requestCoalescer Coalesces identical requests in flight, or null for no coalescing
+   */
+  ReconfigurableHttpClient(@NotNull CloseableHttpClient delegate, @NotNull RequestConfig defaultRequestConfig,
+      @Nullable AdmissionLimiter admissionLimiter, @Nullable AdaptiveConcurrencyLimiter concurrencyLimiter,
+      @Nullable CircuitBreaker circuitBreaker, @Nullable Bulkhead bulkhead, @Nullable RetryPolicy retryPolicy,
+      @Nullable RequestCoalescer requestCoalescer) {
+    this.delegate = delegate;
+    this.defaultRequestConfig = defaultRequestConfig;
+    this.admissionLimiter = admissionLimiter;
+    this.concurrencyLimiter = concurrencyLimiter;
+    this.circuitBreaker = circuitBreaker;
+    this.bulkhead = bulkhead;
+    this.retryPolicy = retryPolicy;
+    this.requestCoalescer = requestCoalescer;
+  }
+
+  /**
+   * @return Wrapped HTTP client
+   */
+  @NotNull
+  CloseableHttpClient getDelegate() {
+    return delegate;
+  }
+
+  /**
+   * @return Current default request config
+   */
+  @NotNull
+  RequestConfig getDefaultRequestConfig() {
+    return defaultRequestConfig;
+  }
+
+  /**
+   * @return Admission limiter or null if concurrent requests are not limited
+   */
+  @Nullable
+  AdmissionLimiter getAdmissionLimiter() {
+    return admissionLimiter;
+  }
+
+  /**
+   * @return Adaptive concurrency limiter or null if requests in flight are not limited per route
+   */
+  @Nullable
+  AdaptiveConcurrencyLimiter getConcurrencyLimiter() {
+    return concurrencyLimiter;
+  }
+
+  /**
+   * @return Circuit breaker or null if requests are not rejected while the upstream is degraded
+   */
+  @Nullable
+  CircuitBreaker getCircuitBreaker() {
+    return circuitBreaker;
+  }
+
+  /**
+   * @return Bulkhead or null if concurrent calls are not limited
+   */
+  @Nullable
+  Bulkhead getBulkhead() {
+    return bulkhead;
+  }
+
+  /**
+   * @return Retry policy or null if the retry behavior of the wrapped client is used
+   */
+  @Nullable
+  RetryPolicy getRetryPolicy() {
+    return retryPolicy;
+  }
+
+  /**
+   * @return Request coalescer or null if identical requests are not coalesced
+   */
+  @Nullable
+  RequestCoalescer getRequestCoalescer() {
+    return requestCoalescer;
+  }
+
+  /**
+   * @param defaultRequestConfig New default request config applied to all subsequent requests
+   */
+  void setDefaultRequestConfig(@NotNull RequestConfig defaultRequestConfig) {
+    this.defaultRequestConfig = defaultRequestConfig;
+  }
+
+  @Override
+  protected CloseableHttpResponse doExecute(HttpHost target, HttpRequest request, HttpContext context)
+      throws IOException, ClientProtocolException {
+    HttpContext localContext = context != null ? context : new BasicHttpContext();
+    if (localContext.getAttribute(HttpClientContext.REQUEST_CONFIG) == null) {
+      localContext.setAttribute(HttpClientContext.REQUEST_CONFIG, defaultRequestConfig);
+    }
+    String coalescingKey = requestCoalescer != null ? requestCoalescer.getKey(target, request, context) : null;
+    if (coalescingKey != null) {
+      return executeCoalesced(target, request, localContext, coalescingKey);
+    }
+    return executeRetrying(target, request, localContext);
+  }
+
+  /**
+   * Executes the request, or waits for the response of an identical request in flight.
+   */
+  private CloseableHttpResponse executeCoalesced(HttpHost target, HttpRequest request, HttpContext localContext,
+      String coalescingKey) throws IOException {
+    RequestCoalescer.Flight flight = new RequestCoalescer.Flight();
+    RequestCoalescer.Flight currentFlight = requestCoalescer.join(coalescingKey, flight);
+    if (currentFlight == null) {
+      CloseableHttpResponse response;
+      try {
+        response = executeRetrying(target, request, localContext);
+      }
+      catch (IOException | RuntimeException | Error ex) {
+        requestCoalescer.fail(coalescingKey, flight, ex);
+        throw ex;
+      }
+      HttpResponse sharedResponse = requestCoalescer.complete(coalescingKey, flight, response);
+      return sharedResponse != null ? RequestCoalescer.copy(sharedResponse, false) : response;
+    }
+
+    HttpResponse sharedResponse;
+    try {
+      int timeout = getFlightTimeout(getRequestConfig(request, localContext));
+      sharedResponse = timeout > 0 ? currentFlight.get(timeout, TimeUnit.MILLISECONDS) : currentFlight.get();
+    }
+    catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new RequestAbortedException("Request aborted while waiting for coalesced request", ex);
+    }
+    catch (TimeoutException ex) {
+      throw new SocketTimeoutException("Timeout waiting for response of coalesced request");
+    }
+    catch (ExecutionException ex) {
+      Throwable cause = ex.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException)cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException)cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error)cause;
+      }
+      throw new ClientProtocolException(cause);
+    }
+    if (sharedResponse == null) {
+      // response was not buffered for the joined requests
+      return executeRetrying(target, request, localContext);
+    }
+    return RequestCoalescer.copy(sharedResponse, true);
+  }
+
+  /**
+   * @return Max. time to wait for the response of a coalesced request in ms, covering the phases of the request
+   *         until its response is received, or 0 to wait without limit
+   */
+  private static int getFlightTimeout(@Nullable RequestConfig requestConfig) {
+    if (requestConfig == null || requestConfig.getSocketTimeout() <= 0) {
+      return 0;
+    }
+    return Math.max(requestConfig.getConnectionRequestTimeout(), 0) + Math.max(requestConfig.getConnectTimeout(), 0)
+        + requestConfig.getSocketTimeout();
+  }
+
+  /**
+   * Executes the request, retrying it according to the retry policy.
+   */
+  private CloseableHttpResponse executeRetrying(HttpHost target, HttpRequest request, HttpContext localContext)
+      throws IOException {
+    if (retryPolicy == null || !RetryPolicy.isRetryable(request)) {
+      return executeAttempt(target, request, localContext);
+    }
+
+    retryPolicy.requestStarted();
+    for (int attempt = 1;; attempt++) {
+      CloseableHttpResponse response;
+      try {
+        response = executeAttempt(target, request, localContext);
+      }
+      catch (IOException ex) {
+        if (attempt >= retryPolicy.getMaxAttempts() || !retryPolicy.isRetryableException(ex) || !retryPolicy.tryAcquireRetry()) {
+          throw ex;
+        }
+        waitForRetry(attempt);
+        continue;
+      }
+      if (attempt >= retryPolicy.getMaxAttempts() || !retryPolicy.isRetryableStatus(response.getStatusLine().getStatusCode())
+          || !retryPolicy.tryAcquireRetry()) {
+        return response;
+      }
+      // consume the response so the connection can be reused
+      EntityUtils.consumeQuietly(response.getEntity());
+      response.close();
+      waitForRetry(attempt);
+    }
+  }
+
+  private void waitForRetry(int attempt) throws IOException {
+    try {
+      Thread.sleep(retryPolicy.getBackoff(attempt));
+    }
+    catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new RequestAbortedException("Request aborted while waiting for retry", ex);
+    }
+  }
+
+  /**
+   * Executes a single attempt of the request, acquiring admission slot and permits.
+   */
+  private CloseableHttpResponse executeAttempt(HttpHost target, HttpRequest request, HttpContext localContext)
+      throws IOException {
+    RequestPermits permits = RequestPermits.acquire(target, circuitBreaker, bulkhead, concurrencyLimiter);
+    if (admissionLimiter == null && permits == null) {
+      return delegate.execute(target, request, localContext);
+    }
+
+    if (admissionLimiter != null) {
+      try {
+        acquireAdmission(request, localContext);
+      }
+      catch (IOException ex) {
+        if (permits != null) {
+          permits.release();
+        }
+        throw ex;
+      }
+    }
+
+    Runnable releaseCallback = releaseCallback(permits);
+    CloseableHttpResponse response;
+    try {
+      response = delegate.execute(target, request, localContext);
+    }
+    catch (IOException | RuntimeException | Error ex) {
+      if (permits != null) {
+        permits.sample(true, ex instanceof IOException);
+      }
+      releaseCallback.run();
+      throw ex;
+    }
+    if (permits != null) {
+      permits.sample(response.getStatusLine().getStatusCode());
+    }
+    return new AdmittedHttpResponse(response, releaseCallback);
+  }
+
+  /**
+   * @return Callback releasing the admission slot and the request permits
+   */
+  private Runnable releaseCallback(@Nullable RequestPermits permits) {
+    if (permits == null) {
+      return admissionLimiter::release;
+    }
+    if (admissionLimiter == null) {
+      return permits::release;
+    }
+    return () -> {
+      admissionLimiter.release();
+      permits.release();
+    };
+  }
+
+  /**
+   * Waits for a free slot of the admission limiter, the slot has to be released by the caller.
+   */
+  private void acquireAdmission(HttpRequest request, HttpContext context) throws IOException {
+    RequestConfig requestConfig = getRequestConfig(request, context);
+    int timeout = requestConfig != null ? requestConfig.getConnectionRequestTimeout() : 0;
+    try {
+      if (!admissionLimiter.acquire(timeout)) {
+        throw new ConnectionPoolTimeoutException("Timeout waiting for admission of request");
+      }
+    }
+    catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new RequestAbortedException("Request aborted while waiting for admission", ex);
+    }
+  }
+
+  /**
+   * @return Request config of the request, or of the execution context if the request does not define one
+   */
+  private static @Nullable RequestConfig getRequestConfig(HttpRequest request, HttpContext context) {
+    RequestConfig requestConfig = null;
+    if (request instanceof Configurable) {
+      requestConfig = ((Configurable)request).getConfig();
+    }
+    if (requestConfig == null) {
+      requestConfig = (RequestConfig)context.getAttribute(HttpClientContext.REQUEST_CONFIG);
+    }
+    return requestConfig;
+  }
+
+  @Override
+  public void close() throws IOException {
+    delegate.close();
+  }
+
+  @Override
+  public HttpParams getParams() {
+    return delegate.getParams();
+  }
+
+  @Override
+  public ClientConnectionManager getConnectionManager() {
+    return delegate.getConnectionManager();
+  }
+
+}
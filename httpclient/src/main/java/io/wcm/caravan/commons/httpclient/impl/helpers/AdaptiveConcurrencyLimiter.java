@@ -0,0 +1,275 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpclient.impl.helpers;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.HttpHost;
+import org.apache.http.HttpStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+
+import io.wcm.caravan.commons.httpclient.HttpClientConfig;
+
+/**
+ * Limits the number of requests in flight per route, adapting the limit to the observed latency of the upstream.
+ * <p>
+ * Each route (scheme, host and port) has its own limit, which starts at max. connections per host and is adjusted
+ * with an AIMD (additive increase, multiplicative decrease) algorithm: A response is considered as a sign of overload
+ * if the request failed, the upstream responded with 429 or 503, or the latency exceeds twice the long-term average
+ * latency of the route. In this case the limit is decreased by 10%. Otherwise the limit is increased by one if the
+ * route used at least half of its limit. The limit never exceeds max. connections per host and never drops below one.
+ * </p>
+ * <p>
+ * Requests exceeding the limit are rejected immediately instead of waiting for a connection up to the connection
+ * request timeout.
+ * </p>
+ */
+public final class AdaptiveConcurrencyLimiter {
+
+  static final String METRIC_LIMIT = "concurrency.limit";
+  static final String METRIC_IN_FLIGHT = "concurrency.inflight";
+  static final String METRIC_REJECTED = "concurrency.rejected";
+
+  static final double BACKOFF_RATIO = 0.9;
+  static final double LATENCY_TOLERANCE = 2.0;
+  static final double LATENCY_SMOOTHING = 0.05;
+  private static final int MIN_LIMIT = 1;
+
+  private final ConcurrentMap<HttpHost, RouteLimit> routeLimits = new ConcurrentHashMap<>();
+  private final Counter rejected = new Counter();
+  private volatile int maxLimit;
+
+  /**
+   * @param maxLimit Max. number of requests in flight per route
+   */
+  public AdaptiveConcurrencyLimiter(int maxLimit) {
+    this.maxLimit = Math.max(MIN_LIMIT, maxLimit);
+  }
+
+  /**
+   * @param config HTTP client configuration
+   * @return Limiter or null if the adaptive concurrency limit is not enabled
+   */
+  public static @Nullable AdaptiveConcurrencyLimiter create(@NotNull HttpClientConfig config) {
+    if (!config.isAdaptiveConcurrencyLimit()) {
+      return null;
+    }
+    return new AdaptiveConcurrencyLimiter(config.getMaxConnectionsPerHost());
+  }
+
+  /**
+   * Tries to admit a request to the given target host.
+   * @param target Target host
+   * @return Permit that has to be released after the request was completed, or null if the request is rejected
+   */
+  public @Nullable Permit tryAcquire(@NotNull HttpHost target) {
+    RouteLimit routeLimit = routeLimits.computeIfAbsent(normalize(target), key -> new RouteLimit(maxLimit));
+    int inFlight = routeLimit.tryAcquire();
+    if (inFlight < 0) {
+      rejected.inc();
+      return null;
+    }
+    return new Permit(routeLimit, inFlight);
+  }
+
+  /**
+   * Changes the max. limit of all routes. Route limits above the new max. limit are lowered immediately.
+   * @param newMaxLimit Max. number of requests in flight per route
+   */
+  public void setMaxLimit(int newMaxLimit) {
+    maxLimit = Math.max(MIN_LIMIT, newMaxLimit);
+    routeLimits.values().forEach(routeLimit -> routeLimit.setMaxLimit(maxLimit));
+  }
+
+  /**
+   * @return Max. number of requests in flight per route
+   */
+  public int getMaxLimit() {
+    return maxLimit;
+  }
+
+  /**
+   * @param target Target host
+   * @return Current limit of the route, or the max. limit if no request was sent to the route yet
+   */
+  public int getLimit(@NotNull HttpHost target) {
+    RouteLimit routeLimit = routeLimits.get(normalize(target));
+    return routeLimit != null ? routeLimit.getLimit() : maxLimit;
+  }
+
+  /**
+   * @param target Target host
+   * @return Number of requests in flight to the route
+   */
+  public int getInFlight(@NotNull HttpHost target) {
+    RouteLimit routeLimit = routeLimits.get(normalize(target));
+    return routeLimit != null ? routeLimit.inFlight.get() : 0;
+  }
+
+  /**
+   * @return Number of rejected requests
+   */
+  public long getRejectedCount() {
+    return rejected.getCount();
+  }
+
+  /**
+   * Adds the rejected counter and gauges of limit and requests in flight per route to the metrics of the connection pool.
+   * @param connectionPoolMetrics Connection pool metrics
+   */
+  public void addMetrics(@NotNull ConnectionPoolMetrics connectionPoolMetrics) {
+    connectionPoolMetrics.addMetric(METRIC_REJECTED, rejected);
+    connectionPoolMetrics.addRouteGauge(METRIC_LIMIT, route -> (Gauge<Integer>)() -> getLimit(route.getTargetHost()));
+    connectionPoolMetrics.addRouteGauge(METRIC_IN_FLIGHT, route -> (Gauge<Integer>)() -> getInFlight(route.getTargetHost()));
+  }
+
+  /**
+   * @param statusCode HTTP status code
+   * @return true if the status code signals that the upstream is overloaded
+   */
+  public static boolean isOverloadStatus(int statusCode) {
+    return statusCode == HttpStatus.SC_SERVICE_UNAVAILABLE || statusCode == 429;
+  }
+
+  /**
+   * Target hosts are compared by scheme, host name and port, with the default port resolved the same way as
+   * for the routes of the connection pool.
+   */
+  private static HttpHost normalize(HttpHost target) {
+    String scheme = target.getSchemeName();
+    int port = target.getPort();
+    if (port < 0) {
+      port = "https".equalsIgnoreCase(scheme) ? 443 : 80;
+    }
+    return new HttpHost(target.getHostName(), port, scheme);
+  }
+
+
+  /**
+   * Limit and requests in flight of a single route.
+   */
+  private static final class RouteLimit {
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // written only while holding the lock, read without locking
+    private volatile double limit;
+    private double maxLimit;
+    private double averageLatency;
+
+    RouteLimit(int maxLimit) {
+      this.limit = maxLimit;
+      this.maxLimit = maxLimit;
+    }
+
+    /**
+     * @return Number of requests in flight before this request, or -1 if the limit is reached
+     */
+    int tryAcquire() {
+      int currentLimit = getLimit();
+      while (true) {
+        int current = inFlight.get();
+        if (current >= currentLimit) {
+          return -1;
+        }
+        if (inFlight.compareAndSet(current, current + 1)) {
+          return current;
+        }
+      }
+    }
+
+    void release() {
+      inFlight.decrementAndGet();
+    }
+
+    int getLimit() {
+      return (int)limit;
+    }
+
+    synchronized void setMaxLimit(int newMaxLimit) {
+      maxLimit = newMaxLimit;
+      limit = Math.min(limit, maxLimit);
+    }
+
+    synchronized void sample(long latencyNanos, int inFlightAtStart, boolean overloaded) {
+      boolean slow = averageLatency > 0 && latencyNanos > averageLatency * LATENCY_TOLERANCE;
+      if (averageLatency == 0) {
+        averageLatency = latencyNanos;
+      }
+      else {
+        averageLatency += (latencyNanos - averageLatency) * LATENCY_SMOOTHING;
+      }
+
+      if (overloaded || slow) {
+        limit = Math.max(MIN_LIMIT, limit * BACKOFF_RATIO);
+      }
+      else if ((inFlightAtStart + 1) * 2 >= limit) {
+        limit = Math.min(maxLimit, limit + 1);
+      }
+    }
+
+  }
+
+
+  /**
+   * Admission of a single request. The latency is sampled once when the response is received or the request failed,
+   * the request counts as in flight until the permit is released.
+   */
+  public static final class Permit {
+
+    private final RouteLimit routeLimit;
+    private final int inFlightAtStart;
+    private final long startNanos = System.nanoTime();
+    private final AtomicBoolean sampled = new AtomicBoolean();
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    Permit(RouteLimit routeLimit, int inFlightAtStart) {
+      this.routeLimit = routeLimit;
+      this.inFlightAtStart = inFlightAtStart;
+    }
+
+    /**
+     * Records the latency of the request and adjusts the limit of the route.
+     * @param overloaded true if the request failed or the response signals an overloaded upstream
+     */
+    public void sample(boolean overloaded) {
+      if (sampled.compareAndSet(false, true)) {
+        routeLimit.sample(System.nanoTime() - startNanos, inFlightAtStart, overloaded);
+      }
+    }
+
+    /**
+     * Releases the permit, so further requests can be admitted.
+     */
+    public void release() {
+      if (released.compareAndSet(false, true)) {
+        routeLimit.release();
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,178 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpclient.impl.helpers;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.jetbrains.annotations.NotNull;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+
+import io.wcm.caravan.commons.httpclient.HttpClientConfig;
+
+/**
+ * Limits the number of requests executed concurrently by a synchronous HTTP client.
+ * <p>
+ * Requests exceeding the limit wait for a free slot on a fair {@link Semaphore} instead of waiting for a connection
+ * inside the connection pool. The pool of HttpClient 4.x waits for free connections while holding a monitor lock,
+ * which pins the carrier thread of callers running on virtual threads. Waiting on a semaphore only parks the calling
+ * thread, so many callers on virtual threads can wait without blocking their carrier threads. The limit applies to
+ * all routes together and never exceeds the total pool size, so admitted requests get a connection without waiting
+ * unless the connections of their route are exhausted.
+ * </p>
+ */
+public final class AdmissionLimiter {
+
+  static final String METRIC_LIMIT = "admission.limit";
+  static final String METRIC_AVAILABLE = "admission.available";
+  static final String METRIC_WAITING = "admission.waiting";
+  static final String METRIC_REJECTED = "admission.rejected";
+
+  private final AdjustableSemaphore semaphore;
+  private final Counter rejected = new Counter();
+  private volatile int limit;
+
+  /**
+   * @param limit Max. number of concurrent requests
+   */
+  public AdmissionLimiter(int limit) {
+    if (limit <= 0) {
+      throw new IllegalArgumentException("Invalid admission limit: " + limit);
+    }
+    this.semaphore = new AdjustableSemaphore(limit);
+    this.limit = limit;
+  }
+
+  /**
+   * Calculates the admission limit for the given configuration, which is capped by the total pool size.
+   * @param config HTTP client configuration
+   * @return Admission limit or 0 if no admission limit is configured
+   */
+  public static int getEffectiveLimit(@NotNull HttpClientConfig config) {
+    if (config.getMaxConcurrentRequests() <= 0) {
+      return 0;
+    }
+    return Math.max(1, Math.min(config.getMaxConcurrentRequests(), config.getMaxTotalConnections()));
+  }
+
+  /**
+   * Waits for a free slot.
+   * @param timeoutMs Max. time to wait (ms). 0 or a negative value waits indefinitely.
+   * @return true if the slot was acquired, false if the timeout elapsed
+   * @throws InterruptedException if the calling thread was interrupted while waiting
+   */
+  public boolean acquire(long timeoutMs) throws InterruptedException {
+    if (timeoutMs <= 0) {
+      semaphore.acquire();
+      return true;
+    }
+    if (semaphore.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS)) {
+      return true;
+    }
+    rejected.inc();
+    return false;
+  }
+
+  /**
+   * Releases a slot acquired with {@link #acquire(long)}.
+   */
+  public void release() {
+    semaphore.release();
+  }
+
+  /**
+   * Changes the admission limit. Requests already admitted are not affected, if the limit is decreased
+   * further requests are admitted only after enough slots have been released.
+   * @param newLimit New max. number of concurrent requests
+   */
+  public synchronized void setLimit(int newLimit) {
+    if (newLimit <= 0) {
+      throw new IllegalArgumentException("Invalid admission limit: " + newLimit);
+    }
+    int delta = newLimit - limit;
+    if (delta > 0) {
+      semaphore.release(delta);
+    }
+    else if (delta < 0) {
+      semaphore.reducePermits(-delta);
+    }
+    limit = newLimit;
+  }
+
+  /**
+   * @return Max. number of concurrent requests
+   */
+  public int getLimit() {
+    return limit;
+  }
+
+  /**
+   * @return Number of free slots, may be negative after the limit was decreased
+   */
+  public int getAvailable() {
+    return semaphore.availablePermits();
+  }
+
+  /**
+   * @return Estimated number of threads waiting for a free slot
+   */
+  public int getWaiting() {
+    return semaphore.getQueueLength();
+  }
+
+  /**
+   * @return Number of requests that timed out waiting for a free slot
+   */
+  public long getRejectedCount() {
+    return rejected.getCount();
+  }
+
+  /**
+   * Adds gauges of the admission limit and the rejected counter to the metrics of the connection pool.
+   * @param connectionPoolMetrics Connection pool metrics
+   */
+  public void addMetrics(@NotNull ConnectionPoolMetrics connectionPoolMetrics) {
+    connectionPoolMetrics.addMetric(METRIC_LIMIT, (Gauge<Integer>)this::getLimit);
+    connectionPoolMetrics.addMetric(METRIC_AVAILABLE, (Gauge<Integer>)this::getAvailable);
+    connectionPoolMetrics.addMetric(METRIC_WAITING, (Gauge<Integer>)this::getWaiting);
+    connectionPoolMetrics.addMetric(METRIC_REJECTED, rejected);
+  }
+
+
+  /**
+   * Fair semaphore allowing to shrink the number of permits without waiting.
+   */
+  private static final class AdjustableSemaphore extends Semaphore {
+    private static final long serialVersionUID = 1L;
+
+    AdjustableSemaphore(int permits) {
+      super(permits, true);
+    }
+
+    @Override
+    protected void reducePermits(int reduction) {
+      super.reducePermits(reduction);
+    }
+
+  }
+
+}
@@ -0,0 +1,125 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpclient.impl.helpers;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+
+import io.wcm.caravan.commons.httpclient.HttpClientConfig;
+
+/**
+ * Limits the number of concurrent calls of an HTTP client configuration. Unlike the admission limit of the
+ * synchronous HTTP client, calls exceeding the limit do not wait but are rejected immediately, so a degraded
+ * upstream cannot tie up more than the given number of callers.
+ */
+public final class Bulkhead {
+
+  static final String METRIC_AVAILABLE = "bulkhead.available";
+  static final String METRIC_REJECTED = "bulkhead.rejected";
+
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final Counter rejected = new Counter();
+  private volatile int maxConcurrentCalls;
+
+  /**
+   * @param maxConcurrentCalls Max. number of concurrent calls
+   */
+  public Bulkhead(int maxConcurrentCalls) {
+    this.maxConcurrentCalls = maxConcurrentCalls;
+  }
+
+  /**
+   * @param config HTTP client configuration
+   * @return Bulkhead or null if concurrent calls are not limited
+   */
+  public static @Nullable Bulkhead create(@NotNull HttpClientConfig config) {
+    if (config.getBulkheadMaxConcurrentCalls() <= 0) {
+      return null;
+    }
+    return new Bulkhead(config.getBulkheadMaxConcurrentCalls());
+  }
+
+  /**
+   * @return true if the call is permitted, it has to be released after it was completed
+   */
+  public boolean tryAcquire() {
+    while (true) {
+      int current = inFlight.get();
+      if (current >= maxConcurrentCalls) {
+        rejected.inc();
+        return false;
+      }
+      if (inFlight.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Releases a permitted call.
+   */
+  public void release() {
+    inFlight.decrementAndGet();
+  }
+
+  /**
+   * Changes the limit. Calls in flight exceeding a lowered limit are not affected.
+   * @param newMaxConcurrentCalls Max. number of concurrent calls
+   */
+  public void setMaxConcurrentCalls(int newMaxConcurrentCalls) {
+    maxConcurrentCalls = newMaxConcurrentCalls;
+  }
+
+  /**
+   * @return Max. number of concurrent calls
+   */
+  public int getMaxConcurrentCalls() {
+    return maxConcurrentCalls;
+  }
+
+  /**
+   * @return Number of calls that can be permitted currently
+   */
+  public int getAvailable() {
+    return Math.max(0, maxConcurrentCalls - inFlight.get());
+  }
+
+  /**
+   * @return Number of rejected calls
+   */
+  public long getRejectedCount() {
+    return rejected.getCount();
+  }
+
+  /**
+   * Adds available calls and rejected calls to the metrics of the connection pool.
+   * @param connectionPoolMetrics Connection pool metrics
+   */
+  public void addMetrics(@NotNull ConnectionPoolMetrics connectionPoolMetrics) {
+    connectionPoolMetrics.addMetric(METRIC_AVAILABLE, (Gauge<Integer>)this::getAvailable);
+    connectionPoolMetrics.addMetric(METRIC_REJECTED, rejected);
+  }
+
+}
@@ -19,6 +19,8 @@
  */
 package io.wcm.caravan.commons.httpclient.impl.helpers;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -27,18 +29,23 @@ import java.io.InputStream;
 import java.security.GeneralSecurityException;
 import java.security.KeyManagementException;
 import java.security.KeyStore;
+import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
 
+import javax.net.ssl.KeyManager;
 import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.TrustManager;
 import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509KeyManager;
+import javax.net.ssl.X509TrustManager;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.conn.ssl.SSLInitializationException;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import io.wcm.caravan.commons.httpclient.HttpClientConfig;
 
 /**
@@ -83,30 +90,98 @@ public final class CertificateLoader {
    * @throws IOException I/O exception
    * @throws GeneralSecurityException General security exception
    */
-  @SuppressWarnings("null")
-  @SuppressFBWarnings("NP_NULL_ON_SOME_PATH_FROM_RETURN_VALUE") // null checks happen in separate methods
   public static @NotNull SSLContext buildSSLContext(@NotNull HttpClientConfig config) throws IOException, GeneralSecurityException {
+    return buildSSLContext(config,
+        isSslKeyManagerEnabled(config) ? readStore(config.getKeyStorePath()) : null,
+        isSslTrustStoreEnbaled(config) ? readStore(config.getTrustStorePath()) : null);
+  }
+
+  /**
+   * Build SSL context from key store and trust store content that was already read.
+   * @param config Http client configuration
+   * @param keyStore Key store content or null if no key store is used
+   * @param trustStore Trust store content or null if no trust store is used
+   * @return SSL context
+   * @throws IOException I/O exception
+   * @throws GeneralSecurityException General security exception
+   */
+  static @NotNull SSLContext buildSSLContext(@NotNull HttpClientConfig config, byte @Nullable [] keyStore, byte @Nullable [] trustStore)
+      throws IOException, GeneralSecurityException {
 
     KeyManagerFactory kmf = null;
-    if (isSslKeyManagerEnabled(config)) {
-      kmf = getKeyManagerFactory(config.getKeyStorePath(),
-          new StoreProperties(config.getKeyStorePassword(), config.getKeyManagerType(),
-              config.getKeyStoreType(), config.getKeyStoreProvider()));
+    if (keyStore != null) {
+      kmf = getKeyManagerFactory(new ByteArrayInputStream(keyStore), getKeyStoreProperties(config));
     }
     TrustManagerFactory tmf = null;
-    if (isSslTrustStoreEnbaled(config)) {
-      tmf = getTrustManagerFactory(config.getTrustStorePath(), new StoreProperties(config.getTrustStorePassword(),
-          config.getTrustManagerType(), config.getTrustStoreType(), config.getTrustStoreProvider()));
+    if (trustStore != null) {
+      tmf = getTrustManagerFactory(new ByteArrayInputStream(trustStore), getTrustStoreProperties(config));
     }
+    return initSSLContext(config, kmf != null ? kmf.getKeyManagers() : null, tmf != null ? tmf.getTrustManagers() : null);
+  }
 
+  /**
+   * Build SSL context with the given key managers and trust managers.
+   * @param config Http client configuration
+   * @param keyManagers Key managers or null if no key store is used
+   * @param trustManagers Trust managers or null if no trust store is used
+   * @return SSL context
+   * @throws GeneralSecurityException General security exception
+   */
+  static @NotNull SSLContext initSSLContext(@NotNull HttpClientConfig config, KeyManager @Nullable [] keyManagers,
+      TrustManager @Nullable [] trustManagers) throws GeneralSecurityException {
     SSLContext sslContext = SSLContext.getInstance(config.getSslContextType());
-    sslContext.init(kmf != null ? kmf.getKeyManagers() : null,
-        tmf != null ? tmf.getTrustManagers() : null,
-        null);
-
+    sslContext.init(keyManagers, trustManagers, null);
     return sslContext;
   }
 
+  /**
+   * Get X.509 key manager for the given key store content.
+   * @param keyStore Key store content
+   * @param storeProperties store properties
+   * @return Key manager
+   * @throws IOException I/O exception
+   * @throws GeneralSecurityException General security exception
+   */
+  static @NotNull X509KeyManager getX509KeyManager(byte @NotNull [] keyStore, @NotNull StoreProperties storeProperties)
+      throws IOException, GeneralSecurityException {
+    KeyManagerFactory kmf = getKeyManagerFactory(new ByteArrayInputStream(keyStore), storeProperties);
+    for (KeyManager keyManager : kmf.getKeyManagers()) {
+      if (keyManager instanceof X509KeyManager) {
+        return (X509KeyManager)keyManager;
+      }
+    }
+    throw new KeyStoreException("No X.509 key manager available for key manager type: " + storeProperties.getManagerType());
+  }
+
+  /**
+   * Get X.509 trust manager for the given trust store content.
+   * @param trustStore Trust store content
+   * @param storeProperties store properties
+   * @return Trust manager
+   * @throws IOException I/O exception
+   * @throws GeneralSecurityException General security exception
+   */
+  static @NotNull X509TrustManager getX509TrustManager(byte @NotNull [] trustStore, @NotNull StoreProperties storeProperties)
+      throws IOException, GeneralSecurityException {
+    TrustManagerFactory tmf = getTrustManagerFactory(new ByteArrayInputStream(trustStore), storeProperties);
+    for (TrustManager trustManager : tmf.getTrustManagers()) {
+      if (trustManager instanceof X509TrustManager) {
+        return (X509TrustManager)trustManager;
+      }
+    }
+    throw new KeyStoreException("No X.509 trust manager available for trust manager type: " + storeProperties.getManagerType());
+  }
+
+  static @NotNull StoreProperties getKeyStoreProperties(@NotNull HttpClientConfig config) {
+    return new StoreProperties(config.getKeyStorePassword(), config.getKeyManagerType(),
+        config.getKeyStoreType(), config.getKeyStoreProvider());
+  }
+
+  static @NotNull StoreProperties getTrustStoreProperties(@NotNull HttpClientConfig config) {
+    return new StoreProperties(config.getTrustStorePassword(), config.getTrustManagerType(),
+        config.getTrustStoreType(), config.getTrustStoreProvider());
+  }
+
   /**
    * Get key manager factory
    * @param keyStoreFilename Keystore file name
@@ -211,6 +286,28 @@ public final class CertificateLoader {
     return tmf;
   }
 
+  /**
+   * Reads the content of a key store or trust store.
+   * @param path Filesystem or classpath path
+   * @return Store content
+   * @throws IOException I/O exception
+   */
+  static byte @NotNull [] readStore(@Nullable String path) throws IOException {
+    InputStream is = path != null ? getResourceAsStream(path) : null;
+    if (is == null) {
+      throw new FileNotFoundException("Certificate file not found: " + getFilenameInfo(path));
+    }
+    try (InputStream stream = is) {
+      ByteArrayOutputStream bos = new ByteArrayOutputStream();
+      byte[] buffer = new byte[4096];
+      int count;
+      while ((count = stream.read(buffer)) != -1) {
+        bos.write(buffer, 0, count);
+      }
+      return bos.toByteArray();
+    }
+  }
+
   /**
    * Tries to load the given resource as file, or if no file exists as classpath resource.
    * @param path Filesystem or classpath path
@@ -273,6 +370,24 @@ public final class CertificateLoader {
         && StringUtils.isNotEmpty(config.getTrustStorePath());
   }
 
+  /**
+   * Applies the TLS session cache settings of the configuration to the client session context of an SSL context.
+   * @param sslContext SSL context
+   * @param config Http client configuration
+   */
+  public static void configureSessionContext(@NotNull SSLContext sslContext, @NotNull HttpClientConfig config) {
+    SSLSessionContext sessionContext = sslContext.getClientSessionContext();
+    if (sessionContext == null) {
+      return;
+    }
+    if (config.getSslSessionCacheSize() >= 0) {
+      sessionContext.setSessionCacheSize(config.getSslSessionCacheSize());
+    }
+    if (config.getSslSessionTimeout() >= 0) {
+      sessionContext.setSessionTimeout(config.getSslSessionTimeout());
+    }
+  }
+
   /**
    * Creates default SSL context.
    * @return SSL context
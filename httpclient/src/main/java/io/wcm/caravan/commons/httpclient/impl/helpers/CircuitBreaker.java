@@ -0,0 +1,397 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpclient.impl.helpers;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.health.HealthCheck;
+import com.codahale.metrics.health.HealthCheckRegistry;
+
+import io.wcm.caravan.commons.httpclient.HttpClientConfig;
+
+/**
+ * Circuit breaker of an HTTP client configuration, failing calls immediately while the upstream is degraded.
+ * <p>
+ * The outcomes of the recent calls are recorded in a window of fixed size. Once the window is full and the percentage
+ * of failed calls (exception or 5xx status) or slow calls reaches the configured threshold, the circuit breaker opens
+ * and rejects all calls. After the open duration a few trial calls are permitted (half open): If their failure rate
+ * and slow call rate are below the thresholds the circuit breaker closes again, otherwise it opens again.
+ * </p>
+ * <p>
+ * Results of calls permitted before the last state change are ignored, so late responses of calls sent before
+ * the circuit breaker opened do not influence the evaluation of the trial calls.
+ * </p>
+ */
+public final class CircuitBreaker {
+
+  /**
+   * State of the circuit breaker.
+   */
+  public enum State {
+
+    /**
+     * Calls are permitted and their outcomes are recorded.
+     */
+    CLOSED,
+
+    /**
+     * All calls are rejected.
+     */
+    OPEN,
+
+    /**
+     * A limited number of trial calls is permitted.
+     */
+    HALF_OPEN
+
+  }
+
+  static final String METRIC_STATE = "circuitbreaker.state";
+  static final String METRIC_FAILURE_RATE = "circuitbreaker.failurerate";
+  static final String METRIC_SLOW_CALL_RATE = "circuitbreaker.slowcallrate";
+  static final String METRIC_REJECTED = "circuitbreaker.rejected";
+  static final String HEALTH_CHECK_NAME = "circuitbreaker";
+
+  /**
+   * Max. number of trial calls permitted in half open state.
+   */
+  static final int TRIAL_CALLS = 10;
+
+  private static final byte OUTCOME_FAILED = 1;
+  private static final byte OUTCOME_SLOW = 2;
+
+  private static final Logger log = LoggerFactory.getLogger(CircuitBreaker.class);
+
+  private final String name;
+  private final Counter rejected = new Counter();
+
+  // written only while holding the lock, read without locking
+  private volatile State state = State.CLOSED;
+  private volatile long generation;
+
+  private int failureRateThreshold;
+  private int slowCallRateThreshold;
+  private long slowCallDurationNanos;
+  private long openDurationNanos;
+  private byte[] outcomes;
+  private int position;
+  private int recorded;
+  private int failures;
+  private int slowCalls;
+  private long openedAt;
+  private int trialPermits;
+  private String openReason;
+
+  private HealthCheckRegistry healthCheckRegistry;
+  private String healthCheckName;
+
+  /**
+   * @param name Name of the HTTP client configuration used in log messages and health check results
+   * @param config HTTP client configuration
+   */
+  public CircuitBreaker(@NotNull String name, @NotNull HttpClientConfig config) {
+    this.name = name;
+    setConfig(config);
+  }
+
+  /**
+   * @param config HTTP client configuration
+   * @return Circuit breaker or null if neither a failure rate nor a slow call rate threshold is configured
+   */
+  public static @Nullable CircuitBreaker create(@NotNull HttpClientConfig config) {
+    if (!isEnabled(config)) {
+      return null;
+    }
+    return new CircuitBreaker(ConnectionPoolMetrics.getConfigName(config), config);
+  }
+
+  /**
+   * @param config HTTP client configuration
+   * @return true if a circuit breaker is configured
+   */
+  public static boolean isEnabled(@NotNull HttpClientConfig config) {
+    return config.getCircuitBreakerFailureRateThreshold() > 0 || config.getCircuitBreakerSlowCallRateThreshold() > 0;
+  }
+
+  /**
+   * Applies changed thresholds, slow call duration, window size and open duration. If the window size changed,
+   * the recorded outcomes are discarded.
+   * @param config HTTP client configuration
+   */
+  public synchronized void setConfig(@NotNull HttpClientConfig config) {
+    failureRateThreshold = config.getCircuitBreakerFailureRateThreshold();
+    slowCallRateThreshold = config.getCircuitBreakerSlowCallRateThreshold();
+    slowCallDurationNanos = TimeUnit.MILLISECONDS.toNanos(config.getCircuitBreakerSlowCallDuration());
+    openDurationNanos = TimeUnit.MILLISECONDS.toNanos(config.getCircuitBreakerOpenDuration());
+    int windowSize = Math.max(1, config.getCircuitBreakerWindowSize());
+    if (outcomes == null || outcomes.length != windowSize) {
+      outcomes = new byte[windowSize];
+      resetWindow();
+    }
+  }
+
+  /**
+   * Tries to permit a call.
+   * @return Permit that has to be released after the call was completed, or null if the call is rejected
+   */
+  public @Nullable Permit tryAcquire() {
+    if (state == State.CLOSED) {
+      return new Permit(generation);
+    }
+    synchronized (this) {
+      if (state == State.OPEN) {
+        if (System.nanoTime() - openedAt < openDurationNanos) {
+          rejected.inc();
+          return null;
+        }
+        transitionTo(State.HALF_OPEN);
+      }
+      if (state == State.HALF_OPEN) {
+        if (trialPermits == 0) {
+          rejected.inc();
+          return null;
+        }
+        trialPermits--;
+      }
+      return new Permit(generation);
+    }
+  }
+
+  /**
+   * @return Current state
+   */
+  public @NotNull State getState() {
+    return state;
+  }
+
+  /**
+   * @return Percentage of failed calls within the recorded calls
+   */
+  public synchronized double getFailureRate() {
+    return recorded > 0 ? failures * 100d / recorded : 0d;
+  }
+
+  /**
+   * @return Percentage of slow calls within the recorded calls
+   */
+  public synchronized double getSlowCallRate() {
+    return recorded > 0 ? slowCalls * 100d / recorded : 0d;
+  }
+
+  /**
+   * @return Number of rejected calls
+   */
+  public long getRejectedCount() {
+    return rejected.getCount();
+  }
+
+  /**
+   * @return Name of the HTTP client configuration
+   */
+  public @NotNull String getName() {
+    return name;
+  }
+
+  /**
+   * Adds state, failure rate, slow call rate and rejected calls to the metrics of the connection pool.
+   * The state gauge reports 0 for closed, 1 for open and 2 for half open.
+   * @param connectionPoolMetrics Connection pool metrics
+   */
+  public void addMetrics(@NotNull ConnectionPoolMetrics connectionPoolMetrics) {
+    connectionPoolMetrics.addMetric(METRIC_STATE, (Gauge<Integer>)() -> state.ordinal());
+    connectionPoolMetrics.addMetric(METRIC_FAILURE_RATE, (Gauge<Double>)this::getFailureRate);
+    connectionPoolMetrics.addMetric(METRIC_SLOW_CALL_RATE, (Gauge<Double>)this::getSlowCallRate);
+    connectionPoolMetrics.addMetric(METRIC_REJECTED, rejected);
+  }
+
+  /**
+   * Registers a health check that is unhealthy while the circuit breaker is open. If another health check is
+   * already registered with the same name, a numeric suffix is appended to the base name.
+   * @param registry Health check registry
+   * @param baseName Base name of the health check
+   */
+  public synchronized void registerHealthCheck(@NotNull HealthCheckRegistry registry, @NotNull String baseName) {
+    unregisterHealthCheck();
+    String checkName = MetricRegistry.name(baseName, HEALTH_CHECK_NAME);
+    int suffix = 2;
+    while (registry.getNames().contains(checkName)) {
+      checkName = MetricRegistry.name(baseName + "_" + suffix++, HEALTH_CHECK_NAME);
+    }
+    registry.register(checkName, new CircuitBreakerHealthCheck());
+    healthCheckRegistry = registry;
+    healthCheckName = checkName;
+  }
+
+  /**
+   * Removes the health check from the registry it was registered in.
+   */
+  public synchronized void unregisterHealthCheck() {
+    if (healthCheckRegistry == null) {
+      return;
+    }
+    healthCheckRegistry.unregister(healthCheckName);
+    healthCheckRegistry = null;
+    healthCheckName = null;
+  }
+
+  /**
+   * @return Name of the registered health check, or null if not registered
+   */
+  public synchronized @Nullable String getHealthCheckName() {
+    return healthCheckName;
+  }
+
+  private synchronized void record(long permitGeneration, long durationNanos, boolean failed) {
+    if (permitGeneration != generation || state == State.OPEN) {
+      return;
+    }
+    byte outcome = 0;
+    if (failed) {
+      outcome |= OUTCOME_FAILED;
+    }
+    if (durationNanos > slowCallDurationNanos) {
+      outcome |= OUTCOME_SLOW;
+    }
+    if (recorded == outcomes.length) {
+      failures -= outcomes[position] & OUTCOME_FAILED;
+      slowCalls -= (outcomes[position] & OUTCOME_SLOW) >> 1;
+    }
+    else {
+      recorded++;
+    }
+    outcomes[position] = outcome;
+    position = (position + 1) % outcomes.length;
+    failures += outcome & OUTCOME_FAILED;
+    slowCalls += (outcome & OUTCOME_SLOW) >> 1;
+
+    if (state == State.CLOSED) {
+      if (recorded == outcomes.length && isThresholdExceeded()) {
+        transitionTo(State.OPEN);
+      }
+    }
+    else if (recorded >= getTrialCalls()) {
+      transitionTo(isThresholdExceeded() ? State.OPEN : State.CLOSED);
+    }
+  }
+
+  private synchronized void releaseTrialPermit(long permitGeneration) {
+    if (permitGeneration == generation && state == State.HALF_OPEN) {
+      trialPermits++;
+    }
+  }
+
+  private boolean isThresholdExceeded() {
+    return (failureRateThreshold > 0 && failures * 100L >= (long)failureRateThreshold * recorded)
+        || (slowCallRateThreshold > 0 && slowCalls * 100L >= (long)slowCallRateThreshold * recorded);
+  }
+
+  private int getTrialCalls() {
+    return Math.min(TRIAL_CALLS, outcomes.length);
+  }
+
+  private void transitionTo(State newState) {
+    if (newState == State.OPEN) {
+      openedAt = System.nanoTime();
+      openReason = String.format(Locale.ROOT, "failure rate %.1f%%, slow call rate %.1f%% of %d calls",
+          failures * 100d / recorded, slowCalls * 100d / recorded, recorded);
+      log.warn("Circuit breaker of HTTP client configuration '{}' opened: {}", name, openReason);
+    }
+    else if (newState == State.CLOSED) {
+      log.info("Circuit breaker of HTTP client configuration '{}' closed.", name);
+    }
+    else if (newState == State.HALF_OPEN) {
+      trialPermits = getTrialCalls();
+    }
+    state = newState;
+    generation++;
+    resetWindow();
+  }
+
+  private void resetWindow() {
+    position = 0;
+    recorded = 0;
+    failures = 0;
+    slowCalls = 0;
+  }
+
+
+  private final class CircuitBreakerHealthCheck extends HealthCheck {
+
+    @Override
+    protected Result check() {
+      State current = state;
+      if (current == State.OPEN) {
+        synchronized (CircuitBreaker.this) {
+          return Result.unhealthy("Circuit breaker of HTTP client configuration '" + name + "' is open: " + openReason);
+        }
+      }
+      return Result.healthy("Circuit breaker of HTTP client configuration '" + name + "' is "
+          + current.name().toLowerCase(Locale.ROOT).replace('_', ' ') + ".");
+    }
+
+  }
+
+
+  /**
+   * Permission of a single call. The outcome is recorded once when the response is received or the call failed,
+   * a trial permit is returned if the permit is released without recording an outcome.
+   */
+  public final class Permit {
+
+    private final long permitGeneration;
+    private final long startNanos = System.nanoTime();
+    private final AtomicBoolean completed = new AtomicBoolean();
+
+    Permit(long permitGeneration) {
+      this.permitGeneration = permitGeneration;
+    }
+
+    /**
+     * Records the outcome and duration of the call.
+     * @param failed true if the call failed with an exception or a 5xx response status
+     */
+    public void sample(boolean failed) {
+      if (completed.compareAndSet(false, true)) {
+        record(permitGeneration, System.nanoTime() - startNanos, failed);
+      }
+    }
+
+    /**
+     * Releases the permit. If no outcome was recorded (e.g. the call was cancelled), a trial permit is returned.
+     */
+    public void release() {
+      if (completed.compareAndSet(false, true)) {
+        releaseTrialPermit(permitGeneration);
+      }
+    }
+
+  }
+
+}
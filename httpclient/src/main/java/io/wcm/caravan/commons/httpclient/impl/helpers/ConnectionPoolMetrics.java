@@ -0,0 +1,269 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpclient.impl.helpers;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.HttpHost;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.pool.ConnPoolControl;
+import org.apache.http.pool.PoolStats;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+
+import io.wcm.caravan.commons.httpclient.HttpClientConfig;
+
+/**
+ * Registers gauges for leased, available, pending and max connections of a connection pool in a {@link MetricRegistry}.
+ * <p>
+ * Gauges for the whole pool are named <code>&lt;prefix&gt;.&lt;config name&gt;.total.&lt;stat&gt;</code>,
+ * gauges per route <code>&lt;prefix&gt;.&lt;config name&gt;.route.&lt;scheme_host_port&gt;.&lt;stat&gt;</code>.
+ * Routes are added and removed lazily each time the total gauges are read by a reporter.
+ * Further metrics of the HTTP client (e.g. reloads of the SSL key material) can be added and are registered
+ * below the same base name, further gauges per route are registered together with the route gauges.
+ * </p>
+ */
+public final class ConnectionPoolMetrics {
+
+  static final String LEASED = "leased";
+  static final String AVAILABLE = "available";
+  static final String PENDING = "pending";
+  static final String MAX = "max";
+  private static final String TOTAL = "total";
+  private static final String ROUTE = "route";
+  private static final String DEFAULT_NAME = "default";
+
+  private final String prefix;
+  private String configName;
+  private final ConnPoolControl<HttpRoute> pool;
+  private final Supplier<Set<HttpRoute>> routes;
+
+  private MetricRegistry registry;
+  private String baseName;
+  private final Set<String> routeNames = new HashSet<>();
+  private final Map<String, Metric> additionalMetrics = new LinkedHashMap<>();
+  private final Map<String, Function<HttpRoute, Gauge<?>>> additionalRouteGauges = new LinkedHashMap<>();
+
+  /**
+   * @param prefix Metric name prefix
+   * @param config HTTP client configuration
+   * @param pool Connection pool
+   * @param routes Returns the routes currently managed by the pool
+   */
+  public ConnectionPoolMetrics(@NotNull String prefix, @NotNull HttpClientConfig config,
+      @NotNull ConnPoolControl<HttpRoute> pool, @NotNull Supplier<Set<HttpRoute>> routes) {
+    this.prefix = prefix;
+    this.configName = getConfigName(config);
+    this.pool = pool;
+    this.routes = routes;
+  }
+
+  /**
+   * Registers the total gauges in the given registry. If another pool is already registered with the same
+   * config name, a numeric suffix is appended.
+   * @param metricRegistry Metric registry
+   */
+  public synchronized void register(@NotNull MetricRegistry metricRegistry) {
+    unregister();
+    registry = metricRegistry;
+    baseName = MetricRegistry.name(prefix, configName);
+    int suffix = 2;
+    while (registry.getNames().contains(MetricRegistry.name(baseName, TOTAL, MAX))) {
+      baseName = MetricRegistry.name(prefix, configName + "_" + suffix++);
+    }
+    registerGauges(MetricRegistry.name(baseName, TOTAL), null);
+    additionalMetrics.forEach((name, metric) -> registry.register(MetricRegistry.name(baseName, name), metric));
+  }
+
+  /**
+   * Adds a metric that is registered together with the pool gauges.
+   * @param name Metric name relative to the base name
+   * @param metric Metric
+   */
+  public synchronized void addMetric(@NotNull String name, @NotNull Metric metric) {
+    additionalMetrics.put(name, metric);
+    if (registry != null) {
+      registry.register(MetricRegistry.name(baseName, name), metric);
+    }
+  }
+
+  /**
+   * Adds a gauge that is registered for each route of the pool.
+   * @param name Gauge name relative to the route name
+   * @param gaugeFactory Creates the gauge for a route
+   */
+  public synchronized void addRouteGauge(@NotNull String name, @NotNull Function<HttpRoute, Gauge<?>> gaugeFactory) {
+    additionalRouteGauges.put(name, gaugeFactory);
+    if (registry != null) {
+      // register again to add the gauge to all routes already registered
+      register(registry);
+    }
+  }
+
+  /**
+   * Updates the config name used in the metric names after the HTTP client was reconfigured.
+   * If the name changed, the gauges are registered again with the new name.
+   * @param config HTTP client configuration
+   */
+  public synchronized void setConfig(@NotNull HttpClientConfig config) {
+    String newConfigName = getConfigName(config);
+    if (newConfigName.equals(configName)) {
+      return;
+    }
+    configName = newConfigName;
+    if (registry != null) {
+      register(registry);
+    }
+  }
+
+  /**
+   * Removes all gauges from the registry they were registered in.
+   */
+  public synchronized void unregister() {
+    if (registry == null) {
+      return;
+    }
+    for (String routeName : routeNames) {
+      removeGauges(routeName);
+    }
+    routeNames.clear();
+    removeGauges(MetricRegistry.name(baseName, TOTAL));
+    for (String name : additionalMetrics.keySet()) {
+      registry.remove(MetricRegistry.name(baseName, name));
+    }
+    registry = null;
+    baseName = null;
+  }
+
+  /**
+   * @return Base name of the gauges, or null if not registered
+   */
+  public synchronized @Nullable String getBaseName() {
+    return baseName;
+  }
+
+  /**
+   * Adds gauges for new routes of the pool and removes gauges of routes no longer managed by the pool.
+   */
+  public synchronized void refreshRoutes() {
+    if (registry == null) {
+      return;
+    }
+    Set<String> currentRouteNames = new HashSet<>();
+    for (HttpRoute route : routes.get()) {
+      String routeName = MetricRegistry.name(baseName, ROUTE, toMetricName(route.getTargetHost()));
+      currentRouteNames.add(routeName);
+      if (routeNames.add(routeName)) {
+        registerGauges(routeName, route);
+      }
+    }
+    Iterator<String> routeNamesIterator = routeNames.iterator();
+    while (routeNamesIterator.hasNext()) {
+      String routeName = routeNamesIterator.next();
+      if (!currentRouteNames.contains(routeName)) {
+        removeGauges(routeName);
+        routeNamesIterator.remove();
+      }
+    }
+  }
+
+  private void registerGauges(String name, @Nullable HttpRoute route) {
+    if (route == null) {
+      // refresh routes whenever a reporter reads the pool totals
+      registry.register(MetricRegistry.name(name, LEASED), (Gauge<Integer>)() -> {
+        refreshRoutes();
+        return pool.getTotalStats().getLeased();
+      });
+    }
+    else {
+      registry.register(MetricRegistry.name(name, LEASED), (Gauge<Integer>)() -> getStats(route).getLeased());
+      additionalRouteGauges.forEach((gaugeName, gaugeFactory) -> registry.register(MetricRegistry.name(name, gaugeName),
+          gaugeFactory.apply(route)));
+    }
+    registry.register(MetricRegistry.name(name, AVAILABLE), (Gauge<Integer>)() -> getStats(route).getAvailable());
+    registry.register(MetricRegistry.name(name, PENDING), (Gauge<Integer>)() -> getStats(route).getPending());
+    registry.register(MetricRegistry.name(name, MAX), (Gauge<Integer>)() -> getStats(route).getMax());
+  }
+
+  private void removeGauges(String name) {
+    registry.remove(MetricRegistry.name(name, LEASED));
+    registry.remove(MetricRegistry.name(name, AVAILABLE));
+    registry.remove(MetricRegistry.name(name, PENDING));
+    registry.remove(MetricRegistry.name(name, MAX));
+    for (String gaugeName : additionalRouteGauges.keySet()) {
+      registry.remove(MetricRegistry.name(name, gaugeName));
+    }
+  }
+
+  private PoolStats getStats(@Nullable HttpRoute route) {
+    return route != null ? pool.getStats(route) : pool.getTotalStats();
+  }
+
+  /**
+   * Gets the name of the configuration used in metric names: The configured name, or the host patterns without
+   * regular expression escaping.
+   * @param config HTTP client configuration
+   * @return Name safe to use as part of a metric name
+   */
+  public static @NotNull String getConfigName(@NotNull HttpClientConfig config) {
+    String name = config.getName();
+    if (StringUtils.isBlank(name)) {
+      name = StringUtils.remove(StringUtils.join(config.getHostPatterns(), "_"), '\\');
+    }
+    if (StringUtils.isBlank(name)) {
+      name = DEFAULT_NAME;
+    }
+    return toMetricName(name);
+  }
+
+  private static String toMetricName(HttpHost host) {
+    return toMetricName(host.getSchemeName() + "_" + host.getHostName() + "_" + host.getPort());
+  }
+
+  /**
+   * Replaces all characters except letters, digits, hyphen and underscore with an underscore, so the name
+   * does not introduce additional hierarchy levels e.g. in Graphite.
+   */
+  private static String toMetricName(String value) {
+    StringBuilder result = new StringBuilder(value.length());
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '-' || c == '_') {
+        result.append(c);
+      }
+      else {
+        result.append('_');
+      }
+    }
+    return result.toString();
+  }
+
+}
@@ -0,0 +1,328 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpclient.impl.helpers;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.Header;
+import org.apache.http.HeaderElement;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.entity.DecompressingEntity;
+import org.apache.http.client.entity.DeflateInputStreamFactory;
+import org.apache.http.client.entity.InputStreamFactory;
+import org.brotli.dec.BrotliInputStream;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.RatioGauge;
+
+import io.wcm.caravan.commons.httpclient.HttpClientConfig;
+
+/**
+ * Content codings accepted by an HTTP client configuration, and the decoders for the responses.
+ * <p>
+ * Response entities are decompressed incrementally, so no client holds a compressed and a decompressed copy of the
+ * whole body. The sync client decompresses the content while the caller reads it. The async client decompresses gzip
+ * and deflate content while it is received, and buffers only Brotli compressed bodies as a whole before they are
+ * decompressed while the caller reads them. The compressed bytes read from the connection and the decompressed bytes
+ * returned to the caller are counted for the metrics of the connection pool.
+ * </p>
+ * <p>
+ * Brotli is only supported if the optional <code>org.brotli:dec</code> library is available at runtime.
+ * </p>
+ */
+public final class ContentDecoding {
+
+  static final String METRIC_COMPRESSED_BYTES = "contentencoding.compressedbytes";
+  static final String METRIC_UNCOMPRESSED_BYTES = "contentencoding.uncompressedbytes";
+  static final String METRIC_RATIO = "contentencoding.ratio";
+
+  /**
+   * gzip content coding
+   */
+  public static final String GZIP = "gzip";
+
+  /**
+   * deflate content coding
+   */
+  public static final String DEFLATE = "deflate";
+
+  /**
+   * Brotli content coding
+   */
+  public static final String BROTLI = "br";
+
+  /**
+   * Size of the input buffer of the gzip decoder, the JDK default of 512 bytes causes many small inflate calls.
+   */
+  static final int GZIP_BUFFER_SIZE = 8192;
+
+  private static final boolean BROTLI_AVAILABLE = detectBrotli();
+
+  private static final Logger log = LoggerFactory.getLogger(ContentDecoding.class);
+
+  private final Counter compressedBytes = new Counter();
+  private final Counter uncompressedBytes = new Counter();
+  private final Map<String, InputStreamFactory> decoders;
+  private final String acceptEncoding;
+
+  /**
+   * @param encodings Accepted content codings, unsupported codings are ignored
+   */
+  public ContentDecoding(@NotNull Collection<String> encodings) {
+    Map<String, InputStreamFactory> decoderMap = new LinkedHashMap<>();
+    for (String encoding : encodings) {
+      String name = StringUtils.lowerCase(StringUtils.trim(encoding), Locale.ROOT);
+      InputStreamFactory decoder = getDecoder(name);
+      if (decoder != null) {
+        decoderMap.put(name, countingDecoder(decoder));
+      }
+      else if (StringUtils.isNotEmpty(name)) {
+        log.warn("Unsupported content coding '{}' is ignored.", name);
+      }
+    }
+    this.decoders = Collections.unmodifiableMap(decoderMap);
+    this.acceptEncoding = StringUtils.join(decoderMap.keySet(), ",");
+  }
+
+  /**
+   * @param config HTTP client configuration
+   * @return Content decoding or null if no supported content coding is accepted
+   */
+  public static @Nullable ContentDecoding create(@NotNull HttpClientConfig config) {
+    ContentDecoding contentDecoding = new ContentDecoding(config.getAcceptEncodings());
+    if (contentDecoding.decoders.isEmpty()) {
+      return null;
+    }
+    return contentDecoding;
+  }
+
+  /**
+   * @return true if the Brotli decoder library is available
+   */
+  public static boolean isBrotliAvailable() {
+    return BROTLI_AVAILABLE;
+  }
+
+  private static boolean detectBrotli() {
+    try {
+      Class.forName("org.brotli.dec.BrotliInputStream", false, ContentDecoding.class.getClassLoader());
+      return true;
+    }
+    catch (ClassNotFoundException | LinkageError ex) {
+      return false;
+    }
+  }
+
+  private static @Nullable InputStreamFactory getDecoder(String encoding) {
+    if (GZIP.equals(encoding)) {
+      return in -> new GZIPInputStream(in, GZIP_BUFFER_SIZE);
+    }
+    if (DEFLATE.equals(encoding)) {
+      return DeflateInputStreamFactory.getInstance();
+    }
+    if (BROTLI.equals(encoding) && BROTLI_AVAILABLE) {
+      return BrotliDecoder.INSTANCE;
+    }
+    return null;
+  }
+
+  private InputStreamFactory countingDecoder(InputStreamFactory decoder) {
+    return in -> new CountingInputStream(decoder.create(new CountingInputStream(in, compressedBytes)), uncompressedBytes);
+  }
+
+  /**
+   * @return Accepted content codings that are supported
+   */
+  public @NotNull List<String> getEncodings() {
+    return new ArrayList<>(decoders.keySet());
+  }
+
+  /**
+   * @return Value of the Accept-Encoding header
+   */
+  public @NotNull String getAcceptEncoding() {
+    return acceptEncoding;
+  }
+
+  /**
+   * @return Decoders by content coding for the content decoder registry of the sync HTTP client builder
+   */
+  public @NotNull Map<String, InputStreamFactory> getDecoders() {
+    return decoders;
+  }
+
+  /**
+   * Replaces the entity of a response with a supported content coding by an entity decompressing the content
+   * while it is read, and removes the headers describing the compressed content.
+   * @param response Response
+   */
+  public void decode(@NotNull HttpResponse response) {
+    String coding = getContentCoding(response);
+    if (coding == null) {
+      return;
+    }
+    response.setEntity(new DecompressingEntity(response.getEntity(), decoders.get(coding)));
+    removeEncodingHeaders(response);
+  }
+
+  /**
+   * @param response Response
+   * @return Supported content coding of the response entity, or null if the entity is not decoded
+   */
+  public @Nullable String getContentCoding(@NotNull HttpResponse response) {
+    HttpEntity entity = response.getEntity();
+    if (entity == null || entity.getContentLength() == 0) {
+      return null;
+    }
+    Header contentEncoding = entity.getContentEncoding();
+    if (contentEncoding == null) {
+      return null;
+    }
+    HeaderElement[] codings = contentEncoding.getElements();
+    if (codings.length != 1) {
+      // multiple codings are not applied by servers in practice
+      return null;
+    }
+    String coding = codings[0].getName().toLowerCase(Locale.ROOT);
+    if (!decoders.containsKey(coding)) {
+      return null;
+    }
+    return coding;
+  }
+
+  /**
+   * Removes the headers describing the compressed content from a decoded response.
+   * @param response Response
+   */
+  public static void removeEncodingHeaders(@NotNull HttpResponse response) {
+    response.removeHeaders(HttpHeaders.CONTENT_LENGTH);
+    response.removeHeaders(HttpHeaders.CONTENT_ENCODING);
+    response.removeHeaders("Content-MD5");
+  }
+
+  /**
+   * Counts content that is decompressed without the decoders of this instance.
+   * @param compressed Number of compressed bytes read from the connection
+   * @param uncompressed Number of decompressed bytes returned to the caller
+   */
+  public void countDecodedBytes(long compressed, long uncompressed) {
+    compressedBytes.inc(compressed);
+    uncompressedBytes.inc(uncompressed);
+  }
+
+  /**
+   * @return Number of compressed bytes read from responses
+   */
+  public long getCompressedBytes() {
+    return compressedBytes.getCount();
+  }
+
+  /**
+   * @return Number of decompressed bytes returned to the callers
+   */
+  public long getUncompressedBytes() {
+    return uncompressedBytes.getCount();
+  }
+
+  /**
+   * Adds compressed and decompressed bytes and the compression ratio to the metrics of the connection pool.
+   * @param connectionPoolMetrics Connection pool metrics
+   */
+  public void addMetrics(@NotNull ConnectionPoolMetrics connectionPoolMetrics) {
+    connectionPoolMetrics.addMetric(METRIC_COMPRESSED_BYTES, compressedBytes);
+    connectionPoolMetrics.addMetric(METRIC_UNCOMPRESSED_BYTES, uncompressedBytes);
+    connectionPoolMetrics.addMetric(METRIC_RATIO, new RatioGauge() {
+      @Override
+      protected Ratio getRatio() {
+        return Ratio.of(compressedBytes.getCount(), uncompressedBytes.getCount());
+      }
+    });
+  }
+
+
+  /**
+   * Only loaded if the Brotli library is available.
+   */
+  private static final class BrotliDecoder implements InputStreamFactory {
+
+    static final InputStreamFactory INSTANCE = new BrotliDecoder();
+
+    @Override
+    public InputStream create(InputStream in) throws IOException {
+      return new BrotliInputStream(in);
+    }
+
+  }
+
+
+  private static final class CountingInputStream extends FilterInputStream {
+
+    private final Counter counter;
+
+    CountingInputStream(InputStream in, Counter counter) {
+      super(in);
+      this.counter = counter;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int value = super.read();
+      if (value >= 0) {
+        counter.inc();
+      }
+      return value;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int count = super.read(b, off, len);
+      if (count > 0) {
+        counter.inc(count);
+      }
+      return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      long count = super.skip(n);
+      counter.inc(count);
+      return count;
+    }
+
+  }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpclient.impl.helpers;
+
+import java.util.Objects;
+
+import org.jetbrains.annotations.NotNull;
+
+import io.wcm.caravan.commons.httpclient.HttpClientConfig;
+
+/**
+ * Compares HTTP client configurations to decide whether existing HTTP clients can be reconfigured in place.
+ * <p>
+ * Pool sizes, timeouts, cookie spec, eviction settings, name and matching rules can be applied to a running
+ * client without dropping the pooled connections. Changes of SSL settings, credentials, proxy settings,
+ * IO reactor settings, pipelining mode, the connection time to live, or enabling or disabling the admission limit,
+ * adaptive concurrency limit, hedging, circuit breaker, bulkhead, retry policy or request coalescing, and changes of
+ * the accepted content codings require building a new client.
+ * </p>
+ */
+public final class HttpClientConfigChange {
+
+  private HttpClientConfigChange() {
+    // static methods only
+  }
+
+  /**
+   * @param oldConfig Configuration the HTTP client was built with
+   * @param newConfig New configuration
+   * @return true if the new configuration can be applied to the existing HTTP client
+   */
+  public static boolean isReconfigurable(@NotNull HttpClientConfig oldConfig, @NotNull HttpClientConfig newConfig) {
+    return oldConfig.getConnectionTimeToLive() == newConfig.getConnectionTimeToLive()
+        // admission limit of sync client
+        && (oldConfig.getMaxConcurrentRequests() > 0) == (newConfig.getMaxConcurrentRequests() > 0)
+        // adaptive concurrency limit
+        && oldConfig.isAdaptiveConcurrencyLimit() == newConfig.isAdaptiveConcurrencyLimit()
+        // circuit breaker and bulkhead
+        && CircuitBreaker.isEnabled(oldConfig) == CircuitBreaker.isEnabled(newConfig)
+        && (oldConfig.getBulkheadMaxConcurrentCalls() > 0) == (newConfig.getBulkheadMaxConcurrentCalls() > 0)
+        // retry policy replaces the retry handler of the sync client
+        && RetryPolicy.isEnabled(oldConfig) == RetryPolicy.isEnabled(newConfig)
+        // request coalescer
+        && RequestCoalescer.isEnabled(oldConfig) == RequestCoalescer.isEnabled(newConfig)
+        // content decoders
+        && Objects.equals(oldConfig.getAcceptEncodings(), newConfig.getAcceptEncodings())
+        // credentials
+        && Objects.equals(oldConfig.getHttpUser(), newConfig.getHttpUser())
+        && Objects.equals(oldConfig.getHttpPassword(), newConfig.getHttpPassword())
+        // proxy
+        && Objects.equals(oldConfig.getProxyHost(), newConfig.getProxyHost())
+        && oldConfig.getProxyPort() == newConfig.getProxyPort()
+        && Objects.equals(oldConfig.getProxyUser(), newConfig.getProxyUser())
+        && Objects.equals(oldConfig.getProxyPassword(), newConfig.getProxyPassword())
+        // SSL context
+        && Objects.equals(oldConfig.getSslContextType(), newConfig.getSslContextType())
+        && Objects.equals(oldConfig.getKeyManagerType(), newConfig.getKeyManagerType())
+        && Objects.equals(oldConfig.getKeyStoreType(), newConfig.getKeyStoreType())
+        && Objects.equals(oldConfig.getKeyStoreProvider(), newConfig.getKeyStoreProvider())
+        && Objects.equals(oldConfig.getKeyStorePath(), newConfig.getKeyStorePath())
+        && Objects.equals(oldConfig.getKeyStorePassword(), newConfig.getKeyStorePassword())
+        && Objects.equals(oldConfig.getTrustManagerType(), newConfig.getTrustManagerType())
+        && Objects.equals(oldConfig.getTrustStoreType(), newConfig.getTrustStoreType())
+        && Objects.equals(oldConfig.getTrustStoreProvider(), newConfig.getTrustStoreProvider())
+        && Objects.equals(oldConfig.getTrustStorePath(), newConfig.getTrustStorePath())
+        && Objects.equals(oldConfig.getTrustStorePassword(), newConfig.getTrustStorePassword())
+        && oldConfig.getStoreReloadInterval() == newConfig.getStoreReloadInterval()
+        && oldConfig.getSslSessionCacheSize() == newConfig.getSslSessionCacheSize()
+        && oldConfig.getSslSessionTimeout() == newConfig.getSslSessionTimeout()
+        // IO reactor of async client
+        && oldConfig.getIoThreadCount() == newConfig.getIoThreadCount()
+        && oldConfig.getSndBufSize() == newConfig.getSndBufSize()
+        && oldConfig.getRcvBufSize() == newConfig.getRcvBufSize()
+        && Objects.equals(oldConfig.getTcpNoDelay(), newConfig.getTcpNoDelay())
+        && oldConfig.getSoLinger() == newConfig.getSoLinger()
+        && oldConfig.getBacklogSize() == newConfig.getBacklogSize()
+        && oldConfig.isPipelining() == newConfig.isPipelining()
+        && (oldConfig.getHedgeDelay() > 0) == (newConfig.getHedgeDelay() > 0);
+  }
+
+}
@@ -0,0 +1,144 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpclient.impl.helpers;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Evicts expired and idle connections of all connection pools with a single background thread.
+ * <p>
+ * The thread is started when the first eviction task is registered and stopped when the last one is
+ * cancelled, so no thread is left running when all HTTP clients are closed.
+ * </p>
+ */
+public final class IdleConnectionEvictor {
+
+  static final String THREAD_NAME = "caravan-http-connection-evictor";
+
+  private static final IdleConnectionEvictor INSTANCE = new IdleConnectionEvictor();
+
+  private ScheduledThreadPoolExecutor executor;
+  private int registrationCount;
+
+  private static final Logger log = LoggerFactory.getLogger(IdleConnectionEvictor.class);
+
+  IdleConnectionEvictor() {
+    // use shared instance
+  }
+
+  /**
+   * @return Evictor shared by all HTTP clients
+   */
+  public static @NotNull IdleConnectionEvictor getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Registers an eviction task that is executed periodically until the registration is cancelled.
+   * @param evictionTask Closes expired and idle connections of a connection pool
+   * @param intervalMs Interval in ms
+   * @return Registration
+   */
+  public synchronized @NotNull Registration register(@NotNull Runnable evictionTask, long intervalMs) {
+    if (intervalMs <= 0) {
+      throw new IllegalArgumentException("Invalid eviction interval: " + intervalMs);
+    }
+    if (executor == null) {
+      executor = new ScheduledThreadPoolExecutor(1, new EvictorThreadFactory());
+      executor.setRemoveOnCancelPolicy(true);
+    }
+    registrationCount++;
+    ScheduledFuture<?> future = executor.scheduleWithFixedDelay(() -> runSafely(evictionTask),
+        intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    return new Registration(future);
+  }
+
+  /**
+   * @return true if the background thread is running
+   */
+  public synchronized boolean isRunning() {
+    return executor != null;
+  }
+
+  private synchronized void cancel(ScheduledFuture<?> future) {
+    future.cancel(false);
+    registrationCount--;
+    if (registrationCount == 0) {
+      executor.shutdown();
+      executor = null;
+    }
+  }
+
+  private static void runSafely(Runnable evictionTask) {
+    try {
+      evictionTask.run();
+    }
+    catch (RuntimeException ex) {
+      // a failing task would be suppressed from further executions otherwise
+      log.warn("Error evicting connections.", ex);
+    }
+  }
+
+
+  /**
+   * Registration of an eviction task.
+   */
+  public final class Registration {
+
+    private ScheduledFuture<?> future;
+
+    Registration(ScheduledFuture<?> future) {
+      this.future = future;
+    }
+
+    /**
+     * Stops executing the eviction task. Calling this method more than once has no effect.
+     */
+    public void cancel() {
+      synchronized (IdleConnectionEvictor.this) {
+        if (future != null) {
+          IdleConnectionEvictor.this.cancel(future);
+          future = null;
+        }
+      }
+    }
+
+  }
+
+
+  private static final class EvictorThreadFactory implements ThreadFactory {
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, THREAD_NAME);
+      thread.setDaemon(true);
+      return thread;
+    }
+
+  }
+
+}
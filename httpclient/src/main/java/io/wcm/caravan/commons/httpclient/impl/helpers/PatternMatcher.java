@@ -0,0 +1,310 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpclient.impl.helpers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Matches a string against a set of regular expressions with the same result as calling
+ * {@link Matcher#matches()} for each pattern, but without evaluating each pattern on its own.
+ * <p>
+ * Patterns that consist of a literal with optional leading and trailing <code>.*</code> or <code>.+</code>
+ * wildcards (e.g. <code>host1</code>, <code>/path/.*</code>, <code>.*\.example\.com</code>) are matched as exact,
+ * prefix, suffix or "contains" string comparisons. All other patterns are combined into a single alternation.
+ * Only this rare regex fallback allocates a matcher per call, matching the literal patterns does not allocate
+ * any objects.
+ * </p>
+ */
+public final class PatternMatcher {
+
+  private static final PatternMatcher EMPTY = new PatternMatcher(new HashSet<>(), new ArrayList<>(), new ArrayList<>());
+
+  private final Set<String> exactLiterals;
+  private final WildcardLiteral[] wildcardLiterals;
+  private final Pattern[] regexPatterns;
+  private final boolean empty;
+
+  private PatternMatcher(Set<String> exactLiterals, List<WildcardLiteral> wildcardLiterals, List<Pattern> regexPatterns) {
+    this.exactLiterals = exactLiterals;
+    this.wildcardLiterals = wildcardLiterals.toArray(new WildcardLiteral[0]);
+    this.regexPatterns = regexPatterns.toArray(new Pattern[0]);
+    this.empty = exactLiterals.isEmpty() && wildcardLiterals.isEmpty() && regexPatterns.isEmpty();
+  }
+
+  /**
+   * Builds a matcher for the given patterns.
+   * @param patterns Compiled patterns
+   * @return Pattern matcher
+   */
+  public static @NotNull PatternMatcher compile(@NotNull Collection<Pattern> patterns) {
+    if (patterns.isEmpty()) {
+      return EMPTY;
+    }
+    Set<String> exactLiterals = new HashSet<>();
+    List<WildcardLiteral> wildcardLiterals = new ArrayList<>();
+    List<Pattern> regexPatterns = new ArrayList<>();
+    for (Pattern pattern : patterns) {
+      WildcardLiteral literal = pattern.flags() == 0 ? WildcardLiteral.parse(pattern.pattern()) : null;
+      if (literal == null) {
+        regexPatterns.add(pattern);
+      }
+      else if (literal.isExact()) {
+        exactLiterals.add(literal.literal);
+      }
+      else {
+        wildcardLiterals.add(literal);
+      }
+    }
+    return new PatternMatcher(exactLiterals, wildcardLiterals, combine(regexPatterns));
+  }
+
+  /**
+   * @return true if no patterns are defined
+   */
+  public boolean isEmpty() {
+    return empty;
+  }
+
+  /**
+   * @param input Input string
+   * @return true if at least one of the patterns matches the whole input string
+   */
+  public boolean matches(@NotNull String input) {
+    if (exactLiterals.contains(input)) {
+      return true;
+    }
+    // wildcards do not match line terminators, and literals never contain them
+    if (wildcardLiterals.length > 0 && !containsLineTerminator(input)) {
+      for (WildcardLiteral literal : wildcardLiterals) {
+        if (literal.matches(input)) {
+          return true;
+        }
+      }
+    }
+    for (Pattern pattern : regexPatterns) {
+      if (pattern.matcher(input).matches()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Combines all patterns that can be safely embedded in an alternation into a single pattern.
+   * Patterns with flags, inline flags, quotes, named groups or back references are kept as they are,
+   * as they could change the meaning of the other alternatives.
+   */
+  private static List<Pattern> combine(List<Pattern> patterns) {
+    List<Pattern> result = new ArrayList<>();
+    List<Pattern> combinable = new ArrayList<>();
+    for (Pattern pattern : patterns) {
+      if (isCombinable(pattern)) {
+        combinable.add(pattern);
+      }
+      else {
+        result.add(pattern);
+      }
+    }
+    if (combinable.size() == 1) {
+      result.add(0, combinable.get(0));
+    }
+    else if (combinable.size() > 1) {
+      StringBuilder alternation = new StringBuilder();
+      for (Pattern pattern : combinable) {
+        if (alternation.length() > 0) {
+          alternation.append('|');
+        }
+        alternation.append("(?:").append(pattern.pattern()).append(')');
+      }
+      result.add(0, Pattern.compile(alternation.toString()));
+    }
+    return result;
+  }
+
+  static boolean isCombinable(Pattern pattern) {
+    if (pattern.flags() != 0) {
+      return false;
+    }
+    String regex = pattern.pattern();
+    for (int i = 0; i < regex.length(); i++) {
+      char c = regex.charAt(i);
+      if (c == '\\') {
+        char next = i + 1 < regex.length() ? regex.charAt(i + 1) : 0;
+        if ((next >= '0' && next <= '9') || next == 'k' || next == 'Q') {
+          // back reference or quote
+          return false;
+        }
+        i++;
+      }
+      else if (c == '(' && i + 2 < regex.length() && regex.charAt(i + 1) == '?') {
+        char groupType = regex.charAt(i + 2);
+        if (groupType == '<' && i + 3 < regex.length() && Character.isLetter(regex.charAt(i + 3))) {
+          // named group
+          return false;
+        }
+        if ("idmsuxU-".indexOf(groupType) >= 0) {
+          // inline flags
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Line terminators as defined by {@link Pattern}, which are not matched by <code>.</code> without DOTALL flag.
+   */
+  private static boolean containsLineTerminator(String input) {
+    for (int i = 0; i < input.length(); i++) {
+      char c = input.charAt(i);
+      if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+        return true;
+      }
+    }
+    return false;
+  }
+
+
+  /**
+   * Literal string with optional wildcards before and after it.
+   */
+  static final class WildcardLiteral {
+
+    private final String literal;
+    // min. number of characters matched by the leading wildcard, or -1 if there is no leading wildcard
+    private final int leading;
+    // min. number of characters matched by the trailing wildcard, or -1 if there is no trailing wildcard
+    private final int trailing;
+
+    private WildcardLiteral(String literal, int leading, int trailing) {
+      this.literal = literal;
+      this.leading = leading;
+      this.trailing = trailing;
+    }
+
+    boolean isExact() {
+      return leading < 0 && trailing < 0;
+    }
+
+    /**
+     * @param input Input without line terminators
+     */
+    boolean matches(String input) {
+      if (leading < 0) {
+        // prefix
+        return input.startsWith(literal) && input.length() - literal.length() >= trailing;
+      }
+      if (trailing < 0) {
+        // suffix
+        return input.endsWith(literal) && input.length() - literal.length() >= leading;
+      }
+      // contains - the first occurrence leaves most characters for the trailing wildcard
+      if (input.length() < leading + literal.length() + trailing) {
+        return false;
+      }
+      int index = input.indexOf(literal, leading);
+      return index >= 0 && input.length() - index - literal.length() >= trailing;
+    }
+
+    /**
+     * Parses a regular expression consisting of <code>^</code>, leading <code>.*</code> or <code>.+</code>,
+     * a literal with escaped special characters, trailing <code>.*</code> or <code>.+</code>, <code>$</code>.
+     * @param regex Regular expression
+     * @return Wildcard literal or null if the expression contains other constructs
+     */
+    static @Nullable WildcardLiteral parse(String regex) {
+      int start = 0;
+      int end = regex.length();
+      // anchors are redundant when the whole input has to match
+      if (start < end && regex.charAt(start) == '^') {
+        start++;
+      }
+      if (end > start && regex.charAt(end - 1) == '$' && !isEscaped(regex, end - 1)) {
+        end--;
+      }
+      int leading = -1;
+      if (isWildcard(regex, start, end)) {
+        leading = regex.charAt(start + 1) == '+' ? 1 : 0;
+        start += 2;
+      }
+      int trailing = -1;
+      if (end - 2 >= start && isWildcard(regex, end - 2, end) && !isEscaped(regex, end - 2)) {
+        trailing = regex.charAt(end - 1) == '+' ? 1 : 0;
+        end -= 2;
+      }
+
+      StringBuilder literal = new StringBuilder(end - start);
+      for (int i = start; i < end; i++) {
+        char c = regex.charAt(i);
+        if (c == '\\') {
+          if (i + 1 >= end || !isEscapableLiteral(regex.charAt(i + 1))) {
+            return null;
+          }
+          literal.append(regex.charAt(++i));
+        }
+        else if (isPlainLiteral(c)) {
+          literal.append(c);
+        }
+        else {
+          return null;
+        }
+      }
+      return new WildcardLiteral(literal.toString(), leading, trailing);
+    }
+
+    private static boolean isWildcard(String regex, int start, int end) {
+      return end - start >= 2 && regex.charAt(start) == '.'
+          && (regex.charAt(start + 1) == '*' || regex.charAt(start + 1) == '+')
+          // possessive or reluctant quantifiers are not supported
+          && !(end - start > 2 && (regex.charAt(start + 2) == '+' || regex.charAt(start + 2) == '?'));
+    }
+
+    private static boolean isEscaped(String regex, int index) {
+      int backslashes = 0;
+      for (int i = index - 1; i >= 0 && regex.charAt(i) == '\\'; i--) {
+        backslashes++;
+      }
+      return backslashes % 2 == 1;
+    }
+
+    private static boolean isPlainLiteral(char c) {
+      return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+          || "-_/:@,=%&~;!'\"<>#".indexOf(c) >= 0;
+    }
+
+    /**
+     * Non-alphanumeric ASCII characters are matched literally when escaped with a backslash.
+     */
+    private static boolean isEscapableLiteral(char c) {
+      return c > ' ' && c < 0x7f && !Character.isLetterOrDigit(c);
+    }
+
+  }
+
+}
@@ -0,0 +1,101 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpclient.impl.helpers;
+
+import java.net.Socket;
+import java.security.Principal;
+import java.security.PrivateKey;
+import java.security.cert.X509Certificate;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.X509ExtendedKeyManager;
+import javax.net.ssl.X509KeyManager;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Key manager delegating to a key manager that can be replaced at runtime. New TLS handshakes use the key
+ * material of the current delegate, established connections are not affected.
+ */
+final class ReloadingX509KeyManager extends X509ExtendedKeyManager {
+
+  private volatile X509KeyManager delegate;
+
+  ReloadingX509KeyManager(@NotNull X509KeyManager delegate) {
+    this.delegate = delegate;
+  }
+
+  X509KeyManager getDelegate() {
+    return delegate;
+  }
+
+  void setDelegate(@NotNull X509KeyManager delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public String[] getClientAliases(String keyType, Principal[] issuers) {
+    return delegate.getClientAliases(keyType, issuers);
+  }
+
+  @Override
+  public String chooseClientAlias(String[] keyType, Principal[] issuers, Socket socket) {
+    return delegate.chooseClientAlias(keyType, issuers, socket);
+  }
+
+  @Override
+  public String[] getServerAliases(String keyType, Principal[] issuers) {
+    return delegate.getServerAliases(keyType, issuers);
+  }
+
+  @Override
+  public String chooseServerAlias(String keyType, Principal[] issuers, Socket socket) {
+    return delegate.chooseServerAlias(keyType, issuers, socket);
+  }
+
+  @Override
+  public X509Certificate[] getCertificateChain(String alias) {
+    return delegate.getCertificateChain(alias);
+  }
+
+  @Override
+  public PrivateKey getPrivateKey(String alias) {
+    return delegate.getPrivateKey(alias);
+  }
+
+  @Override
+  public String chooseEngineClientAlias(String[] keyType, Principal[] issuers, SSLEngine engine) {
+    X509KeyManager current = delegate;
+    if (current instanceof X509ExtendedKeyManager) {
+      return ((X509ExtendedKeyManager)current).chooseEngineClientAlias(keyType, issuers, engine);
+    }
+    return current.chooseClientAlias(keyType, issuers, null);
+  }
+
+  @Override
+  public String chooseEngineServerAlias(String keyType, Principal[] issuers, SSLEngine engine) {
+    X509KeyManager current = delegate;
+    if (current instanceof X509ExtendedKeyManager) {
+      return ((X509ExtendedKeyManager)current).chooseEngineServerAlias(keyType, issuers, engine);
+    }
+    return current.chooseServerAlias(keyType, issuers, null);
+  }
+
+}
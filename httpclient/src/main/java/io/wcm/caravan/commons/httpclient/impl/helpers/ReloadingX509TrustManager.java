@@ -0,0 +1,111 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpclient.impl.helpers;
+
+import java.net.Socket;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.X509ExtendedTrustManager;
+import javax.net.ssl.X509TrustManager;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Trust manager delegating to a trust manager that can be replaced at runtime. New TLS handshakes are verified
+ * against the trust material of the current delegate, established connections are not affected.
+ */
+final class ReloadingX509TrustManager extends X509ExtendedTrustManager {
+
+  private volatile X509TrustManager delegate;
+
+  ReloadingX509TrustManager(@NotNull X509TrustManager delegate) {
+    this.delegate = delegate;
+  }
+
+  X509TrustManager getDelegate() {
+    return delegate;
+  }
+
+  void setDelegate(@NotNull X509TrustManager delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public void checkClientTrusted(X509Certificate[] chain, String authType) throws CertificateException {
+    delegate.checkClientTrusted(chain, authType);
+  }
+
+  @Override
+  public void checkServerTrusted(X509Certificate[] chain, String authType) throws CertificateException {
+    delegate.checkServerTrusted(chain, authType);
+  }
+
+  @Override
+  public X509Certificate[] getAcceptedIssuers() {
+    return delegate.getAcceptedIssuers();
+  }
+
+  @Override
+  public void checkClientTrusted(X509Certificate[] chain, String authType, Socket socket) throws CertificateException {
+    X509TrustManager current = delegate;
+    if (current instanceof X509ExtendedTrustManager) {
+      ((X509ExtendedTrustManager)current).checkClientTrusted(chain, authType, socket);
+    }
+    else {
+      current.checkClientTrusted(chain, authType);
+    }
+  }
+
+  @Override
+  public void checkServerTrusted(X509Certificate[] chain, String authType, Socket socket) throws CertificateException {
+    X509TrustManager current = delegate;
+    if (current instanceof X509ExtendedTrustManager) {
+      ((X509ExtendedTrustManager)current).checkServerTrusted(chain, authType, socket);
+    }
+    else {
+      current.checkServerTrusted(chain, authType);
+    }
+  }
+
+  @Override
+  public void checkClientTrusted(X509Certificate[] chain, String authType, SSLEngine engine) throws CertificateException {
+    X509TrustManager current = delegate;
+    if (current instanceof X509ExtendedTrustManager) {
+      ((X509ExtendedTrustManager)current).checkClientTrusted(chain, authType, engine);
+    }
+    else {
+      current.checkClientTrusted(chain, authType);
+    }
+  }
+
+  @Override
+  public void checkServerTrusted(X509Certificate[] chain, String authType, SSLEngine engine) throws CertificateException {
+    X509TrustManager current = delegate;
+    if (current instanceof X509ExtendedTrustManager) {
+      ((X509ExtendedTrustManager)current).checkServerTrusted(chain, authType, engine);
+    }
+    else {
+      current.checkServerTrusted(chain, authType);
+    }
+  }
+
+}
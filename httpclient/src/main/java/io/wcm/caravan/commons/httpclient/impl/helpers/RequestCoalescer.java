@@ -0,0 +1,332 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpclient.impl.helpers;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpHead;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.cookie.SM;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.RatioGauge;
+
+import io.wcm.caravan.commons.httpclient.HttpClientConfig;
+
+/**
+ * Coalesces identical GET and HEAD requests of an HTTP client configuration that are in flight at the same time
+ * into a single upstream request (single flight).
+ * <p>
+ * Requests are identical if method, target URL and the values of the configured key headers are equal. The first
+ * request for a key starts a flight and executes the request, all further requests with the same key join the flight
+ * until its response is received. If the request fails, all callers of the flight fail with the same exception.
+ * </p>
+ * <p>
+ * The response content is only buffered in memory if other requests joined the flight, and if its content length
+ * is known and does not exceed the configured max. content length. Each caller gets its own copy of the buffered
+ * response, Set-Cookie headers are only passed to the caller that started the flight. Otherwise the caller that
+ * started the flight gets the response as it is, and the joined requests have to be executed on their own.
+ * </p>
+ * <p>
+ * Requests whose context carries own credentials, cookies or an auth cache are not coalesced, as their responses
+ * may depend on this state.
+ * </p>
+ */
+public final class RequestCoalescer {
+
+  static final String METRIC_REQUESTS = "coalescing.requests";
+  static final String METRIC_COALESCED = "coalescing.coalesced";
+  static final String METRIC_RATIO = "coalescing.ratio";
+  static final String METRIC_IN_FLIGHT = "coalescing.inflight";
+
+  private static final String[] CALLER_STATE_ATTRIBUTES = {
+      HttpClientContext.CREDS_PROVIDER, HttpClientContext.COOKIE_STORE, HttpClientContext.AUTH_CACHE
+  };
+
+  private final ConcurrentMap<String, Flight> flights = new ConcurrentHashMap<>();
+  private final Counter requests = new Counter();
+  private final Counter coalesced = new Counter();
+
+  private volatile List<String> keyHeaders;
+  private volatile int maxContentLength;
+
+  /**
+   * @param config HTTP client configuration
+   */
+  public RequestCoalescer(@NotNull HttpClientConfig config) {
+    setConfig(config);
+  }
+
+  /**
+   * @param config HTTP client configuration
+   * @return Request coalescer or null if requests are not coalesced
+   */
+  public static @Nullable RequestCoalescer create(@NotNull HttpClientConfig config) {
+    if (!isEnabled(config)) {
+      return null;
+    }
+    return new RequestCoalescer(config);
+  }
+
+  /**
+   * @param config HTTP client configuration
+   * @return true if request coalescing is configured
+   */
+  public static boolean isEnabled(@NotNull HttpClientConfig config) {
+    return config.isRequestCoalescing();
+  }
+
+  /**
+   * Applies changed key headers and max. content length to subsequent requests.
+   * @param config HTTP client configuration
+   */
+  public void setConfig(@NotNull HttpClientConfig config) {
+    keyHeaders = config.getRequestCoalescingHeaders();
+    maxContentLength = config.getRequestCoalescingMaxContentLength();
+  }
+
+  /**
+   * @param target Target host, or null if the request URI is absolute
+   * @param request Request
+   * @param context Execution context of the caller, or null
+   * @return Key identifying identical requests, or null if the request is not coalesced
+   */
+  public @Nullable String getKey(@Nullable HttpHost target, @NotNull HttpRequest request, @Nullable HttpContext context) {
+    String method = request.getRequestLine().getMethod();
+    if (!HttpGet.METHOD_NAME.equals(method) && !HttpHead.METHOD_NAME.equals(method)) {
+      return null;
+    }
+    if (context != null) {
+      for (String attribute : CALLER_STATE_ATTRIBUTES) {
+        if (context.getAttribute(attribute) != null) {
+          return null;
+        }
+      }
+    }
+    String uri = request.getRequestLine().getUri();
+    StringBuilder key = new StringBuilder(64).append(method).append(' ');
+    if (target != null && uri.startsWith("/")) {
+      key.append(target.toURI());
+    }
+    key.append(uri);
+    for (String headerName : keyHeaders) {
+      for (Header header : request.getHeaders(headerName)) {
+        key.append('\n').append(headerName.toLowerCase(Locale.ENGLISH)).append(':').append(header.getValue());
+      }
+    }
+    return key.toString();
+  }
+
+  /**
+   * Starts a new flight for the key, unless a request with the same key is in flight already.
+   * @param key Request key
+   * @param flight New flight, which has to be completed by the caller if it was started
+   * @return Flight to join, or null if the given flight was started. The joined flight completes with the buffered
+   *         response, or with null if the request has to be executed on its own.
+   */
+  public @Nullable Flight join(@NotNull String key, @NotNull Flight flight) {
+    requests.inc();
+    Flight current = flights.putIfAbsent(key, flight);
+    if (current != null) {
+      coalesced.inc();
+      current.joined.incrementAndGet();
+    }
+    return current;
+  }
+
+  /**
+   * Completes the flight. The response content is buffered and shared if other requests joined the flight and its
+   * content length does not exceed the max. content length, otherwise the joined requests have to be executed on
+   * their own.
+   * @param key Request key
+   * @param flight Flight started for the key
+   * @param response Response of the upstream request
+   * @return Buffered response shared with the joined requests, the given response is released in this case.
+   *         Null if the response was not shared and has to be used by the caller as it is.
+   * @throws IOException if buffering the response failed, the flight fails with the same exception
+   */
+  public @Nullable HttpResponse complete(@NotNull String key, @NotNull Flight flight, @NotNull HttpResponse response)
+      throws IOException {
+    // remove the flight first, requests arriving afterwards start a new flight
+    flights.remove(key, flight);
+    if (flight.joined.get() == 0 || !isBufferable(response)) {
+      // requests joining until now execute on their own
+      flight.complete(null);
+      return null;
+    }
+    HttpResponse bufferedResponse;
+    try {
+      bufferedResponse = buffer(response);
+    }
+    catch (IOException | RuntimeException ex) {
+      flight.completeExceptionally(ex);
+      throw ex;
+    }
+    flight.complete(bufferedResponse);
+    return bufferedResponse;
+  }
+
+  /**
+   * Fails the flight.
+   * @param key Request key
+   * @param flight Flight started for the key
+   * @param ex Exception the upstream request failed with
+   */
+  public void fail(@NotNull String key, @NotNull Flight flight, @NotNull Throwable ex) {
+    flights.remove(key, flight);
+    flight.completeExceptionally(ex);
+  }
+
+  private boolean isBufferable(HttpResponse response) {
+    HttpEntity entity = response.getEntity();
+    if (entity == null) {
+      return true;
+    }
+    long contentLength = entity.getContentLength();
+    return contentLength >= 0 && contentLength <= maxContentLength;
+  }
+
+  private static HttpResponse buffer(HttpResponse response) throws IOException {
+    try {
+      BufferedHttpResponse result = new BufferedHttpResponse(response);
+      HttpEntity entity = response.getEntity();
+      if (entity != null) {
+        ByteArrayEntity bufferedEntity = new ByteArrayEntity(EntityUtils.toByteArray(entity));
+        bufferedEntity.setContentType(entity.getContentType());
+        bufferedEntity.setContentEncoding(entity.getContentEncoding());
+        result.setEntity(bufferedEntity);
+      }
+      return result;
+    }
+    finally {
+      if (response instanceof Closeable) {
+        ((Closeable)response).close();
+      }
+    }
+  }
+
+  /**
+   * @param response Buffered response of a flight
+   * @param joined true if the caller joined the flight, the cookies set by the response are removed from its copy
+   * @return Copy of the response for a single caller, sharing the immutable content
+   */
+  public static @NotNull CloseableHttpResponse copy(@NotNull HttpResponse response, boolean joined) {
+    BufferedHttpResponse result = new BufferedHttpResponse(response);
+    if (joined) {
+      // cookies belong to the caller that started the flight
+      result.removeHeaders(SM.SET_COOKIE);
+      result.removeHeaders(SM.SET_COOKIE2);
+    }
+    HttpEntity entity = response.getEntity();
+    if (entity instanceof ByteArrayEntity) {
+      // the buffered entity is repeatable and does not change its content
+      result.setEntity(entity);
+    }
+    return result;
+  }
+
+  /**
+   * @return Number of requests that were coalesced or started a flight
+   */
+  public long getRequestCount() {
+    return requests.getCount();
+  }
+
+  /**
+   * @return Number of requests that joined a flight started by another request
+   */
+  public long getCoalescedCount() {
+    return coalesced.getCount();
+  }
+
+  /**
+   * @return Number of flights in progress
+   */
+  public int getInFlight() {
+    return flights.size();
+  }
+
+  /**
+   * Adds coalescable and coalesced requests, the coalescing ratio and the flights in progress to the metrics of
+   * the connection pool.
+   * @param connectionPoolMetrics Connection pool metrics
+   */
+  public void addMetrics(@NotNull ConnectionPoolMetrics connectionPoolMetrics) {
+    connectionPoolMetrics.addMetric(METRIC_REQUESTS, requests);
+    connectionPoolMetrics.addMetric(METRIC_COALESCED, coalesced);
+    connectionPoolMetrics.addMetric(METRIC_RATIO, new RatioGauge() {
+      @Override
+      protected Ratio getRatio() {
+        return Ratio.of(coalesced.getCount(), requests.getCount());
+      }
+    });
+    connectionPoolMetrics.addMetric(METRIC_IN_FLIGHT, (Gauge<Integer>)this::getInFlight);
+  }
+
+
+  /**
+   * Flight of a request whose response is awaited by the requests that joined it.
+   */
+  public static final class Flight extends CompletableFuture<HttpResponse> {
+
+    private final AtomicInteger joined = new AtomicInteger();
+
+  }
+
+
+  /**
+   * Response with status line and headers copied from another response, closing it has no effect.
+   */
+  private static final class BufferedHttpResponse extends BasicHttpResponse implements CloseableHttpResponse {
+
+    BufferedHttpResponse(HttpResponse response) {
+      super(response.getStatusLine());
+      setHeaders(response.getAllHeaders());
+    }
+
+    @Override
+    public void close() {
+      // content is buffered in memory
+    }
+
+  }
+
+}
@@ -0,0 +1,146 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpclient.impl.helpers;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.http.HttpHost;
+import org.apache.http.HttpStatus;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.jetbrains.annotations.Nullable;
+
+import io.wcm.caravan.commons.httpclient.CallNotPermittedException;
+
+/**
+ * Permits of circuit breaker, bulkhead and adaptive concurrency limiter acquired for a single request.
+ * The outcome of the request is sampled once and all permits are released once.
+ */
+public final class RequestPermits {
+
+  private final CircuitBreaker.Permit circuitBreakerPermit;
+  private final Bulkhead bulkhead;
+  private final AdaptiveConcurrencyLimiter.Permit concurrencyPermit;
+  private final AtomicBoolean released = new AtomicBoolean();
+
+  private RequestPermits(@Nullable CircuitBreaker.Permit circuitBreakerPermit, @Nullable Bulkhead bulkhead,
+      @Nullable AdaptiveConcurrencyLimiter.Permit concurrencyPermit) {
+    this.circuitBreakerPermit = circuitBreakerPermit;
+    this.bulkhead = bulkhead;
+    this.concurrencyPermit = concurrencyPermit;
+  }
+
+  /**
+   * Acquires the permits for a request. Either all permits are acquired, or none.
+   * @param target Target host, the concurrency limit is only applied if present
+   * @param circuitBreaker Circuit breaker or null
+   * @param bulkhead Bulkhead or null
+   * @param concurrencyLimiter Adaptive concurrency limiter or null
+   * @return Permits, or null if no circuit breaker, bulkhead and concurrency limiter apply to the request
+   * @throws CallNotPermittedException if the circuit breaker is open or the bulkhead is full
+   * @throws ConnectionPoolTimeoutException if the concurrency limit of the route is exceeded
+   */
+  public static @Nullable RequestPermits acquire(@Nullable HttpHost target, @Nullable CircuitBreaker circuitBreaker,
+      @Nullable Bulkhead bulkhead, @Nullable AdaptiveConcurrencyLimiter concurrencyLimiter)
+      throws CallNotPermittedException, ConnectionPoolTimeoutException {
+    AdaptiveConcurrencyLimiter limiter = target != null ? concurrencyLimiter : null;
+    if (circuitBreaker == null && bulkhead == null && limiter == null) {
+      return null;
+    }
+
+    CircuitBreaker.Permit circuitBreakerPermit = null;
+    if (circuitBreaker != null) {
+      circuitBreakerPermit = circuitBreaker.tryAcquire();
+      if (circuitBreakerPermit == null) {
+        throw new CallNotPermittedException("Circuit breaker of HTTP client configuration '" + circuitBreaker.getName() + "' is open.");
+      }
+    }
+    if (bulkhead != null && !bulkhead.tryAcquire()) {
+      releaseIfPresent(circuitBreakerPermit);
+      throw new CallNotPermittedException("Max. concurrent calls reached: " + bulkhead.getMaxConcurrentCalls());
+    }
+    AdaptiveConcurrencyLimiter.Permit concurrencyPermit = null;
+    if (limiter != null) {
+      concurrencyPermit = limiter.tryAcquire(target);
+      if (concurrencyPermit == null) {
+        releaseIfPresent(circuitBreakerPermit);
+        if (bulkhead != null) {
+          bulkhead.release();
+        }
+        throw new ConnectionPoolTimeoutException("Concurrency limit exceeded for " + target);
+      }
+    }
+    return new RequestPermits(circuitBreakerPermit, bulkhead, concurrencyPermit);
+  }
+
+  private static void releaseIfPresent(@Nullable CircuitBreaker.Permit permit) {
+    if (permit != null) {
+      permit.release();
+    }
+  }
+
+  /**
+   * Samples the outcome of a request that received a response.
+   * @param statusCode HTTP status code
+   */
+  public void sample(int statusCode) {
+    sample(isFailureStatus(statusCode), AdaptiveConcurrencyLimiter.isOverloadStatus(statusCode));
+  }
+
+  /**
+   * Samples the outcome of a request.
+   * @param failed true if the request failed or the response has a 5xx status
+   * @param overloaded true if the request failed or the response signals an overloaded upstream
+   */
+  public void sample(boolean failed, boolean overloaded) {
+    if (circuitBreakerPermit != null) {
+      circuitBreakerPermit.sample(failed);
+    }
+    if (concurrencyPermit != null) {
+      concurrencyPermit.sample(overloaded);
+    }
+  }
+
+  /**
+   * Releases all permits. Calling this method more than once has no effect.
+   */
+  public void release() {
+    if (!released.compareAndSet(false, true)) {
+      return;
+    }
+    if (circuitBreakerPermit != null) {
+      circuitBreakerPermit.release();
+    }
+    if (concurrencyPermit != null) {
+      concurrencyPermit.release();
+    }
+    if (bulkhead != null) {
+      bulkhead.release();
+    }
+  }
+
+  /**
+   * @param statusCode HTTP status code
+   * @return true if the status code is considered as failure by the circuit breaker
+   */
+  public static boolean isFailureStatus(int statusCode) {
+    return statusCode >= HttpStatus.SC_INTERNAL_SERVER_ERROR;
+  }
+
+}
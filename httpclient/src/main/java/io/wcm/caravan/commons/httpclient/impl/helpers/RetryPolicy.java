@@ -0,0 +1,230 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpclient.impl.helpers;
+
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpRequest;
+import org.apache.http.client.methods.HttpDelete;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpHead;
+import org.apache.http.client.methods.HttpOptions;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.HttpTrace;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import com.codahale.metrics.Counter;
+
+import io.wcm.caravan.commons.httpclient.CallNotPermittedException;
+import io.wcm.caravan.commons.httpclient.HttpClientConfig;
+
+/**
+ * Decides whether a failed request of an HTTP client configuration is retried, and how long to wait before.
+ * <p>
+ * Only requests with idempotent methods are retried, and only if their entity (if any) is repeatable. A retry is
+ * attempted if the request failed with one of the configured exception types or the response has one of the
+ * configured status codes. The delay before the n-th retry is chosen randomly between half of and the full
+ * exponential backoff <code>min(maxBackoff, backoff * 2^(n-1))</code>, so clients failing at the same time do not
+ * retry in lockstep.
+ * </p>
+ * <p>
+ * The number of retries is limited by a token bucket: Each request adds the configured percentage of a token,
+ * each retry takes a full token. So during an upstream incident the retries never exceed the configured percentage
+ * of the requests, instead of multiplying the load by the max. number of attempts.
+ * </p>
+ */
+public final class RetryPolicy {
+
+  static final String METRIC_RETRIES = "retry.retries";
+  static final String METRIC_BUDGET_EXHAUSTED = "retry.budgetexhausted";
+
+  /**
+   * Tokens are counted in percent to avoid rounding errors, so a retry takes 100 tokens.
+   */
+  private static final int RETRY_COST = 100;
+  private static final int MAX_TOKENS = 10 * RETRY_COST;
+
+  private final Counter retries = new Counter();
+  private final Counter budgetExhausted = new Counter();
+
+  private volatile int maxAttempts;
+  private volatile long backoff;
+  private volatile long maxBackoff;
+  private volatile Set<Integer> statusCodes;
+  private volatile Set<String> exceptions;
+  private volatile int budgetPercent;
+  private int tokens = MAX_TOKENS;
+
+  /**
+   * @param config HTTP client configuration
+   */
+  public RetryPolicy(@NotNull HttpClientConfig config) {
+    setConfig(config);
+  }
+
+  /**
+   * @param config HTTP client configuration
+   * @return Retry policy or null if the default retry behavior of the HTTP client is used
+   */
+  public static @Nullable RetryPolicy create(@NotNull HttpClientConfig config) {
+    if (!isEnabled(config)) {
+      return null;
+    }
+    return new RetryPolicy(config);
+  }
+
+  /**
+   * @param config HTTP client configuration
+   * @return true if a retry policy is configured
+   */
+  public static boolean isEnabled(@NotNull HttpClientConfig config) {
+    return config.getRetryMaxAttempts() > 0;
+  }
+
+  /**
+   * Applies changed max. attempts, backoff, retryable status codes and exceptions and retry budget.
+   * @param config HTTP client configuration
+   */
+  public void setConfig(@NotNull HttpClientConfig config) {
+    maxAttempts = config.getRetryMaxAttempts();
+    backoff = Math.max(0, config.getRetryBackoff());
+    maxBackoff = Math.max(backoff, config.getRetryMaxBackoff());
+    statusCodes = config.getRetryStatusCodes();
+    exceptions = config.getRetryExceptions();
+    budgetPercent = config.getRetryBudgetPercent();
+  }
+
+  /**
+   * @param request Request
+   * @return true if the request may be sent more than once
+   */
+  public static boolean isRetryable(@NotNull HttpRequest request) {
+    String method = request.getRequestLine().getMethod();
+    boolean idempotent = HttpGet.METHOD_NAME.equals(method) || HttpHead.METHOD_NAME.equals(method)
+        || HttpOptions.METHOD_NAME.equals(method) || HttpTrace.METHOD_NAME.equals(method)
+        || HttpPut.METHOD_NAME.equals(method) || HttpDelete.METHOD_NAME.equals(method);
+    if (!idempotent) {
+      return false;
+    }
+    if (request instanceof HttpEntityEnclosingRequest) {
+      HttpEntity entity = ((HttpEntityEnclosingRequest)request).getEntity();
+      return entity == null || entity.isRepeatable();
+    }
+    return true;
+  }
+
+  /**
+   * @return Max. number of attempts per request including the first one
+   */
+  public int getMaxAttempts() {
+    return maxAttempts;
+  }
+
+  /**
+   * @param statusCode HTTP status code
+   * @return true if a request with a response of this status is retried
+   */
+  public boolean isRetryableStatus(int statusCode) {
+    return statusCodes.contains(statusCode);
+  }
+
+  /**
+   * Checks the class and super classes of the exception against the configured exception class names.
+   * The classes are compared by name, so no classes have to be loaded from the configuration.
+   * @param ex Exception
+   * @return true if a request failed with this exception is retried
+   */
+  public boolean isRetryableException(@NotNull Throwable ex) {
+    if (ex instanceof CallNotPermittedException) {
+      return false;
+    }
+    Set<String> classNames = exceptions;
+    for (Class<?> clazz = ex.getClass(); clazz != null; clazz = clazz.getSuperclass()) {
+      if (classNames.contains(clazz.getName())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Records a retryable request and adds to the retry budget.
+   */
+  public synchronized void requestStarted() {
+    tokens = Math.min(MAX_TOKENS, tokens + budgetPercent);
+  }
+
+  /**
+   * Takes a token from the retry budget.
+   * @return true if the request may be retried
+   */
+  public boolean tryAcquireRetry() {
+    synchronized (this) {
+      if (tokens >= RETRY_COST) {
+        tokens -= RETRY_COST;
+        retries.inc();
+        return true;
+      }
+    }
+    budgetExhausted.inc();
+    return false;
+  }
+
+  /**
+   * @param retry Number of the retry, starting with 1
+   * @return Delay before the retry (in ms)
+   */
+  public long getBackoff(int retry) {
+    long delay = backoff << Math.min(retry - 1, 30);
+    if (delay > maxBackoff || delay < 0) {
+      delay = maxBackoff;
+    }
+    long halfDelay = delay / 2;
+    return halfDelay + ThreadLocalRandom.current().nextLong(delay - halfDelay + 1);
+  }
+
+  /**
+   * @return Number of retries
+   */
+  public long getRetryCount() {
+    return retries.getCount();
+  }
+
+  /**
+   * @return Number of retries skipped because the retry budget was exhausted
+   */
+  public long getBudgetExhaustedCount() {
+    return budgetExhausted.getCount();
+  }
+
+  /**
+   * Adds retries and retries skipped by the exhausted budget to the metrics of the connection pool.
+   * @param connectionPoolMetrics Connection pool metrics
+   */
+  public void addMetrics(@NotNull ConnectionPoolMetrics connectionPoolMetrics) {
+    connectionPoolMetrics.addMetric(METRIC_RETRIES, retries);
+    connectionPoolMetrics.addMetric(METRIC_BUDGET_EXHAUSTED, budgetExhausted);
+  }
+
+}
@@ -0,0 +1,298 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpclient.impl.helpers;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+
+/**
+ * Bounded, lock-free cache of route decisions in front of a {@link RouteIndex}.
+ * <p>
+ * The cache is a two-way set associative table with a fixed number of slots. Entries are immutable,
+ * on a collision the older entry is overwritten, so the memory footprint never exceeds the configured
+ * capacity. Updating the route index replaces the whole table, so no outdated decisions are returned
+ * after configurations are bound or unbound.
+ * </p>
+ * <p>
+ * The number of cache hits and misses can be registered as gauges in a metric registry.
+ * </p>
+ * @param <T> Factory item type
+ */
+public final class RouteCache<T> {
+
+  /**
+   * Default number of cached route decisions.
+   */
+  public static final int CAPACITY_DEFAULT = 1024;
+
+  static final String METRIC_HITS = "hits";
+  static final String METRIC_MISSES = "misses";
+
+  private final int capacity;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final Gauge<Long> hitsGauge = hits::sum;
+  private final Gauge<Long> missesGauge = misses::sum;
+  private volatile State<T> state;
+  private MetricRegistry registry;
+  private String metricsPrefix;
+
+  /**
+   * @param routeIndex Initial route index
+   */
+  public RouteCache(@NotNull RouteIndex<T> routeIndex) {
+    this(routeIndex, CAPACITY_DEFAULT);
+  }
+
+  /**
+   * @param routeIndex Initial route index
+   * @param capacity Max. number of cached route decisions (rounded up to the next power of two)
+   */
+  public RouteCache(@NotNull RouteIndex<T> routeIndex, int capacity) {
+    if (capacity < 2) {
+      throw new IllegalArgumentException("Invalid capacity: " + capacity);
+    }
+    this.capacity = Integer.highestOneBit(capacity - 1) << 1;
+    this.state = new State<>(routeIndex, this.capacity);
+  }
+
+  /**
+   * Replaces the route index and invalidates all cached route decisions.
+   * @param routeIndex New route index
+   */
+  public void update(@NotNull RouteIndex<T> routeIndex) {
+    state = new State<>(routeIndex, capacity);
+  }
+
+  /**
+   * @return Current route index
+   */
+  public @NotNull RouteIndex<T> getRouteIndex() {
+    return state.routeIndex;
+  }
+
+  /**
+   * Resolves the first item matching the given target URL parts, using a cached decision if present.
+   * @param host Host name
+   * @param wsAddressingToUri WS addressing "to" URI
+   * @param path Path part of URI
+   * @param isWsCall indicates if the call is a soap webservice call
+   * @return Matching item or null if no item matches
+   */
+  public @Nullable T resolve(@Nullable String host, @Nullable String wsAddressingToUri, @Nullable String path, boolean isWsCall) {
+    State<T> current = state;
+    int hash = hash(host, wsAddressingToUri, path, isWsCall);
+    int slot = hash & (capacity - 2);
+
+    Entry<T> entry = current.table.get(slot);
+    if (entry == null || !entry.matches(hash, host, wsAddressingToUri, path, isWsCall)) {
+      entry = current.table.get(slot + 1);
+    }
+    if (entry != null && entry.matches(hash, host, wsAddressingToUri, path, isWsCall)) {
+      hits.increment();
+      return entry.item;
+    }
+
+    misses.increment();
+    T item = current.routeIndex.resolve(host, wsAddressingToUri, path, isWsCall);
+    // alternate between both slots of the set depending on higher hash bits
+    current.table.lazySet(slot + ((hash >>> 16) & 1), new Entry<>(hash, host, wsAddressingToUri, path, isWsCall, item));
+    return item;
+  }
+
+  /**
+   * Resolves the first item matching the given target URL, using a cached decision if present.
+   * Host name and path are compared in place within the URL string, so no objects are allocated
+   * if the decision is found in the cache.
+   * @param targetUrl Target URL
+   * @param urlParts Positions of host and path within the URL as returned by {@link TargetUrlParser#parse(String)}
+   * @param wsAddressingToUri WS addressing "to" URI
+   * @param isWsCall indicates if the call is a soap webservice call
+   * @return Matching item or null if no item matches
+   */
+  public @Nullable T resolve(@NotNull String targetUrl, long urlParts, @Nullable String wsAddressingToUri, boolean isWsCall) {
+    State<T> current = state;
+    int hostStart = TargetUrlParser.hostStart(urlParts);
+    int hostEnd = TargetUrlParser.hostEnd(urlParts);
+    int pathStart = TargetUrlParser.pathStart(urlParts);
+    int pathEnd = TargetUrlParser.pathEnd(urlParts);
+    int hash = hash(TargetUrlParser.hashCode(targetUrl, hostStart, hostEnd), TargetUrlParser.hashCode(targetUrl, pathStart, pathEnd),
+        wsAddressingToUri, isWsCall);
+    int slot = hash & (capacity - 2);
+
+    Entry<T> entry = current.table.get(slot);
+    if (entry == null || !entry.matches(hash, targetUrl, urlParts, wsAddressingToUri, isWsCall)) {
+      entry = current.table.get(slot + 1);
+    }
+    if (entry != null && entry.matches(hash, targetUrl, urlParts, wsAddressingToUri, isWsCall)) {
+      hits.increment();
+      return entry.item;
+    }
+
+    misses.increment();
+    String host = TargetUrlParser.getHost(targetUrl, urlParts);
+    String path = TargetUrlParser.getPath(targetUrl, urlParts);
+    T item = current.routeIndex.resolve(host, wsAddressingToUri, path, isWsCall);
+    current.table.lazySet(slot + ((hash >>> 16) & 1), new Entry<>(hash, host, wsAddressingToUri, path, isWsCall, item));
+    return item;
+  }
+
+  /**
+   * @return Number of route decisions served from cache
+   */
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  /**
+   * @return Number of route decisions that had to be resolved via route index
+   */
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  /**
+   * @return Max. number of cached route decisions
+   */
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * Registers gauges for the number of cache hits and misses. Metric names already registered by another route cache
+   * are skipped.
+   * @param metricRegistry Metric registry
+   * @param prefix Metric name prefix
+   */
+  public synchronized void registerMetrics(@NotNull MetricRegistry metricRegistry, @NotNull String prefix) {
+    unregisterMetrics();
+    registry = metricRegistry;
+    metricsPrefix = prefix;
+    registerGauge(METRIC_HITS, hitsGauge);
+    registerGauge(METRIC_MISSES, missesGauge);
+  }
+
+  /**
+   * Removes the gauges from the metric registry they were registered to.
+   */
+  public synchronized void unregisterMetrics() {
+    if (registry == null) {
+      return;
+    }
+    removeGauge(METRIC_HITS, hitsGauge);
+    removeGauge(METRIC_MISSES, missesGauge);
+    registry = null;
+    metricsPrefix = null;
+  }
+
+  private void registerGauge(@NotNull String name, @NotNull Gauge<Long> gauge) {
+    String metricName = MetricRegistry.name(metricsPrefix, name);
+    if (!registry.getNames().contains(metricName)) {
+      registry.register(metricName, gauge);
+    }
+  }
+
+  private void removeGauge(@NotNull String name, @NotNull Gauge<Long> gauge) {
+    String metricName = MetricRegistry.name(metricsPrefix, name);
+    Metric metric = registry.getMetrics().get(metricName);
+    if (metric == gauge) {
+      registry.remove(metricName);
+    }
+  }
+
+  private static int hash(@Nullable String host, @Nullable String wsAddressingToUri, @Nullable String path, boolean isWsCall) {
+    return hash(Objects.hashCode(host), Objects.hashCode(path), wsAddressingToUri, isWsCall);
+  }
+
+  private static int hash(int hostHash, int pathHash, @Nullable String wsAddressingToUri, boolean isWsCall) {
+    int hash = hostHash;
+    hash = 31 * hash + pathHash;
+    hash = 31 * hash + Objects.hashCode(wsAddressingToUri);
+    hash = 31 * hash + (isWsCall ? 1 : 0);
+    // spread higher bits to lower bits used for slot selection
+    return hash ^ (hash >>> 16);
+  }
+
+
+  private static final class State<T> {
+
+    private final RouteIndex<T> routeIndex;
+    private final AtomicReferenceArray<Entry<T>> table;
+
+    State(RouteIndex<T> routeIndex, int capacity) {
+      this.routeIndex = routeIndex;
+      this.table = new AtomicReferenceArray<>(capacity);
+    }
+
+  }
+
+
+  private static final class Entry<T> {
+
+    private final int hash;
+    private final String host;
+    private final String wsAddressingToUri;
+    private final String path;
+    private final boolean isWsCall;
+    private final T item;
+
+    Entry(int hash, String host, String wsAddressingToUri, String path, boolean isWsCall, T item) {
+      this.hash = hash;
+      this.host = host;
+      this.wsAddressingToUri = wsAddressingToUri;
+      this.path = path;
+      this.isWsCall = isWsCall;
+      this.item = item;
+    }
+
+    boolean matches(int otherHash, String otherHost, String otherWsAddressingToUri, String otherPath, boolean otherIsWsCall) {
+      return hash == otherHash
+          && isWsCall == otherIsWsCall
+          && Objects.equals(host, otherHost)
+          && Objects.equals(path, otherPath)
+          && Objects.equals(wsAddressingToUri, otherWsAddressingToUri);
+    }
+
+    boolean matches(int otherHash, String otherUrl, long otherUrlParts, String otherWsAddressingToUri, boolean otherIsWsCall) {
+      return hash == otherHash
+          && isWsCall == otherIsWsCall
+          && regionEquals(host, otherUrl, TargetUrlParser.hostStart(otherUrlParts), TargetUrlParser.hostEnd(otherUrlParts))
+          && regionEquals(path, otherUrl, TargetUrlParser.pathStart(otherUrlParts), TargetUrlParser.pathEnd(otherUrlParts))
+          && Objects.equals(wsAddressingToUri, otherWsAddressingToUri);
+    }
+
+    private static boolean regionEquals(String value, String otherValue, int otherStart, int otherEnd) {
+      int length = otherEnd - otherStart;
+      return value != null
+          && value.length() == length
+          && value.regionMatches(0, otherValue, otherStart, length);
+    }
+
+  }
+
+}
@@ -0,0 +1,299 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpclient.impl.helpers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.apache.commons.lang3.StringUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import io.wcm.caravan.commons.httpclient.HttpClientConfig;
+
+/**
+ * Immutable index for resolving the factory item of a target URL without evaluating the host patterns
+ * of all configured items.
+ * <p>
+ * Host patterns that are plain host names are put in a hash lookup, patterns matching all sub domains
+ * of a host name (e.g. <code>.*\.example\.com</code>) are put in a trie of reversed host name labels. Items with
+ * other regular expressions or without host patterns are always evaluated. For all candidates the full
+ * matching is applied, and the first matching item in the original order wins.
+ * </p>
+ * @param <T> Factory item type
+ */
+public final class RouteIndex<T> {
+
+  private static final int[] NO_ITEMS = new int[0];
+
+  private final List<T> items;
+  private final ItemMatcher<T> matcher;
+  private final Map<String, int[]> exactHosts;
+  private final LabelNode subdomains;
+  private final int[] alwaysEvaluated;
+
+  private RouteIndex(List<T> items, ItemMatcher<T> matcher, Map<String, int[]> exactHosts,
+      LabelNode subdomains, int[] alwaysEvaluated) {
+    this.items = items;
+    this.matcher = matcher;
+    this.exactHosts = exactHosts;
+    this.subdomains = subdomains;
+    this.alwaysEvaluated = alwaysEvaluated;
+  }
+
+  /**
+   * Builds a new index.
+   * @param itemsInOrder Factory items in the order they should be evaluated
+   * @param configAccessor Returns the HTTP client configuration of an item
+   * @param matcher Matches an item against the target URL parts
+   * @param <T> Factory item type
+   * @return Route index
+   */
+  public static <T> @NotNull RouteIndex<T> build(@NotNull Collection<T> itemsInOrder,
+      @NotNull Function<T, HttpClientConfig> configAccessor, @NotNull ItemMatcher<T> matcher) {
+    List<T> items = new ArrayList<>(itemsInOrder);
+    Map<String, List<Integer>> exactHosts = new HashMap<>();
+    LabelNode subdomains = new LabelNode();
+    List<Integer> alwaysEvaluated = new ArrayList<>();
+
+    for (int i = 0; i < items.size(); i++) {
+      List<String> hostPatterns = configAccessor.apply(items.get(i)).getHostPatterns();
+      if (hostPatterns.isEmpty()) {
+        alwaysEvaluated.add(i);
+        continue;
+      }
+      boolean indexed = true;
+      for (String hostPattern : hostPatterns) {
+        indexed &= addHostPattern(hostPattern, i, exactHosts, subdomains);
+      }
+      if (!indexed) {
+        alwaysEvaluated.add(i);
+      }
+    }
+
+    Map<String, int[]> exactHostArrays = new HashMap<>();
+    for (Map.Entry<String, List<Integer>> entry : exactHosts.entrySet()) {
+      exactHostArrays.put(entry.getKey(), toArray(entry.getValue()));
+    }
+    subdomains.freeze();
+    return new RouteIndex<>(items, matcher, exactHostArrays, subdomains, toArray(alwaysEvaluated));
+  }
+
+  /**
+   * Resolves the first item matching the given target URL parts.
+   * @param host Host name
+   * @param wsAddressingToUri WS addressing "to" URI
+   * @param path Path part of URI
+   * @param isWsCall indicates if the call is a soap webservice call
+   * @return Matching item or null if no item matches
+   */
+  public @Nullable T resolve(@Nullable String host, @Nullable String wsAddressingToUri, @Nullable String path, boolean isWsCall) {
+    int best = items.size();
+
+    if (StringUtils.isNotEmpty(host)) {
+      // exact host names
+      int[] exactCandidates = exactHosts.get(host);
+      if (exactCandidates != null) {
+        best = firstMatch(exactCandidates, best, host, wsAddressingToUri, path, isWsCall);
+      }
+
+      // sub domains - walk labels from the end of the host name
+      LabelNode node = subdomains;
+      int end = host.length();
+      while (node != null && end > 0) {
+        int start = host.lastIndexOf('.', end - 1) + 1;
+        if (start == 0) {
+          // no further label left, so the host cannot be a sub domain of the remaining nodes
+          break;
+        }
+        node = node.getChild(host, start, end);
+        if (node != null) {
+          best = firstMatch(node.items, best, host, wsAddressingToUri, path, isWsCall);
+        }
+        end = start - 1;
+      }
+    }
+
+    // items that cannot be resolved via index
+    best = firstMatch(alwaysEvaluated, best, host, wsAddressingToUri, path, isWsCall);
+
+    return best < items.size() ? items.get(best) : null;
+  }
+
+  /**
+   * @return Number of items in the index
+   */
+  public int size() {
+    return items.size();
+  }
+
+  private int firstMatch(int[] candidates, int best, @Nullable String host, @Nullable String wsAddressingToUri,
+      @Nullable String path, boolean isWsCall) {
+    for (int candidate : candidates) {
+      if (candidate >= best) {
+        break;
+      }
+      if (matcher.matches(items.get(candidate), host, wsAddressingToUri, path, isWsCall)) {
+        return candidate;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Adds a host pattern to the index structures.
+   * @return false if the pattern could not be indexed and the item has to be always evaluated
+   */
+  private static boolean addHostPattern(String hostPattern, int itemIndex,
+      Map<String, List<Integer>> exactHosts, LabelNode subdomains) {
+    String pattern = StringUtils.removeEnd(StringUtils.removeStart(hostPattern, "^"), "$");
+
+    boolean matchesSubdomains = false;
+    boolean matchesHost = true;
+    if (StringUtils.startsWithAny(pattern, ".*\\.", ".+\\.")) {
+      pattern = pattern.substring(4);
+      matchesSubdomains = true;
+      matchesHost = false;
+    }
+    else if (StringUtils.startsWithAny(pattern, "(.*\\.)?", "(.+\\.)?")) {
+      pattern = pattern.substring(7);
+      matchesSubdomains = true;
+    }
+
+    String hostName = toHostName(pattern);
+    if (hostName == null) {
+      return false;
+    }
+    if (matchesHost) {
+      exactHosts.computeIfAbsent(hostName, key -> new ArrayList<>()).add(itemIndex);
+    }
+    if (matchesSubdomains) {
+      subdomains.addSubdomainItem(hostName, itemIndex);
+    }
+    return true;
+  }
+
+  /**
+   * Converts a regular expression to a plain host name if it contains only literal host name characters
+   * and escaped dots.
+   * @return Host name or null if the pattern contains other expressions
+   */
+  private static @Nullable String toHostName(String pattern) {
+    if (pattern.isEmpty()) {
+      return null;
+    }
+    StringBuilder hostName = new StringBuilder(pattern.length());
+    for (int i = 0; i < pattern.length(); i++) {
+      char c = pattern.charAt(i);
+      if (c == '\\' && i + 1 < pattern.length() && pattern.charAt(i + 1) == '.') {
+        hostName.append('.');
+        i++;
+      }
+      else if (Character.isLetterOrDigit(c) || c == '-' || c == '_') {
+        hostName.append(c);
+      }
+      else {
+        return null;
+      }
+    }
+    return hostName.toString();
+  }
+
+  private static int[] toArray(List<Integer> list) {
+    if (list.isEmpty()) {
+      return NO_ITEMS;
+    }
+    return list.stream().mapToInt(Integer::intValue).sorted().distinct().toArray();
+  }
+
+
+  /**
+   * Matches a factory item against the target URL parts.
+   * @param <T> Factory item type
+   */
+  @FunctionalInterface
+  public interface ItemMatcher<T> {
+
+    /**
+     * @param item Factory item
+     * @param hostName Host name
+     * @param wsAddressingToUri WS addressing "to" URI
+     * @param path Path part of URI
+     * @param isWsCall indicates if the call is a soap webservice call
+     * @return true if the item matches
+     */
+    boolean matches(@NotNull T item, @Nullable String hostName, @Nullable String wsAddressingToUri, @Nullable String path, boolean isWsCall);
+
+  }
+
+
+  /**
+   * Node of the reversed host name label trie.
+   */
+  private static final class LabelNode {
+
+    private final Map<String, LabelNode> childMap = new HashMap<>();
+    private final List<Integer> itemList = new ArrayList<>();
+
+    private String[] labels;
+    private LabelNode[] children;
+    private int[] items;
+
+    void addSubdomainItem(String hostName, int itemIndex) {
+      LabelNode node = this;
+      String[] hostLabels = StringUtils.splitPreserveAllTokens(hostName, '.');
+      for (int i = hostLabels.length - 1; i >= 0; i--) {
+        node = node.childMap.computeIfAbsent(hostLabels[i], key -> new LabelNode());
+      }
+      node.itemList.add(itemIndex);
+    }
+
+    void freeze() {
+      labels = childMap.keySet().toArray(new String[0]);
+      children = new LabelNode[labels.length];
+      for (int i = 0; i < labels.length; i++) {
+        children[i] = childMap.get(labels[i]);
+        children[i].freeze();
+      }
+      items = toArray(itemList);
+    }
+
+    /**
+     * Looks up child node for the label between the given positions of the host name without allocating a substring.
+     */
+    @Nullable
+    LabelNode getChild(String host, int start, int end) {
+      int length = end - start;
+      for (int i = 0; i < labels.length; i++) {
+        String label = labels[i];
+        if (label.length() == length && host.regionMatches(start, label, 0, length)) {
+          return children[i];
+        }
+      }
+      return null;
+    }
+
+  }
+
+}
@@ -0,0 +1,216 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpclient.impl.helpers;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import io.wcm.caravan.commons.httpclient.HttpClientConfig;
+
+/**
+ * Shares SSL contexts between HTTP clients with identical key material.
+ * <p>
+ * SSL contexts are cached by a hash over the SSL settings and the content of the key store and trust store,
+ * so all HTTP client configurations pointing to the same stores share one SSL context and its TLS session cache.
+ * If the content of a store file changes, a new SSL context is created for the next client built.
+ * SSL contexts are only weakly referenced and are released when no HTTP client uses them anymore.
+ * </p>
+ * <p>
+ * SSL contexts with different TLS session cache settings are never shared, as the session cache belongs to the SSL context.
+ * If a store reload interval is configured, the SSL context is cached by the store paths instead, and its key and
+ * trust managers reload changed store files in place via a {@link StoreReloader}.
+ * </p>
+ * <p>
+ * The cache is per bundle: the async client bundle embeds this package, so synchronous and asynchronous HTTP clients
+ * do not share SSL contexts.
+ * </p>
+ */
+public final class SslContextCache {
+
+  private static final SslContextCache INSTANCE = new SslContextCache();
+
+  private static final String DEFAULT_KEY = "default";
+
+  private final Map<String, Entry> contexts = new HashMap<>();
+  private long hitCount;
+  private long missCount;
+
+  SslContextCache() {
+    // use shared instance
+  }
+
+  /**
+   * @return SSL context cache shared by all HTTP clients
+   */
+  public static @NotNull SslContextCache getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Gets a cached SSL context for the given configuration or builds a new one.
+   * @param config Http client configuration
+   * @return SSL context
+   * @throws IOException I/O exception
+   * @throws GeneralSecurityException General security exception
+   */
+  public synchronized @NotNull SSLContext getSSLContext(@NotNull HttpClientConfig config) throws IOException, GeneralSecurityException {
+    byte[] keyStore = CertificateLoader.isSslKeyManagerEnabled(config) ? CertificateLoader.readStore(config.getKeyStorePath()) : null;
+    byte[] trustStore = CertificateLoader.isSslTrustStoreEnbaled(config) ? CertificateLoader.readStore(config.getTrustStorePath()) : null;
+    boolean reload = config.getStoreReloadInterval() > 0 && (keyStore != null || trustStore != null);
+    String key = buildKey(config, keyStore, trustStore, reload);
+
+    Entry entry = contexts.get(key);
+    SSLContext sslContext = entry != null ? entry.sslContext.get() : null;
+    if (sslContext != null) {
+      hitCount++;
+      return sslContext;
+    }
+
+    missCount++;
+    contexts.values().removeIf(item -> item.sslContext.get() == null);
+    StoreReloader storeReloader = null;
+    if (keyStore == null && trustStore == null) {
+      sslContext = CertificateLoader.createDefaultSSlContext();
+    }
+    else if (reload) {
+      ReloadingX509KeyManager keyManager = keyStore != null ? new ReloadingX509KeyManager(
+          CertificateLoader.getX509KeyManager(keyStore, CertificateLoader.getKeyStoreProperties(config))) : null;
+      ReloadingX509TrustManager trustManager = trustStore != null ? new ReloadingX509TrustManager(
+          CertificateLoader.getX509TrustManager(trustStore, CertificateLoader.getTrustStoreProperties(config))) : null;
+      sslContext = CertificateLoader.initSSLContext(config,
+          keyManager != null ? new KeyManager[] { keyManager } : null,
+          trustManager != null ? new TrustManager[] { trustManager } : null);
+      storeReloader = new StoreReloader(config, keyManager, keyStore, trustManager, trustStore);
+      StoreWatcher.getInstance().watch(storeReloader, config.getStoreReloadInterval());
+    }
+    else {
+      sslContext = CertificateLoader.buildSSLContext(config, keyStore, trustStore);
+    }
+    CertificateLoader.configureSessionContext(sslContext, config);
+    contexts.put(key, new Entry(sslContext, storeReloader));
+    return sslContext;
+  }
+
+  /**
+   * Gets the store reloader of an SSL context built in reload mode.
+   * @param sslContext SSL context returned by {@link #getSSLContext(HttpClientConfig)}
+   * @return Store reloader or null if the SSL context does not reload its stores
+   */
+  public synchronized @Nullable StoreReloader getStoreReloader(@NotNull SSLContext sslContext) {
+    for (Entry entry : contexts.values()) {
+      if (entry.sslContext.get() == sslContext) {
+        return entry.storeReloader;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @return Number of SSL contexts served from cache
+   */
+  public synchronized long getHitCount() {
+    return hitCount;
+  }
+
+  /**
+   * @return Number of SSL contexts that had to be built
+   */
+  public synchronized long getMissCount() {
+    return missCount;
+  }
+
+  private static String buildKey(HttpClientConfig config, byte[] keyStore, byte[] trustStore, boolean reload)
+      throws GeneralSecurityException {
+    boolean defaultSessionSettings = config.getSslSessionCacheSize() == HttpClientConfig.SSL_SESSION_CACHE_SIZE_DEFAULT
+        && config.getSslSessionTimeout() == HttpClientConfig.SSL_SESSION_TIMEOUT_DEFAULT;
+    if (keyStore == null && trustStore == null && defaultSessionSettings) {
+      return DEFAULT_KEY;
+    }
+    MessageDigest digest = MessageDigest.getInstance("SHA-256");
+    update(digest, config.getSslContextType());
+    update(digest, Integer.toString(config.getSslSessionCacheSize()));
+    update(digest, Integer.toString(config.getSslSessionTimeout()));
+    if (reload) {
+      // store content may change over time, so the paths identify the stores
+      update(digest, "reload");
+      update(digest, Integer.toString(config.getStoreReloadInterval()));
+    }
+    if (keyStore != null) {
+      update(digest, "keystore");
+      update(digest, config.getKeyManagerType());
+      update(digest, config.getKeyStoreType());
+      update(digest, config.getKeyStoreProvider());
+      update(digest, config.getKeyStorePassword());
+      if (reload) {
+        update(digest, config.getKeyStorePath());
+      }
+      else {
+        digest.update(keyStore);
+      }
+    }
+    if (trustStore != null) {
+      update(digest, "truststore");
+      update(digest, config.getTrustManagerType());
+      update(digest, config.getTrustStoreType());
+      update(digest, config.getTrustStoreProvider());
+      update(digest, config.getTrustStorePassword());
+      if (reload) {
+        update(digest, config.getTrustStorePath());
+      }
+      else {
+        digest.update(trustStore);
+      }
+    }
+    return Base64.getEncoder().encodeToString(digest.digest());
+  }
+
+  private static void update(MessageDigest digest, @Nullable String value) {
+    digest.update(Objects.toString(value, "").getBytes(StandardCharsets.UTF_8));
+    digest.update((byte)0);
+  }
+
+
+  private static final class Entry {
+
+    private final WeakReference<SSLContext> sslContext;
+    private final StoreReloader storeReloader;
+
+    Entry(SSLContext sslContext, StoreReloader storeReloader) {
+      this.sslContext = new WeakReference<>(sslContext);
+      this.storeReloader = storeReloader;
+    }
+
+  }
+
+}
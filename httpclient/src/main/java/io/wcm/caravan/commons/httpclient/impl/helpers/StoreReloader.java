@@ -0,0 +1,213 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpclient.impl.helpers;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Timer;
+
+import io.wcm.caravan.commons.httpclient.HttpClientConfig;
+
+/**
+ * Reloads the key store and trust store files of an SSL context when their content changes, and swaps the
+ * key material in the {@link ReloadingX509KeyManager} and {@link ReloadingX509TrustManager} used by the SSL context.
+ * <p>
+ * The key and trust managers are only weakly referenced, so the reloader does not keep an SSL context alive
+ * that is no longer used by any HTTP client. If the new store content cannot be loaded, the previous key material
+ * is kept and the failure is counted.
+ * </p>
+ */
+public final class StoreReloader {
+
+  static final String METRIC_RELOAD = "ssl.reload";
+  static final String METRIC_RELOAD_FAILURES = "ssl.reload.failures";
+
+  private final HttpClientConfig config;
+  private final WatchedStore keyStore;
+  private final WatchedStore trustStore;
+  private final WeakReference<ReloadingX509KeyManager> keyManager;
+  private final WeakReference<ReloadingX509TrustManager> trustManager;
+  private final Timer reloadTimer = new Timer();
+  private final Counter reloadFailures = new Counter();
+
+  private static final Logger log = LoggerFactory.getLogger(StoreReloader.class);
+
+  /**
+   * @param config Http client configuration
+   * @param keyManager Key manager or null if no key store is used
+   * @param keyStoreContent Key store content the key manager was built from
+   * @param trustManager Trust manager or null if no trust store is used
+   * @param trustStoreContent Trust store content the trust manager was built from
+   */
+  StoreReloader(@NotNull HttpClientConfig config,
+      @Nullable ReloadingX509KeyManager keyManager, byte @Nullable [] keyStoreContent,
+      @Nullable ReloadingX509TrustManager trustManager, byte @Nullable [] trustStoreContent) {
+    this.config = config;
+    this.keyStore = keyManager != null ? WatchedStore.forPath(config.getKeyStorePath(), keyStoreContent) : null;
+    this.trustStore = trustManager != null ? WatchedStore.forPath(config.getTrustStorePath(), trustStoreContent) : null;
+    this.keyManager = new WeakReference<>(keyManager);
+    this.trustManager = new WeakReference<>(trustManager);
+  }
+
+  /**
+   * @return true if at least one of the stores is a file that can be watched for changes
+   */
+  boolean isWatchable() {
+    return keyStore != null || trustStore != null;
+  }
+
+  /**
+   * @return true if the key or trust manager is still referenced by an SSL context
+   */
+  boolean isInUse() {
+    return keyManager.get() != null || trustManager.get() != null;
+  }
+
+  /**
+   * Checks the store files for changes and reloads the key material if the content changed.
+   * @return true if new key material was loaded
+   */
+  synchronized boolean reloadIfChanged() {
+    byte[] newKeyStoreContent = keyStore != null ? keyStore.readIfChanged() : null;
+    byte[] newTrustStoreContent = trustStore != null ? trustStore.readIfChanged() : null;
+    if (newKeyStoreContent == null && newTrustStoreContent == null) {
+      return false;
+    }
+
+    Timer.Context reloadTime = reloadTimer.time();
+    try {
+      ReloadingX509KeyManager currentKeyManager = keyManager.get();
+      if (newKeyStoreContent != null && currentKeyManager != null) {
+        currentKeyManager.setDelegate(CertificateLoader.getX509KeyManager(newKeyStoreContent,
+            CertificateLoader.getKeyStoreProperties(config)));
+        log.info("Reloaded key store {}", keyStore.file);
+      }
+      ReloadingX509TrustManager currentTrustManager = trustManager.get();
+      if (newTrustStoreContent != null && currentTrustManager != null) {
+        currentTrustManager.setDelegate(CertificateLoader.getX509TrustManager(newTrustStoreContent,
+            CertificateLoader.getTrustStoreProperties(config)));
+        log.info("Reloaded trust store {}", trustStore.file);
+      }
+      reloadTime.stop();
+      return true;
+    }
+    catch (IOException | GeneralSecurityException | RuntimeException ex) {
+      reloadFailures.inc();
+      log.warn("Unable to reload SSL key material, keeping previous key material: " + ex.getMessage(), ex);
+      return false;
+    }
+  }
+
+  /**
+   * Adds the reload timer and failure counter to the metrics of a connection pool using the SSL context.
+   * @param connectionPoolMetrics Connection pool metrics
+   */
+  public void addMetrics(@NotNull ConnectionPoolMetrics connectionPoolMetrics) {
+    connectionPoolMetrics.addMetric(METRIC_RELOAD, reloadTimer);
+    connectionPoolMetrics.addMetric(METRIC_RELOAD_FAILURES, reloadFailures);
+  }
+
+  /**
+   * @return Timer measuring the time needed to load and apply changed key material
+   */
+  public @NotNull Timer getReloadTimer() {
+    return reloadTimer;
+  }
+
+  /**
+   * @return Counter of reloads that failed because the changed stores could not be loaded
+   */
+  public @NotNull Counter getReloadFailures() {
+    return reloadFailures;
+  }
+
+
+  /**
+   * Store file with the state it was last loaded with.
+   */
+  private static final class WatchedStore {
+
+    private final File file;
+    private long lastModified;
+    private long length;
+    private byte[] content;
+
+    private WatchedStore(File file, byte[] content) {
+      this.file = file;
+      this.lastModified = file.lastModified();
+      this.length = file.length();
+      this.content = content;
+    }
+
+    /**
+     * @return Watched store, or null if the path does not point to a file (e.g. classpath resource)
+     */
+    static @Nullable WatchedStore forPath(@Nullable String path, byte @Nullable [] content) {
+      if (path == null || content == null) {
+        return null;
+      }
+      File file = new File(path);
+      if (!file.isFile()) {
+        return null;
+      }
+      return new WatchedStore(file, content);
+    }
+
+    /**
+     * Reads the file content if modification date or size changed and the content differs from the last read.
+     * @return New content or null if not changed
+     */
+    byte @Nullable [] readIfChanged() {
+      long newLastModified = file.lastModified();
+      long newLength = file.length();
+      if (newLastModified == lastModified && newLength == length) {
+        return null;
+      }
+      byte[] newContent;
+      try {
+        newContent = CertificateLoader.readStore(file.getPath());
+      }
+      catch (IOException ex) {
+        // file is currently replaced, try again on next check
+        log.debug("Unable to read store file {}: {}", file, ex.getMessage());
+        return null;
+      }
+      lastModified = newLastModified;
+      length = newLength;
+      if (Arrays.equals(newContent, content)) {
+        return null;
+      }
+      content = newContent;
+      return newContent;
+    }
+
+  }
+
+}
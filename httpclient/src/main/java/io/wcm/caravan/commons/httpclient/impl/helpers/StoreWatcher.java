@@ -0,0 +1,142 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpclient.impl.helpers;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Checks the key store and trust store files of all reloadable SSL contexts for changes with a single
+ * background thread.
+ * <p>
+ * Store files are polled for changes of modification date and size instead of using a file system watch service,
+ * which does not reliably report files replaced via symbolic links (e.g. mounted Kubernetes secrets).
+ * A reloader is removed when its SSL context is no longer used, and the thread is stopped when no reloader is left.
+ * </p>
+ */
+public final class StoreWatcher {
+
+  static final String THREAD_NAME = "caravan-http-store-watcher";
+
+  private static final StoreWatcher INSTANCE = new StoreWatcher();
+
+  private ScheduledThreadPoolExecutor executor;
+  private int watchCount;
+
+  private static final Logger log = LoggerFactory.getLogger(StoreWatcher.class);
+
+  StoreWatcher() {
+    // use shared instance
+  }
+
+  /**
+   * @return Store watcher shared by all HTTP clients
+   */
+  public static @NotNull StoreWatcher getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Checks the stores of the given reloader periodically until the SSL context using it is garbage collected.
+   * @param reloader Store reloader
+   * @param intervalMs Interval in ms
+   */
+  public synchronized void watch(@NotNull StoreReloader reloader, long intervalMs) {
+    if (intervalMs <= 0) {
+      throw new IllegalArgumentException("Invalid store reload interval: " + intervalMs);
+    }
+    if (!reloader.isWatchable()) {
+      return;
+    }
+    if (executor == null) {
+      executor = new ScheduledThreadPoolExecutor(1, new WatcherThreadFactory());
+      executor.setRemoveOnCancelPolicy(true);
+    }
+    watchCount++;
+    WatchTask task = new WatchTask(reloader);
+    task.future = executor.scheduleWithFixedDelay(task, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * @return true if the background thread is running
+   */
+  public synchronized boolean isRunning() {
+    return executor != null;
+  }
+
+  private synchronized void cancel(WatchTask task) {
+    if (task.future == null) {
+      return;
+    }
+    task.future.cancel(false);
+    task.future = null;
+    watchCount--;
+    if (watchCount == 0) {
+      executor.shutdown();
+      executor = null;
+    }
+  }
+
+
+  private final class WatchTask implements Runnable {
+
+    private final StoreReloader reloader;
+    private ScheduledFuture<?> future;
+
+    WatchTask(StoreReloader reloader) {
+      this.reloader = reloader;
+    }
+
+    @Override
+    public void run() {
+      if (!reloader.isInUse()) {
+        cancel(this);
+        return;
+      }
+      try {
+        reloader.reloadIfChanged();
+      }
+      catch (RuntimeException ex) {
+        // a failing task would be suppressed from further executions otherwise
+        log.warn("Error checking key store and trust store files.", ex);
+      }
+    }
+
+  }
+
+
+  private static final class WatcherThreadFactory implements ThreadFactory {
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, THREAD_NAME);
+      thread.setDaemon(true);
+      return thread;
+    }
+
+  }
+
+}
@@ -0,0 +1,312 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpclient.impl.helpers;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Extracts host name and path from target URL strings in a single scan without building a {@link java.net.URI}.
+ * <p>
+ * Only plain absolute URLs (<code>scheme://host[:port][/path][?query][#fragment]</code>) with unescaped ASCII
+ * path characters are supported. For all other URLs (e.g. with user info, IPv6 addresses, percent-encoded path
+ * or non-ASCII characters) {@link #NOT_PARSED} is returned, and the caller has to fall back to
+ * {@link java.net.URI} which is required to get the exact same results in all edge cases.
+ * </p>
+ * <p>
+ * The positions of host and path are returned packed in a single long value to avoid allocations.
+ * </p>
+ */
+public final class TargetUrlParser {
+
+  /**
+   * Returned if the URL is not supported by the parser.
+   */
+  public static final long NOT_PARSED = -1L;
+
+  private static final int MAX_LENGTH = 0xFFFF;
+  private static final int MAX_PORT_DIGITS = 5;
+
+  private TargetUrlParser() {
+    // static methods only
+  }
+
+  /**
+   * Parses the given URL.
+   * @param url URL
+   * @return Packed positions of host and path, or {@link #NOT_PARSED}
+   */
+  public static long parse(@Nullable String url) {
+    if (url == null || url.isEmpty() || url.length() > MAX_LENGTH) {
+      return NOT_PARSED;
+    }
+    int length = url.length();
+
+    // scheme
+    int pos = 0;
+    if (!isAlpha(url.charAt(pos))) {
+      return NOT_PARSED;
+    }
+    while (pos < length && isSchemeChar(url.charAt(pos))) {
+      pos++;
+    }
+    if (!url.startsWith("://", pos)) {
+      return NOT_PARSED;
+    }
+    pos += 3;
+
+    // host
+    int hostStart = pos;
+    while (pos < length && isHostChar(url.charAt(pos))) {
+      pos++;
+    }
+    int hostEnd = pos;
+    if (!isValidHost(url, hostStart, hostEnd)) {
+      return NOT_PARSED;
+    }
+
+    // port
+    if (pos < length && url.charAt(pos) == ':') {
+      pos++;
+      int portStart = pos;
+      while (pos < length && isDigit(url.charAt(pos))) {
+        pos++;
+      }
+      if (pos == portStart || pos - portStart > MAX_PORT_DIGITS) {
+        return NOT_PARSED;
+      }
+    }
+
+    // path
+    int pathStart = pos;
+    while (pos < length && isPathChar(url.charAt(pos))) {
+      pos++;
+    }
+    int pathEnd = pos;
+    if (pathEnd > pathStart && url.charAt(pathStart) != '/') {
+      return NOT_PARSED;
+    }
+
+    // query and fragment are not extracted, but validated to not hide any syntax error
+    if (pos < length && url.charAt(pos) == '?') {
+      pos = skipQueryOrFragment(url, pos + 1, true);
+    }
+    if (pos >= 0 && pos < length && url.charAt(pos) == '#') {
+      pos = skipQueryOrFragment(url, pos + 1, false);
+    }
+    if (pos != length) {
+      return NOT_PARSED;
+    }
+
+    return ((long)hostStart << 48) | ((long)hostEnd << 32) | ((long)pathStart << 16) | pathEnd;
+  }
+
+  /**
+   * @param parts Packed positions
+   * @return Start index of host name
+   */
+  public static int hostStart(long parts) {
+    return (int)(parts >>> 48) & MAX_LENGTH;
+  }
+
+  /**
+   * @param parts Packed positions
+   * @return End index (exclusive) of host name
+   */
+  public static int hostEnd(long parts) {
+    return (int)(parts >>> 32) & MAX_LENGTH;
+  }
+
+  /**
+   * @param parts Packed positions
+   * @return Start index of path
+   */
+  public static int pathStart(long parts) {
+    return (int)(parts >>> 16) & MAX_LENGTH;
+  }
+
+  /**
+   * @param parts Packed positions
+   * @return End index (exclusive) of path
+   */
+  public static int pathEnd(long parts) {
+    return (int)parts & MAX_LENGTH;
+  }
+
+  /**
+   * @param url URL
+   * @param parts Packed positions
+   * @return Host name
+   */
+  public static @NotNull String getHost(@NotNull String url, long parts) {
+    return url.substring(hostStart(parts), hostEnd(parts));
+  }
+
+  /**
+   * @param url URL
+   * @param parts Packed positions
+   * @return Path (empty string if URL has no path)
+   */
+  public static @NotNull String getPath(@NotNull String url, long parts) {
+    return url.substring(pathStart(parts), pathEnd(parts));
+  }
+
+  /**
+   * Calculates the hash code of a part of the given string, which is identical to the hash code
+   * of the substring.
+   * @param value String
+   * @param start Start index
+   * @param end End index (exclusive)
+   * @return Hash code
+   */
+  public static int hashCode(@NotNull String value, int start, int end) {
+    int hash = 0;
+    for (int i = start; i < end; i++) {
+      hash = 31 * hash + value.charAt(i);
+    }
+    return hash;
+  }
+
+  /**
+   * Validates the host name in the same way as {@link java.net.URI} does for server-based authorities:
+   * Either an IPv4 address or a host name with alphanumeric labels which may contain but not start or end
+   * with a hyphen, the last label has to start with a letter.
+   */
+  private static boolean isValidHost(String url, int start, int end) {
+    if (start == end) {
+      return false;
+    }
+    int labelStart = start;
+    int labelCount = 0;
+    boolean allLabelsNumeric = true;
+    int lastLabelStart = start;
+    for (int i = start; i <= end; i++) {
+      if (i == end || url.charAt(i) == '.') {
+        if (i == labelStart || url.charAt(labelStart) == '-' || url.charAt(i - 1) == '-') {
+          return false;
+        }
+        allLabelsNumeric &= isIPv4Byte(url, labelStart, i);
+        lastLabelStart = labelStart;
+        labelStart = i + 1;
+        labelCount++;
+      }
+    }
+    if (allLabelsNumeric && labelCount == 4) {
+      return true;
+    }
+    return isAlpha(url.charAt(lastLabelStart));
+  }
+
+  private static boolean isIPv4Byte(String url, int start, int end) {
+    int length = end - start;
+    if (length < 1 || length > 3 || (length > 1 && url.charAt(start) == '0')) {
+      return false;
+    }
+    int value = 0;
+    for (int i = start; i < end; i++) {
+      char c = url.charAt(i);
+      if (!isDigit(c)) {
+        return false;
+      }
+      value = value * 10 + (c - '0');
+    }
+    return value <= 255;
+  }
+
+  /**
+   * @return Position after query or fragment, or -1 if unsupported characters were found
+   */
+  private static int skipQueryOrFragment(String url, int start, boolean isQuery) {
+    int length = url.length();
+    int pos = start;
+    while (pos < length) {
+      char c = url.charAt(pos);
+      if (c == '#' && isQuery) {
+        return pos;
+      }
+      if (c == '%') {
+        if (pos + 2 >= length || !isHexDigit(url.charAt(pos + 1)) || !isHexDigit(url.charAt(pos + 2))) {
+          return -1;
+        }
+        pos += 3;
+      }
+      else if (isPathChar(c) || c == '?' || c == '[' || c == ']') {
+        pos++;
+      }
+      else {
+        return -1;
+      }
+    }
+    return pos;
+  }
+
+  private static boolean isAlpha(char c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+  }
+
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  private static boolean isHexDigit(char c) {
+    return isDigit(c) || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+  }
+
+  private static boolean isSchemeChar(char c) {
+    return isAlpha(c) || isDigit(c) || c == '+' || c == '-' || c == '.';
+  }
+
+  private static boolean isHostChar(char c) {
+    return isAlpha(c) || isDigit(c) || c == '-' || c == '.';
+  }
+
+  /**
+   * Unreserved and reserved characters allowed unescaped in a path, see RFC 2396.
+   */
+  private static boolean isPathChar(char c) {
+    if (isAlpha(c) || isDigit(c)) {
+      return true;
+    }
+    switch (c) {
+      case '/':
+      case '-':
+      case '_':
+      case '.':
+      case '!':
+      case '~':
+      case '*':
+      case '\'':
+      case '(':
+      case ')':
+      case ':':
+      case '@':
+      case '&':
+      case '=':
+      case '+':
+      case '$':
+      case ',':
+      case ';':
+        return true;
+      default:
+        return false;
+    }
+  }
+
+}
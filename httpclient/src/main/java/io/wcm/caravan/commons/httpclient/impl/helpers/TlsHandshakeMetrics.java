@@ -0,0 +1,107 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpclient.impl.helpers;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLSession;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Timer;
+
+/**
+ * Counts and times TLS handshakes of an HTTP client, separated by full handshakes and resumed sessions.
+ * <p>
+ * A handshake is counted as resumed if the negotiated session was created before the handshake started, which
+ * is the case if a session from the session cache of the SSL context was reused.
+ * </p>
+ */
+public final class TlsHandshakeMetrics {
+
+  static final String METRIC_FULL = "tls.handshake.full";
+  static final String METRIC_RESUMED = "tls.handshake.resumed";
+  static final String METRIC_FAILURES = "tls.handshake.failures";
+
+  private final Timer fullHandshakes = new Timer();
+  private final Timer resumedHandshakes = new Timer();
+  private final Counter failures = new Counter();
+
+  /**
+   * Records a completed handshake.
+   * @param session Negotiated SSL session
+   * @param startTimeMillis System time in ms when the handshake started
+   * @param startNanos Value of {@link System#nanoTime()} when the handshake started
+   */
+  public void completed(@Nullable SSLSession session, long startTimeMillis, long startNanos) {
+    long duration = System.nanoTime() - startNanos;
+    if (isResumed(session, startTimeMillis)) {
+      resumedHandshakes.update(duration, TimeUnit.NANOSECONDS);
+    }
+    else {
+      fullHandshakes.update(duration, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  /**
+   * Records a failed handshake.
+   */
+  public void failed() {
+    failures.inc();
+  }
+
+  /**
+   * Adds the handshake timers and failure counter to the metrics of the connection pool.
+   * @param connectionPoolMetrics Connection pool metrics
+   */
+  public void addMetrics(@NotNull ConnectionPoolMetrics connectionPoolMetrics) {
+    connectionPoolMetrics.addMetric(METRIC_FULL, fullHandshakes);
+    connectionPoolMetrics.addMetric(METRIC_RESUMED, resumedHandshakes);
+    connectionPoolMetrics.addMetric(METRIC_FAILURES, failures);
+  }
+
+  /**
+   * @return Timer of full handshakes
+   */
+  public @NotNull Timer getFullHandshakes() {
+    return fullHandshakes;
+  }
+
+  /**
+   * @return Timer of handshakes that resumed a cached session
+   */
+  public @NotNull Timer getResumedHandshakes() {
+    return resumedHandshakes;
+  }
+
+  /**
+   * @return Counter of failed handshakes
+   */
+  public @NotNull Counter getFailures() {
+    return failures;
+  }
+
+  static boolean isResumed(@Nullable SSLSession session, long startTimeMillis) {
+    return session != null && session.getCreationTime() < startTimeMillis;
+  }
+
+}
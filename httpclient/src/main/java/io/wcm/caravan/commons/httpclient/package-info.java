@@ -20,5 +20,5 @@
 /**
  * HTTP Client Factory.
  */
-@org.osgi.annotation.versioning.Version("1.4.0")
+@org.osgi.annotation.versioning.Version("1.5.0")
 package io.wcm.caravan.commons.httpclient;
@@ -0,0 +1,109 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpclient.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.conn.EofSensorInputStream;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.util.EntityUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.wcm.caravan.commons.httpclient.impl.helpers.AdmissionLimiter;
+
+public class AdmittedHttpResponseTest {
+
+  private AdmissionLimiter admissionLimiter;
+  private Runnable releaseCallback;
+
+  @Before
+  public void setUp() throws Exception {
+    admissionLimiter = new AdmissionLimiter(1);
+    admissionLimiter.acquire(0);
+    releaseCallback = admissionLimiter::release;
+  }
+
+  @Test
+  public void testNoEntity() {
+    AdmittedHttpResponse underTest = new AdmittedHttpResponse(response(false), releaseCallback);
+    assertTrue(underTest.isReleased());
+    assertEquals(1, admissionLimiter.getAvailable());
+  }
+
+  @Test
+  public void testConsumeEntity() throws Exception {
+    AdmittedHttpResponse underTest = new AdmittedHttpResponse(response(true), releaseCallback);
+    assertFalse(underTest.isReleased());
+
+    assertEquals("content", EntityUtils.toString(underTest.getEntity()));
+    assertTrue(underTest.isReleased());
+    assertEquals(1, admissionLimiter.getAvailable());
+
+    // release only once
+    underTest.close();
+    assertEquals(1, admissionLimiter.getAvailable());
+  }
+
+  @Test
+  public void testAbortContent() throws Exception {
+    AdmittedHttpResponse underTest = new AdmittedHttpResponse(response(true), releaseCallback);
+    InputStream content = underTest.getEntity().getContent();
+    assertTrue(content instanceof EofSensorInputStream);
+
+    ((EofSensorInputStream)content).abortConnection();
+    assertTrue(underTest.isReleased());
+    assertEquals(1, admissionLimiter.getAvailable());
+  }
+
+  @Test
+  public void testCloseResponse() throws Exception {
+    AdmittedHttpResponse underTest = new AdmittedHttpResponse(response(true), releaseCallback);
+    assertEquals(200, underTest.getStatusLine().getStatusCode());
+    underTest.close();
+    assertTrue(underTest.isReleased());
+    assertEquals(1, admissionLimiter.getAvailable());
+  }
+
+  private static CloseableHttpResponse response(boolean withEntity) {
+    HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+    if (withEntity) {
+      response.setEntity(new StringEntity("content", "UTF-8"));
+    }
+    return (CloseableHttpResponse)Proxy.newProxyInstance(AdmittedHttpResponseTest.class.getClassLoader(),
+        new Class<?>[] { CloseableHttpResponse.class },
+        (proxy, method, args) -> {
+          if ("close".equals(method.getName())) {
+            return null;
+          }
+          return method.invoke(response, args);
+        });
+  }
+
+}
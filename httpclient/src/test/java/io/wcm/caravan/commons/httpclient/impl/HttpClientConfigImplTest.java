@@ -30,7 +30,9 @@ import org.apache.sling.testing.mock.osgi.junit.OsgiContext;
 import org.junit.Rule;
 import org.junit.Test;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 
 import io.wcm.caravan.commons.httpclient.HttpClientConfig;
 import io.wcm.caravan.commons.httpclient.impl.helpers.CertificateLoader;
@@ -44,11 +46,48 @@ public class HttpClientConfigImplTest {
   public void testDefaultValues() {
     HttpClientConfigImpl config = context.registerInjectActivateService(new HttpClientConfigImpl());
 
+    assertNull("name", config.getName());
     assertEquals("connectionRequestTimeout", HttpClientConfig.CONNECTION_REQUEST_TIMEOUT_DEFAULT, config.getConnectionRequestTimeout());
     assertEquals("connectTimeout", HttpClientConfig.CONNECT_TIMEOUT_DEFAULT, config.getConnectTimeout());
     assertEquals("socketTimeout", HttpClientConfig.SOCKET_TIMEOUT_DEFAULT, config.getSocketTimeout());
     assertEquals("maxConnectionsPerHost", HttpClientConfig.MAX_CONNECTIONS_PER_HOST_DEFAULT, config.getMaxConnectionsPerHost());
     assertEquals("maxTotalConnections", HttpClientConfig.MAX_TOTAL_CONNECTIONS_DEFAULT, config.getMaxTotalConnections());
+    assertEquals("connectionTimeToLive", HttpClientConfig.CONNECTION_TIME_TO_LIVE_DEFAULT, config.getConnectionTimeToLive());
+    assertEquals("idleConnectionEvictionInterval", HttpClientConfig.IDLE_CONNECTION_EVICTION_INTERVAL_DEFAULT, config.getIdleConnectionEvictionInterval());
+    assertEquals("maxIdleTime", HttpClientConfig.MAX_IDLE_TIME_DEFAULT, config.getMaxIdleTime());
+    assertEquals("validateAfterInactivity", HttpClientConfig.VALIDATE_AFTER_INACTIVITY_DEFAULT, config.getValidateAfterInactivity());
+    assertEquals("maxConcurrentRequests", HttpClientConfig.MAX_CONCURRENT_REQUESTS_DEFAULT, config.getMaxConcurrentRequests());
+    assertEquals("adaptiveConcurrencyLimit", HttpClientConfig.ADAPTIVE_CONCURRENCY_LIMIT_DEFAULT, config.isAdaptiveConcurrencyLimit());
+    assertEquals("acceptEncodings", HttpClientConfig.ACCEPT_ENCODINGS_DEFAULT, config.getAcceptEncodings());
+    assertEquals("ioThreadCount", HttpClientConfig.IO_THREAD_COUNT_DEFAULT, config.getIoThreadCount());
+    assertEquals("sndBufSize", HttpClientConfig.SOCKET_BUFFER_SIZE_DEFAULT, config.getSndBufSize());
+    assertEquals("rcvBufSize", HttpClientConfig.SOCKET_BUFFER_SIZE_DEFAULT, config.getRcvBufSize());
+    assertNull("tcpNoDelay", config.getTcpNoDelay());
+    assertEquals("soLinger", HttpClientConfig.SO_LINGER_DEFAULT, config.getSoLinger());
+    assertEquals("backlogSize", HttpClientConfig.BACKLOG_SIZE_DEFAULT, config.getBacklogSize());
+    assertEquals("pipelining", HttpClientConfig.PIPELINING_DEFAULT, config.isPipelining());
+    assertEquals("hedgeDelay", HttpClientConfig.HEDGE_DELAY_DEFAULT, config.getHedgeDelay());
+    assertEquals("hedgeDelayPercentile", HttpClientConfig.HEDGE_DELAY_PERCENTILE_DEFAULT, config.getHedgeDelayPercentile(), 0.0001d);
+    assertEquals("maxHedgePercent", HttpClientConfig.MAX_HEDGE_PERCENT_DEFAULT, config.getMaxHedgePercent());
+    assertEquals("circuitBreakerFailureRateThreshold", HttpClientConfig.CIRCUIT_BREAKER_FAILURE_RATE_THRESHOLD_DEFAULT,
+        config.getCircuitBreakerFailureRateThreshold());
+    assertEquals("circuitBreakerSlowCallRateThreshold", HttpClientConfig.CIRCUIT_BREAKER_SLOW_CALL_RATE_THRESHOLD_DEFAULT,
+        config.getCircuitBreakerSlowCallRateThreshold());
+    assertEquals("circuitBreakerSlowCallDuration", HttpClientConfig.CIRCUIT_BREAKER_SLOW_CALL_DURATION_DEFAULT, config.getCircuitBreakerSlowCallDuration());
+    assertEquals("circuitBreakerWindowSize", HttpClientConfig.CIRCUIT_BREAKER_WINDOW_SIZE_DEFAULT, config.getCircuitBreakerWindowSize());
+    assertEquals("circuitBreakerOpenDuration", HttpClientConfig.CIRCUIT_BREAKER_OPEN_DURATION_DEFAULT, config.getCircuitBreakerOpenDuration());
+    assertEquals("bulkheadMaxConcurrentCalls", HttpClientConfig.BULKHEAD_MAX_CONCURRENT_CALLS_DEFAULT, config.getBulkheadMaxConcurrentCalls());
+    assertEquals("retryMaxAttempts", HttpClientConfig.RETRY_MAX_ATTEMPTS_DEFAULT, config.getRetryMaxAttempts());
+    assertEquals("retryBackoff", HttpClientConfig.RETRY_BACKOFF_DEFAULT, config.getRetryBackoff());
+    assertEquals("retryMaxBackoff", HttpClientConfig.RETRY_MAX_BACKOFF_DEFAULT, config.getRetryMaxBackoff());
+    assertEquals("retryStatusCodes", HttpClientConfig.RETRY_STATUS_CODES_DEFAULT, config.getRetryStatusCodes());
+    assertEquals("retryExceptions", HttpClientConfig.RETRY_EXCEPTIONS_DEFAULT, config.getRetryExceptions());
+    assertEquals("retryBudgetPercent", HttpClientConfig.RETRY_BUDGET_PERCENT_DEFAULT, config.getRetryBudgetPercent());
+    assertEquals("requestCoalescing", HttpClientConfig.REQUEST_COALESCING_DEFAULT, config.isRequestCoalescing());
+    assertEquals("requestCoalescingHeaders", HttpClientConfig.REQUEST_COALESCING_HEADERS_DEFAULT, config.getRequestCoalescingHeaders());
+    assertEquals("requestCoalescingMaxContentLength", HttpClientConfig.REQUEST_COALESCING_MAX_CONTENT_LENGTH_DEFAULT,
+        config.getRequestCoalescingMaxContentLength());
+    assertEquals("maxPipelinedRequests", HttpClientConfig.MAX_PIPELINED_REQUESTS_DEFAULT, config.getMaxPipelinedRequests());
     assertEquals("cookieSpec", HttpClientConfig.COOKIE_SPEC_DEFAULT, config.getCookieSpec());
     assertNull("httpUser", config.getHttpUser());
     assertNull("httpPassword", config.getHttpPassword());
@@ -56,6 +95,7 @@ public class HttpClientConfigImplTest {
     assertEquals("proxyPort", 0, config.getProxyPort());
     assertNull("proxyUser", config.getProxyUser());
     assertNull("proxyPassword", config.getProxyPassword());
+    assertTrue("hostPatterns", config.getHostPatterns().isEmpty());
     assertTrue("matchesHost", config.matchesHost("h1"));
     assertTrue("matchesWsAddressingToUri", config.matchesWsAddressingToUri("http://uri1"));
 
@@ -70,6 +110,9 @@ public class HttpClientConfigImplTest {
     assertNull("trustStoreProvider", config.getTrustStoreProvider());
     assertNull("trustStorePath", config.getTrustStorePath());
     assertNull("trustStorePassword", config.getTrustStorePassword());
+    assertEquals("storeReloadInterval", HttpClientConfig.STORE_RELOAD_INTERVAL_DEFAULT, config.getStoreReloadInterval());
+    assertEquals("sslSessionCacheSize", HttpClientConfig.SSL_SESSION_CACHE_SIZE_DEFAULT, config.getSslSessionCacheSize());
+    assertEquals("sslSessionTimeout", HttpClientConfig.SSL_SESSION_TIMEOUT_DEFAULT, config.getSslSessionTimeout());
 
     assertNotNull(config.toString());
   }
@@ -78,11 +121,53 @@ public class HttpClientConfigImplTest {
   public void testReadFromConfig() {
     HttpClientConfigImpl config = context.registerInjectActivateService(new HttpClientConfigImpl(),
         ImmutableMap.<String, Object>builder()
+            .put("name", "config1")
             .put("connectionRequestTimeout", 5)
             .put("connectTimeout", 1)
             .put("socketTimeout", 2)
             .put("maxConnectionsPerHost", 3)
             .put("maxTotalConnections", 4)
+            .put("connectionTimeToLive", 6)
+            .put("idleConnectionEvictionInterval", 7)
+            .put("maxIdleTime", 8)
+            .put("validateAfterInactivity", 9)
+            .put("maxConcurrentRequests", 20)
+            .put("adaptiveConcurrencyLimit", true)
+            .put("acceptEncodings", new String[] {
+                "gzip", ""
+            })
+            .put("ioThreadCount", 2)
+            .put("sndBufSize", 8192)
+            .put("rcvBufSize", 16384)
+            .put("tcpNoDelay", "false")
+            .put("soLinger", 0)
+            .put("backlogSize", 10)
+            .put("pipelining", true)
+            .put("hedgeDelay", 50)
+            .put("hedgeDelayPercentile", 0.95d)
+            .put("maxHedgePercent", 20)
+            .put("circuitBreakerFailureRateThreshold", 50)
+            .put("circuitBreakerSlowCallRateThreshold", 80)
+            .put("circuitBreakerSlowCallDuration", 2000)
+            .put("circuitBreakerWindowSize", 20)
+            .put("circuitBreakerOpenDuration", 10000)
+            .put("bulkheadMaxConcurrentCalls", 30)
+            .put("retryMaxAttempts", 3)
+            .put("retryBackoff", 50)
+            .put("retryMaxBackoff", 500)
+            .put("retryStatusCodes", new int[] {
+                503, 429
+            })
+            .put("retryExceptions", new String[] {
+                "java.net.ConnectException", ""
+            })
+            .put("retryBudgetPercent", 5)
+            .put("requestCoalescing", true)
+            .put("requestCoalescingHeaders", new String[] {
+                "Accept", " ", "Authorization"
+            })
+            .put("requestCoalescingMaxContentLength", 65536)
+            .put("maxPipelinedRequests", 16)
             .put("cookieSpec", CookieSpecs.IGNORE_COOKIES)
             .put("httpUser", "httpUsr")
             .put("httpPassword", "httpPwd")
@@ -110,13 +195,50 @@ public class HttpClientConfigImplTest {
             .put("trustStoreProvider", "truststoreprvdr")
             .put("trustStorePath", "trustpath")
             .put("trustStorePassword", "trustpasswd")
+            .put("storeReloadInterval", 30000)
+            .put("sslSessionCacheSize", 500)
+            .put("sslSessionTimeout", 3600)
             .build());
 
+    assertEquals("name", "config1", config.getName());
     assertEquals("connectionRequestTimeout", 5, config.getConnectionRequestTimeout());
     assertEquals("connectTimeout", 1, config.getConnectTimeout());
     assertEquals("socketTimeout", 2, config.getSocketTimeout());
     assertEquals("maxConnectionsPerHost", 3, config.getMaxConnectionsPerHost());
     assertEquals("maxTotalConnections", 4, config.getMaxTotalConnections());
+    assertEquals("connectionTimeToLive", 6, config.getConnectionTimeToLive());
+    assertEquals("idleConnectionEvictionInterval", 7, config.getIdleConnectionEvictionInterval());
+    assertEquals("maxIdleTime", 8, config.getMaxIdleTime());
+    assertEquals("validateAfterInactivity", 9, config.getValidateAfterInactivity());
+    assertEquals("maxConcurrentRequests", 20, config.getMaxConcurrentRequests());
+    assertTrue("adaptiveConcurrencyLimit", config.isAdaptiveConcurrencyLimit());
+    assertEquals("acceptEncodings", ImmutableList.of("gzip"), config.getAcceptEncodings());
+    assertEquals("ioThreadCount", 2, config.getIoThreadCount());
+    assertEquals("sndBufSize", 8192, config.getSndBufSize());
+    assertEquals("rcvBufSize", 16384, config.getRcvBufSize());
+    assertEquals("tcpNoDelay", Boolean.FALSE, config.getTcpNoDelay());
+    assertEquals("soLinger", 0, config.getSoLinger());
+    assertEquals("backlogSize", 10, config.getBacklogSize());
+    assertTrue("pipelining", config.isPipelining());
+    assertEquals("hedgeDelay", 50, config.getHedgeDelay());
+    assertEquals("hedgeDelayPercentile", 0.95d, config.getHedgeDelayPercentile(), 0.0001d);
+    assertEquals("maxHedgePercent", 20, config.getMaxHedgePercent());
+    assertEquals("circuitBreakerFailureRateThreshold", 50, config.getCircuitBreakerFailureRateThreshold());
+    assertEquals("circuitBreakerSlowCallRateThreshold", 80, config.getCircuitBreakerSlowCallRateThreshold());
+    assertEquals("circuitBreakerSlowCallDuration", 2000, config.getCircuitBreakerSlowCallDuration());
+    assertEquals("circuitBreakerWindowSize", 20, config.getCircuitBreakerWindowSize());
+    assertEquals("circuitBreakerOpenDuration", 10000, config.getCircuitBreakerOpenDuration());
+    assertEquals("bulkheadMaxConcurrentCalls", 30, config.getBulkheadMaxConcurrentCalls());
+    assertEquals("retryMaxAttempts", 3, config.getRetryMaxAttempts());
+    assertEquals("retryBackoff", 50, config.getRetryBackoff());
+    assertEquals("retryMaxBackoff", 500, config.getRetryMaxBackoff());
+    assertEquals("retryStatusCodes", ImmutableSet.of(429, 503), config.getRetryStatusCodes());
+    assertEquals("retryExceptions", ImmutableSet.of("java.net.ConnectException"), config.getRetryExceptions());
+    assertEquals("retryBudgetPercent", 5, config.getRetryBudgetPercent());
+    assertTrue("requestCoalescing", config.isRequestCoalescing());
+    assertEquals("requestCoalescingHeaders", ImmutableList.of("Accept", "Authorization"), config.getRequestCoalescingHeaders());
+    assertEquals("requestCoalescingMaxContentLength", 65536, config.getRequestCoalescingMaxContentLength());
+    assertEquals("maxPipelinedRequests", 16, config.getMaxPipelinedRequests());
     assertEquals("cookieSpec", CookieSpecs.IGNORE_COOKIES, config.getCookieSpec());
     assertEquals("httpUser", "httpUsr", config.getHttpUser());
     assertEquals("httpPassword", "httpPwd", config.getHttpPassword());
@@ -125,6 +247,7 @@ public class HttpClientConfigImplTest {
     assertEquals("proxyUser", "def", config.getProxyUser());
     assertEquals("proxyPassword", "ghi", config.getProxyPassword());
 
+    assertEquals("hostPatterns", ImmutableList.of("h1", "h2", "h3"), config.getHostPatterns());
     assertTrue("hostNames.0", config.matchesHost("h1"));
     assertTrue("hostNames.1", config.matchesHost("h2"));
     assertTrue("hostNames.2", config.matchesHost("h3"));
@@ -144,14 +267,22 @@ public class HttpClientConfigImplTest {
     assertEquals("trustStoreProvider", "truststoreprvdr", config.getTrustStoreProvider());
     assertEquals("trustStorePath", "trustpath", config.getTrustStorePath());
     assertEquals("trustStorePassword", "trustpasswd", config.getTrustStorePassword());
+    assertEquals("storeReloadInterval", 30000, config.getStoreReloadInterval());
+    assertEquals("sslSessionCacheSize", 500, config.getSslSessionCacheSize());
+    assertEquals("sslSessionTimeout", 3600, config.getSslSessionTimeout());
 
     // toString should contain all configured props, sensitive ones have masked values
-    assertEquals("HttpClientConfigImpl[connectTimeout=1,connectionRequestTimeout=5,cookieSpec=ignoreCookies,enabled=true,"
-        + "httpPassword=***,httpUser=httpUsr,keyManagerType=keymantype,keyStorePassword=***,keyStorePath=keypath,"
-        + "keyStoreProvider=keystoreprvdr,keyStoreType=keystoretype,maxConnectionsPerHost=3,maxTotalConnections=4,"
-        + "proxyHost=abc,proxyPassword=***,proxyPort=5,proxyUser=def,socketTimeout=2,sslContextType=ssltype,"
-        + "trustManagerType=trustmantype,trustStorePassword=***,trustStorePath=trustpath,"
-        + "trustStoreProvider=truststoreprvdr,trustStoreType=truststoretype]", config.toString());
+    assertEquals("HttpClientConfigImpl[acceptEncodings=[gzip],adaptiveConcurrencyLimit=true,backlogSize=10,bulkheadMaxConcurrentCalls=30,"
+        + "circuitBreakerFailureRateThreshold=50,circuitBreakerOpenDuration=10000,circuitBreakerSlowCallDuration=2000,circuitBreakerSlowCallRateThreshold=80,"
+        + "circuitBreakerWindowSize=20,connectTimeout=1,connectionRequestTimeout=5,connectionTimeToLive=6,cookieSpec=ignoreCookies,enabled=true,"
+        + "hedgeDelay=50,hedgeDelayPercentile=0.95,hostPatterns=[h1, h2, h3],httpPassword=***,httpUser=httpUsr,idleConnectionEvictionInterval=7,ioThreadCount=2,keyManagerType=keymantype,keyStorePassword=***,keyStorePath=keypath,"
+        + "keyStoreProvider=keystoreprvdr,keyStoreType=keystoretype,maxConcurrentRequests=20,maxConnectionsPerHost=3,maxHedgePercent=20,maxIdleTime=8,maxPipelinedRequests=16,maxTotalConnections=4,name=config1,pipelining=true,"
+        + "proxyHost=abc,proxyPassword=***,proxyPort=5,proxyUser=def,rcvBufSize=16384,"
+        + "requestCoalescing=true,requestCoalescingHeaders=[Accept, Authorization],requestCoalescingMaxContentLength=65536,"
+        + "retryBackoff=50,retryBudgetPercent=5,retryExceptions=[java.net.ConnectException],retryMaxAttempts=3,retryMaxBackoff=500,retryStatusCodes=[429, 503],"
+        + "sndBufSize=8192,soLinger=0,socketTimeout=2,sslContextType=ssltype,"
+        + "sslSessionCacheSize=500,sslSessionTimeout=3600,storeReloadInterval=30000,tcpNoDelay=false,trustManagerType=trustmantype,trustStorePassword=***,trustStorePath=trustpath,"
+        + "trustStoreProvider=truststoreprvdr,trustStoreType=truststoretype,validateAfterInactivity=9]", config.toString());
   }
 
 }
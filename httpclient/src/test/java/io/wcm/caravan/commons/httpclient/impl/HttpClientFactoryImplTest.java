@@ -20,12 +20,19 @@
 package io.wcm.caravan.commons.httpclient.impl;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Map;
 
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.config.RequestConfig;
+import org.apache.sling.testing.mock.osgi.MockOsgi;
 import org.apache.sling.testing.mock.osgi.junit.OsgiContext;
 import org.junit.Rule;
 import org.junit.Test;
@@ -33,6 +40,7 @@ import org.junit.runner.RunWith;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.osgi.framework.Constants;
 
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.collect.ImmutableMap;
 
 import io.wcm.caravan.commons.httpclient.HttpClientConfig;
@@ -243,4 +251,121 @@ public class HttpClientFactoryImplTest {
     assertEquals("client3b.timeout", 15000, HttpClientTestUtils.getConnectTimeout(client3b));
   }
 
+  @Test
+  public void testConnectionPoolMetrics() {
+    MetricRegistry metricRegistry = context.registerService(MetricRegistry.class, new MetricRegistry());
+
+    context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>builder()
+            .put("name", "config1")
+            .put("hostPatterns", new String[] {
+                "host1"
+            })
+            .build());
+
+    HttpClientFactoryImpl underTest = context.registerInjectActivateService(new HttpClientFactoryImpl());
+
+    // gauges are registered when the connection pools are built on first use
+    assertFalse(metricRegistry.getNames().contains("httpclient.pool.config1.total.leased"));
+    underTest.get("http://host1/xyz");
+    underTest.get("http://unknown/xyz");
+
+    assertTrue(metricRegistry.getNames().contains("httpclient.pool.default.total.max"));
+    assertTrue(metricRegistry.getNames().contains("httpclient.pool.config1.total.leased"));
+    assertEquals(2L, metricRegistry.getGauges().get("httpclient.routecache.misses").getValue());
+
+    underTest.unbindMetricRegistry(metricRegistry);
+    assertTrue(metricRegistry.getNames().isEmpty());
+  }
+
+  @Test
+  public void testReconfigureKeepsConnectionPool() {
+    HttpClientConfig config1 = activateConfig(
+        ImmutableMap.<String, Object>builder()
+            .put("connectTimeout", 55)
+            .put("hostPatterns", new String[] {
+                "host1"
+            })
+            .build());
+    HttpClientConfig config2 = activateConfig(
+        ImmutableMap.<String, Object>builder()
+            .put("connectTimeout", 66)
+            .put("hostPatterns", new String[] {
+                "host1"
+            })
+            .build());
+    Map<String, Object> serviceProps = ImmutableMap.<String, Object>of(
+        Constants.SERVICE_ID, 1000L,
+        Constants.SERVICE_PID, "pid1");
+
+    HttpClientFactoryImpl underTest = context.registerInjectActivateService(new HttpClientFactoryImpl());
+    underTest.bindHttpClientConfig(config1, serviceProps);
+    HttpClient client1 = underTest.get("http://host1/xyz");
+    assertEquals("client1.timeout", 55, HttpClientTestUtils.getConnectTimeout(client1));
+
+    // modified configuration is unbound and bound again with same PID
+    underTest.unbindHttpClientConfig(config1, serviceProps);
+    underTest.bindHttpClientConfig(config2, serviceProps);
+
+    HttpClient client2 = underTest.get("http://host1/xyz");
+    assertSame(client1, client2);
+    assertEquals("client2.timeout", 66, HttpClientTestUtils.getConnectTimeout(client2));
+    assertEquals("client2.timeout", 66, underTest.getDefaultRequestConfig("http://host1/xyz").getConnectTimeout());
+  }
+
+  @Test
+  public void testLazyInitialization() {
+    HttpClientConfig config1 = context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>builder()
+            .put("connectTimeout", 55)
+            .put("hostPatterns", new String[] {
+                "host1"
+            })
+            .build());
+    Map<String, Object> serviceProps = ImmutableMap.<String, Object>of(
+        Constants.SERVICE_ID, 1L,
+        Constants.SERVICE_PID, "pid1");
+
+    HttpClientFactoryImpl underTest = context.registerInjectActivateService(new HttpClientFactoryImpl());
+    underTest.bindHttpClientConfig(config1, serviceProps);
+    HttpClientItem item = underTest.getRouteCache().getRouteIndex().resolve("host1", null, "/xyz", false);
+    assertNotNull(item);
+
+    // request config does not require the client
+    assertEquals(55, underTest.getDefaultRequestConfig("http://host1/xyz").getConnectTimeout());
+    assertFalse(item.isInitialized());
+
+    underTest.get("http://host1/xyz");
+    assertTrue(item.isInitialized());
+  }
+
+  @Test
+  public void testUnbindWithoutReconfigure() {
+    HttpClientConfig config1 = activateConfig(
+        ImmutableMap.<String, Object>builder()
+            .put("hostPatterns", new String[] {
+                "host1"
+            })
+            .build());
+    Map<String, Object> serviceProps = ImmutableMap.<String, Object>of(
+        Constants.SERVICE_ID, 1000L,
+        Constants.SERVICE_PID, "pid1");
+
+    HttpClientFactoryImpl underTest = context.registerInjectActivateService(new HttpClientFactoryImpl());
+    underTest.bindHttpClientConfig(config1, serviceProps);
+    HttpClient client1 = underTest.get("http://host1/xyz");
+
+    underTest.unbindHttpClientConfig(config1, serviceProps);
+    assertNotSame(client1, underTest.get("http://host1/xyz"));
+  }
+
+  /**
+   * Activates a configuration without registering it as service, so it is only bound to the factory manually.
+   */
+  private HttpClientConfigImpl activateConfig(Map<String, Object> props) {
+    HttpClientConfigImpl config = new HttpClientConfigImpl();
+    MockOsgi.activate(config, context.bundleContext(), props);
+    return config;
+  }
+
 }
@@ -24,15 +24,23 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpClientConnection;
 import org.apache.http.HttpHost;
 import org.apache.http.auth.AuthScope;
 import org.apache.http.auth.Credentials;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.config.CookieSpecs;
 import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpGet;
 import org.apache.http.config.Registry;
+import org.apache.http.conn.routing.HttpRoute;
 import org.apache.http.conn.socket.ConnectionSocketFactory;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
@@ -40,9 +48,16 @@ import org.apache.sling.testing.mock.osgi.junit.OsgiContext;
 import org.junit.Rule;
 import org.junit.Test;
 
+import com.codahale.metrics.health.HealthCheckRegistry;
 import com.google.common.collect.ImmutableMap;
 
+import io.wcm.caravan.commons.httpclient.impl.helpers.AdaptiveConcurrencyLimiter;
+import io.wcm.caravan.commons.httpclient.impl.helpers.AdmissionLimiter;
 import io.wcm.caravan.commons.httpclient.impl.helpers.CertificateLoaderTest;
+import io.wcm.caravan.commons.httpclient.impl.helpers.CircuitBreaker.State;
+import io.wcm.caravan.commons.httpclient.impl.helpers.IdleConnectionEvictor;
+import io.wcm.caravan.commons.httpclient.impl.helpers.RequestCoalescer;
+import io.wcm.caravan.commons.httpclient.impl.helpers.RetryPolicy;
 
 public class HttpClientItemTest {
 
@@ -246,6 +261,360 @@ public class HttpClientItemTest {
     item.close();
   }
 
+  @Test
+  public void testConnectionEvictionSettings() {
+    HttpClientConfigImpl config = context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>builder()
+            .put("idleConnectionEvictionInterval", 1000)
+            .put("validateAfterInactivity", 500)
+            .build());
+
+    HttpClientItem item = new HttpClientItem(config);
+    HttpClient client = item.getHttpClient();
+
+    PoolingHttpClientConnectionManager connManager = HttpClientTestUtils.getConnectionManager(client);
+    assertEquals(500, connManager.getValidateAfterInactivity());
+    assertTrue(IdleConnectionEvictor.getInstance().isRunning());
+    item.close();
+  }
+
+  @Test
+  public void testReconfigure() {
+    HttpClientConfigImpl config1 = context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>builder()
+            .put("maxConnectionsPerHost", 9)
+            .put("maxTotalConnections", 99)
+            .put("connectTimeout", 5)
+            .build());
+    HttpClientConfigImpl config2 = context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>builder()
+            .put("maxConnectionsPerHost", 11)
+            .put("maxTotalConnections", 111)
+            .put("connectTimeout", 7)
+            .build());
+
+    HttpClientItem item = new HttpClientItem(config1);
+    HttpClient client = item.getHttpClient();
+
+    assertTrue(item.reconfigure(config2));
+    assertSame(config2, item.getConfig());
+    assertSame(client, item.getHttpClient());
+
+    PoolingHttpClientConnectionManager connManager = HttpClientTestUtils.getConnectionManager(client);
+    assertEquals(11, connManager.getDefaultMaxPerRoute());
+    assertEquals(111, connManager.getMaxTotal());
+    assertEquals(7, HttpClientTestUtils.getConnectTimeout(client));
+    assertEquals(7, item.getDefaultRequestConfig().getConnectTimeout());
+    item.close();
+  }
+
+  @Test
+  public void testAdmissionLimit() {
+    HttpClientConfigImpl config1 = context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>builder()
+            .put("maxTotalConnections", 10)
+            .put("maxConcurrentRequests", 50)
+            .build());
+    HttpClientConfigImpl config2 = context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>builder()
+            .put("maxTotalConnections", 10)
+            .put("maxConcurrentRequests", 5)
+            .build());
+    HttpClientConfigImpl config3 = context.registerInjectActivateService(new HttpClientConfigImpl());
+
+    HttpClientItem item = new HttpClientItem(config1);
+    AdmissionLimiter admissionLimiter = ((ReconfigurableHttpClient)item.getHttpClient()).getAdmissionLimiter();
+    assertNotNull(admissionLimiter);
+    assertEquals(10, admissionLimiter.getLimit());
+
+    assertTrue(item.reconfigure(config2));
+    assertEquals(5, admissionLimiter.getLimit());
+
+    // disabling the admission limit requires a new client
+    assertFalse(item.reconfigure(config3));
+    item.close();
+
+    item = new HttpClientItem(config3);
+    assertNull(((ReconfigurableHttpClient)item.getHttpClient()).getAdmissionLimiter());
+    item.close();
+  }
+
+  @Test
+  public void testAdaptiveConcurrencyLimit() {
+    HttpClientConfigImpl config1 = context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>builder()
+            .put("maxConnectionsPerHost", 10)
+            .put("adaptiveConcurrencyLimit", true)
+            .build());
+    HttpClientConfigImpl config2 = context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>builder()
+            .put("maxConnectionsPerHost", 5)
+            .put("adaptiveConcurrencyLimit", true)
+            .build());
+    HttpClientConfigImpl config3 = context.registerInjectActivateService(new HttpClientConfigImpl());
+
+    HttpClientItem item = new HttpClientItem(config1);
+    AdaptiveConcurrencyLimiter concurrencyLimiter = ((ReconfigurableHttpClient)item.getHttpClient()).getConcurrencyLimiter();
+    assertNotNull(concurrencyLimiter);
+    assertEquals(10, concurrencyLimiter.getMaxLimit());
+
+    assertTrue(item.reconfigure(config2));
+    assertEquals(5, concurrencyLimiter.getMaxLimit());
+
+    // disabling the adaptive concurrency limit requires a new client
+    assertFalse(item.reconfigure(config3));
+    item.close();
+  }
+
+  @Test
+  public void testRetryPolicy() {
+    HttpClientConfigImpl config1 = context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>builder()
+            .put("retryMaxAttempts", 3)
+            .build());
+    HttpClientConfigImpl config2 = context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>builder()
+            .put("retryMaxAttempts", 2)
+            .build());
+
+    HttpClientItem item = new HttpClientItem(config1);
+    RetryPolicy retryPolicy = ((ReconfigurableHttpClient)item.getHttpClient()).getRetryPolicy();
+    assertNotNull(retryPolicy);
+    assertEquals(3, retryPolicy.getMaxAttempts());
+
+    assertTrue(item.reconfigure(config2));
+    assertEquals(2, retryPolicy.getMaxAttempts());
+
+    // disabling the retry policy requires a new client
+    assertFalse(item.reconfigure(context.registerInjectActivateService(new HttpClientConfigImpl())));
+    item.close();
+
+    item = new HttpClientItem(context.registerInjectActivateService(new HttpClientConfigImpl()));
+    assertNull(((ReconfigurableHttpClient)item.getHttpClient()).getRetryPolicy());
+    item.close();
+  }
+
+  @Test
+  public void testRequestCoalescing() {
+    HttpClientConfigImpl config1 = context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>builder()
+            .put("requestCoalescing", true)
+            .build());
+    HttpClientConfigImpl config2 = context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>builder()
+            .put("requestCoalescing", true)
+            .put("requestCoalescingHeaders", new String[] {
+                "Authorization"
+            })
+            .build());
+
+    HttpClientItem item = new HttpClientItem(config1);
+    RequestCoalescer requestCoalescer = ((ReconfigurableHttpClient)item.getHttpClient()).getRequestCoalescer();
+    assertNotNull(requestCoalescer);
+    HttpGet request = new HttpGet("http://host1/path");
+    request.addHeader("Accept", "application/json");
+    String key = requestCoalescer.getKey(null, request, null);
+
+    // changed key headers are applied in place
+    assertTrue(item.reconfigure(config2));
+    assertNotEquals(key, requestCoalescer.getKey(null, request, null));
+
+    // disabling request coalescing requires a new client
+    assertFalse(item.reconfigure(context.registerInjectActivateService(new HttpClientConfigImpl())));
+    item.close();
+
+    item = new HttpClientItem(context.registerInjectActivateService(new HttpClientConfigImpl()));
+    assertNull(((ReconfigurableHttpClient)item.getHttpClient()).getRequestCoalescer());
+    item.close();
+  }
+
+  @Test
+  public void testCircuitBreakerAndBulkhead() {
+    HttpClientConfigImpl config1 = context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>builder()
+            .put("circuitBreakerFailureRateThreshold", 50)
+            .put("circuitBreakerWindowSize", 20)
+            .put("bulkheadMaxConcurrentCalls", 10)
+            .build());
+    HttpClientConfigImpl config2 = context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>builder()
+            .put("circuitBreakerFailureRateThreshold", 50)
+            .put("circuitBreakerWindowSize", 20)
+            .put("bulkheadMaxConcurrentCalls", 5)
+            .build());
+    HttpClientConfigImpl config3 = context.registerInjectActivateService(new HttpClientConfigImpl());
+
+    HealthCheckRegistry healthCheckRegistry = new HealthCheckRegistry();
+    HttpClientItem item = new HttpClientItem(config1);
+    item.registerHealthChecks(healthCheckRegistry);
+    ReconfigurableHttpClient client = (ReconfigurableHttpClient)item.getHttpClient();
+    assertNotNull(client.getCircuitBreaker());
+    assertEquals(State.CLOSED, client.getCircuitBreaker().getState());
+    assertNotNull(client.getBulkhead());
+    assertEquals(10, client.getBulkhead().getMaxConcurrentCalls());
+    assertEquals(1, healthCheckRegistry.getNames().size());
+    assertTrue(healthCheckRegistry.getNames().first().endsWith(".circuitbreaker"));
+
+    assertTrue(item.reconfigure(config2));
+    assertEquals(5, client.getBulkhead().getMaxConcurrentCalls());
+    assertEquals(1, healthCheckRegistry.getNames().size());
+
+    // disabling circuit breaker and bulkhead requires a new client
+    assertFalse(item.reconfigure(config3));
+    item.close();
+    assertTrue(healthCheckRegistry.getNames().isEmpty());
+
+    item = new HttpClientItem(config3);
+    client = (ReconfigurableHttpClient)item.getHttpClient();
+    assertNull(client.getCircuitBreaker());
+    assertNull(client.getBulkhead());
+    item.close();
+  }
+
+  @Test
+  public void testContentDecoding() {
+    HttpClientConfigImpl config1 = context.registerInjectActivateService(new HttpClientConfigImpl());
+    HttpClientConfigImpl config2 = context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>builder()
+            .put("acceptEncodings", new String[] {
+                "gzip"
+            })
+            .build());
+
+    HttpClientItem item = new HttpClientItem(config1);
+    item.getHttpClient();
+    assertTrue(item.reconfigure(context.registerInjectActivateService(new HttpClientConfigImpl())));
+
+    // changing the accepted content codings requires a new client
+    assertFalse(item.reconfigure(config2));
+    item.close();
+  }
+
+  @Test
+  public void testReconfigureRequiresRebuild() {
+    HttpClientConfigImpl config1 = context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>builder()
+            .put("proxyHost", "proxy1")
+            .put("proxyPort", 3128)
+            .build());
+    HttpClientConfigImpl config2 = context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>builder()
+            .put("proxyHost", "proxy2")
+            .put("proxyPort", 3128)
+            .build());
+
+    HttpClientItem item = new HttpClientItem(config1);
+    item.getHttpClient();
+    assertFalse(item.reconfigure(config2));
+    assertSame(config1, item.getConfig());
+
+    item.close();
+    assertFalse(item.reconfigure(config1));
+  }
+
+  @Test
+  public void testCloseGracefully() throws Exception {
+    HttpClientConfigImpl config = context.registerInjectActivateService(new HttpClientConfigImpl());
+    HttpClientItem item = new HttpClientItem(config);
+    PoolingHttpClientConnectionManager connManager = HttpClientTestUtils.getConnectionManager(item.getHttpClient());
+    HttpClientConnection connection = connManager.requestConnection(new HttpRoute(new HttpHost("host1")), null).get(1, TimeUnit.SECONDS);
+
+    CountDownLatch closed = new CountDownLatch(1);
+    item.closeGracefully(closed::countDown);
+    assertFalse(closed.await(HttpClientItem.DRAIN_CHECK_INTERVAL_MS * 3, TimeUnit.MILLISECONDS));
+    assertFalse(item.isClosed());
+
+    connManager.releaseConnection(connection, null, 0, TimeUnit.MILLISECONDS);
+    assertTrue(closed.await(5, TimeUnit.SECONDS));
+    assertTrue(item.isClosed());
+  }
+
+  @Test
+  public void testReconfigureWhileDraining() throws Exception {
+    HttpClientConfigImpl config = context.registerInjectActivateService(new HttpClientConfigImpl());
+    HttpClientItem item = new HttpClientItem(config);
+    PoolingHttpClientConnectionManager connManager = HttpClientTestUtils.getConnectionManager(item.getHttpClient());
+    connManager.requestConnection(new HttpRoute(new HttpHost("host1")), null).get(1, TimeUnit.SECONDS);
+
+    item.closeGracefully(() -> {
+      // not closed
+    });
+    assertTrue(item.reconfigure(config));
+    assertFalse(item.isClosed());
+    item.close();
+  }
+
+  @Test
+  public void testLazyInitialization() throws Exception {
+    HttpClientConfigImpl config = context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>builder()
+            .put("connectTimeout", 9)
+            .build());
+
+    HttpClientItem item = new HttpClientItem(config);
+    assertEquals(9, item.getDefaultRequestConfig().getConnectTimeout());
+    assertFalse(item.isInitialized());
+
+    // concurrent first access builds a single client
+    HttpClient[] clients = new HttpClient[8];
+    Thread[] threads = new Thread[clients.length];
+    for (int i = 0; i < threads.length; i++) {
+      int index = i;
+      threads[i] = new Thread(() -> clients[index] = item.getHttpClient());
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertTrue(item.isInitialized());
+    for (HttpClient client : clients) {
+      assertSame(clients[0], client);
+    }
+    item.close();
+  }
+
+  @Test
+  public void testLazyInitializationInvalidSslConfig() {
+    HttpClientConfigImpl config = context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>builder()
+            .put("keyStorePath", "/invalid/path/keystore.p12")
+            .put("keyStorePassword", "invalid")
+            .build());
+
+    // key store is not loaded before first use
+    HttpClientItem item = new HttpClientItem(config);
+    assertFalse(item.isInitialized());
+    try {
+      item.getHttpClient();
+      fail("IllegalArgumentException expected");
+    }
+    catch (IllegalArgumentException ex) {
+      // expected
+    }
+    assertFalse(item.isInitialized());
+    item.close();
+  }
+
+  @Test
+  public void testCloseGracefullyNotInitialized() {
+    HttpClientConfigImpl config = context.registerInjectActivateService(new HttpClientConfigImpl());
+    HttpClientItem item = new HttpClientItem(config);
+
+    CountDownLatch closed = new CountDownLatch(1);
+    item.closeGracefully(closed::countDown);
+    assertEquals(0, closed.getCount());
+    assertTrue(item.isClosed());
+    assertFalse(item.isInitialized());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testGetHttpClientAfterClose() {
+    HttpClientConfigImpl config = context.registerInjectActivateService(new HttpClientConfigImpl());
+    HttpClientItem item = new HttpClientItem(config);
+    item.close();
+    item.getHttpClient();
+  }
+
   @Test
   public void testTimeoutSettings() {
     HttpClientConfigImpl config = context.registerInjectActivateService(new HttpClientConfigImpl(),
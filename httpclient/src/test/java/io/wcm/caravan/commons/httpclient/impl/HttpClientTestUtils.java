@@ -42,6 +42,9 @@ public final class HttpClientTestUtils {
   }
 
   public static RequestConfig getDefaultRequestConfig(HttpClient httpClient) {
+    if (httpClient instanceof ReconfigurableHttpClient) {
+      return ((ReconfigurableHttpClient)httpClient).getDefaultRequestConfig();
+    }
     return (RequestConfig)getField(httpClient, "defaultConfig");
   }
 
@@ -50,15 +53,15 @@ public final class HttpClientTestUtils {
   }
 
   public static PoolingHttpClientConnectionManager getConnectionManager(HttpClient httpClient) {
-    return (PoolingHttpClientConnectionManager)getField(httpClient, "connManager");
+    return (PoolingHttpClientConnectionManager)getField(unwrap(httpClient), "connManager");
   }
 
   public static CredentialsProvider getCredentialsProvider(HttpClient httpClient) {
-    return (CredentialsProvider)getField(httpClient, "credentialsProvider");
+    return (CredentialsProvider)getField(unwrap(httpClient), "credentialsProvider");
   }
 
   public static HttpHost getProxyHost(HttpClient httpClient) {
-    HttpRoutePlanner routePlanner = (HttpRoutePlanner)getField(httpClient, "routePlanner");
+    HttpRoutePlanner routePlanner = (HttpRoutePlanner)getField(unwrap(httpClient), "routePlanner");
     if (routePlanner instanceof DefaultProxyRoutePlanner) {
       return (HttpHost)getField(routePlanner, "proxy");
     }
@@ -74,6 +77,13 @@ public final class HttpClientTestUtils {
     return (Registry<ConnectionSocketFactory>)getField(connectionOperator, "socketFactoryRegistry");
   }
 
+  private static HttpClient unwrap(HttpClient httpClient) {
+    if (httpClient instanceof ReconfigurableHttpClient) {
+      return ((ReconfigurableHttpClient)httpClient).getDelegate();
+    }
+    return httpClient;
+  }
+
   private static Object getField(Object object, String fieldName) {
     return getField(object, object.getClass(), fieldName);
   }
@@ -0,0 +1,71 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpclient.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+import org.apache.http.protocol.BasicHttpContext;
+import org.junit.Test;
+
+import io.wcm.caravan.commons.httpclient.impl.helpers.CertificateLoader;
+import io.wcm.caravan.commons.httpclient.impl.helpers.TlsHandshakeMetrics;
+
+public class MeteredSSLConnectionSocketFactoryTest {
+
+  @Test
+  public void testHandshakeFailure() throws Exception {
+    TlsHandshakeMetrics handshakeMetrics = new TlsHandshakeMetrics();
+    MeteredSSLConnectionSocketFactory underTest = new MeteredSSLConnectionSocketFactory(
+        CertificateLoader.createDefaultSSlContext(), handshakeMetrics);
+
+    // server closing each connection without TLS handshake
+    try (ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+      Thread server = new Thread(() -> {
+        try (Socket socket = serverSocket.accept()) {
+          // close immediately
+        }
+        catch (IOException ex) {
+          // ignore
+        }
+      });
+      server.start();
+
+      try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort())) {
+        underTest.createLayeredSocket(socket, "localhost", serverSocket.getLocalPort(), new BasicHttpContext());
+        fail("IOException expected");
+      }
+      catch (IOException ex) {
+        // expected
+      }
+      server.join(5000);
+    }
+
+    assertEquals(1, handshakeMetrics.getFailures().getCount());
+    assertEquals(0, handshakeMetrics.getFullHandshakes().getCount());
+    assertEquals(0, handshakeMetrics.getResumedHandshakes().getCount());
+  }
+
+}
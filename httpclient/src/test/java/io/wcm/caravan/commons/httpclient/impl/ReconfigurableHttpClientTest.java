@@ -0,0 +1,323 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpclient.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
+import org.apache.sling.testing.mock.osgi.junit.OsgiContext;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+
+import io.wcm.caravan.commons.httpclient.impl.helpers.RequestCoalescer;
+import io.wcm.caravan.commons.httpclient.impl.helpers.RetryPolicy;
+
+public class ReconfigurableHttpClientTest {
+
+  @Rule
+  public OsgiContext context = new OsgiContext();
+
+  private RetryPolicy retryPolicy;
+  private FakeHttpClient delegate;
+  private ReconfigurableHttpClient underTest;
+
+  @Before
+  public void setUp() {
+    retryPolicy = new RetryPolicy(context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>builder()
+            .put("retryMaxAttempts", 3)
+            .put("retryBackoff", 1)
+            .put("retryMaxBackoff", 1)
+            .build()));
+    delegate = new FakeHttpClient();
+    underTest = new ReconfigurableHttpClient(delegate, RequestConfig.DEFAULT, null, null, null, null, retryPolicy, null);
+  }
+
+  @Test
+  public void testRetryOnStatus() throws Exception {
+    delegate.outcomes(503, 200);
+    try (CloseableHttpResponse response = underTest.execute(new HttpGet("http://host1/path"))) {
+      assertEquals(200, response.getStatusLine().getStatusCode());
+      // response of the first attempt is closed before retrying
+      assertEquals(1, delegate.closedResponses);
+    }
+    assertEquals(2, delegate.attempts);
+    assertEquals(1, retryPolicy.getRetryCount());
+  }
+
+  @Test
+  public void testRetryOnException() throws Exception {
+    delegate.outcomes(new ConnectException("connection refused"), 200);
+    try (CloseableHttpResponse response = underTest.execute(new HttpGet("http://host1/path"))) {
+      assertEquals(200, response.getStatusLine().getStatusCode());
+    }
+    assertEquals(2, delegate.attempts);
+  }
+
+  @Test
+  public void testNoRetryOnOtherException() throws Exception {
+    IOException ex = new IOException("failed");
+    delegate.outcomes(ex, 200);
+    try {
+      underTest.execute(new HttpGet("http://host1/path"));
+      fail("IOException expected");
+    }
+    catch (IOException expected) {
+      assertSame(ex, expected);
+    }
+    assertEquals(1, delegate.attempts);
+  }
+
+  @Test
+  public void testMaxAttempts() throws Exception {
+    delegate.outcomes(503, 502, 503, 200);
+    try (CloseableHttpResponse response = underTest.execute(new HttpGet("http://host1/path"))) {
+      assertEquals(503, response.getStatusLine().getStatusCode());
+    }
+    assertEquals(3, delegate.attempts);
+  }
+
+  @Test
+  public void testNoRetryOfNonIdempotentRequest() throws Exception {
+    delegate.outcomes(503, 200);
+    try (CloseableHttpResponse response = underTest.execute(new HttpPost("http://host1/path"))) {
+      assertEquals(503, response.getStatusLine().getStatusCode());
+    }
+    assertEquals(1, delegate.attempts);
+  }
+
+
+  @Test
+  public void testCoalescing() throws Exception {
+    RequestCoalescer requestCoalescer = new RequestCoalescer(context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>builder()
+            .put("requestCoalescing", true)
+            .build()));
+    underTest = new ReconfigurableHttpClient(delegate, RequestConfig.DEFAULT, null, null, null, null, retryPolicy, requestCoalescer);
+    delegate.outcomes(503, 200, 200);
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    AtomicReference<Future<Integer>> coalescedRequest = new AtomicReference<>();
+    delegate.onExecute = () -> {
+      // identical request joins the flight while the first one is in progress, including its retries
+      delegate.onExecute = null;
+      coalescedRequest.set(executor.submit(() -> {
+        try (CloseableHttpResponse response = underTest.execute(new HttpGet("http://host1/path"))) {
+          return response.getStatusLine().getStatusCode();
+        }
+      }));
+      long deadline = System.currentTimeMillis() + 5000;
+      while (requestCoalescer.getCoalescedCount() == 0 && System.currentTimeMillis() < deadline) {
+        Thread.yield();
+      }
+    };
+
+    try (CloseableHttpResponse response = underTest.execute(new HttpGet("http://host1/path"))) {
+      assertEquals(200, response.getStatusLine().getStatusCode());
+    }
+    assertEquals(200, (int)coalescedRequest.get().get(5, TimeUnit.SECONDS));
+    executor.shutdown();
+
+    assertEquals(2, delegate.attempts);
+    assertEquals(2, delegate.closedResponses);
+    assertEquals(2, requestCoalescer.getRequestCount());
+    assertEquals(1, requestCoalescer.getCoalescedCount());
+
+    // non-idempotent requests are not coalesced
+    try (CloseableHttpResponse response = underTest.execute(new HttpPost("http://host1/path"))) {
+      assertEquals(200, response.getStatusLine().getStatusCode());
+    }
+    assertEquals(2, requestCoalescer.getRequestCount());
+  }
+
+  @Test
+  public void testCoalescingUnknownContentLength() throws Exception {
+    RequestCoalescer requestCoalescer = new RequestCoalescer(context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>builder()
+            .put("requestCoalescing", true)
+            .build()));
+    underTest = new ReconfigurableHttpClient(delegate, RequestConfig.DEFAULT, null, null, null, null, null, requestCoalescer);
+    HttpResponse streamedResponse = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+    streamedResponse.setEntity(new InputStreamEntity(new ByteArrayInputStream("content".getBytes(StandardCharsets.UTF_8))));
+    delegate.outcomes(streamedResponse, 204);
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    AtomicReference<Future<Integer>> coalescedRequest = new AtomicReference<>();
+    delegate.onExecute = () -> {
+      delegate.onExecute = null;
+      coalescedRequest.set(executor.submit(() -> {
+        try (CloseableHttpResponse response = underTest.execute(new HttpGet("http://host1/path"))) {
+          return response.getStatusLine().getStatusCode();
+        }
+      }));
+      long deadline = System.currentTimeMillis() + 5000;
+      while (requestCoalescer.getCoalescedCount() == 0 && System.currentTimeMillis() < deadline) {
+        Thread.yield();
+      }
+    };
+
+    // response is not buffered, the joined request is executed on its own
+    try (CloseableHttpResponse response = underTest.execute(new HttpGet("http://host1/path"))) {
+      assertEquals("content", EntityUtils.toString(response.getEntity()));
+    }
+    assertEquals(204, (int)coalescedRequest.get().get(5, TimeUnit.SECONDS));
+    executor.shutdown();
+
+    assertEquals(2, delegate.attempts);
+    assertEquals(1, requestCoalescer.getCoalescedCount());
+  }
+
+  @Test
+  public void testCoalescingTimeout() throws Exception {
+    RequestCoalescer requestCoalescer = new RequestCoalescer(context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>builder()
+            .put("requestCoalescing", true)
+            .build()));
+    RequestConfig requestConfig = RequestConfig.custom()
+        .setConnectionRequestTimeout(10)
+        .setConnectTimeout(10)
+        .setSocketTimeout(10)
+        .build();
+    underTest = new ReconfigurableHttpClient(delegate, requestConfig, null, null, null, null, null, requestCoalescer);
+    delegate.outcomes(200);
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    AtomicReference<Future<Integer>> coalescedRequest = new AtomicReference<>();
+    delegate.onExecute = () -> {
+      // the first request is answered only after the joined request gave up waiting
+      delegate.onExecute = null;
+      coalescedRequest.set(executor.submit(() -> {
+        try (CloseableHttpResponse response = underTest.execute(new HttpGet("http://host1/path"))) {
+          return response.getStatusLine().getStatusCode();
+        }
+      }));
+      try {
+        coalescedRequest.get().get(5, TimeUnit.SECONDS);
+      }
+      catch (Exception ex) {
+        // expected
+      }
+    };
+
+    try (CloseableHttpResponse response = underTest.execute(new HttpGet("http://host1/path"))) {
+      assertEquals(200, response.getStatusLine().getStatusCode());
+    }
+    try {
+      coalescedRequest.get().get(5, TimeUnit.SECONDS);
+      fail("ExecutionException expected");
+    }
+    catch (ExecutionException expected) {
+      assertTrue(expected.getCause() instanceof SocketTimeoutException);
+    }
+    executor.shutdown();
+    assertEquals(1, delegate.attempts);
+  }
+
+
+  @SuppressWarnings("deprecation")
+  private static final class FakeHttpClient extends CloseableHttpClient {
+
+    private final Deque<Object> outcomes = new ArrayDeque<>();
+    private int attempts;
+    private int closedResponses;
+    private volatile Runnable onExecute;
+
+    void outcomes(Object... values) {
+      outcomes.addAll(Arrays.asList(values));
+    }
+
+    @Override
+    protected CloseableHttpResponse doExecute(HttpHost target, HttpRequest request, HttpContext context) throws IOException {
+      attempts++;
+      Runnable callback = onExecute;
+      if (callback != null) {
+        callback.run();
+      }
+      Object outcome = outcomes.remove();
+      if (outcome instanceof IOException) {
+        throw (IOException)outcome;
+      }
+      HttpResponse response = outcome instanceof HttpResponse ? (HttpResponse)outcome
+          : new BasicHttpResponse(HttpVersion.HTTP_1_1, (Integer)outcome, "reason");
+      return (CloseableHttpResponse)Proxy.newProxyInstance(ReconfigurableHttpClientTest.class.getClassLoader(),
+          new Class<?>[] { CloseableHttpResponse.class },
+          (proxy, method, args) -> {
+            if ("close".equals(method.getName())) {
+              closedResponses++;
+              return null;
+            }
+            return method.invoke(response, args);
+          });
+    }
+
+    @Override
+    public void close() {
+      // nothing to close
+    }
+
+    @Override
+    public HttpParams getParams() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public ClientConnectionManager getConnectionManager() {
+      throw new UnsupportedOperationException();
+    }
+
+  }
+
+}
@@ -0,0 +1,175 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpclient.impl.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpHost;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.junit.Test;
+
+import com.codahale.metrics.MetricRegistry;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+  private static final HttpHost HOST1 = new HttpHost("host1", 8080, "http");
+  private static final HttpHost HOST2 = new HttpHost("host2", 8080, "http");
+
+  @Test
+  public void testRejectAboveLimit() {
+    AdaptiveConcurrencyLimiter underTest = new AdaptiveConcurrencyLimiter(2);
+    AdaptiveConcurrencyLimiter.Permit permit1 = underTest.tryAcquire(HOST1);
+    AdaptiveConcurrencyLimiter.Permit permit2 = underTest.tryAcquire(HOST1);
+    assertNotNull(permit1);
+    assertNotNull(permit2);
+    assertEquals(2, underTest.getInFlight(HOST1));
+
+    assertNull(underTest.tryAcquire(HOST1));
+    assertEquals(1, underTest.getRejectedCount());
+
+    // other routes have their own limit
+    assertNotNull(underTest.tryAcquire(HOST2));
+
+    // release only once
+    permit1.release();
+    permit1.release();
+    assertEquals(1, underTest.getInFlight(HOST1));
+    assertNotNull(underTest.tryAcquire(HOST1));
+  }
+
+  @Test
+  public void testDefaultPort() {
+    AdaptiveConcurrencyLimiter underTest = new AdaptiveConcurrencyLimiter(1);
+    assertNotNull(underTest.tryAcquire(new HttpHost("host1", -1, "http")));
+    assertNull(underTest.tryAcquire(new HttpHost("HOST1", 80, "http")));
+    assertNotNull(underTest.tryAcquire(new HttpHost("host1", -1, "https")));
+    assertNull(underTest.tryAcquire(new HttpHost("host1", 443, "https")));
+  }
+
+  @Test
+  public void testDecreaseOnOverload() {
+    AdaptiveConcurrencyLimiter underTest = new AdaptiveConcurrencyLimiter(10);
+    for (int i = 0; i < 5; i++) {
+      complete(underTest.tryAcquire(HOST1), true);
+    }
+    // 10 * 0.9^5
+    assertEquals(5, underTest.getLimit(HOST1));
+
+    for (int i = 0; i < 50; i++) {
+      complete(underTest.tryAcquire(HOST1), true);
+    }
+    assertEquals(1, underTest.getLimit(HOST1));
+  }
+
+  @Test
+  public void testDecreaseOnHighLatency() throws Exception {
+    AdaptiveConcurrencyLimiter underTest = new AdaptiveConcurrencyLimiter(10);
+    complete(underTest.tryAcquire(HOST1), false);
+    assertEquals(10, underTest.getLimit(HOST1));
+
+    AdaptiveConcurrencyLimiter.Permit permit = underTest.tryAcquire(HOST1);
+    Thread.sleep(50);
+    complete(permit, false);
+    assertEquals(9, underTest.getLimit(HOST1));
+  }
+
+  @Test
+  public void testIncreaseUpToMaxLimit() {
+    AdaptiveConcurrencyLimiter underTest = new AdaptiveConcurrencyLimiter(10);
+    for (int i = 0; i < 10; i++) {
+      complete(underTest.tryAcquire(HOST1), true);
+    }
+    int reducedLimit = underTest.getLimit(HOST1);
+    assertTrue(reducedLimit < 10);
+
+    // the limit is increased only if at least half of it is used
+    complete(underTest.tryAcquire(HOST1), false);
+    assertEquals(reducedLimit, underTest.getLimit(HOST1));
+
+    for (int round = 0; round < 20; round++) {
+      List<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayList<>();
+      AdaptiveConcurrencyLimiter.Permit permit;
+      while ((permit = underTest.tryAcquire(HOST1)) != null) {
+        permits.add(permit);
+      }
+      permits.forEach(item -> complete(item, false));
+    }
+    assertEquals(10, underTest.getLimit(HOST1));
+  }
+
+  @Test
+  public void testSetMaxLimit() {
+    AdaptiveConcurrencyLimiter underTest = new AdaptiveConcurrencyLimiter(10);
+    assertNotNull(underTest.tryAcquire(HOST1));
+    underTest.setMaxLimit(4);
+    assertEquals(4, underTest.getMaxLimit());
+    assertEquals(4, underTest.getLimit(HOST1));
+    assertEquals(4, underTest.getLimit(HOST2));
+  }
+
+  @Test
+  public void testIsOverloadStatus() {
+    assertTrue(AdaptiveConcurrencyLimiter.isOverloadStatus(503));
+    assertTrue(AdaptiveConcurrencyLimiter.isOverloadStatus(429));
+    assertFalse(AdaptiveConcurrencyLimiter.isOverloadStatus(200));
+    assertFalse(AdaptiveConcurrencyLimiter.isOverloadStatus(500));
+  }
+
+  @Test
+  public void testAddMetrics() throws Exception {
+    AdaptiveConcurrencyLimiter underTest = new AdaptiveConcurrencyLimiter(5);
+    PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+    try {
+      MetricRegistry registry = new MetricRegistry();
+      ConnectionPoolMetrics connectionPoolMetrics = new ConnectionPoolMetrics("test.pool", DefaultHttpClientConfig.INSTANCE,
+          connectionManager, connectionManager::getRoutes);
+      underTest.addMetrics(connectionPoolMetrics);
+      connectionPoolMetrics.register(registry);
+
+      underTest.tryAcquire(HOST1);
+      HttpClientConnection connection = connectionManager.requestConnection(new HttpRoute(HOST1), null).get(1, TimeUnit.SECONDS);
+      connectionPoolMetrics.refreshRoutes();
+
+      assertEquals(5, registry.getGauges().get("test.pool.default.route.http_host1_8080.concurrency.limit").getValue());
+      assertEquals(1, registry.getGauges().get("test.pool.default.route.http_host1_8080.concurrency.inflight").getValue());
+      assertEquals(0L, registry.getCounters().get("test.pool.default.concurrency.rejected").getCount());
+      connectionManager.releaseConnection(connection, null, 0, TimeUnit.MILLISECONDS);
+    }
+    finally {
+      connectionManager.shutdown();
+    }
+  }
+
+  private static void complete(AdaptiveConcurrencyLimiter.Permit permit, boolean overloaded) {
+    permit.sample(overloaded);
+    permit.release();
+  }
+
+}
@@ -0,0 +1,171 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpclient.impl.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.junit.Test;
+
+import com.codahale.metrics.MetricRegistry;
+
+import io.wcm.caravan.commons.httpclient.HttpClientConfig;
+
+public class AdmissionLimiterTest {
+
+  @Test
+  public void testAcquireRelease() throws Exception {
+    AdmissionLimiter underTest = new AdmissionLimiter(2);
+    assertTrue(underTest.acquire(10));
+    assertTrue(underTest.acquire(10));
+    assertEquals(0, underTest.getAvailable());
+
+    assertFalse(underTest.acquire(10));
+    assertEquals(1, underTest.getRejectedCount());
+
+    underTest.release();
+    assertTrue(underTest.acquire(10));
+    assertEquals(1, underTest.getRejectedCount());
+  }
+
+  @Test
+  public void testWaitForRelease() throws Exception {
+    AdmissionLimiter underTest = new AdmissionLimiter(1);
+    assertTrue(underTest.acquire(0));
+
+    CountDownLatch admitted = new CountDownLatch(1);
+    Thread waiting = new Thread(() -> {
+      try {
+        underTest.acquire(0);
+        admitted.countDown();
+      }
+      catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    waiting.start();
+
+    assertFalse(admitted.await(50, TimeUnit.MILLISECONDS));
+    assertEquals(1, underTest.getWaiting());
+    underTest.release();
+    assertTrue(admitted.await(5, TimeUnit.SECONDS));
+    waiting.join();
+  }
+
+  @Test
+  public void testInterrupted() throws Exception {
+    AdmissionLimiter underTest = new AdmissionLimiter(1);
+    assertTrue(underTest.acquire(0));
+
+    AtomicBoolean interrupted = new AtomicBoolean();
+    Thread waiting = new Thread(() -> {
+      try {
+        underTest.acquire(10000);
+      }
+      catch (InterruptedException ex) {
+        interrupted.set(true);
+      }
+    });
+    waiting.start();
+    waiting.interrupt();
+    waiting.join(5000);
+    assertTrue(interrupted.get());
+  }
+
+  @Test
+  public void testSetLimit() throws Exception {
+    AdmissionLimiter underTest = new AdmissionLimiter(2);
+    assertTrue(underTest.acquire(10));
+    assertTrue(underTest.acquire(10));
+
+    // decrease below number of admitted requests
+    underTest.setLimit(1);
+    assertEquals(1, underTest.getLimit());
+    assertEquals(-1, underTest.getAvailable());
+    underTest.release();
+    assertFalse(underTest.acquire(10));
+    underTest.release();
+    assertTrue(underTest.acquire(10));
+
+    // increase
+    underTest.setLimit(3);
+    assertEquals(2, underTest.getAvailable());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidLimit() {
+    new AdmissionLimiter(0);
+  }
+
+  @Test
+  public void testGetEffectiveLimit() {
+    assertEquals(0, AdmissionLimiter.getEffectiveLimit(config(0, 20, 200)));
+    assertEquals(10, AdmissionLimiter.getEffectiveLimit(config(10, 20, 200)));
+    // the limit applies to all routes, so it is not capped by the connections per host
+    assertEquals(50, AdmissionLimiter.getEffectiveLimit(config(50, 20, 200)));
+    assertEquals(15, AdmissionLimiter.getEffectiveLimit(config(50, 20, 15)));
+  }
+
+  @Test
+  public void testAddMetrics() throws Exception {
+    AdmissionLimiter underTest = new AdmissionLimiter(5);
+    underTest.acquire(0);
+    PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+    try {
+      MetricRegistry registry = new MetricRegistry();
+      ConnectionPoolMetrics connectionPoolMetrics = new ConnectionPoolMetrics("test.pool", DefaultHttpClientConfig.INSTANCE,
+          connectionManager, connectionManager::getRoutes);
+      underTest.addMetrics(connectionPoolMetrics);
+      connectionPoolMetrics.register(registry);
+
+      assertEquals(5, registry.getGauges().get("test.pool.default.admission.limit").getValue());
+      assertEquals(4, registry.getGauges().get("test.pool.default.admission.available").getValue());
+      assertEquals(0, registry.getGauges().get("test.pool.default.admission.waiting").getValue());
+      assertEquals(0L, registry.getCounters().get("test.pool.default.admission.rejected").getCount());
+    }
+    finally {
+      connectionManager.shutdown();
+    }
+  }
+
+  private static HttpClientConfig config(int maxConcurrentRequests, int maxConnectionsPerHost, int maxTotalConnections) {
+    return (HttpClientConfig)Proxy.newProxyInstance(AdmissionLimiterTest.class.getClassLoader(), new Class<?>[] { HttpClientConfig.class },
+        (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "getMaxConcurrentRequests":
+              return maxConcurrentRequests;
+            case "getMaxConnectionsPerHost":
+              return maxConnectionsPerHost;
+            case "getMaxTotalConnections":
+              return maxTotalConnections;
+            default:
+              throw new UnsupportedOperationException(method.getName());
+          }
+        });
+  }
+
+}
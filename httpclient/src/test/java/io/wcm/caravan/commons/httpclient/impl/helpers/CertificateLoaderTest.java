@@ -19,6 +19,7 @@
  */
 package io.wcm.caravan.commons.httpclient.impl.helpers;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 
 import java.io.FileNotFoundException;
@@ -209,4 +210,29 @@ public class CertificateLoaderTest {
     assertNotNull(sslContext);
   }
 
+  @Test
+  public void testConfigureSessionContext() throws Exception {
+    HttpClientConfigImpl config = context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>of("sslSessionCacheSize", 250, "sslSessionTimeout", 300));
+
+    SSLContext sslContext = CertificateLoader.createDefaultSSlContext();
+    CertificateLoader.configureSessionContext(sslContext, config);
+
+    assertEquals(250, sslContext.getClientSessionContext().getSessionCacheSize());
+    assertEquals(300, sslContext.getClientSessionContext().getSessionTimeout());
+  }
+
+  @Test
+  public void testConfigureSessionContextJvmDefaults() throws Exception {
+    HttpClientConfigImpl config = context.registerInjectActivateService(new HttpClientConfigImpl(), ImmutableMap.<String, Object>of());
+
+    SSLContext sslContext = CertificateLoader.createDefaultSSlContext();
+    int defaultCacheSize = sslContext.getClientSessionContext().getSessionCacheSize();
+    int defaultTimeout = sslContext.getClientSessionContext().getSessionTimeout();
+    CertificateLoader.configureSessionContext(sslContext, config);
+
+    assertEquals(defaultCacheSize, sslContext.getClientSessionContext().getSessionCacheSize());
+    assertEquals(defaultTimeout, sslContext.getClientSessionContext().getSessionTimeout());
+  }
+
 }
@@ -0,0 +1,206 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpclient.impl.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+
+import org.junit.Test;
+
+import com.codahale.metrics.health.HealthCheckRegistry;
+
+import io.wcm.caravan.commons.httpclient.HttpClientConfig;
+import io.wcm.caravan.commons.httpclient.impl.helpers.CircuitBreaker.State;
+
+public class CircuitBreakerTest {
+
+  @Test
+  public void testDisabled() {
+    assertNull(CircuitBreaker.create(config(0, 0, 10000, 10, 30000)));
+    assertFalse(CircuitBreaker.isEnabled(config(0, 0, 10000, 10, 30000)));
+    assertTrue(CircuitBreaker.isEnabled(config(50, 0, 10000, 10, 30000)));
+    assertTrue(CircuitBreaker.isEnabled(config(0, 50, 10000, 10, 30000)));
+  }
+
+  @Test
+  public void testOpenOnFailureRate() {
+    CircuitBreaker underTest = new CircuitBreaker("test", config(50, 0, 10000, 10, 30000));
+    record(underTest, 5, false);
+    record(underTest, 4, true);
+    // not evaluated before the window is full
+    assertEquals(State.CLOSED, underTest.getState());
+    assertEquals(44.4d, underTest.getFailureRate(), 0.1d);
+
+    record(underTest, 1, true);
+    assertEquals(State.OPEN, underTest.getState());
+    assertNull(underTest.tryAcquire());
+    assertEquals(1, underTest.getRejectedCount());
+  }
+
+  @Test
+  public void testSlidingWindow() {
+    CircuitBreaker underTest = new CircuitBreaker("test", config(50, 0, 10000, 10, 30000));
+    record(underTest, 4, true);
+    record(underTest, 6, false);
+    // failures are pushed out of the window
+    record(underTest, 10, false);
+    record(underTest, 4, true);
+    assertEquals(State.CLOSED, underTest.getState());
+    assertEquals(40d, underTest.getFailureRate(), 0.1d);
+  }
+
+  @Test
+  public void testOpenOnSlowCallRate() {
+    // with a slow call duration of 0 ms all calls are slow
+    CircuitBreaker underTest = new CircuitBreaker("test", config(0, 100, 0, 10, 30000));
+    record(underTest, 10, false);
+    assertEquals(State.OPEN, underTest.getState());
+  }
+
+  @Test
+  public void testHalfOpenCloses() throws Exception {
+    CircuitBreaker underTest = openCircuitBreaker(config(50, 0, 10000, 20, 1));
+    Thread.sleep(5);
+
+    CircuitBreaker.Permit[] trialPermits = new CircuitBreaker.Permit[CircuitBreaker.TRIAL_CALLS];
+    for (int i = 0; i < trialPermits.length; i++) {
+      trialPermits[i] = underTest.tryAcquire();
+      assertNotNull(trialPermits[i]);
+    }
+    assertEquals(State.HALF_OPEN, underTest.getState());
+    assertNull(underTest.tryAcquire());
+
+    for (CircuitBreaker.Permit permit : trialPermits) {
+      permit.sample(false);
+    }
+    assertEquals(State.CLOSED, underTest.getState());
+    assertNotNull(underTest.tryAcquire());
+  }
+
+  @Test
+  public void testHalfOpenReopens() throws Exception {
+    CircuitBreaker underTest = openCircuitBreaker(config(50, 0, 10000, 20, 1));
+    Thread.sleep(5);
+
+    record(underTest, CircuitBreaker.TRIAL_CALLS, true);
+    assertEquals(State.OPEN, underTest.getState());
+  }
+
+  @Test
+  public void testReleaseWithoutOutcomeReturnsTrialPermit() throws Exception {
+    CircuitBreaker underTest = openCircuitBreaker(config(50, 0, 10000, 20, 1));
+    Thread.sleep(5);
+
+    CircuitBreaker.Permit permit = null;
+    for (int i = 0; i < CircuitBreaker.TRIAL_CALLS; i++) {
+      permit = underTest.tryAcquire();
+    }
+    assertNull(underTest.tryAcquire());
+    permit.release();
+    assertNotNull(underTest.tryAcquire());
+  }
+
+  @Test
+  public void testLateResultsIgnored() {
+    CircuitBreaker underTest = new CircuitBreaker("test", config(50, 0, 10000, 10, 30000));
+    CircuitBreaker.Permit permit = underTest.tryAcquire();
+    record(underTest, 10, true);
+    assertEquals(State.OPEN, underTest.getState());
+
+    permit.sample(false);
+    assertEquals(State.OPEN, underTest.getState());
+    assertEquals(0d, underTest.getFailureRate(), 0.1d);
+  }
+
+  @Test
+  public void testHealthCheck() {
+    HealthCheckRegistry registry = new HealthCheckRegistry();
+    CircuitBreaker underTest = new CircuitBreaker("test", config(50, 0, 10000, 10, 30000));
+    underTest.registerHealthCheck(registry, "httpclient.pool.test");
+    assertEquals("httpclient.pool.test.circuitbreaker", underTest.getHealthCheckName());
+    assertTrue(registry.runHealthCheck("httpclient.pool.test.circuitbreaker").isHealthy());
+
+    // second circuit breaker with the same name gets a suffix
+    CircuitBreaker other = new CircuitBreaker("test", config(50, 0, 10000, 10, 30000));
+    other.registerHealthCheck(registry, "httpclient.pool.test");
+    assertEquals("httpclient.pool.test_2.circuitbreaker", other.getHealthCheckName());
+
+    record(underTest, 10, true);
+    assertFalse(registry.runHealthCheck("httpclient.pool.test.circuitbreaker").isHealthy());
+    assertTrue(registry.runHealthCheck("httpclient.pool.test_2.circuitbreaker").isHealthy());
+
+    underTest.unregisterHealthCheck();
+    other.unregisterHealthCheck();
+    assertTrue(registry.getNames().isEmpty());
+  }
+
+  @Test
+  public void testSetConfig() {
+    CircuitBreaker underTest = new CircuitBreaker("test", config(50, 0, 10000, 10, 30000));
+    record(underTest, 9, true);
+    // changed window size discards the recorded outcomes
+    underTest.setConfig(config(50, 0, 10000, 20, 30000));
+    record(underTest, 1, true);
+    assertEquals(State.CLOSED, underTest.getState());
+    assertEquals(100d, underTest.getFailureRate(), 0.1d);
+  }
+
+  private static CircuitBreaker openCircuitBreaker(HttpClientConfig config) {
+    CircuitBreaker circuitBreaker = new CircuitBreaker("test", config);
+    record(circuitBreaker, config.getCircuitBreakerWindowSize(), true);
+    assertEquals(State.OPEN, circuitBreaker.getState());
+    return circuitBreaker;
+  }
+
+  private static void record(CircuitBreaker circuitBreaker, int count, boolean failed) {
+    for (int i = 0; i < count; i++) {
+      CircuitBreaker.Permit permit = circuitBreaker.tryAcquire();
+      permit.sample(failed);
+      permit.release();
+    }
+  }
+
+  private static HttpClientConfig config(int failureRateThreshold, int slowCallRateThreshold, int slowCallDuration,
+      int windowSize, int openDuration) {
+    return (HttpClientConfig)Proxy.newProxyInstance(CircuitBreakerTest.class.getClassLoader(), new Class<?>[] { HttpClientConfig.class },
+        (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "getCircuitBreakerFailureRateThreshold":
+              return failureRateThreshold;
+            case "getCircuitBreakerSlowCallRateThreshold":
+              return slowCallRateThreshold;
+            case "getCircuitBreakerSlowCallDuration":
+              return slowCallDuration;
+            case "getCircuitBreakerWindowSize":
+              return windowSize;
+            case "getCircuitBreakerOpenDuration":
+              return openDuration;
+            default:
+              throw new UnsupportedOperationException(method.getName());
+          }
+        });
+  }
+
+}
@@ -0,0 +1,176 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpclient.impl.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpHost;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.sling.testing.mock.osgi.junit.OsgiContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableMap;
+
+import io.wcm.caravan.commons.httpclient.HttpClientConfig;
+import io.wcm.caravan.commons.httpclient.impl.HttpClientConfigImpl;
+
+public class ConnectionPoolMetricsTest {
+
+  private static final String PREFIX = "test.pool";
+  private static final HttpRoute ROUTE = new HttpRoute(new HttpHost("host1", 8080, "http"));
+
+  @Rule
+  public OsgiContext context = new OsgiContext();
+
+  private MetricRegistry registry;
+  private PoolingHttpClientConnectionManager connectionManager;
+  private ConnectionPoolMetrics underTest;
+
+  @Before
+  public void setUp() {
+    registry = new MetricRegistry();
+    connectionManager = new PoolingHttpClientConnectionManager();
+    connectionManager.setMaxTotal(15);
+    connectionManager.setDefaultMaxPerRoute(5);
+    underTest = new ConnectionPoolMetrics(PREFIX, DefaultHttpClientConfig.INSTANCE, connectionManager, connectionManager::getRoutes);
+  }
+
+  @After
+  public void tearDown() {
+    connectionManager.shutdown();
+  }
+
+  @Test
+  public void testTotalGauges() {
+    underTest.register(registry);
+
+    assertEquals("test.pool.default", underTest.getBaseName());
+    assertEquals(15, getGaugeValue("test.pool.default.total.max"));
+    assertEquals(0, getGaugeValue("test.pool.default.total.leased"));
+    assertEquals(0, getGaugeValue("test.pool.default.total.available"));
+    assertEquals(0, getGaugeValue("test.pool.default.total.pending"));
+  }
+
+  @Test
+  public void testRouteGauges() throws Exception {
+    underTest.register(registry);
+    HttpClientConnection connection = connectionManager.requestConnection(ROUTE, null).get(1, TimeUnit.SECONDS);
+
+    assertEquals(1, getGaugeValue("test.pool.default.total.leased"));
+    assertEquals(1, getGaugeValue("test.pool.default.route.http_host1_8080.leased"));
+    assertEquals(5, getGaugeValue("test.pool.default.route.http_host1_8080.max"));
+
+    connectionManager.releaseConnection(connection, null, 0, TimeUnit.MILLISECONDS);
+    connectionManager.closeIdleConnections(0, TimeUnit.MILLISECONDS);
+
+    assertEquals(0, getGaugeValue("test.pool.default.total.leased"));
+    assertFalse(registry.getNames().contains("test.pool.default.route.http_host1_8080.leased"));
+  }
+
+  @Test
+  public void testUnregister() throws Exception {
+    underTest.register(registry);
+    connectionManager.requestConnection(ROUTE, null).get(1, TimeUnit.SECONDS);
+    underTest.refreshRoutes();
+    assertEquals(8, registry.getNames().size());
+
+    underTest.unregister();
+
+    assertTrue(registry.getNames().isEmpty());
+    assertNull(underTest.getBaseName());
+  }
+
+  @Test
+  public void testDuplicateName() {
+    underTest.register(registry);
+    ConnectionPoolMetrics other = new ConnectionPoolMetrics(PREFIX, DefaultHttpClientConfig.INSTANCE,
+        connectionManager, connectionManager::getRoutes);
+    other.register(registry);
+
+    assertEquals("test.pool.default_2", other.getBaseName());
+    assertEquals(15, getGaugeValue("test.pool.default_2.total.max"));
+  }
+
+  @Test
+  public void testAdditionalMetrics() {
+    Counter counter = new Counter();
+    underTest.addMetric("custom.count", counter);
+    underTest.register(registry);
+    assertSame(counter, registry.getCounters().get("test.pool.default.custom.count"));
+
+    Counter otherCounter = new Counter();
+    underTest.addMetric("custom.other", otherCounter);
+    assertSame(otherCounter, registry.getCounters().get("test.pool.default.custom.other"));
+
+    underTest.unregister();
+    assertTrue(registry.getNames().isEmpty());
+  }
+
+  @Test
+  public void testAdditionalRouteGauges() throws Exception {
+    underTest.addRouteGauge("custom.port", route -> (Gauge<Integer>)() -> route.getTargetHost().getPort());
+    underTest.register(registry);
+    HttpClientConnection connection = connectionManager.requestConnection(ROUTE, null).get(1, TimeUnit.SECONDS);
+
+    assertEquals(1, getGaugeValue("test.pool.default.total.leased"));
+    assertEquals(8080, getGaugeValue("test.pool.default.route.http_host1_8080.custom.port"));
+
+    connectionManager.releaseConnection(connection, null, 0, TimeUnit.MILLISECONDS);
+    connectionManager.closeIdleConnections(0, TimeUnit.MILLISECONDS);
+
+    assertEquals(0, getGaugeValue("test.pool.default.total.leased"));
+    assertFalse(registry.getNames().contains("test.pool.default.route.http_host1_8080.custom.port"));
+  }
+
+  @Test
+  public void testGetConfigName() {
+    assertEquals("default", ConnectionPoolMetrics.getConfigName(DefaultHttpClientConfig.INSTANCE));
+    assertEquals("config1", ConnectionPoolMetrics.getConfigName(createConfig(ImmutableMap.<String, Object>of(
+        "name", "config1",
+        "hostPatterns", new String[] { "host1" }))));
+    assertEquals("host1_example_com_host2", ConnectionPoolMetrics.getConfigName(createConfig(ImmutableMap.<String, Object>of(
+        "hostPatterns", new String[] { "host1\\.example\\.com", "host2" }))));
+  }
+
+  private HttpClientConfig createConfig(ImmutableMap<String, Object> properties) {
+    return context.registerInjectActivateService(new HttpClientConfigImpl(), properties);
+  }
+
+  private int getGaugeValue(String name) {
+    Gauge<?> gauge = registry.getGauges().get(name);
+    assertTrue("gauge " + name, gauge != null);
+    return (Integer)gauge.getValue();
+  }
+
+}
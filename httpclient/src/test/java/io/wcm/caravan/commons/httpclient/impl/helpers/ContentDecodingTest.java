@@ -0,0 +1,161 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpclient.impl.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.util.EntityUtils;
+import org.apache.sling.testing.mock.osgi.junit.OsgiContext;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+
+import io.wcm.caravan.commons.httpclient.impl.HttpClientConfigImpl;
+
+public class ContentDecodingTest {
+
+  private static final String CONTENT = StringUtils.repeat("{\"_links\":{\"self\":{\"href\":\"/path\"}}}", 100);
+
+  @Rule
+  public OsgiContext context = new OsgiContext();
+
+  @Test
+  public void testCreate() {
+    ContentDecoding underTest = ContentDecoding.create(context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>of("acceptEncodings", new String[] {
+            "gzip", "deflate"
+        })));
+    assertEquals(Arrays.asList("gzip", "deflate"), underTest.getEncodings());
+    assertEquals("gzip,deflate", underTest.getAcceptEncoding());
+  }
+
+  @Test
+  public void testDisabledByDefault() {
+    assertNull(ContentDecoding.create(context.registerInjectActivateService(new HttpClientConfigImpl())));
+  }
+
+  @Test
+  public void testUnsupportedEncoding() {
+    ContentDecoding underTest = new ContentDecoding(Arrays.asList(" GZIP ", "compress", ""));
+    assertEquals(Collections.singletonList("gzip"), underTest.getEncodings());
+    assertEquals("gzip", underTest.getAcceptEncoding());
+  }
+
+  @Test
+  public void testDecodeGzip() throws IOException {
+    ContentDecoding underTest = new ContentDecoding(Arrays.asList("gzip", "deflate"));
+    byte[] compressed = gzip();
+    HttpResponse response = response(compressed, "gzip");
+
+    underTest.decode(response);
+
+    assertFalse(response.containsHeader(HttpHeaders.CONTENT_ENCODING));
+    assertFalse(response.containsHeader(HttpHeaders.CONTENT_LENGTH));
+    assertEquals(CONTENT, EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8));
+    assertEquals(compressed.length, underTest.getCompressedBytes());
+    assertEquals(CONTENT.length(), underTest.getUncompressedBytes());
+  }
+
+  @Test
+  public void testDecodeDeflate() throws IOException {
+    ContentDecoding underTest = new ContentDecoding(Arrays.asList("gzip", "deflate"));
+    HttpResponse response = response(deflate(), "deflate");
+
+    underTest.decode(response);
+
+    assertEquals(CONTENT, EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8));
+    assertEquals(CONTENT.length(), underTest.getUncompressedBytes());
+  }
+
+  @Test
+  public void testDecodeNotAccepted() throws IOException {
+    ContentDecoding underTest = new ContentDecoding(Collections.singletonList("gzip"));
+    HttpResponse response = response(deflate(), "deflate");
+    HttpEntity entity = response.getEntity();
+
+    underTest.decode(response);
+
+    assertSame(entity, response.getEntity());
+    assertTrue(response.containsHeader(HttpHeaders.CONTENT_ENCODING));
+    assertEquals(0, underTest.getUncompressedBytes());
+  }
+
+  @Test
+  public void testDecodeIdentity() {
+    ContentDecoding underTest = new ContentDecoding(Collections.singletonList("gzip"));
+    HttpResponse response = response(CONTENT.getBytes(StandardCharsets.UTF_8), null);
+    HttpEntity entity = response.getEntity();
+
+    underTest.decode(response);
+
+    assertSame(entity, response.getEntity());
+  }
+
+  private static byte[] gzip() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (OutputStream out = new GZIPOutputStream(bytes)) {
+      out.write(CONTENT.getBytes(StandardCharsets.UTF_8));
+    }
+    return bytes.toByteArray();
+  }
+
+  private static byte[] deflate() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (OutputStream out = new DeflaterOutputStream(bytes)) {
+      out.write(CONTENT.getBytes(StandardCharsets.UTF_8));
+    }
+    return bytes.toByteArray();
+  }
+
+  private static HttpResponse response(byte[] content, String contentEncoding) {
+    HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "OK");
+    ByteArrayEntity entity = new ByteArrayEntity(content);
+    if (contentEncoding != null) {
+      entity.setContentEncoding(contentEncoding);
+      response.setHeader(HttpHeaders.CONTENT_ENCODING, contentEncoding);
+    }
+    response.setHeader(HttpHeaders.CONTENT_LENGTH, Integer.toString(content.length));
+    response.setEntity(entity);
+    return response;
+  }
+
+}
@@ -0,0 +1,74 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpclient.impl.helpers;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class IdleConnectionEvictorTest {
+
+  private final IdleConnectionEvictor underTest = new IdleConnectionEvictor();
+
+  @Test
+  public void testEviction() throws InterruptedException {
+    CountDownLatch executions1 = new CountDownLatch(3);
+    CountDownLatch executions2 = new CountDownLatch(3);
+
+    IdleConnectionEvictor.Registration registration1 = underTest.register(executions1::countDown, 10);
+    IdleConnectionEvictor.Registration registration2 = underTest.register(executions2::countDown, 10);
+    assertTrue(underTest.isRunning());
+
+    assertTrue(executions1.await(5, TimeUnit.SECONDS));
+    assertTrue(executions2.await(5, TimeUnit.SECONDS));
+
+    registration1.cancel();
+    assertTrue(underTest.isRunning());
+    registration2.cancel();
+    registration2.cancel();
+    assertFalse(underTest.isRunning());
+  }
+
+  @Test
+  public void testFailingTaskIsRepeated() throws InterruptedException {
+    CountDownLatch executions = new CountDownLatch(3);
+
+    IdleConnectionEvictor.Registration registration = underTest.register(() -> {
+      executions.countDown();
+      throw new IllegalStateException("failure");
+    }, 10);
+
+    assertTrue(executions.await(5, TimeUnit.SECONDS));
+    registration.cancel();
+    assertFalse(underTest.isRunning());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidInterval() {
+    underTest.register(() -> {
+      // not executed
+    }, 0);
+  }
+
+}
@@ -0,0 +1,221 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpclient.impl.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import io.wcm.caravan.commons.httpclient.impl.helpers.PatternMatcher.WildcardLiteral;
+
+public class PatternMatcherTest {
+
+  private static final String[] LITERALS = {
+      "host1", "example", "\\.", "com", "/path1", "/", "-", "a", "A", "\\$", "\\*", "#", "x\\.y"
+  };
+  private static final String[] FRAGMENTS = {
+      ".*", ".+", ".", "[a-z]+", "\\d", "(host1|host2)", "(?:www\\.)?", "(a)\\1", "(?<g>a)\\k<g>",
+      "(?i)host", "(?i:a)", "\\Qa.b\\E", "[(]", "a?", "^", "$", "(?=h)", "\\w*"
+  };
+  private static final String[] INPUT_PARTS = {
+      "host1", "host2", "HOST1", "example", ".", "com", "/path1", "/", "-", "a", "aa", "A", "$", "*", "#",
+      "x.y", "www.", "1", "\n", "\r\n", "\u2028", "\u0085", ""
+  };
+
+  @Test
+  public void testEmpty() {
+    PatternMatcher underTest = PatternMatcher.compile(Collections.emptyList());
+    assertTrue(underTest.isEmpty());
+    assertFalse(underTest.matches("host1"));
+  }
+
+  @Test
+  public void testExact() {
+    PatternMatcher underTest = compile("host1", "^host2$", "host3\\.example\\.com");
+    assertFalse(underTest.isEmpty());
+    assertTrue(underTest.matches("host1"));
+    assertTrue(underTest.matches("host2"));
+    assertTrue(underTest.matches("host3.example.com"));
+    assertFalse(underTest.matches("host3xexample.com"));
+    assertFalse(underTest.matches("host12"));
+    assertFalse(underTest.matches("Host1"));
+  }
+
+  @Test
+  public void testPrefix() {
+    PatternMatcher underTest = compile("/path1/.*", "/path2.+");
+    assertTrue(underTest.matches("/path1/"));
+    assertTrue(underTest.matches("/path1/sub"));
+    assertFalse(underTest.matches("/path1/sub\n"));
+    assertFalse(underTest.matches("/path2"));
+    assertTrue(underTest.matches("/path2/"));
+  }
+
+  @Test
+  public void testSuffix() {
+    PatternMatcher underTest = compile(".*\\.example\\.com", ".+\\.html");
+    assertTrue(underTest.matches(".example.com"));
+    assertTrue(underTest.matches("sub.example.com"));
+    assertFalse(underTest.matches("example.com"));
+    assertFalse(underTest.matches(".html"));
+    assertTrue(underTest.matches("a.html"));
+  }
+
+  @Test
+  public void testContains() {
+    PatternMatcher underTest = compile(".*/content/.*", ".+abc.+");
+    assertTrue(underTest.matches("/content/"));
+    assertTrue(underTest.matches("/a/content/b"));
+    assertFalse(underTest.matches("/content"));
+    assertFalse(underTest.matches("abcabc"));
+    assertTrue(underTest.matches("xabcabc"));
+    assertTrue(underTest.matches("xabcx"));
+  }
+
+  @Test
+  public void testRegex() {
+    PatternMatcher underTest = compile("(host1|host2)\\.example\\.com", "(a)\\1", "(?i)host3");
+    assertTrue(underTest.matches("host2.example.com"));
+    assertTrue(underTest.matches("aa"));
+    assertTrue(underTest.matches("HOST3"));
+    assertFalse(underTest.matches("HOST1.example.com"));
+    assertFalse(underTest.matches("ab"));
+  }
+
+  @Test
+  public void testWildcardLiteralParse() {
+    assertNotNull(WildcardLiteral.parse("host1"));
+    assertNotNull(WildcardLiteral.parse("^.*\\.example\\.com$"));
+    assertNotNull(WildcardLiteral.parse("/path\\$.+"));
+    assertNull(WildcardLiteral.parse("host."));
+    assertNull(WildcardLiteral.parse(".*?host"));
+    assertNull(WildcardLiteral.parse("host.*+"));
+    assertNull(WildcardLiteral.parse("host\\.*"));
+    assertNull(WildcardLiteral.parse("\\Qhost\\E"));
+    assertNull(WildcardLiteral.parse("host\\d"));
+  }
+
+  @Test
+  public void testCombinable() {
+    assertTrue(PatternMatcher.isCombinable(Pattern.compile("(host1|host2)\\.example\\.com")));
+    assertTrue(PatternMatcher.isCombinable(Pattern.compile("(?:www\\.)?example\\.com")));
+    assertFalse(PatternMatcher.isCombinable(Pattern.compile("(a)\\1")));
+    assertFalse(PatternMatcher.isCombinable(Pattern.compile("(?<g>a)\\k<g>")));
+    assertFalse(PatternMatcher.isCombinable(Pattern.compile("(?i)host")));
+    assertFalse(PatternMatcher.isCombinable(Pattern.compile("\\Qa.b")));
+    assertFalse(PatternMatcher.isCombinable(Pattern.compile("host", Pattern.CASE_INSENSITIVE)));
+  }
+
+  /**
+   * Compares the results with matching each pattern on its own for randomly generated patterns and inputs.
+   * A fixed seed is used to get reproducible results.
+   */
+  @Test
+  public void testSameResultsAsPatterns() {
+    Random random = new Random(4711);
+    for (int run = 0; run < 2000; run++) {
+      List<Pattern> patterns = new ArrayList<>();
+      int patternCount = 1 + random.nextInt(4);
+      for (int i = 0; i < patternCount; i++) {
+        patterns.add(randomPattern(random));
+      }
+      PatternMatcher underTest = PatternMatcher.compile(patterns);
+
+      for (int i = 0; i < 20; i++) {
+        String input = randomInput(random, patterns);
+        boolean expected = false;
+        for (Pattern pattern : patterns) {
+          expected |= pattern.matcher(input).matches();
+        }
+        assertEquals("Patterns " + patterns + ", input '" + input + "'", expected, underTest.matches(input));
+      }
+    }
+  }
+
+  private static PatternMatcher compile(String... regex) {
+    ImmutableList.Builder<Pattern> patterns = ImmutableList.builder();
+    for (String item : regex) {
+      patterns.add(Pattern.compile(item));
+    }
+    return PatternMatcher.compile(patterns.build());
+  }
+
+  private static Pattern randomPattern(Random random) {
+    StringBuilder regex = new StringBuilder();
+    if (random.nextInt(4) == 0) {
+      regex.append('^');
+    }
+    if (random.nextBoolean()) {
+      regex.append(random.nextBoolean() ? ".*" : ".+");
+    }
+    int parts = random.nextInt(4);
+    for (int i = 0; i < parts; i++) {
+      if (random.nextInt(5) == 0) {
+        regex.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+      }
+      else {
+        regex.append(LITERALS[random.nextInt(LITERALS.length)]);
+      }
+    }
+    if (random.nextBoolean()) {
+      regex.append(random.nextBoolean() ? ".*" : ".+");
+    }
+    if (random.nextInt(4) == 0) {
+      regex.append('$');
+    }
+    try {
+      return Pattern.compile(regex.toString(), random.nextInt(10) == 0 ? Pattern.CASE_INSENSITIVE : 0);
+    }
+    catch (PatternSyntaxException ex) {
+      // e.g. duplicate named group
+      return randomPattern(random);
+    }
+  }
+
+  private static String randomInput(Random random, List<Pattern> patterns) {
+    StringBuilder input = new StringBuilder();
+    int parts = random.nextInt(5);
+    for (int i = 0; i < parts; i++) {
+      if (random.nextInt(6) == 0) {
+        // unescaped literal parts of the patterns make matches more likely
+        String regex = patterns.get(random.nextInt(patterns.size())).pattern();
+        input.append(regex.replace("\\", "").replace("^", "").replace("$", "").replace(".*", "").replace(".+", "x"));
+      }
+      else {
+        input.append(INPUT_PARTS[random.nextInt(INPUT_PARTS.length)]);
+      }
+    }
+    return input.toString();
+  }
+
+}
@@ -0,0 +1,217 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpclient.impl.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpHead;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.BasicAuthCache;
+import org.apache.http.impl.client.BasicCookieStore;
+import org.apache.http.impl.client.BasicCredentialsProvider;
+import org.apache.http.message.BasicHttpRequest;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.util.EntityUtils;
+import org.apache.sling.testing.mock.osgi.junit.OsgiContext;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+
+import io.wcm.caravan.commons.httpclient.impl.HttpClientConfigImpl;
+
+public class RequestCoalescerTest {
+
+  @Rule
+  public OsgiContext context = new OsgiContext();
+
+  private RequestCoalescer underTest;
+
+  @Before
+  public void setUp() {
+    underTest = RequestCoalescer.create(context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>builder()
+            .put("requestCoalescing", true)
+            .put("requestCoalescingHeaders", new String[] {
+                "Accept", "Authorization"
+            })
+            .put("requestCoalescingMaxContentLength", 10)
+            .build()));
+  }
+
+  @Test
+  public void testDisabled() {
+    assertNull(RequestCoalescer.create(context.registerInjectActivateService(new HttpClientConfigImpl())));
+  }
+
+  @Test
+  public void testGetKey() {
+    assertNotNull(underTest);
+    HttpGet get = new HttpGet("http://host1/path?q=1");
+    assertEquals(underTest.getKey(null, get, null), underTest.getKey(null, new HttpGet("http://host1/path?q=1"), null));
+    assertEquals(underTest.getKey(null, get, null), underTest.getKey(new HttpHost("host1"), new BasicHttpRequest("GET", "/path?q=1"), null));
+    assertNotEquals(underTest.getKey(null, get, null), underTest.getKey(null, new HttpGet("http://host1/path?q=2"), null));
+    assertNotEquals(underTest.getKey(null, get, null), underTest.getKey(null, new HttpHead("http://host1/path?q=1"), null));
+
+    // only configured headers are part of the key
+    HttpGet otherHeaders = new HttpGet("http://host1/path?q=1");
+    otherHeaders.addHeader("User-Agent", "agent1");
+    assertEquals(underTest.getKey(null, get, null), underTest.getKey(null, otherHeaders, null));
+    HttpGet authorized = new HttpGet("http://host1/path?q=1");
+    authorized.addHeader("authorization", "Basic abc");
+    assertNotEquals(underTest.getKey(null, get, null), underTest.getKey(null, authorized, null));
+
+    assertNull(underTest.getKey(null, new HttpPost("http://host1/path"), null));
+  }
+
+  @Test
+  public void testGetKeyCallerState() {
+    HttpGet get = new HttpGet("http://host1/path");
+    assertNotNull(underTest.getKey(null, get, new BasicHttpContext()));
+
+    // responses may depend on own credentials or cookies of the caller
+    HttpClientContext credentialsContext = HttpClientContext.create();
+    credentialsContext.setCredentialsProvider(new BasicCredentialsProvider());
+    assertNull(underTest.getKey(null, get, credentialsContext));
+    HttpClientContext cookieContext = HttpClientContext.create();
+    cookieContext.setCookieStore(new BasicCookieStore());
+    assertNull(underTest.getKey(null, get, cookieContext));
+    HttpClientContext authCacheContext = HttpClientContext.create();
+    authCacheContext.setAuthCache(new BasicAuthCache());
+    assertNull(underTest.getKey(null, get, authCacheContext));
+  }
+
+  @Test
+  public void testCoalesce() throws Exception {
+    String key = underTest.getKey(null, new HttpGet("http://host1/path"), null);
+    RequestCoalescer.Flight flight = new RequestCoalescer.Flight();
+    assertNull(underTest.join(key, flight));
+    assertSame(flight, underTest.join(key, new RequestCoalescer.Flight()));
+    assertSame(flight, underTest.join(key, new RequestCoalescer.Flight()));
+    assertEquals(1, underTest.getInFlight());
+
+    HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+    response.addHeader("ETag", "\"1\"");
+    response.addHeader("Set-Cookie", "session=1");
+    response.setEntity(new StringEntity("content", ContentType.TEXT_PLAIN));
+    HttpResponse sharedResponse = underTest.complete(key, flight, response);
+    assertSame(sharedResponse, flight.get());
+    assertEquals(0, underTest.getInFlight());
+
+    CloseableHttpResponse copy1 = RequestCoalescer.copy(flight.get(), true);
+    CloseableHttpResponse copy2 = RequestCoalescer.copy(flight.get(), true);
+    assertNotSame(copy1, copy2);
+    assertEquals(200, copy1.getStatusLine().getStatusCode());
+    assertEquals("\"1\"", copy1.getFirstHeader("ETag").getValue());
+    assertEquals("content", EntityUtils.toString(copy1.getEntity()));
+    assertEquals("content", EntityUtils.toString(copy2.getEntity()));
+    assertTrue(copy2.getEntity().getContentType().getValue().startsWith("text/plain"));
+
+    // cookies are only passed to the caller that started the flight
+    assertNull(copy1.getFirstHeader("Set-Cookie"));
+    assertEquals("session=1", RequestCoalescer.copy(flight.get(), false).getFirstHeader("Set-Cookie").getValue());
+
+    // next request starts a new flight
+    assertNull(underTest.join(key, new RequestCoalescer.Flight()));
+
+    assertEquals(4, underTest.getRequestCount());
+    assertEquals(2, underTest.getCoalescedCount());
+  }
+
+  @Test
+  public void testNotBufferedWithoutJoinedRequests() throws Exception {
+    String key = underTest.getKey(null, new HttpGet("http://host1/path"), null);
+    RequestCoalescer.Flight flight = new RequestCoalescer.Flight();
+    assertNull(underTest.join(key, flight));
+
+    HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+    response.setEntity(new StringEntity("content", ContentType.TEXT_PLAIN));
+    assertNull(underTest.complete(key, flight, response));
+    assertNull(flight.get());
+    assertEquals(0, underTest.getInFlight());
+  }
+
+  @Test
+  public void testNotBufferedContentLength() throws Exception {
+    String key = underTest.getKey(null, new HttpGet("http://host1/path"), null);
+
+    // content exceeds the max. content length
+    RequestCoalescer.Flight flight1 = new RequestCoalescer.Flight();
+    assertNull(underTest.join(key, flight1));
+    assertSame(flight1, underTest.join(key, new RequestCoalescer.Flight()));
+    HttpResponse response1 = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+    response1.setEntity(new StringEntity("content too large", ContentType.TEXT_PLAIN));
+    assertNull(underTest.complete(key, flight1, response1));
+    assertNull(flight1.get());
+    // response is left to the caller that started the flight
+    assertEquals("content too large", EntityUtils.toString(response1.getEntity()));
+
+    // content length is unknown
+    RequestCoalescer.Flight flight2 = new RequestCoalescer.Flight();
+    assertNull(underTest.join(key, flight2));
+    assertSame(flight2, underTest.join(key, new RequestCoalescer.Flight()));
+    HttpResponse response2 = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+    response2.setEntity(new InputStreamEntity(new ByteArrayInputStream(new byte[1])));
+    assertNull(underTest.complete(key, flight2, response2));
+    assertNull(flight2.get());
+    assertEquals(0, underTest.getInFlight());
+  }
+
+  @Test
+  public void testFail() throws Exception {
+    String key = underTest.getKey(null, new HttpGet("http://host1/path"), null);
+    RequestCoalescer.Flight flight = new RequestCoalescer.Flight();
+    assertNull(underTest.join(key, flight));
+    IOException ex = new IOException("failed");
+    underTest.fail(key, flight, ex);
+    assertEquals(0, underTest.getInFlight());
+    try {
+      underTest.join(key, new RequestCoalescer.Flight());
+      flight.get();
+      fail("ExecutionException expected");
+    }
+    catch (ExecutionException expected) {
+      assertSame(ex, expected.getCause());
+    }
+  }
+
+}
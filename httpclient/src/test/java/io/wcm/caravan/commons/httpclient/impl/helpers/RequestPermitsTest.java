@@ -0,0 +1,115 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpclient.impl.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.apache.http.HttpHost;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.junit.Test;
+
+import io.wcm.caravan.commons.httpclient.CallNotPermittedException;
+
+public class RequestPermitsTest {
+
+  private static final HttpHost HOST = new HttpHost("host1", 80);
+
+  @Test
+  public void testNoGuards() throws Exception {
+    assertNull(RequestPermits.acquire(HOST, null, null, null));
+    // concurrency limit is only applied with a target host
+    assertNull(RequestPermits.acquire(null, null, null, new AdaptiveConcurrencyLimiter(1)));
+  }
+
+  @Test
+  public void testBulkhead() throws Exception {
+    Bulkhead bulkhead = new Bulkhead(2);
+    RequestPermits permits1 = RequestPermits.acquire(HOST, null, bulkhead, null);
+    RequestPermits permits2 = RequestPermits.acquire(HOST, null, bulkhead, null);
+    assertNotNull(permits1);
+    assertNotNull(permits2);
+    assertEquals(0, bulkhead.getAvailable());
+
+    try {
+      RequestPermits.acquire(HOST, null, bulkhead, null);
+      fail("CallNotPermittedException expected");
+    }
+    catch (CallNotPermittedException ex) {
+      assertEquals(1, bulkhead.getRejectedCount());
+    }
+
+    permits1.release();
+    // releasing twice has no effect
+    permits1.release();
+    assertEquals(1, bulkhead.getAvailable());
+    permits2.release();
+    assertEquals(2, bulkhead.getAvailable());
+  }
+
+  @Test
+  public void testBulkheadResize() throws Exception {
+    Bulkhead bulkhead = new Bulkhead(1);
+    RequestPermits permits = RequestPermits.acquire(HOST, null, bulkhead, null);
+    bulkhead.setMaxConcurrentCalls(2);
+    assertEquals(1, bulkhead.getAvailable());
+    assertTrue(bulkhead.tryAcquire());
+    assertFalse(bulkhead.tryAcquire());
+    bulkhead.release();
+    permits.release();
+    assertEquals(2, bulkhead.getAvailable());
+  }
+
+  @Test
+  public void testRollbackOnConcurrencyLimit() throws Exception {
+    Bulkhead bulkhead = new Bulkhead(2);
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1);
+    RequestPermits permits = RequestPermits.acquire(HOST, null, bulkhead, limiter);
+    assertNotNull(permits);
+
+    try {
+      RequestPermits.acquire(HOST, null, bulkhead, limiter);
+      fail("ConnectionPoolTimeoutException expected");
+    }
+    catch (ConnectionPoolTimeoutException ex) {
+      // bulkhead permit is returned
+      assertEquals(1, bulkhead.getAvailable());
+    }
+
+    permits.sample(200);
+    permits.release();
+    assertEquals(2, bulkhead.getAvailable());
+    assertEquals(0, limiter.getInFlight(HOST));
+  }
+
+  @Test
+  public void testIsFailureStatus() {
+    assertFalse(RequestPermits.isFailureStatus(200));
+    assertFalse(RequestPermits.isFailureStatus(404));
+    assertFalse(RequestPermits.isFailureStatus(429));
+    assertTrue(RequestPermits.isFailureStatus(500));
+    assertTrue(RequestPermits.isFailureStatus(503));
+  }
+
+}
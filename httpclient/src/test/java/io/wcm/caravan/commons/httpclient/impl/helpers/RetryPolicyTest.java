@@ -0,0 +1,144 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpclient.impl.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+
+import org.apache.http.client.methods.HttpDelete;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.entity.StringEntity;
+import org.apache.sling.testing.mock.osgi.junit.OsgiContext;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+
+import io.wcm.caravan.commons.httpclient.CallNotPermittedException;
+import io.wcm.caravan.commons.httpclient.impl.HttpClientConfigImpl;
+
+public class RetryPolicyTest {
+
+  @Rule
+  public OsgiContext context = new OsgiContext();
+
+  @Test
+  public void testDisabled() {
+    assertNull(RetryPolicy.create(context.registerInjectActivateService(new HttpClientConfigImpl())));
+  }
+
+  @Test
+  public void testIsRetryable() {
+    assertTrue(RetryPolicy.isRetryable(new HttpGet("http://host1/path")));
+    assertTrue(RetryPolicy.isRetryable(new HttpDelete("http://host1/path")));
+    assertFalse(RetryPolicy.isRetryable(new HttpPost("http://host1/path")));
+
+    HttpPut put = new HttpPut("http://host1/path");
+    put.setEntity(new StringEntity("content", "UTF-8"));
+    assertTrue(RetryPolicy.isRetryable(put));
+    put.setEntity(new InputStreamEntity(new ByteArrayInputStream(new byte[0])));
+    assertFalse(RetryPolicy.isRetryable(put));
+  }
+
+  @Test
+  public void testRetryableStatusAndExceptions() {
+    RetryPolicy underTest = create(ImmutableMap.of("retryMaxAttempts", 3));
+    assertTrue(underTest.isRetryableStatus(503));
+    assertFalse(underTest.isRetryableStatus(500));
+
+    assertTrue(underTest.isRetryableException(new ConnectException()));
+    assertTrue(underTest.isRetryableException(new ConnectTimeoutException()));
+    assertFalse(underTest.isRetryableException(new NoRouteToHostException()));
+    assertFalse(underTest.isRetryableException(new SocketTimeoutException()));
+    assertFalse(underTest.isRetryableException(new CallNotPermittedException("open")));
+  }
+
+  @Test
+  public void testCustomStatusAndExceptions() {
+    RetryPolicy underTest = create(ImmutableMap.of("retryMaxAttempts", 3,
+        "retryStatusCodes", new int[] { 500 },
+        "retryExceptions", new String[] { "java.io.IOException" }));
+    assertTrue(underTest.isRetryableStatus(500));
+    assertFalse(underTest.isRetryableStatus(503));
+
+    // subclasses are retried as well, except rejected calls
+    assertTrue(underTest.isRetryableException(new SocketTimeoutException()));
+    assertTrue(underTest.isRetryableException(new IOException()));
+    assertFalse(underTest.isRetryableException(new CallNotPermittedException("open")));
+    assertFalse(underTest.isRetryableException(new IllegalStateException()));
+  }
+
+  @Test
+  public void testBudget() {
+    RetryPolicy underTest = create(ImmutableMap.of("retryMaxAttempts", 3, "retryBudgetPercent", 20));
+
+    // budget allows a burst of 10 retries
+    for (int i = 0; i < 10; i++) {
+      assertTrue(underTest.tryAcquireRetry());
+    }
+    assertFalse(underTest.tryAcquireRetry());
+    assertEquals(1, underTest.getBudgetExhaustedCount());
+
+    // each request adds 20% of a retry
+    for (int i = 0; i < 4; i++) {
+      underTest.requestStarted();
+    }
+    assertFalse(underTest.tryAcquireRetry());
+    underTest.requestStarted();
+    assertTrue(underTest.tryAcquireRetry());
+    assertEquals(11, underTest.getRetryCount());
+    assertEquals(2, underTest.getBudgetExhaustedCount());
+  }
+
+  @Test
+  public void testBackoff() {
+    RetryPolicy underTest = create(ImmutableMap.of("retryMaxAttempts", 5, "retryBackoff", 100, "retryMaxBackoff", 300));
+    for (int i = 0; i < 100; i++) {
+      assertInRange(50, 100, underTest.getBackoff(1));
+      assertInRange(100, 200, underTest.getBackoff(2));
+      assertInRange(150, 300, underTest.getBackoff(3));
+      assertInRange(150, 300, underTest.getBackoff(40));
+    }
+  }
+
+  private static void assertInRange(long min, long max, long value) {
+    assertTrue(value + " not in [" + min + "," + max + "]", value >= min && value <= max);
+  }
+
+  private RetryPolicy create(ImmutableMap<String, Object> props) {
+    RetryPolicy retryPolicy = RetryPolicy.create(context.registerInjectActivateService(new HttpClientConfigImpl(), props));
+    assertNotNull(retryPolicy);
+    return retryPolicy;
+  }
+
+}
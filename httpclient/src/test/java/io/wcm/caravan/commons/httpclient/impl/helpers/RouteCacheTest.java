@@ -0,0 +1,160 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpclient.impl.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.apache.sling.testing.mock.osgi.junit.OsgiContext;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableMap;
+
+import io.wcm.caravan.commons.httpclient.HttpClientConfig;
+import io.wcm.caravan.commons.httpclient.impl.HttpClientConfigImpl;
+
+public class RouteCacheTest {
+
+  @Rule
+  public OsgiContext context = new OsgiContext();
+
+  private final List<HttpClientConfig> configs = new ArrayList<>();
+  private final AtomicInteger matchCount = new AtomicInteger();
+
+  @Test
+  public void testHitsAndMisses() {
+    HttpClientConfig config1 = addConfig("host1");
+    RouteCache<HttpClientConfig> underTest = new RouteCache<>(buildIndex());
+
+    assertSame(config1, underTest.resolve("host1", null, "/path1", false));
+    assertSame(config1, underTest.resolve("host1", null, "/path1", false));
+    assertNull(underTest.resolve("host2", null, "/path1", false));
+    assertNull(underTest.resolve("host2", null, "/path1", false));
+    assertSame(config1, underTest.resolve("host1", null, "/path2", false));
+    assertSame(config1, underTest.resolve("host1", null, "/path1", true));
+
+    assertEquals(2, underTest.getHitCount());
+    assertEquals(4, underTest.getMissCount());
+    assertEquals(3, matchCount.get());
+  }
+
+  @Test
+  public void testResolveParsedUrl() {
+    HttpClientConfig config1 = addConfig("host1");
+    RouteCache<HttpClientConfig> underTest = new RouteCache<>(buildIndex());
+
+    String url1 = "http://host1/path1?q=1";
+    String url2 = "http://host2:8080/path1";
+    assertSame(config1, underTest.resolve(url1, TargetUrlParser.parse(url1), null, false));
+    assertSame(config1, underTest.resolve(url1, TargetUrlParser.parse(url1), null, false));
+    assertSame(config1, underTest.resolve("host1", null, "/path1", false));
+    assertNull(underTest.resolve(url2, TargetUrlParser.parse(url2), null, false));
+    assertNull(underTest.resolve("host2", null, "/path1", false));
+
+    assertEquals(3, underTest.getHitCount());
+    assertEquals(2, underTest.getMissCount());
+  }
+
+  @Test
+  public void testUpdateInvalidatesCache() {
+    HttpClientConfig config1 = addConfig("host1");
+    RouteCache<HttpClientConfig> underTest = new RouteCache<>(buildIndex());
+    assertSame(config1, underTest.resolve("host1", null, null, false));
+
+    configs.clear();
+    HttpClientConfig config2 = addConfig("host1");
+    underTest.update(buildIndex());
+
+    assertSame(config2, underTest.resolve("host1", null, null, false));
+    assertEquals(0, underTest.getHitCount());
+    assertEquals(2, underTest.getMissCount());
+  }
+
+  @Test
+  public void testBoundedCapacity() {
+    HttpClientConfig config1 = addConfig(".*\\.example\\.com");
+    RouteCache<HttpClientConfig> underTest = new RouteCache<>(buildIndex(), 5);
+    assertEquals(8, underTest.getCapacity());
+
+    for (int i = 0; i < 100; i++) {
+      assertSame(config1, underTest.resolve("host" + i + ".example.com", null, null, false));
+    }
+    assertEquals(100, underTest.getMissCount());
+  }
+
+  @Test
+  public void testMetrics() {
+    HttpClientConfig config1 = addConfig("host1");
+    RouteCache<HttpClientConfig> underTest = new RouteCache<>(buildIndex());
+    MetricRegistry metricRegistry = new MetricRegistry();
+    underTest.registerMetrics(metricRegistry, "test.routecache");
+
+    assertSame(config1, underTest.resolve("host1", null, "/path1", false));
+    assertSame(config1, underTest.resolve("host1", null, "/path1", false));
+    assertSame(config1, underTest.resolve("host1", null, "/path1", false));
+
+    Gauge<?> hits = metricRegistry.getGauges().get("test.routecache.hits");
+    Gauge<?> misses = metricRegistry.getGauges().get("test.routecache.misses");
+    assertEquals(2L, hits.getValue());
+    assertEquals(1L, misses.getValue());
+
+    // names registered by another route cache are left untouched
+    RouteCache<HttpClientConfig> other = new RouteCache<>(buildIndex());
+    other.registerMetrics(metricRegistry, "test.routecache");
+    other.unregisterMetrics();
+    assertTrue(metricRegistry.getNames().contains("test.routecache.hits"));
+
+    underTest.unregisterMetrics();
+    assertFalse(metricRegistry.getNames().contains("test.routecache.hits"));
+    assertTrue(metricRegistry.getNames().isEmpty());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidCapacity() {
+    new RouteCache<>(buildIndex(), 1);
+  }
+
+  private HttpClientConfig addConfig(String... hostPatterns) {
+    HttpClientConfig config = context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>of("hostPatterns", hostPatterns));
+    configs.add(config);
+    return config;
+  }
+
+  private RouteIndex<HttpClientConfig> buildIndex() {
+    return RouteIndex.build(configs, Function.identity(),
+        (config, host, wsAddressingToUri, path, isWsCall) -> {
+          matchCount.incrementAndGet();
+          return config.matchesHost(host);
+        });
+  }
+
+}
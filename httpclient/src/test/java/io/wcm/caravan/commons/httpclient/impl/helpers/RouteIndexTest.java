@@ -0,0 +1,138 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpclient.impl.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import org.apache.sling.testing.mock.osgi.junit.OsgiContext;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+
+import io.wcm.caravan.commons.httpclient.HttpClientConfig;
+import io.wcm.caravan.commons.httpclient.impl.HttpClientConfigImpl;
+
+public class RouteIndexTest {
+
+  @Rule
+  public OsgiContext context = new OsgiContext();
+
+  private final List<HttpClientConfig> configs = new ArrayList<>();
+
+  @Test
+  public void testExactHostNames() {
+    HttpClientConfig config1 = addConfig("host1", "host2");
+    HttpClientConfig config2 = addConfig("host3\\.example\\.com");
+
+    RouteIndex<HttpClientConfig> underTest = buildIndex();
+    assertSame(config1, resolve(underTest, "host1"));
+    assertSame(config1, resolve(underTest, "host2"));
+    assertSame(config2, resolve(underTest, "host3.example.com"));
+    assertNull(resolve(underTest, "host3xexample.com"));
+    assertNull(resolve(underTest, "host4"));
+    assertNull(resolve(underTest, null));
+  }
+
+  @Test
+  public void testSubdomains() {
+    HttpClientConfig config1 = addConfig("^.*\\.example\\.com$");
+    HttpClientConfig config2 = addConfig("(.*\\.)?example\\.org");
+
+    RouteIndex<HttpClientConfig> underTest = buildIndex();
+    assertSame(config1, resolve(underTest, "host1.example.com"));
+    assertSame(config1, resolve(underTest, "a.b.example.com"));
+    assertNull(resolve(underTest, "example.com"));
+    assertNull(resolve(underTest, "host1.example.com.net"));
+    assertSame(config2, resolve(underTest, "example.org"));
+    assertSame(config2, resolve(underTest, "host1.example.org"));
+    assertNull(resolve(underTest, "otherexample.org"));
+  }
+
+  @Test
+  public void testRegexFallback() {
+    HttpClientConfig config1 = addConfig("h(\\d*)");
+    HttpClientConfig config2 = addConfig("host.example.com");
+
+    RouteIndex<HttpClientConfig> underTest = buildIndex();
+    assertSame(config1, resolve(underTest, "h1"));
+    assertSame(config1, resolve(underTest, "h"));
+    assertSame(config2, resolve(underTest, "host.example.com"));
+    assertSame(config2, resolve(underTest, "hostxexample.com"));
+    assertNull(resolve(underTest, "host1"));
+  }
+
+  @Test
+  public void testOrderIsKept() {
+    HttpClientConfig config1 = addConfig("h(\\d*)");
+    HttpClientConfig config2 = addConfig(".*\\.example\\.com");
+    HttpClientConfig config3 = addConfig("h1", "h1.example.com");
+    HttpClientConfig config4 = addConfig();
+
+    RouteIndex<HttpClientConfig> underTest = buildIndex();
+    assertEquals(4, underTest.size());
+    assertSame(config1, resolve(underTest, "h1"));
+    assertSame(config2, resolve(underTest, "h1.example.com"));
+    assertSame(config4, resolve(underTest, "h1.example.org"));
+    assertSame(config4, resolve(underTest, null));
+  }
+
+  @Test
+  public void testDisabledConfig() {
+    addConfig(ImmutableMap.<String, Object>of("hostPatterns", new String[] { "host1" }, "enabled", false));
+    HttpClientConfig config2 = addConfig("host1");
+
+    RouteIndex<HttpClientConfig> underTest = buildIndex();
+    assertSame(config2, resolve(underTest, "host1"));
+  }
+
+  @Test
+  public void testEmpty() {
+    RouteIndex<HttpClientConfig> underTest = buildIndex();
+    assertEquals(0, underTest.size());
+    assertNull(resolve(underTest, "host1"));
+  }
+
+  private HttpClientConfig addConfig(String... hostPatterns) {
+    return addConfig(ImmutableMap.<String, Object>of("hostPatterns", hostPatterns));
+  }
+
+  private HttpClientConfig addConfig(ImmutableMap<String, Object> props) {
+    HttpClientConfig config = context.registerInjectActivateService(new HttpClientConfigImpl(), props);
+    configs.add(config);
+    return config;
+  }
+
+  private RouteIndex<HttpClientConfig> buildIndex() {
+    return RouteIndex.build(configs, Function.identity(),
+        (config, host, wsAddressingToUri, path, isWsCall) -> config.isEnabled() && config.matchesHost(host));
+  }
+
+  private static HttpClientConfig resolve(RouteIndex<HttpClientConfig> index, String host) {
+    return index.resolve(host, null, null, false);
+  }
+
+}
@@ -0,0 +1,150 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpclient.impl.helpers;
+
+import static io.wcm.caravan.commons.httpclient.impl.helpers.CertificateLoaderTest.KEYSTORE_PASSWORD;
+import static io.wcm.caravan.commons.httpclient.impl.helpers.CertificateLoaderTest.KEYSTORE_PATH;
+import static io.wcm.caravan.commons.httpclient.impl.helpers.CertificateLoaderTest.KEYSTORE_PFX_PASSWORD;
+import static io.wcm.caravan.commons.httpclient.impl.helpers.CertificateLoaderTest.KEYSTORE_PFX_PATH;
+import static io.wcm.caravan.commons.httpclient.impl.helpers.CertificateLoaderTest.TRUSTSTORE_PASSWORD;
+import static io.wcm.caravan.commons.httpclient.impl.helpers.CertificateLoaderTest.TRUSTSTORE_PATH;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import javax.net.ssl.SSLContext;
+
+import org.apache.sling.testing.mock.osgi.junit.OsgiContext;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.ImmutableMap;
+
+import io.wcm.caravan.commons.httpclient.HttpClientConfig;
+import io.wcm.caravan.commons.httpclient.impl.HttpClientConfigImpl;
+
+public class SslContextCacheTest {
+
+  @Rule
+  public OsgiContext context = new OsgiContext();
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private final SslContextCache underTest = new SslContextCache();
+
+  @Test
+  public void testIdenticalKeyMaterial() throws Exception {
+    SSLContext sslContext1 = underTest.getSSLContext(keyStoreConfig(KEYSTORE_PATH, KEYSTORE_PASSWORD, "host1"));
+    SSLContext sslContext2 = underTest.getSSLContext(keyStoreConfig(KEYSTORE_PATH, KEYSTORE_PASSWORD, "host2"));
+
+    assertSame(sslContext1, sslContext2);
+    assertEquals(1, underTest.getHitCount());
+    assertEquals(1, underTest.getMissCount());
+  }
+
+  @Test
+  public void testDifferentKeyMaterial() throws Exception {
+    SSLContext sslContext1 = underTest.getSSLContext(keyStoreConfig(KEYSTORE_PATH, KEYSTORE_PASSWORD, "host1"));
+    SSLContext sslContext2 = underTest.getSSLContext(keyStoreConfig(KEYSTORE_PFX_PATH, KEYSTORE_PFX_PASSWORD, "host2"));
+
+    assertNotSame(sslContext1, sslContext2);
+    assertEquals(0, underTest.getHitCount());
+    assertEquals(2, underTest.getMissCount());
+  }
+
+  @Test
+  public void testDifferentTrustStoreSettings() throws Exception {
+    HttpClientConfig config1 = context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>of("trustStorePath", TRUSTSTORE_PATH, "trustStorePassword", TRUSTSTORE_PASSWORD));
+    HttpClientConfig config2 = context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>of("trustStorePath", TRUSTSTORE_PATH, "trustStorePassword", TRUSTSTORE_PASSWORD,
+            "trustStoreProvider", "SUN"));
+
+    assertNotSame(underTest.getSSLContext(config1), underTest.getSSLContext(config2));
+  }
+
+  @Test
+  public void testDefaultSslContext() throws Exception {
+    HttpClientConfig config1 = context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>of("hostPatterns", "host1"));
+    HttpClientConfig config2 = context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>of("hostPatterns", "host2"));
+
+    assertSame(underTest.getSSLContext(config1), underTest.getSSLContext(config2));
+  }
+
+  @Test
+  public void testSessionCacheSettings() throws Exception {
+    HttpClientConfig defaultConfig = context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>of("hostPatterns", "host1"));
+    HttpClientConfig sessionConfig = context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>of("hostPatterns", "host2", "sslSessionCacheSize", 100, "sslSessionTimeout", 600));
+
+    SSLContext sslContext = underTest.getSSLContext(sessionConfig);
+    assertNotSame(underTest.getSSLContext(defaultConfig), sslContext);
+    assertEquals(100, sslContext.getClientSessionContext().getSessionCacheSize());
+    assertEquals(600, sslContext.getClientSessionContext().getSessionTimeout());
+
+    HttpClientConfig keyStoreSessionConfig = context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>of("keyStorePath", KEYSTORE_PATH, "keyStorePassword", KEYSTORE_PASSWORD,
+            "sslSessionCacheSize", 100));
+    assertNotSame(underTest.getSSLContext(keyStoreConfig(KEYSTORE_PATH, KEYSTORE_PASSWORD, "host3")),
+        underTest.getSSLContext(keyStoreSessionConfig));
+  }
+
+  @Test
+  public void testChangedStoreFile() throws Exception {
+    File keyStoreFile = tempFolder.newFile("keystore.p12");
+    copyResource(KEYSTORE_PATH, keyStoreFile);
+    HttpClientConfig config = keyStoreConfig(keyStoreFile.getAbsolutePath(), KEYSTORE_PASSWORD, "host1");
+
+    SSLContext sslContext1 = underTest.getSSLContext(config);
+    assertSame(sslContext1, underTest.getSSLContext(config));
+
+    copyResource(KEYSTORE_PFX_PATH, keyStoreFile);
+    HttpClientConfig changedConfig = keyStoreConfig(keyStoreFile.getAbsolutePath(), KEYSTORE_PFX_PASSWORD, "host1");
+    assertNotSame(sslContext1, underTest.getSSLContext(changedConfig));
+  }
+
+  @Test(expected = FileNotFoundException.class)
+  public void testInvalidPath() throws Exception {
+    underTest.getSSLContext(keyStoreConfig("/invalid/path", KEYSTORE_PASSWORD, "host1"));
+  }
+
+  private HttpClientConfig keyStoreConfig(String keyStorePath, String keyStorePassword, String hostPattern) {
+    return context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>of("hostPatterns", hostPattern,
+            "keyStorePath", keyStorePath, "keyStorePassword", keyStorePassword));
+  }
+
+  private static void copyResource(String resourcePath, File file) throws Exception {
+    try (InputStream is = SslContextCacheTest.class.getResourceAsStream(resourcePath)) {
+      Files.copy(is, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+}
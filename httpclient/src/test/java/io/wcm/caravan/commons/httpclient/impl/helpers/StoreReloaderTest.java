@@ -0,0 +1,234 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpclient.impl.helpers;
+
+import static io.wcm.caravan.commons.httpclient.impl.helpers.CertificateLoaderTest.KEYSTORE_PASSWORD;
+import static io.wcm.caravan.commons.httpclient.impl.helpers.CertificateLoaderTest.KEYSTORE_PATH;
+import static io.wcm.caravan.commons.httpclient.impl.helpers.CertificateLoaderTest.TRUSTSTORE_PASSWORD;
+import static io.wcm.caravan.commons.httpclient.impl.helpers.CertificateLoaderTest.TRUSTSTORE_PATH;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.security.KeyStore;
+import java.util.Collections;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.X509KeyManager;
+import javax.net.ssl.X509TrustManager;
+
+import org.apache.sling.testing.mock.osgi.junit.OsgiContext;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.ImmutableMap;
+
+import io.wcm.caravan.commons.httpclient.HttpClientConfig;
+import io.wcm.caravan.commons.httpclient.impl.HttpClientConfigImpl;
+
+public class StoreReloaderTest {
+
+  @Rule
+  public OsgiContext context = new OsgiContext();
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private File keyStoreFile;
+  private File trustStoreFile;
+  private HttpClientConfig config;
+
+  @Before
+  public void setUp() throws Exception {
+    keyStoreFile = tempFolder.newFile("keystore.p12");
+    trustStoreFile = tempFolder.newFile("truststore.jks");
+    Files.write(keyStoreFile.toPath(), CertificateLoader.readStore(KEYSTORE_PATH));
+    Files.write(trustStoreFile.toPath(), CertificateLoader.readStore(TRUSTSTORE_PATH));
+    config = context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>builder()
+            .put("keyStorePath", keyStoreFile.getAbsolutePath())
+            .put("keyStorePassword", KEYSTORE_PASSWORD)
+            .put("trustStorePath", trustStoreFile.getAbsolutePath())
+            .put("trustStorePassword", TRUSTSTORE_PASSWORD)
+            .put("storeReloadInterval", 60000)
+            .build());
+  }
+
+  @Test
+  public void testReloadKeyStore() throws Exception {
+    ReloadingX509KeyManager keyManager = createKeyManager();
+    X509KeyManager initialDelegate = keyManager.getDelegate();
+    StoreReloader underTest = new StoreReloader(config, keyManager, Files.readAllBytes(keyStoreFile.toPath()), null, null);
+    assertTrue(underTest.isWatchable());
+    assertFalse(underTest.reloadIfChanged());
+
+    rewriteStore(keyStoreFile, "PKCS12", KEYSTORE_PASSWORD);
+
+    assertTrue(underTest.reloadIfChanged());
+    assertNotSame(initialDelegate, keyManager.getDelegate());
+    assertNotNull(keyManager.getCertificateChain(keyManager.getClientAliases("RSA", null)[0]));
+    assertEquals(1, underTest.getReloadTimer().getCount());
+    assertEquals(0, underTest.getReloadFailures().getCount());
+
+    // no further changes
+    assertFalse(underTest.reloadIfChanged());
+  }
+
+  @Test
+  public void testReloadTrustStore() throws Exception {
+    ReloadingX509TrustManager trustManager = createTrustManager();
+    X509TrustManager initialDelegate = trustManager.getDelegate();
+    StoreReloader underTest = new StoreReloader(config, null, null, trustManager, Files.readAllBytes(trustStoreFile.toPath()));
+
+    rewriteTrustStoreWithNewAliases(trustStoreFile, TRUSTSTORE_PASSWORD);
+
+    assertTrue(underTest.reloadIfChanged());
+    assertNotSame(initialDelegate, trustManager.getDelegate());
+    assertEquals(initialDelegate.getAcceptedIssuers().length, trustManager.getAcceptedIssuers().length);
+  }
+
+  @Test
+  public void testUnchangedContent() throws Exception {
+    ReloadingX509KeyManager keyManager = createKeyManager();
+    X509KeyManager initialDelegate = keyManager.getDelegate();
+    StoreReloader underTest = new StoreReloader(config, keyManager, Files.readAllBytes(keyStoreFile.toPath()), null, null);
+
+    assertTrue(keyStoreFile.setLastModified(keyStoreFile.lastModified() + 5000));
+
+    assertFalse(underTest.reloadIfChanged());
+    assertSame(initialDelegate, keyManager.getDelegate());
+    assertEquals(0, underTest.getReloadTimer().getCount());
+  }
+
+  @Test
+  public void testReloadFailure() throws Exception {
+    ReloadingX509KeyManager keyManager = createKeyManager();
+    X509KeyManager initialDelegate = keyManager.getDelegate();
+    StoreReloader underTest = new StoreReloader(config, keyManager, Files.readAllBytes(keyStoreFile.toPath()), null, null);
+
+    Files.write(keyStoreFile.toPath(), new byte[] { 1, 2, 3 });
+
+    assertFalse(underTest.reloadIfChanged());
+    assertSame(initialDelegate, keyManager.getDelegate());
+    assertEquals(1, underTest.getReloadFailures().getCount());
+    assertEquals(0, underTest.getReloadTimer().getCount());
+  }
+
+  @Test
+  public void testClasspathStore() throws Exception {
+    HttpClientConfig classpathConfig = context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>of("keyStorePath", KEYSTORE_PATH, "keyStorePassword", KEYSTORE_PASSWORD,
+            "storeReloadInterval", 60000));
+    StoreReloader underTest = new StoreReloader(classpathConfig, createKeyManager(), CertificateLoader.readStore(KEYSTORE_PATH), null, null);
+
+    assertFalse(underTest.isWatchable());
+  }
+
+  @Test
+  public void testSslContextCache() throws Exception {
+    SslContextCache cache = new SslContextCache();
+    SSLContext sslContext = cache.getSSLContext(config);
+    StoreReloader storeReloader = cache.getStoreReloader(sslContext);
+    assertNotNull(storeReloader);
+    assertTrue(storeReloader.isInUse());
+
+    // changed content does not lead to a new SSL context in reload mode
+    rewriteStore(keyStoreFile, "PKCS12", KEYSTORE_PASSWORD);
+    assertSame(sslContext, cache.getSSLContext(config));
+  }
+
+  @Test
+  public void testSslContextCacheWithoutReload() throws Exception {
+    SslContextCache cache = new SslContextCache();
+    HttpClientConfig noReloadConfig = context.registerInjectActivateService(new HttpClientConfigImpl(),
+        ImmutableMap.<String, Object>of("keyStorePath", keyStoreFile.getAbsolutePath(), "keyStorePassword", KEYSTORE_PASSWORD));
+    assertNull(cache.getStoreReloader(cache.getSSLContext(noReloadConfig)));
+  }
+
+  @Test
+  public void testWatch() throws Exception {
+    ReloadingX509KeyManager keyManager = createKeyManager();
+    StoreReloader underTest = new StoreReloader(config, keyManager, Files.readAllBytes(keyStoreFile.toPath()), null, null);
+    StoreWatcher watcher = new StoreWatcher();
+    watcher.watch(underTest, 10);
+    assertTrue(watcher.isRunning());
+
+    rewriteStore(keyStoreFile, "PKCS12", KEYSTORE_PASSWORD);
+
+    long timeout = System.currentTimeMillis() + 5000;
+    while (underTest.getReloadTimer().getCount() == 0 && System.currentTimeMillis() < timeout) {
+      Thread.sleep(10);
+    }
+    assertEquals(1, underTest.getReloadTimer().getCount());
+  }
+
+  private ReloadingX509KeyManager createKeyManager() throws Exception {
+    return new ReloadingX509KeyManager(CertificateLoader.getX509KeyManager(Files.readAllBytes(keyStoreFile.toPath()),
+        CertificateLoader.getKeyStoreProperties(config)));
+  }
+
+  private ReloadingX509TrustManager createTrustManager() throws Exception {
+    return new ReloadingX509TrustManager(CertificateLoader.getX509TrustManager(Files.readAllBytes(trustStoreFile.toPath()),
+        CertificateLoader.getTrustStoreProperties(config)));
+  }
+
+  /**
+   * Stores the key store again with the same entries, which results in different file content.
+   */
+  private static void rewriteStore(File file, String type, String password) throws Exception {
+    KeyStore keyStore = KeyStore.getInstance(type);
+    keyStore.load(new ByteArrayInputStream(Files.readAllBytes(file.toPath())), password.toCharArray());
+    long lastModified = file.lastModified();
+    try (OutputStream os = new FileOutputStream(file)) {
+      keyStore.store(os, password.toCharArray());
+    }
+    // make sure the change is detected even with coarse file system timestamps
+    assertTrue(file.setLastModified(lastModified + 2000));
+  }
+
+  /**
+   * Stores the trusted certificates under new aliases, as JKS stores with identical entries have identical content.
+   */
+  private static void rewriteTrustStoreWithNewAliases(File file, String password) throws Exception {
+    KeyStore keyStore = KeyStore.getInstance("JKS");
+    keyStore.load(new ByteArrayInputStream(Files.readAllBytes(file.toPath())), password.toCharArray());
+    KeyStore newKeyStore = KeyStore.getInstance("JKS");
+    newKeyStore.load(null, password.toCharArray());
+    for (String alias : Collections.list(keyStore.aliases())) {
+      newKeyStore.setCertificateEntry("rotated-" + alias, keyStore.getCertificate(alias));
+    }
+    long lastModified = file.lastModified();
+    try (OutputStream os = new FileOutputStream(file)) {
+      newKeyStore.store(os, password.toCharArray());
+    }
+    assertTrue(file.setLastModified(lastModified + 2000));
+  }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.caravan.commons.httpclient.impl.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+
+import javax.net.ssl.SSLSession;
+
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.junit.Test;
+
+import com.codahale.metrics.MetricRegistry;
+
+public class TlsHandshakeMetricsTest {
+
+  private final TlsHandshakeMetrics underTest = new TlsHandshakeMetrics();
+
+  @Test
+  public void testFullHandshake() {
+    long start = System.currentTimeMillis();
+    underTest.completed(session(start + 1), start, System.nanoTime());
+
+    assertEquals(1, underTest.getFullHandshakes().getCount());
+    assertEquals(0, underTest.getResumedHandshakes().getCount());
+  }
+
+  @Test
+  public void testResumedHandshake() {
+    long start = System.currentTimeMillis();
+    underTest.completed(session(start - 60000), start, System.nanoTime());
+
+    assertEquals(0, underTest.getFullHandshakes().getCount());
+    assertEquals(1, underTest.getResumedHandshakes().getCount());
+  }
+
+  @Test
+  public void testIsResumed() {
+    assertFalse(TlsHandshakeMetrics.isResumed(null, 1000));
+    assertFalse(TlsHandshakeMetrics.isResumed(session(1000), 1000));
+    assertTrue(TlsHandshakeMetrics.isResumed(session(999), 1000));
+  }
+
+  @Test
+  public void testFailed() {
+    underTest.failed();
+    assertEquals(1, underTest.getFailures().getCount());
+  }
+
+  @Test
+  public void testAddMetrics() {
+    PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+    try {
+      MetricRegistry registry = new MetricRegistry();
+      ConnectionPoolMetrics connectionPoolMetrics = new ConnectionPoolMetrics("test.pool", DefaultHttpClientConfig.INSTANCE,
+          connectionManager, connectionManager::getRoutes);
+      underTest.addMetrics(connectionPoolMetrics);
+      connectionPoolMetrics.register(registry);
+
+      assertSame(underTest.getFullHandshakes(), registry.getTimers().get("test.pool.default.tls.handshake.full"));
+      assertSame(underTest.getResumedHandshakes(), registry.getTimers().get("test.pool.default.tls.handshake.resumed"));
+      assertSame(underTest.getFailures(), registry.getCounters().get("test.pool.default.tls.handshake.failures"));
+    }
+    finally {
+      connectionManager.shutdown();
+    }
+  }
+
+  private static SSLSession session(long creationTime) {
+    return (SSLSession)Proxy.newProxyInstance(TlsHandshakeMetricsTest.class.getClassLoader(), new Class<?>[] { SSLSession.class },
+        (proxy, method, args) -> {
+          if ("getCreationTime".equals(method.getName())) {
+            return creationTime;
+          }
+          throw new UnsupportedOperationException(method.getName());
+        });
+  }
+
+}